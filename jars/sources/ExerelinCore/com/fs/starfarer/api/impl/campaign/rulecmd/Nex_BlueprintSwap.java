@@ -20,6 +20,7 @@ import com.fs.starfarer.api.util.Misc.Token;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
 import exerelin.campaign.submarkets.PrismMarket;
 import exerelin.utilities.NexConfig;
+import exerelin.utilities.SpecCatalogue;
 import exerelin.utilities.StringHelper;
 import org.apache.log4j.Logger;
 import org.lwjgl.input.Keyboard;
@@ -406,14 +407,12 @@ public class Nex_BlueprintSwap extends PaginatedOptions {
 		WeightedRandomPicker<PurchaseInfo> picker = new WeightedRandomPicker<>(random);
 		FactionAPI playerFaction = Global.getSector().getPlayerFaction();
 		Set<String> banned = PrismMarket.getRestrictedBlueprints();
+		SpecCatalogue catalogue = SpecCatalogue.getInstance();
 		
 		// hull.hasTag("tiandong_retrofit")
-		for (ShipHullSpecAPI hull : Global.getSettings().getAllShipHullSpecs()) {
-			if (!hull.hasTag("rare_bp") || hull.hasTag(Tags.NO_DROP) || hull.hasTag(Tags.NO_BP_DROP)) 
-				continue;
-			
+		BitSet hulls = getAvailableBlueprints(catalogue.hulls, playerFaction.getKnownShips(), banned);
+		for (ShipHullSpecAPI hull : catalogue.hulls.getSpecs(hulls)) {
 			String hullId = hull.getHullId();
-			if (playerFaction.knowsShip(hullId) || banned.contains(hullId)) continue;
 			
 			PurchaseInfo info = new PurchaseInfo(hullId, PurchaseType.SHIP,
 					hull.getNameWithDesignationWithDashClass(), 
@@ -428,11 +427,9 @@ public class Nex_BlueprintSwap extends PaginatedOptions {
 			
 			picker.add(info, 3 * hull.getRarity());
 		}
-		for (FighterWingSpecAPI wing : Global.getSettings().getAllFighterWingSpecs()) {
-			if (!wing.hasTag("rare_bp") || wing.hasTag(Tags.NO_DROP) || wing.hasTag(Tags.NO_BP_DROP))
-				continue;
+		BitSet wings = getAvailableBlueprints(catalogue.wings, playerFaction.getKnownFighters(), banned);
+		for (FighterWingSpecAPI wing : catalogue.wings.getSpecs(wings)) {
 			String wingId = wing.getId();
-			if (playerFaction.knowsFighter(wingId) || banned.contains(wingId)) continue;
 			
 			PurchaseInfo info = new PurchaseInfo(wingId, PurchaseType.FIGHTER, 
 					wing.getWingName(), 
@@ -445,11 +442,9 @@ public class Nex_BlueprintSwap extends PaginatedOptions {
 			
 			picker.add(info, 2 * wing.getRarity());
 		}
-		for (WeaponSpecAPI wep : Global.getSettings().getAllWeaponSpecs()) {
-			if (!wep.hasTag("rare_bp") || wep.hasTag(Tags.NO_DROP) || wep.hasTag(Tags.NO_BP_DROP))
-				continue;
+		BitSet weapons = getAvailableBlueprints(catalogue.weapons, playerFaction.getKnownWeapons(), banned);
+		for (WeaponSpecAPI wep : catalogue.weapons.getSpecs(weapons)) {
 			String weaponId = wep.getWeaponId();
-			if (playerFaction.knowsWeapon(weaponId) || banned.contains(weaponId)) continue;
 			
 			PurchaseInfo info = new PurchaseInfo(weaponId, PurchaseType.WEAPON, 
 					wep.getWeaponName(), 
@@ -470,6 +465,21 @@ public class Nex_BlueprintSwap extends PaginatedOptions {
 		return blueprints;
 	}
 	
+	/**
+	 * @param index
+	 * @param known IDs of the specs the player already knows.
+	 * @param banned
+	 * @return Specs with a rare blueprint that can drop, that the player doesn't know and isn't banned from buying.
+	 */
+	protected static BitSet getAvailableBlueprints(SpecCatalogue.SpecIndex<?> index, Collection<String> known, Collection<String> banned)
+	{
+		BitSet result = index.getWithTag("rare_bp");
+		result.andNot(index.getWithAnyTag(Tags.NO_DROP, Tags.NO_BP_DROP));
+		result.andNot(index.getIndices(known));
+		result.andNot(index.getIndices(banned));
+		return result;
+	}
+	
 	public static boolean isBlueprints(CargoStackAPI stack)
 	{
 		SpecialItemSpecAPI spec = stack.getSpecialItemSpecIfSpecial();
@@ -15,6 +15,7 @@ import com.fs.starfarer.api.ui.*;
 import com.fs.starfarer.api.util.Misc;
 import exerelin.campaign.intel.specialforces.PlayerSpecialForcesIntel;
 import exerelin.campaign.intel.specialforces.SpecialForcesIntel;
+import exerelin.campaign.intel.specialforces.SpecialForcesPlanner;
 import exerelin.campaign.intel.specialforces.SpecialForcesRouteAI;
 import exerelin.campaign.intel.specialforces.SpecialForcesRouteAI.SpecialForcesTask;
 import exerelin.campaign.ui.InteractionDialogCustomPanelPlugin;
@@ -98,6 +99,8 @@ public class Nex_SpecialForcesCommands extends BaseCommandPlugin {
 		
 		List<IntelInfoPlugin> allRaids = new ArrayList<>();
 		
+		// the player is looking at the list, so don't show them one from up to a day ago
+		SpecialForcesPlanner.getInstance().invalidate();
 		final List<IntelInfoPlugin> incomingList = sf.getRouteAI().getActiveRaidsHostile();
 		allRaids.addAll(incomingList);
 		final List<IntelInfoPlugin> outgoingList = sf.getRouteAI().getActiveEventsFriendly();
@@ -0,0 +1,146 @@
+package exerelin.campaign;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.BattleAPI;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.fleet.FleetMemberAPI;
+import com.fs.starfarer.api.util.Misc;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Works out which members each fleet in a battle lost and gained (by comparing its fleet data snapshot with its current members),
+ * so the listeners that care about casualties in {@code reportBattleFinished} don't each do it themselves.
+ * <p>Each fleet is worked out the first time it's asked for, and kept until a different battle is asked about;
+ * so all the listeners reporting the same battle finishing share the results.
+ * The last ledger is dropped on game load and new game, so it doesn't keep a battle from another sector alive.</p>
+ * <p>In dev mode, each fleet's results are checked against {@code Misc.getSnapshotMembersLost} and a plain
+ * {@code List.contains} comparison of the snapshot and current members, and any mismatch is logged.</p>
+ */
+public class BattleCasualtyLedger {
+
+	public static Logger log = Global.getLogger(BattleCasualtyLedger.class);
+
+	protected static BattleCasualtyLedger lastLedger;
+
+	protected final BattleAPI battle;
+	protected final Map<CampaignFleetAPI, FleetCasualties> casualtiesByFleet = new IdentityHashMap<>();
+
+	protected BattleCasualtyLedger(BattleAPI battle) {
+		this.battle = battle;
+	}
+
+	/**
+	 * @param battle
+	 * @return The ledger for the battle, reusing the last one if it was for the same battle.
+	 */
+	public static BattleCasualtyLedger getLedger(BattleAPI battle) {
+		if (lastLedger == null || lastLedger.battle != battle) {
+			lastLedger = new BattleCasualtyLedger(battle);
+		}
+		return lastLedger;
+	}
+
+	/**
+	 * Drops the last ledger, along with the battle and fleets it refers to.
+	 * Called from {@code ExerelinModPlugin.onNewGame} and {@code onGameLoad}.
+	 */
+	public static void clear() {
+		lastLedger = null;
+	}
+
+	public FleetCasualties getCasualties(CampaignFleetAPI fleet) {
+		FleetCasualties casualties = casualtiesByFleet.get(fleet);
+		if (casualties == null) {
+			casualties = new FleetCasualties(fleet.getFleetData().getSnapshot(), fleet.getFleetData().getMembersListCopy());
+			casualtiesByFleet.put(fleet, casualties);
+			if (Global.getSettings().isDevMode()) verify(fleet, casualties);
+		}
+		return casualties;
+	}
+
+	/**
+	 * Works out the fleet's casualties the way the listeners did before the ledger, and logs any difference.
+	 * @param fleet
+	 * @param casualties
+	 * @return True if the results match.
+	 */
+	protected static boolean verify(CampaignFleetAPI fleet, FleetCasualties casualties) {
+		List<FleetMemberAPI> current = fleet.getFleetData().getMembersListCopy();
+		List<FleetMemberAPI> snapshot = fleet.getFleetData().getSnapshot();
+		List<FleetMemberAPI> lost = new ArrayList<>();
+		List<FleetMemberAPI> gained = new ArrayList<>();
+		float fpLost = 0;
+		for (FleetMemberAPI member : snapshot) {
+			if (!current.contains(member)) {
+				lost.add(member);
+				fpLost += member.getFleetPointCost();
+			}
+		}
+		for (FleetMemberAPI member : current) {
+			if (!snapshot.contains(member)) gained.add(member);
+		}
+
+		boolean match = true;
+		if (!lost.equals(casualties.lost)) {
+			log.error(String.format("Lost members mismatch for fleet %s: expected %s, got %s",
+					fleet.getNameWithFaction(), lost.size(), casualties.lost.size()));
+			match = false;
+		}
+		if (!sameMembers(Misc.getSnapshotMembersLost(fleet), casualties.lost)) {
+			log.error(String.format("Lost members for fleet %s don't match Misc.getSnapshotMembersLost",
+					fleet.getNameWithFaction()));
+			match = false;
+		}
+		if (!gained.equals(casualties.gained)) {
+			log.error(String.format("Gained members mismatch for fleet %s: expected %s, got %s",
+					fleet.getNameWithFaction(), gained.size(), casualties.gained.size()));
+			match = false;
+		}
+		if (fpLost != casualties.fpLost) {
+			log.error(String.format("FP lost mismatch for fleet %s: expected %s, got %s",
+					fleet.getNameWithFaction(), fpLost, casualties.fpLost));
+			match = false;
+		}
+		return match;
+	}
+
+	protected static boolean sameMembers(List<FleetMemberAPI> one, List<FleetMemberAPI> two) {
+		if (one.size() != two.size()) return false;
+		Set<FleetMemberAPI> set = Collections.newSetFromMap(new IdentityHashMap<FleetMemberAPI, Boolean>());
+		set.addAll(one);
+		return set.containsAll(two);
+	}
+
+	public static class FleetCasualties {
+		/**
+		 * Members in the snapshot that are no longer in the fleet (destroyed, or disabled and not recovered),
+		 * in snapshot order.
+		 */
+		public final List<FleetMemberAPI> lost = new ArrayList<>();
+		/**
+		 * Members in the fleet that weren't in the snapshot (e.g. recovered or captured ships), in fleet order.
+		 */
+		public final List<FleetMemberAPI> gained = new ArrayList<>();
+		public final float fpLost;
+
+		public FleetCasualties(List<FleetMemberAPI> snapshot, List<FleetMemberAPI> current) {
+			Set<FleetMemberAPI> currentSet = Collections.newSetFromMap(new IdentityHashMap<FleetMemberAPI, Boolean>());
+			currentSet.addAll(current);
+			Set<FleetMemberAPI> snapshotSet = Collections.newSetFromMap(new IdentityHashMap<FleetMemberAPI, Boolean>());
+			snapshotSet.addAll(snapshot);
+
+			float fp = 0;
+			for (FleetMemberAPI member : snapshot) {
+				if (currentSet.contains(member)) continue;
+				lost.add(member);
+				fp += member.getFleetPointCost();
+			}
+			fpLost = fp;
+			for (FleetMemberAPI member : current) {
+				if (!snapshotSet.contains(member)) gained.add(member);
+			}
+		}
+	}
+}
@@ -36,6 +36,7 @@ import com.fs.starfarer.api.util.WeightedRandomPicker;
 import exerelin.ExerelinConstants;
 import exerelin.campaign.ColonyManager.QueuedIndustry.QueueType;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.colony.ColonyTargetIndex;
 import exerelin.campaign.colony.ColonyTargetValuator;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
 import exerelin.campaign.diplomacy.DiplomacyTraits.TraitIds;
@@ -845,18 +846,34 @@ public class ColonyManager extends BaseCampaignEventListener implements EveryFra
 	
 	protected PlanetAPI pickColonyExpeditionTarget(String factionId, SectorEntityToken anchor, boolean silent) 
 	{
-		Set<PlanetAPI> existingTargets = getExistingColonyTargets();
-		FactionAPI faction = Global.getSector().getFaction(factionId);
-		
 		ColonyTargetValuator valuator = loadColonyTargetValuator(factionId);
 		if (silent) valuator.setSilent(true);
 		
+		if (valuator.canUseTargetIndex()) 
+			return pickColonyExpeditionTargetIndexed(valuator, factionId, anchor, silent);
+		return pickColonyExpeditionTarget(valuator, factionId, anchor);
+	}
+	
+	/**
+	 * Picks the colony expedition target by scanning and evaluating every planet in the sector.
+	 * @param valuator
+	 * @param factionId
+	 * @param anchor
+	 * @return
+	 */
+	protected PlanetAPI pickColonyExpeditionTarget(ColonyTargetValuator valuator, String factionId, SectorEntityToken anchor) 
+	{
+		Set<PlanetAPI> existingTargets = getExistingColonyTargets();
+		FactionAPI faction = Global.getSector().getFaction(factionId);
+		
 		//WeightedRandomPicker<PlanetAPI> planetPicker = new WeightedRandomPicker<>();
 		PlanetAPI best = null;
 		float bestScore = 0;
 		float maxDist = valuator.getMaxDistanceLY(faction);
 		float minScore = valuator.getMinScore(faction);
-		for (StarSystemAPI system : Global.getSector().getStarSystems()) 
+		// small margin in case a system's anchor isn't exactly at the system's location; the distance is checked again below
+		List<StarSystemAPI> systems = HyperspaceIndex.getInstance().getSystemsWithinLY(anchor.getLocationInHyperspace(), maxDist + 1);
+		for (StarSystemAPI system : systems) 
 		{
 			//log.info("Trying system " + system.getBaseName());
 			if (!valuator.prefilterSystem(system, faction)) {
@@ -897,6 +914,57 @@ public class ColonyManager extends BaseCampaignEventListener implements EveryFra
 		return best;
 	}
 	
+	/**
+	 * Picks the colony expedition target from the {@code ColonyTargetIndex}. Gives the same odds as a full scan:
+	 * each planet's score is still randomized by +/- 25%, but planets whose score can't beat 
+	 * the best valid planet's after randomization are skipped without making the live checks on them.
+	 * @param valuator
+	 * @param factionId
+	 * @param anchor
+	 * @param silent
+	 * @return
+	 */
+	protected PlanetAPI pickColonyExpeditionTargetIndexed(ColonyTargetValuator valuator, String factionId, 
+			SectorEntityToken anchor, boolean silent) 
+	{
+		Set<PlanetAPI> existingTargets = getExistingColonyTargets();
+		FactionAPI faction = Global.getSector().getFaction(factionId);
+		ColonyTargetIndex index = ColonyTargetIndex.getInstance();
+		
+		List<ColonyTargetIndex.Candidate> contenders = new ArrayList<>();
+		Map<StarSystemAPI, Boolean> fleetChecks = new HashMap<>();
+		float bestValid = -1;
+		for (ColonyTargetIndex.Candidate candidate : index.getCandidates(valuator, faction, anchor)) 
+		{
+			// candidates are sorted by score, so none of the rest can win either
+			if (bestValid >= 0 && candidate.score * 1.25f < bestValid * 0.75f) break;
+			if (existingTargets.contains(candidate.planet.planet)) continue;
+			if (!index.passesLiveChecks(valuator, candidate, faction, fleetChecks)) continue;
+			
+			if (bestValid < 0) bestValid = candidate.score;
+			contenders.add(candidate);
+		}
+		// randomize in the same order as a full scan would
+		Collections.sort(contenders, ColonyTargetIndex.Candidate.BY_ORDER);
+		
+		PlanetAPI best = null;
+		float bestScore = 0;
+		for (ColonyTargetIndex.Candidate candidate : contenders) 
+		{
+			if (!silent) {
+				log.info(String.format("Planet %s in %s (dist %.1f) has score %.2f", candidate.planet.market.getName(), 
+						candidate.system.system.getNameWithLowercaseType(), candidate.dist, candidate.score));
+			}
+			float score = candidate.score * MathUtils.getRandomNumberInRange(0.75f, 1.25f);
+			if (score > bestScore) {
+				bestScore = score;
+				best = candidate.planet.planet;
+			}
+		}
+		
+		return best;
+	}
+	
 	public static <T extends ColonyTargetValuator> T loadColonyTargetValuator(String factionId)
 	{
 		ColonyTargetValuator valuator = null;
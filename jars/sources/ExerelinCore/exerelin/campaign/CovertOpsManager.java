@@ -330,6 +330,7 @@ public class CovertOpsManager extends BaseCampaignEventListener implements Every
 		int factionCount = 0;
 		String agentFactionId = agentFaction.getId();
 		DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(agentFactionId);
+		CovertTargetTable table = CovertTargetTable.getInstance();
 				
 		for (FactionAPI faction: factions)
 		{
@@ -339,7 +340,7 @@ public class CovertOpsManager extends BaseCampaignEventListener implements Every
 				continue;			
 			
 			RepLevel repLevel = faction.getRelationshipLevel(agentFaction);
-			float dominance = DiplomacyManager.getDominanceFactor(faction.getId());
+			float dominance = table.getDominance(faction.getId());
 			float disposition = brain.getDisposition(factionId).disposition.getModifiedValue();
 			
 			float weight = 1f;
@@ -765,7 +766,7 @@ public class CovertOpsManager extends BaseCampaignEventListener implements Every
 			// don't pick a target faction for Instigate Rebellion, just iterate over all valid targets
 			else {
 				List<MarketAPI> validTargets = new ArrayList<>();
-				for (MarketAPI candidate : Global.getSector().getEconomy().getMarketsCopy()) {
+				for (MarketAPI candidate : CovertTargetTable.getInstance().getRebellionCandidates(factions)) {
 					if (factions != null && !factions.contains(candidate.getFaction())) continue;
 					validTargets.add(candidate);
 				}
@@ -829,7 +830,10 @@ public class CovertOpsManager extends BaseCampaignEventListener implements Every
 	}
 
 	public MarketAPI pickTargetMarket(FactionAPI agentFaction, FactionAPI targetFaction, String actionType, List<MarketAPI> markets, Random random) {
-		if (markets == null) markets = Global.getSector().getEconomy().getMarketsCopy();
+		if (markets == null) {
+			if (targetFaction != null) markets = CovertTargetTable.getInstance().getFactionMarkets(targetFaction.getId());
+			else markets = Global.getSector().getEconomy().getMarketsCopy();
+		}
 		WeightedRandomPicker<MarketAPI> marketPicker = new WeightedRandomPicker(random);
 		for (MarketAPI market: markets)
 		{
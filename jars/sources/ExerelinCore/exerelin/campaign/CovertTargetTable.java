@@ -0,0 +1,139 @@
+package exerelin.campaign;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
+import exerelin.campaign.econ.MarketIndex;
+import org.apache.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Per-economy-tick data for picking covert action targets: each faction's dominance factor,
+ * and the markets that could have a rebellion instigated on them, by owner faction.
+ * <p>Both are expensive to get (the dominance factor goes through every market in the sector, rebellion eligibility
+ * checks several things per market) and change slowly, so they're worked out at most once per economy tick,
+ * the first time something asks. Relationship levels and dispositions are cheap to look up and can change at any time,
+ * so {@link CovertOpsManager} still gets those live.</p>
+ * <p>A market that becomes eligible for rebellion mid-tick isn't a candidate until the next tick;
+ * candidates are checked again when picked, so one that stops being eligible is never used.</p>
+ */
+public class CovertTargetTable implements EconomyTickListener {
+
+	public static Logger log = Global.getLogger(CovertTargetTable.class);
+
+	protected static CovertTargetTable currInstance;
+
+	protected final Map<String, Float> dominance = new HashMap<>();
+	protected Map<String, List<MarketAPI>> rebellionCandidates;
+
+	// runcode exerelin.campaign.CovertTargetTable.createInstance(true)
+	/**
+	 * Creates and stores an instance of the table. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the table if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the table being retained between sectors.
+	 * @return
+	 */
+	public static CovertTargetTable createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) Global.getSector().getListenerManager().removeListener(currInstance);
+			else return currInstance;
+		}
+		currInstance = new CovertTargetTable();
+		Global.getSector().getListenerManager().addListener(currInstance, true);
+		return currInstance;
+	}
+
+	public static CovertTargetTable getInstance() {
+		return getInstance(true);
+	}
+
+	public static CovertTargetTable getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Discards the table's data, to be worked out again when next needed.
+	 */
+	public void invalidate() {
+		dominance.clear();
+		rebellionCandidates = null;
+	}
+
+	/**
+	 * @param factionId
+	 * @return Same as {@code DiplomacyManager.getDominanceFactor}, as of the first call this economy tick.
+	 */
+	public float getDominance(String factionId) {
+		Float value = dominance.get(factionId);
+		if (value == null) {
+			value = DiplomacyManager.getDominanceFactor(factionId);
+			dominance.put(factionId, value);
+		}
+		return value;
+	}
+
+	protected Map<String, List<MarketAPI>> getRebellionCandidatesByFaction() {
+		if (rebellionCandidates == null) {
+			rebellionCandidates = new HashMap<>();
+			int count = 0;
+			for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+				if (market.isHidden()) continue;
+				if (!CovertOpsManager.canInstigateRebellion(market)) continue;
+				String factionId = market.getFactionId();
+				List<MarketAPI> list = rebellionCandidates.get(factionId);
+				if (list == null) {
+					list = new ArrayList<>();
+					rebellionCandidates.put(factionId, list);
+				}
+				list.add(market);
+				count++;
+			}
+			log.info("Rebellion candidate markets: " + count);
+		}
+		return rebellionCandidates;
+	}
+
+	/**
+	 * @param factions If non-null, only markets belonging to these factions are returned.
+	 * @return Non-hidden markets that could have a rebellion instigated on them as of this economy tick.
+	 * Check {@code CovertOpsManager.canInstigateRebellion} (and the owner) again before using one.
+	 */
+	public List<MarketAPI> getRebellionCandidates(@Nullable Collection<FactionAPI> factions) {
+		Map<String, List<MarketAPI>> byFaction = getRebellionCandidatesByFaction();
+		List<MarketAPI> results = new ArrayList<>();
+		if (factions == null) {
+			for (List<MarketAPI> list : byFaction.values()) results.addAll(list);
+			return results;
+		}
+		for (FactionAPI faction : new LinkedHashSet<>(factions)) {
+			List<MarketAPI> list = byFaction.get(faction.getId());
+			if (list != null) results.addAll(list);
+		}
+		return results;
+	}
+
+	/**
+	 * @param factionId
+	 * @return The faction's non-hidden markets, from the {@link MarketIndex}.
+	 */
+	public List<MarketAPI> getFactionMarkets(String factionId) {
+		List<MarketAPI> results = new ArrayList<>();
+		for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(factionId)) {
+			if (market.isHidden()) continue;
+			results.add(market);
+		}
+		return results;
+	}
+
+	@Override
+	public void reportEconomyTick(int iterIndex) {
+		invalidate();
+	}
+
+	@Override
+	public void reportEconomyMonthEnd() {}
+}
@@ -20,8 +20,11 @@ import exerelin.campaign.ExerelinSetupData.StartRelationsMode;
 import exerelin.campaign.alliances.Alliance;
 import exerelin.campaign.alliances.AllianceVoter;
 import exerelin.campaign.diplomacy.DiplomacyBrain;
+import exerelin.campaign.diplomacy.DiplomacyDispositionUpdater;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
 import exerelin.campaign.diplomacy.DiplomacyTraits.TraitIds;
+import exerelin.campaign.diplomacy.FactionStrengthLedger;
+import exerelin.campaign.diplomacy.RelationshipBoundsMatrix;
 import exerelin.campaign.intel.MilestoneTracker;
 import exerelin.campaign.intel.diplomacy.DiplomacyIntel;
 import exerelin.campaign.intel.diplomacy.DiplomacyProfileIntel;
@@ -438,6 +441,8 @@ public class DiplomacyManager extends BaseCampaignEventListener implements Every
         
         // if now at peace/war, do alliance vote
         ExerelinReputationAdjustmentResult repResult = new ExerelinReputationAdjustmentResult(delta, wasHostile, isHostile);
+        if (repResult.wasHostile != repResult.isHostile)
+            FactionStrengthLedger.invalidate();
         
         if (repResult.wasHostile && !repResult.isHostile)
         {
@@ -926,6 +931,7 @@ public class DiplomacyManager extends BaseCampaignEventListener implements Every
 		
 		Map<String, MutableStat> modMap = getMaxRelationshipModMap(factionId);
 		modMap.put(otherFactionId, stat);
+		RelationshipBoundsMatrix.updatePair(factionId, otherFactionId);
 	}
     
     public DiplomacyBrain getDiplomacyBrain(String factionId)
@@ -1200,10 +1206,7 @@ public class DiplomacyManager extends BaseCampaignEventListener implements Every
     public static void notifyMarketCaptured(MarketAPI market, FactionAPI oldOwner, FactionAPI newOwner, boolean isCapture)
     {
         getManager().handleMarketCapture(market, oldOwner, newOwner);
-        for (DiplomacyBrain brain : getManager().diplomacyBrains.values())
-        {
-            brain.updateAllDispositions(0);
-        }
+        DiplomacyDispositionUpdater.getInstance().requestUpdate(getManager().diplomacyBrains.values(), 0);
         String originalOwner = NexUtilsMarket.getOriginalOwner(market);
         if (originalOwner != null && !AllianceManager.areFactionsAllied(originalOwner, newOwner.getId()))
         {
@@ -0,0 +1,203 @@
+package exerelin.campaign;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.StarSystemAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.impl.campaign.events.BaseEventPlugin.MarketFilter;
+import com.fs.starfarer.api.util.Misc;
+import exerelin.campaign.econ.MarketIndex;
+import exerelin.utilities.UniformGrid;
+import org.apache.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.util.vector.Vector2f;
+
+import java.util.*;
+
+/**
+ * Grid of the sector's star systems by hyperspace location, for "within N light-years" and "closest" queries
+ * on systems and their markets without measuring the distance to every one.
+ * <p>Markets are looked up per system from the {@link MarketIndex}, so ownership changes need no handling here.
+ * The grid is rebuilt when the number of star systems changes (checked on every query), or when a hash of
+ * the systems' IDs and locations does (checked at most once per campaign clock timestamp, i.e. once per unpaused frame),
+ * so systems being swapped out or moved are picked up by the next frame.
+ * Markets in hyperspace itself aren't in any system; they are checked one by one.</p>
+ */
+public class HyperspaceIndex {
+
+	public static Logger log = Global.getLogger(HyperspaceIndex.class);
+
+	public static final float CELL_SIZE_LY = 5;
+
+	protected static HyperspaceIndex currInstance;
+
+	protected final UniformGrid<StarSystemAPI> grid = new UniformGrid<>(CELL_SIZE_LY * Misc.getUnitsPerLightYear());
+	protected int numSystems = -1;
+	protected int systemsHash;
+	protected long lastHashCheckTimestamp = Long.MIN_VALUE;
+
+	// runcode exerelin.campaign.HyperspaceIndex.createInstance(true)
+	/**
+	 * Creates and stores an instance of the index. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the index if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the index being retained between sectors.
+	 * @return
+	 */
+	public static HyperspaceIndex createInstance(boolean replace) {
+		if (currInstance != null && !replace) return currInstance;
+		currInstance = new HyperspaceIndex();
+		return currInstance;
+	}
+
+	public static HyperspaceIndex getInstance() {
+		return getInstance(true);
+	}
+
+	public static HyperspaceIndex getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Refills the grid from the sector's star systems. Grid entries are in the same order as {@code getStarSystems}.
+	 */
+	public void rebuild() {
+		grid.clear();
+		List<StarSystemAPI> systems = Global.getSector().getStarSystems();
+		for (StarSystemAPI system : systems) {
+			Vector2f loc = system.getLocation();
+			grid.add(system, loc.x, loc.y);
+		}
+		numSystems = systems.size();
+		systemsHash = getSystemsHash(systems);
+		lastHashCheckTimestamp = Global.getSector().getClock().getTimestamp();
+	}
+
+	protected static int getSystemsHash(List<StarSystemAPI> systems) {
+		int hash = 1;
+		for (StarSystemAPI system : systems) {
+			Vector2f loc = system.getLocation();
+			hash = 31 * hash + system.getId().hashCode();
+			hash = 31 * hash + Float.floatToIntBits(loc.x);
+			hash = 31 * hash + Float.floatToIntBits(loc.y);
+		}
+		return hash;
+	}
+
+	protected void checkSystems() {
+		List<StarSystemAPI> systems = Global.getSector().getStarSystems();
+		if (systems.size() != numSystems) {
+			rebuild();
+			return;
+		}
+		long timestamp = Global.getSector().getClock().getTimestamp();
+		if (timestamp == lastHashCheckTimestamp) return;
+		lastHashCheckTimestamp = timestamp;
+		if (getSystemsHash(systems) != systemsHash) {
+			log.info("Star systems changed, rebuilding hyperspace index");
+			rebuild();
+		}
+	}
+
+	/**
+	 * @param loc Hyperspace location.
+	 * @param distLY
+	 * @return Star systems no further than {@code distLY} from {@code loc}, in the same order as {@code SectorAPI.getStarSystems}.
+	 */
+	public List<StarSystemAPI> getSystemsWithinLY(Vector2f loc, float distLY) {
+		checkSystems();
+		List<StarSystemAPI> results = new ArrayList<>();
+		for (UniformGrid.Entry<StarSystemAPI> entry : grid.getWithinRadius(loc.x, loc.y,
+				distLY * Misc.getUnitsPerLightYear(), null)) {
+			results.add(entry.item);
+		}
+		return results;
+	}
+
+	/**
+	 * @param loc Hyperspace location.
+	 * @param count
+	 * @param filter May be null.
+	 * @return Up to {@code count} star systems accepted by the filter, closest first.
+	 */
+	public List<StarSystemAPI> getNearestSystems(Vector2f loc, int count, @Nullable UniformGrid.Filter<StarSystemAPI> filter) {
+		checkSystems();
+		List<StarSystemAPI> results = new ArrayList<>();
+		for (UniformGrid.Entry<StarSystemAPI> entry : grid.getNearest(loc.x, loc.y, count, filter)) {
+			results.add(entry.item);
+		}
+		return results;
+	}
+
+	/**
+	 * @param loc Hyperspace location.
+	 * @param distLY
+	 * @param factionId If non-null, only markets belonging to this faction are returned.
+	 * @return Markets (including hidden ones) no further than {@code distLY} from {@code loc}.
+	 */
+	public List<MarketAPI> getMarketsWithinLY(Vector2f loc, float distLY, @Nullable String factionId) {
+		List<MarketAPI> results = new ArrayList<>();
+		for (StarSystemAPI system : getSystemsWithinLY(loc, distLY)) {
+			addMarkets(system, factionId, null, results);
+		}
+		float maxDist = distLY * Misc.getUnitsPerLightYear();
+		for (MarketAPI market : getHyperspaceMarkets()) {
+			if (factionId != null && !factionId.equals(market.getFactionId())) continue;
+			if (Misc.getDistance(loc, market.getLocationInHyperspace()) > maxDist) continue;
+			results.add(market);
+		}
+		return results;
+	}
+
+	/**
+	 * Like {@code BaseEventPlugin.findNearestMarket}, but only looks at the star systems nearest to {@code from}.
+	 * @param from
+	 * @param filter May be null.
+	 * @return The closest market other than {@code from} accepted by the filter, or null if there is none.
+	 */
+	public MarketAPI getNearestMarket(final MarketAPI from, @Nullable final MarketFilter filter) {
+		Vector2f loc = from.getLocationInHyperspace();
+		final List<MarketAPI> found = new ArrayList<>(1);
+		List<StarSystemAPI> nearest = getNearestSystems(loc, 1, new UniformGrid.Filter<StarSystemAPI>() {
+			@Override
+			public boolean accept(StarSystemAPI system) {
+				found.clear();
+				addMarkets(system, null, filter, found);
+				found.remove(from);
+				return !found.isEmpty();
+			}
+		});
+
+		MarketAPI best = null;
+		float bestDist = Float.MAX_VALUE;
+		if (!nearest.isEmpty()) {
+			List<MarketAPI> candidates = new ArrayList<>();
+			addMarkets(nearest.get(0), null, filter, candidates);
+			candidates.remove(from);
+			best = candidates.get(0);
+			bestDist = Misc.getDistance(loc, best.getLocationInHyperspace());
+		}
+		for (MarketAPI market : getHyperspaceMarkets()) {
+			if (market == from) continue;
+			if (filter != null && !filter.acceptMarket(market)) continue;
+			float dist = Misc.getDistance(loc, market.getLocationInHyperspace());
+			if (dist < bestDist) {
+				bestDist = dist;
+				best = market;
+			}
+		}
+		return best;
+	}
+
+	protected void addMarkets(LocationAPI loc, @Nullable String factionId, @Nullable MarketFilter filter, List<MarketAPI> results) {
+		for (MarketAPI market : MarketIndex.getInstance().getMarketsInLocation(loc)) {
+			if (factionId != null && !factionId.equals(market.getFactionId())) continue;
+			if (filter != null && !filter.acceptMarket(market)) continue;
+			results.add(market);
+		}
+	}
+
+	protected Collection<MarketAPI> getHyperspaceMarkets() {
+		return MarketIndex.getInstance().getMarketsInLocation(Global.getSector().getHyperspace());
+	}
+}
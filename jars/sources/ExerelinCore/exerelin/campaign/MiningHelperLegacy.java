@@ -29,9 +29,11 @@ import com.fs.starfarer.api.util.WeightedRandomPicker;
 import org.magiclib.util.MagicSettings;
 import exerelin.ExerelinConstants;
 import exerelin.campaign.submarkets.PrismMarket;
+import exerelin.utilities.AliasTable;
 import exerelin.utilities.NexUtilsAstro;
 import exerelin.utilities.NexUtilsFaction;
 import exerelin.utilities.NexUtilsFleet;
+import exerelin.utilities.SpecCatalogue;
 import exerelin.utilities.StringHelper;
 import org.apache.log4j.Logger;
 import org.json.JSONArray;
@@ -99,6 +101,8 @@ public class MiningHelperLegacy {
 	//protected static float baseAccidentSupplyLoss = 12.5f;
 	protected static float baseAccidentHullDamage = 400;
 	protected static float exhaustionPer100MiningStrength = 0.04f;
+	
+	protected static AliasTable<WeaponSpecAPI> cacheWeapons;
 	protected static float renewRatePerDay = 0.002f;
 	protected static float planetDangerMult = 1.25f;	// for non-moon planets
 	protected static float planetExhaustionMult = 0.75f;
@@ -648,23 +652,31 @@ public class MiningHelperLegacy {
 	
 	public static WeaponSpecAPI getRandomWeapon()
 	{
-		WeightedRandomPicker<WeaponSpecAPI> weaponPicker = new WeightedRandomPicker<>();
-		List<String> weaponIds = Global.getSector().getAllWeaponIds();
-		Set<String> restrictedWeapons = PrismMarket.getRestrictedWeapons();
-		for (String weaponId : weaponIds)
-		{
-			if (weaponId.startsWith("tem_")) continue;
-			if (restrictedWeapons.contains(weaponId)) continue;
+		if (cacheWeapons == null) {
+			// the candidates and their weights never change, so build the picker once
+			SpecCatalogue catalogue = SpecCatalogue.getInstance();
+			BitSet allowed = new BitSet();
+			allowed.set(0, catalogue.weapons.size());
+			allowed.andNot(catalogue.weapons.getWithTag(Tags.RESTRICTED));
+			allowed.andNot(catalogue.weapons.getIndices(PrismMarket.getRestrictedWeapons()));
 			
-			WeaponSpecAPI weapon = Global.getSettings().getWeaponSpec(weaponId);
-			if (weapon.getAIHints().contains(AIHints.SYSTEM)) continue;
-			if (weapon.getTags().contains(Tags.RESTRICTED)) continue;
-			float weight = 10000/weapon.getBaseValue();
-			if (weapon.getSize() == WeaponSize.LARGE) weight *= 4;
-			else if (weapon.getSize() == WeaponSize.MEDIUM) weight *= 2;
-			weaponPicker.add(weapon, weight);
+			List<WeaponSpecAPI> weapons = new ArrayList<>();
+			List<Float> weights = new ArrayList<>();
+			for (WeaponSpecAPI weapon : catalogue.weapons.getSpecs(allowed))
+			{
+				if (weapon.getWeaponId().startsWith("tem_")) continue;
+				if (weapon.getAIHints().contains(AIHints.SYSTEM)) continue;
+				float weight = 10000/weapon.getBaseValue();
+				if (weapon.getSize() == WeaponSize.LARGE) weight *= 4;
+				else if (weapon.getSize() == WeaponSize.MEDIUM) weight *= 2;
+				weapons.add(weapon);
+				weights.add(weight);
+			}
+			float[] weightArray = new float[weights.size()];
+			for (int i = 0; i < weightArray.length; i++) weightArray[i] = weights.get(i);
+			cacheWeapons = new AliasTable<>(weapons, weightArray);
 		}
-		return weaponPicker.pick();
+		return cacheWeapons.pick(Misc.random);
 	}
 	
 	public static HullModSpecAPI getRandomHullmod()
@@ -267,6 +267,7 @@ public class RevengeanceManager extends BaseCampaignEventListener implements Col
 		String playerAlignedFactionId = PlayerFactionStore.getPlayerFactionId();
 		List<String> enemies = DiplomacyManager.getFactionsAtWarWithFaction(playerAlignedFactionId, 
 				true, true, false);
+		BattleCasualtyLedger ledger = BattleCasualtyLedger.getLedger(battle);
 		
 		for (CampaignFleetAPI killedFleet : killedFleets)
 		{
@@ -280,11 +281,8 @@ public class RevengeanceManager extends BaseCampaignEventListener implements Col
 			if (killedFleet.getMemoryWithoutUpdate().getBoolean(MemFlags.MEMORY_KEY_NO_REP_IMPACT))
 				continue;
 			
-			List<FleetMemberAPI> killCurrent = killedFleet.getFleetData().getMembersListCopy();
-			for (FleetMemberAPI member : killedFleet.getFleetData().getSnapshot()) {
-				if (!killCurrent.contains(member)) {
-					recentFpKilled += member.getFleetPointCost();
-				}
+			for (FleetMemberAPI member : ledger.getCasualties(killedFleet).lost) {
+				recentFpKilled += member.getFleetPointCost();
 			}
 		}
 		
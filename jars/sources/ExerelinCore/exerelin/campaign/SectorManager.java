@@ -30,6 +30,8 @@ import exerelin.ExerelinConstants;
 import exerelin.campaign.ai.StrategicAI;
 import exerelin.campaign.alliances.Alliance;
 import exerelin.campaign.battle.EncounterLootHandler;
+import exerelin.campaign.diplomacy.FactionStrengthLedger;
+import exerelin.campaign.econ.MarketIndex;
 import exerelin.campaign.econ.RaidCondition;
 import exerelin.campaign.events.NexRepTrackerEvent;
 import exerelin.campaign.fleets.InvasionFleetManager;
@@ -1081,6 +1083,8 @@ public class SectorManager extends BaseCampaignEventListener implements EveryFra
         }
         market.setFactionId(newOwnerId);
         market.setPlayerOwned(newOwnerId.equals(Factions.PLAYER));
+        MarketIndex.getInstance().updateMarket(market);
+        FactionStrengthLedger.invalidate();
         
         // don't lock player out of freshly captured market
         if (!newOwner.isHostileTo(Factions.PLAYER))
@@ -1442,6 +1446,7 @@ public class SectorManager extends BaseCampaignEventListener implements EveryFra
         if (!manager.liveFactionIds.contains(factionId)) {
             manager.liveFactionIds.add(factionId);
             DiplomacyManager.getManager().createDiplomacyProfile(factionId);
+            FactionStrengthLedger.invalidate();
         }
     }
     
@@ -1463,6 +1468,7 @@ public class SectorManager extends BaseCampaignEventListener implements EveryFra
         if (manager.liveFactionIds.contains(factionId)) {
             manager.liveFactionIds.remove(factionId);
             DiplomacyManager.getManager().removeDiplomacyProfile(factionId);
+            FactionStrengthLedger.invalidate();
         }
     }
 
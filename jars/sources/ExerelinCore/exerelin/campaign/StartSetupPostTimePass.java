@@ -393,7 +393,7 @@ public class StartSetupPostTimePass {
 			if (ExerelinSetupData.getInstance().randomAntiochEnabled && factionId.equals("templars")) {
 				String toExecute = "data.scripts.world.templars.TEM_Antioch.getAscalon()";
 				try {
-					entity = (SectorEntityToken)NexUtils.runCode(toExecute, null, SectorEntityToken.class);
+					entity = (SectorEntityToken)NexUtils.runCodeFrom(StartSetupPostTimePass.class.getName(), toExecute, null, SectorEntityToken.class);
 				} catch (Exception ex) {}
 			}
 
@@ -13,7 +13,6 @@ import com.fs.starfarer.api.impl.campaign.RuleBasedInteractionDialogPluginImpl;
 import com.fs.starfarer.api.impl.campaign.ids.Factions;
 import com.fs.starfarer.api.impl.campaign.rulecmd.salvage.MarketCMD.TempData;
 import com.fs.starfarer.api.loading.FighterWingSpecAPI;
-import com.fs.starfarer.api.util.Misc;
 import exerelin.campaign.submarkets.PrismMarket;
 import exerelin.utilities.NexUtilsMarket;
 import exerelin.utilities.StringHelper;
@@ -206,10 +205,11 @@ public class StatsTracker extends BaseCampaignEventListener implements ColonyPla
 
         float recentFpKilled = 0;
         int recentShipsKilled = 0;
+        BattleCasualtyLedger ledger = BattleCasualtyLedger.getLedger(battle);
         
         for (CampaignFleetAPI killedFleet : killedFleets)
         {
-            for (FleetMemberAPI member : Misc.getSnapshotMembersLost(killedFleet)) {
+            for (FleetMemberAPI member : ledger.getCasualties(killedFleet).lost) {
                 recentFpKilled += member.getFleetPointCost();
                 recentShipsKilled++;
 
@@ -222,19 +222,14 @@ public class StatsTracker extends BaseCampaignEventListener implements ColonyPla
         fpKilled += recentFpKilled * involvedFraction;
         shipsKilled += recentShipsKilled * involvedFraction;
         
-        List<FleetMemberAPI> myCurrent = myFleet.getFleetData().getMembersListCopy();
-        List<FleetMemberAPI> mySnapshot = myFleet.getFleetData().getSnapshot();
-        for (FleetMemberAPI member : mySnapshot) {
-            if (!myCurrent.contains(member)) {
-                fpLost += member.getFleetPointCost();
-                shipsLost++;
-            }
+        BattleCasualtyLedger.FleetCasualties myCasualties = ledger.getCasualties(myFleet);
+        for (FleetMemberAPI member : myCasualties.lost) {
+            fpLost += member.getFleetPointCost();
+            shipsLost++;
         }
         // report captured ships to Prism market
-        for (FleetMemberAPI member : myCurrent) {
-            if (!mySnapshot.contains(member)) {
-                PrismMarket.notifyShipAcquired(member);
-            }
+        for (FleetMemberAPI member : myCasualties.gained) {
+            PrismMarket.notifyShipAcquired(member);
         }
     }
     
@@ -0,0 +1,421 @@
+package exerelin.campaign.ai;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.RepLevel;
+import com.fs.starfarer.api.campaign.econ.CommoditySpecAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Factions;
+import com.fs.starfarer.api.util.Misc;
+import exerelin.campaign.AllianceManager;
+import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.SectorManager;
+import exerelin.campaign.ai.concern.BaseStrategicConcern;
+import exerelin.campaign.ai.concern.DiplomacyConcern;
+import exerelin.campaign.alliances.Alliance;
+import exerelin.campaign.diplomacy.DiplomacyBrain;
+import exerelin.campaign.econ.EconomyInfoHelper;
+import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.utilities.NexUtilsFaction;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * The sector state a strategy meeting's concerns work from, captured once when the meeting starts
+ * (see {@code StrategicAI.MeetingPhase.CAPTURE}). Every later phase reads from this instead of the live sector,
+ * so a meeting comes to the same results whether its phases run in one frame or are spread over several.
+ * <p>Covers relationships, alliances, wars, infamy, faction strength, the AI faction's dispositions and ceasefires,
+ * market ownership, value and defenses, and the economy data from {@code EconomyInfoHelper}.
+ * Anything not captured (e.g. a faction or market that appeared after the capture) is read live.
+ * Not covered: the AI's own raid history, ship quality, market conditions and revanchist claims,
+ * and the actions picked in the {@code ACT} phase, which act on the live sector.</p>
+ * <p>Not saved; a meeting resumed from a save recaptures the sector as it is on load.</p>
+ */
+public class MeetingSnapshot {
+
+	@Getter protected final long timestamp;
+	protected final String factionId;
+	@Getter protected final boolean playerCommissioned;
+	protected final List<String> liveFactionIds;
+	protected final Set<String> liveFactionIdSet;
+
+	protected final Map<String, Map<String, Relationship>> relationships = new HashMap<>();
+	protected final Map<String, Alliance> alliances = new HashMap<>();
+	protected final Map<Alliance, Set<String>> allianceMembers = new HashMap<>();
+	protected final Map<Alliance, Set<String>> alliancePermaMembers = new HashMap<>();
+	protected final Map<String, List<String>> warsIncludingPirates = new HashMap<>();
+	protected final Map<String, List<String>> warsExcludingPirates = new HashMap<>();
+	protected final Map<String, Float> badboy = new HashMap<>();
+	protected final Map<String, Float> factionStrengths = new HashMap<>();
+	@Getter protected final float warWeariness;
+
+	protected final boolean haveBrain;
+	@Getter protected final float ourStrength;
+	@Getter protected final float enemyStrength;
+	protected final Set<String> ceasefires = new HashSet<>();
+	protected final Map<String, Float> dispositions = new HashMap<>();
+
+	protected final List<MarketAPI> markets;
+	protected final Map<MarketAPI, MarketEntry> marketEntries = new HashMap<>();
+	protected final List<MarketAPI> ownInvadableMarkets;
+	protected final Map<String, Float> commodityMarketValues = new HashMap<>();
+	@Getter protected final EconomyInfoHelper economy;
+
+	public MeetingSnapshot(StrategicAI ai) {
+		timestamp = Global.getSector().getClock().getTimestamp();
+		factionId = ai.getFactionId();
+		FactionAPI us = ai.getFaction();
+		playerCommissioned = Misc.getCommissionFaction() != null;
+		liveFactionIds = SectorManager.getLiveFactionIdsCopy();
+		liveFactionIdSet = new HashSet<>(liveFactionIds);
+
+		List<FactionAPI> allFactions = Global.getSector().getAllFactions();
+		for (FactionAPI faction : allFactions) {
+			Map<String, Relationship> row = new HashMap<>();
+			for (FactionAPI other : allFactions) {
+				row.put(other.getId(), new Relationship(faction.getRelationship(other.getId()),
+						faction.getRelationshipLevel(other), faction.isHostileTo(other)));
+			}
+			relationships.put(faction.getId(), row);
+			badboy.put(faction.getId(), DiplomacyManager.getBadboy(faction));
+
+			Alliance alliance = AllianceManager.getFactionAlliance(faction.getId());
+			if (alliance == null) continue;
+			alliances.put(faction.getId(), alliance);
+			if (!allianceMembers.containsKey(alliance)) {
+				allianceMembers.put(alliance, alliance.getMembersCopy());
+				alliancePermaMembers.put(alliance, alliance.getPermaMembersCopy());
+			}
+		}
+
+		for (String liveId : liveFactionIds) {
+			warsIncludingPirates.put(liveId, DiplomacyManager.getFactionsAtWarWithFaction(liveId, true, true, false));
+			warsExcludingPirates.put(liveId, DiplomacyManager.getFactionsAtWarWithFaction(liveId, false, true, false));
+			factionStrengths.put(liveId, DiplomacyConcern.getLiveFactionStrength(Global.getSector().getFaction(liveId)));
+		}
+		warWeariness = DiplomacyManager.getWarWeariness(factionId, true);
+
+		DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(factionId);
+		haveBrain = brain != null;
+		if (brain != null) {
+			ourStrength = brain.getOurStrength();
+			enemyStrength = brain.getEnemyStrength();
+			ceasefires.addAll(brain.getCeasefires().keySet());
+			for (String liveId : liveFactionIds) {
+				dispositions.put(liveId, brain.getDisposition(liveId).disposition.getModifiedValue());
+			}
+		} else {
+			ourStrength = 0;
+			enemyStrength = 0;
+		}
+
+		markets = Global.getSector().getEconomy().getMarketsCopy();
+		InvasionFleetManager invMan = InvasionFleetManager.getManager();
+		for (MarketAPI market : markets) {
+			boolean validTarget = invMan != null && invMan.isValidInvasionOrRaidTarget(us, null, market, null, false);
+			marketEntries.put(market, new MarketEntry(market, validTarget));
+		}
+		ownInvadableMarkets = NexUtilsFaction.getFactionMarkets(factionId, true);
+
+		if (!markets.isEmpty()) {
+			MarketAPI testMarket = markets.get(0);
+			for (CommoditySpecAPI spec : Global.getSettings().getAllCommoditySpecs()) {
+				if (spec.isNonEcon() || spec.isMeta() || spec.isPersonnel()) continue;
+				commodityMarketValues.put(spec.getId(), testMarket.getCommodityData(spec.getId()).getCommodityMarketData().getMarketValue());
+			}
+		}
+		economy = EconomyInfoHelper.getInstance().copy();
+	}
+
+	/*
+	============================================================================
+	// factions
+	============================================================================
+	*/
+
+	public boolean isFactionAlive(String factionId) {
+		return liveFactionIdSet.contains(factionId);
+	}
+
+	public List<String> getLiveFactionIds() {
+		return new ArrayList<>(liveFactionIds);
+	}
+
+	/**
+	 * Same as {@code BaseStrategicConcern.getRelevantLiveFactionIds()}, as of the capture.
+	 * @return
+	 */
+	public List<String> getRelevantLiveFactionIds() {
+		List<String> live = getLiveFactionIds();
+		if (playerCommissioned) live.remove(Factions.PLAYER);
+		return live;
+	}
+
+	public boolean isFactionCommissionedPlayer(FactionAPI faction) {
+		return faction.isPlayerFaction() && playerCommissioned;
+	}
+
+	protected Relationship getRelationshipEntry(String factionId, String otherFactionId) {
+		Map<String, Relationship> row = relationships.get(factionId);
+		if (row == null) return null;
+		return row.get(otherFactionId);
+	}
+
+	public float getRelationship(String factionId, String otherFactionId) {
+		Relationship rel = getRelationshipEntry(factionId, otherFactionId);
+		if (rel == null) return Global.getSector().getFaction(factionId).getRelationship(otherFactionId);
+		return rel.value;
+	}
+
+	public RepLevel getRelationshipLevel(String factionId, String otherFactionId) {
+		Relationship rel = getRelationshipEntry(factionId, otherFactionId);
+		if (rel == null) return Global.getSector().getFaction(factionId).getRelationshipLevel(otherFactionId);
+		return rel.level;
+	}
+
+	public RepLevel getRelationshipLevel(FactionAPI faction, FactionAPI other) {
+		return getRelationshipLevel(faction.getId(), other.getId());
+	}
+
+	public boolean isHostile(String factionId, String otherFactionId) {
+		Relationship rel = getRelationshipEntry(factionId, otherFactionId);
+		if (rel == null) return Global.getSector().getFaction(factionId).isHostileTo(otherFactionId);
+		return rel.hostile;
+	}
+
+	public boolean isHostile(FactionAPI faction, FactionAPI other) {
+		return isHostile(faction.getId(), other.getId());
+	}
+
+	public boolean isAtWorst(FactionAPI faction, FactionAPI other, RepLevel level) {
+		return getRelationshipLevel(faction, other).isAtWorst(level);
+	}
+
+	public boolean isAtBest(FactionAPI faction, FactionAPI other, RepLevel level) {
+		return getRelationshipLevel(faction, other).isAtBest(level);
+	}
+
+	/**
+	 * @param factionId
+	 * @return Copy of the members of the faction's alliance, or null if it isn't in one.
+	 */
+	public Set<String> getAllianceMembers(String factionId) {
+		if (!relationships.containsKey(factionId)) {
+			Alliance alliance = AllianceManager.getFactionAlliance(factionId);
+			return alliance != null ? alliance.getMembersCopy() : null;
+		}
+		Alliance alliance = alliances.get(factionId);
+		if (alliance == null) return null;
+		return new HashSet<>(allianceMembers.get(alliance));
+	}
+
+	/**
+	 * Same as {@code AllianceManager.areFactionsPermaAllied}, as of the capture.
+	 */
+	public boolean areFactionsPermaAllied(String factionId1, String factionId2) {
+		if (factionId1.equals(factionId2)) return true;
+		if (!relationships.containsKey(factionId1) || !relationships.containsKey(factionId2))
+			return AllianceManager.areFactionsPermaAllied(factionId1, factionId2);
+		Alliance alliance = alliances.get(factionId1);
+		if (alliance == null || alliance != alliances.get(factionId2)) return false;
+		Set<String> perma = alliancePermaMembers.get(alliance);
+		return perma.contains(factionId1) && perma.contains(factionId2);
+	}
+
+	/**
+	 * Same as {@code DiplomacyManager.getFactionsAtWarWithFaction(factionId, includePirates, true, false)}, as of the capture.
+	 */
+	public List<String> getFactionsAtWarWithFaction(String factionId, boolean includePirates) {
+		List<String> wars = (includePirates ? warsIncludingPirates : warsExcludingPirates).get(factionId);
+		if (wars == null) return DiplomacyManager.getFactionsAtWarWithFaction(factionId, includePirates, true, false);
+		return new ArrayList<>(wars);
+	}
+
+	public float getBadboy(FactionAPI faction) {
+		Float value = badboy.get(faction.getId());
+		if (value == null) return DiplomacyManager.getBadboy(faction);
+		return value;
+	}
+
+	/**
+	 * @param faction
+	 * @return See {@code DiplomacyConcern.getLiveFactionStrength}.
+	 */
+	public float getFactionStrength(FactionAPI faction) {
+		Float strength = factionStrengths.get(faction.getId());
+		if (strength == null) return DiplomacyConcern.getLiveFactionStrength(faction);
+		return strength;
+	}
+
+	/*
+	============================================================================
+	// our diplomacy brain
+	============================================================================
+	*/
+
+	public boolean hasDiplomacyBrain() {
+		return haveBrain;
+	}
+
+	public boolean hasCeasefireWith(String otherFactionId) {
+		return ceasefires.contains(otherFactionId);
+	}
+
+	/**
+	 * @param otherFactionId
+	 * @return Our disposition towards the other faction, or null if we have no diplomacy brain.
+	 */
+	public Float getDisposition(String otherFactionId) {
+		if (!haveBrain) return null;
+		Float disposition = dispositions.get(otherFactionId);
+		if (disposition != null) return disposition;
+		DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(factionId);
+		if (brain == null) return null;
+		return brain.getDisposition(otherFactionId).disposition.getModifiedValue();
+	}
+
+	/*
+	============================================================================
+	// markets
+	============================================================================
+	*/
+
+	/**
+	 * @return Copy of the markets in the economy, in the economy's order.
+	 */
+	public List<MarketAPI> getMarkets() {
+		return new ArrayList<>(markets);
+	}
+
+	public List<MarketAPI> getMarkets(LocationAPI loc) {
+		List<MarketAPI> results = new ArrayList<>();
+		for (MarketAPI market : markets) {
+			if (marketEntries.get(market).location == loc) results.add(market);
+		}
+		return results;
+	}
+
+	/**
+	 * Same as {@code Misc.getFactionMarkets}, as of the capture.
+	 */
+	public List<MarketAPI> getFactionMarkets(FactionAPI faction) {
+		List<MarketAPI> results = new ArrayList<>();
+		for (MarketAPI market : markets) {
+			if (marketEntries.get(market).faction == faction) results.add(market);
+		}
+		return results;
+	}
+
+	/**
+	 * @return Our markets that can be invaded, see {@code NexUtilsFaction.getFactionMarkets(factionId, true)}.
+	 */
+	public List<MarketAPI> getOwnInvadableMarkets() {
+		return new ArrayList<>(ownInvadableMarkets);
+	}
+
+	public boolean isInEconomy(MarketAPI market) {
+		return marketEntries.containsKey(market);
+	}
+
+	public FactionAPI getMarketFaction(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return market.getFaction();
+		return entry.faction;
+	}
+
+	public int getMarketSize(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return market.getSize();
+		return entry.size;
+	}
+
+	public boolean isMarketHidden(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return market.isHidden();
+		return entry.hidden;
+	}
+
+	/**
+	 * @return See {@code BaseStrategicConcern.getMarketValue}.
+	 */
+	public float getMarketValue(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return BaseStrategicConcern.getMarketValue(market);
+		return entry.value;
+	}
+
+	/**
+	 * @return See {@code BaseStrategicConcern.getSpaceDefenseValue}.
+	 */
+	public float getSpaceDefenseValue(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return BaseStrategicConcern.getSpaceDefenseValue(market);
+		return entry.spaceDefense;
+	}
+
+	/**
+	 * @return See {@code BaseStrategicConcern.getGroundDefenseValue}.
+	 */
+	public float getGroundDefenseValue(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return BaseStrategicConcern.getGroundDefenseValue(market);
+		return entry.groundDefense;
+	}
+
+	/**
+	 * @return Whether we could invade or raid the market, see {@code InvasionFleetManager.isValidInvasionOrRaidTarget}.
+	 */
+	public boolean isValidInvasionOrRaidTarget(MarketAPI market) {
+		MarketEntry entry = marketEntries.get(market);
+		if (entry == null) return InvasionFleetManager.getManager().isValidInvasionOrRaidTarget(
+				Global.getSector().getFaction(factionId), null, market, null, false);
+		return entry.validTarget;
+	}
+
+	/**
+	 * @param commodityId
+	 * @return The sector-wide market value of the commodity.
+	 */
+	public float getCommodityMarketValue(String commodityId) {
+		Float value = commodityMarketValues.get(commodityId);
+		if (value != null) return value;
+		if (markets.isEmpty()) return 0;
+		return markets.get(0).getCommodityData(commodityId).getCommodityMarketData().getMarketValue();
+	}
+
+	protected static class Relationship {
+		public final float value;
+		public final RepLevel level;
+		public final boolean hostile;
+
+		public Relationship(float value, RepLevel level, boolean hostile) {
+			this.value = value;
+			this.level = level;
+			this.hostile = hostile;
+		}
+	}
+
+	protected static class MarketEntry {
+		public final FactionAPI faction;
+		public final LocationAPI location;
+		public final int size;
+		public final boolean hidden;
+		public final float value;
+		public final float spaceDefense;
+		public final float groundDefense;
+		public final boolean validTarget;
+
+		public MarketEntry(MarketAPI market, boolean validTarget) {
+			faction = market.getFaction();
+			location = market.getContainingLocation();
+			size = market.getSize();
+			hidden = market.isHidden();
+			value = BaseStrategicConcern.getMarketValue(market);
+			spaceDefense = BaseStrategicConcern.getSpaceDefenseValue(market);
+			groundDefense = BaseStrategicConcern.getGroundDefenseValue(market);
+			this.validTarget = validTarget;
+		}
+	}
+}
@@ -1,35 +1,51 @@
 package exerelin.campaign.ai;
 
 import com.fs.starfarer.api.Global;
-import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.*;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.listeners.ColonyDecivListener;
+import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
+import com.fs.starfarer.api.campaign.listeners.PlayerColonizationListener;
+import com.fs.starfarer.api.impl.campaign.rulecmd.salvage.Nex_MarketCMD;
+import com.fs.starfarer.api.util.Misc;
+import exerelin.campaign.InvasionRound;
 import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.utilities.InvasionListener;
 import exerelin.utilities.NexUtils;
+import exerelin.utilities.NexUtilsFleet;
 import org.apache.log4j.Logger;
 import org.lazywizard.console.Console;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class MilitaryInfoHelper {
-	
+/**
+ * Keeps each populated location's patrol and station strength, by market and by faction.
+ * <p>Markets are updated one at a time when they change owner, are colonized, abandoned or decivilized;
+ * a station's strength is worked out again when it is read, if the station fleet has been replaced or gained/lost ships.
+ * Everything is rebuilt at the end of each month, to pick up changes to patrol stats (new industries etc.).</p>
+ */
+public class MilitaryInfoHelper implements EconomyTickListener, InvasionListener, ColonyDecivListener,
+		PlayerColonizationListener {
+
 	public static Logger log = Global.getLogger(MilitaryInfoHelper.class);
 	public static boolean loggingMode = false;
 
 	protected static MilitaryInfoHelper currInstance;
-	
+
 	protected Set<String> haveHeavyIndustry = new HashSet<>();
 
 	protected Map<LocationAPI, PatrolStrengthEntry> patrolStrength = new HashMap<>();
-	
-	// runcode exerelin.campaign.econ.EconomyInfoHelper.createInstance()
+
+	// runcode exerelin.campaign.ai.MilitaryInfoHelper.createInstance(true)
 	/**
 	 * Creates and stores an instance of the military info helper. Should be called on every game load.
 	 * @param replace Replaces the existing instance of the helper if true. Should only be false if called from {@code getInstance},
 	 *                   to avoid the helper being retained between sectors.
-	 * @return 
+	 * @return
 	 */
 	public static MilitaryInfoHelper createInstance(boolean replace) {
 		if (currInstance != null) {
@@ -38,7 +54,7 @@ public class MilitaryInfoHelper {
 		}
 		currInstance = new MilitaryInfoHelper();
 		Global.getSector().getListenerManager().addListener(currInstance, true);
-		
+
 		currInstance.collectMilitaryData(true);
 		return currInstance;
 	}
@@ -46,59 +62,188 @@ public class MilitaryInfoHelper {
 	public static MilitaryInfoHelper getInstance() {
 		return getInstance(true);
 	}
-	
+
 	public static MilitaryInfoHelper getInstance(boolean createIfNeeded) {
 		if (currInstance == null && createIfNeeded) return createInstance(false);
 		return currInstance;
 	}
-	
+
 	public static void logInfo(String str) {
 		if (!loggingMode) return;
 		log.info(str);
 		Console.showMessage(str);
 	}
-	
+
 	public static void setLoggingMode(boolean mode) {
 		loggingMode = mode;
 	}
-	
-	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().collectMilitaryData()
+
+	// runcode exerelin.campaign.ai.MilitaryInfoHelper.getInstance().collectMilitaryData(false)
+	/**
+	 * Rebuilds the patrol strength data in a single pass over the economy,
+	 * bucketing each market's strength into its containing location.
+	 * @param firstRun
+	 */
 	public void collectMilitaryData(boolean firstRun)
 	{
-		Set<LocationAPI> populatedLocs = new HashSet<>();
+		patrolStrength.clear();
 		for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
-			populatedLocs.add(market.getContainingLocation());
+			if (market.isHidden()) continue;
+			getOrCreateEntry(market.getContainingLocation()).addMarketStrength(market);
 		}
+	}
 
-		for (LocationAPI loc : populatedLocs) {
-			PatrolStrengthEntry entry = new PatrolStrengthEntry(loc);
-			for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
-				if (market.isHidden()) continue;
-				entry.addMarketStrength(market);
-			}
+	protected PatrolStrengthEntry getOrCreateEntry(LocationAPI loc) {
+		PatrolStrengthEntry entry = patrolStrength.get(loc);
+		if (entry == null) {
+			entry = new PatrolStrengthEntry(loc);
 			patrolStrength.put(loc, entry);
 		}
+		return entry;
+	}
+
+	/**
+	 * Recomputes a single market's contribution to its location's patrol strength,
+	 * e.g. after it changes owner or its patrol stats change.
+	 * @param market
+	 */
+	public void updateMarketStrength(MarketAPI market) {
+		LocationAPI loc = market.getContainingLocation();
+		if (market.isHidden()) {
+			PatrolStrengthEntry entry = patrolStrength.get(loc);
+			if (entry != null) entry.removeMarketStrength(market);
+			return;
+		}
+		getOrCreateEntry(loc).addMarketStrength(market);
 	}
 
 	public PatrolStrengthEntry getPatrolStrength(LocationAPI loc) {
 		return patrolStrength.get(loc);
 	}
 
-	
+	@Override
+	public void reportEconomyTick(int iterIndex) {}
+
+	@Override
+	public void reportEconomyMonthEnd() {
+		collectMilitaryData(false);
+	}
+
+	@Override
+	public void reportPlayerColonizedPlanet(PlanetAPI planet) {
+		MarketAPI market = planet.getMarket();
+		if (market != null) updateMarketStrength(market);
+	}
+
+	@Override
+	public void reportPlayerAbandonedColony(MarketAPI colony) {
+		PatrolStrengthEntry entry = patrolStrength.get(colony.getContainingLocation());
+		if (entry != null) entry.removeMarketStrength(colony);
+	}
+
+	@Override
+	public void reportColonyAboutToBeDecivilized(MarketAPI market, boolean fullyDestroyed) {}
+
+	@Override
+	public void reportColonyDecivilized(MarketAPI market, boolean fullyDestroyed) {
+		PatrolStrengthEntry entry = patrolStrength.get(market.getContainingLocation());
+		if (entry != null) entry.removeMarketStrength(market);
+	}
+
+	@Override
+	public void reportInvadeLoot(InteractionDialogAPI dialog, MarketAPI market,
+			Nex_MarketCMD.TempDataInvasion actionData, CargoAPI cargo) {}
+
+	@Override
+	public void reportInvasionRound(InvasionRound.InvasionRoundResult result, CampaignFleetAPI fleet,
+			MarketAPI defender, float atkStr, float defStr) {}
+
+	@Override
+	public void reportInvasionFinished(CampaignFleetAPI fleet, FactionAPI attackerFaction,
+			MarketAPI market, float numRounds, boolean success) {}
+
+	@Override
+	public void reportMarketTransfered(MarketAPI market, FactionAPI newOwner, FactionAPI oldOwner,
+			boolean playerInvolved, boolean isCapture, List<String> factionsToNotify, float repChangeStrength) {
+		updateMarketStrength(market);
+	}
+
 	public static class PatrolStrengthEntry {
 		public LocationAPI loc;
 		public float total;
 		public final Map<MarketAPI, Float> strByMarket = new HashMap<>();
 		public final Map<String, Float> strByFaction = new HashMap<>();
+		public final Map<MarketAPI, Float> stationStrByMarket = new HashMap<>();
+		// station fleet and its size when its strength was computed, to tell when it needs computing again
+		protected final Map<MarketAPI, CampaignFleetAPI> stationByMarket = new HashMap<>();
+		protected final Map<MarketAPI, Integer> stationSizeByMarket = new HashMap<>();
+		// faction each market was counted under, so its strength can be removed from the right faction
+		protected final Map<MarketAPI, String> factionByMarket = new HashMap<>();
 
 		public PatrolStrengthEntry(LocationAPI loc) {
 			this.loc = loc;
 		}
 
+		/**
+		 * Adds the market's patrol and station strength, replacing any previous contribution from that market.
+		 * @param market
+		 */
 		public void addMarketStrength(MarketAPI market) {
+			removeMarketStrength(market);
+
 			float str = InvasionFleetManager.estimatePatrolStrength(market, 0);
-			NexUtils.modifyMapEntry(strByMarket, market, str);
-			NexUtils.modifyMapEntry(strByFaction, market.getFactionId(), str);
+			String factionId = market.getFactionId();
+			strByMarket.put(market, str);
+			factionByMarket.put(market, factionId);
+			NexUtils.modifyMapEntry(strByFaction, factionId, str);
+			total += str;
+
+			updateStationStrength(market, Misc.getStationFleet(market));
+		}
+
+		protected void updateStationStrength(MarketAPI market, CampaignFleetAPI station) {
+			if (station != null) {
+				stationStrByMarket.put(market, NexUtilsFleet.getFleetStrength(station, true, true, true));
+				stationByMarket.put(market, station);
+				stationSizeByMarket.put(market, station.getFleetData().getNumMembers());
+			} else {
+				stationStrByMarket.remove(market);
+				stationByMarket.remove(market);
+				stationSizeByMarket.remove(market);
+			}
+		}
+
+		public void removeMarketStrength(MarketAPI market) {
+			Float str = strByMarket.remove(market);
+			stationStrByMarket.remove(market);
+			stationByMarket.remove(market);
+			stationSizeByMarket.remove(market);
+			if (str == null) return;
+			String factionId = factionByMarket.remove(market);
+			NexUtils.modifyMapEntry(strByFaction, factionId, -str);
+			total -= str;
+		}
+
+		public float getFactionStrength(String factionId) {
+			Float str = strByFaction.get(factionId);
+			return str != null ? str : 0;
+		}
+
+		/**
+		 * @param market
+		 * @return Cached station strength (recomputed first if the station was added, removed, replaced or changed size),
+		 * or null if the market wasn't counted (e.g. because it is hidden).
+		 */
+		public Float getStationStrength(MarketAPI market) {
+			if (!strByMarket.containsKey(market)) return null;
+			CampaignFleetAPI station = Misc.getStationFleet(market);
+			Integer size = stationSizeByMarket.get(market);
+			if (station != stationByMarket.get(market)
+					|| (station != null && (size == null || size != station.getFleetData().getNumMembers()))) {
+				updateStationStrength(market, station);
+			}
+			Float str = stationStrByMarket.get(market);
+			return str != null ? str : 0f;
 		}
 	}
 }
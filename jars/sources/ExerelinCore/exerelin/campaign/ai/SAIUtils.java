@@ -31,19 +31,30 @@ public class SAIUtils {
         DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(aiFactionId);
         if (brain.getDisposition(aiFactionId) != null) {
             float disposition = brain.getDisposition(otherFactionId).disposition.getModifiedValue();
-            boolean isPositive;
-            if (disposition <= DiplomacyBrain.DISLIKE_THRESHOLD) isPositive = false;
-            else if (disposition >= DiplomacyBrain.LIKE_THRESHOLD) isPositive = true;
-            else return;
+            applyPriorityModifierForDisposition(disposition, wantPositive, stat);
+        }
+    }
+
+    /**
+     * As {@code applyPriorityModifierForDisposition(aiFactionId, otherFactionId, wantPositive, stat)},
+     * but with an already known disposition value (e.g. from a {@code MeetingSnapshot}).
+     * @param disposition
+     * @param wantPositive
+     * @param stat
+     */
+    public static void applyPriorityModifierForDisposition(float disposition, boolean wantPositive, MutableStat stat) {
+        boolean isPositive;
+        if (disposition <= DiplomacyBrain.DISLIKE_THRESHOLD) isPositive = false;
+        else if (disposition >= DiplomacyBrain.LIKE_THRESHOLD) isPositive = true;
+        else return;
 
-            //log.info(String.format("Is positive: %s, want positive: %s", isPositive, wantPositive));
+        //log.info(String.format("Is positive: %s, want positive: %s", isPositive, wantPositive));
 
-            String desc = StrategicAI.getString(isPositive ? "statDispositionPositive" : "statDispositionNegative", true);
-            float mult = isPositive == wantPositive ? SAIConstants.POSITIVE_DISPOSITION_MULT : SAIConstants.NEGATIVE_DISPOSITION_MULT;
-            String source = isPositive ? "disposition_positive" : "disposition_negative";
+        String desc = StrategicAI.getString(isPositive ? "statDispositionPositive" : "statDispositionNegative", true);
+        float mult = isPositive == wantPositive ? SAIConstants.POSITIVE_DISPOSITION_MULT : SAIConstants.NEGATIVE_DISPOSITION_MULT;
+        String source = isPositive ? "disposition_positive" : "disposition_negative";
 
-            stat.modifyMult(source, mult, desc);
-        }
+        stat.modifyMult(source, mult, desc);
     }
 
     public static void applyPriorityModifierForAlignment(String aiFactionId, MutableStat stat, Alliance.Alignment alignment) {
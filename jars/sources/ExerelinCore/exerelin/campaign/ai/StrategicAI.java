@@ -40,6 +40,9 @@ public class StrategicAI extends BaseIntelPlugin {
 
 			Every update ("strategy meeting"), the econ, mil and diplo modules search for "concerns" (issues of note facing the faction),
 			and check if previously generated concerns are still relevant.
+			Meetings are queued with the StrategicAIScheduler, which runs them one phase at a time within a per-frame time budget.
+			The first phase captures the sector state (MeetingSnapshot) that all the later phases work from,
+			so a meeting's results don't depend on how many frames it's spread over.
 
 			The executive module then picks two of the concerns with the highest priority value, and considers some possible actions for each.
 			It executes the highest priority action it can find for the concern (if there isn't one, the concern is skipped).
@@ -71,6 +74,19 @@ public class StrategicAI extends BaseIntelPlugin {
 	protected IntervalUtil interval = new IntervalUtil(29, 31);
 	protected IntervalUtil intervalShort = new IntervalUtil(0.48f, 0.52f);
 	@Getter protected float daysSinceLastUpdate;
+	/**
+	 * Next phase of the strategy meeting in progress, or null if no meeting is pending. Saved, so a meeting interrupted by a save resumes on load.
+	 */
+	@Getter protected MeetingPhase meetingPhase;
+	@Getter protected long meetingRequestTimestamp;
+	/**
+	 * Sector state captured at the start of the meeting in progress.
+	 */
+	protected transient MeetingSnapshot meetingSnapshot;
+	/**
+	 * Sector state for concerns generated or updated outside a meeting (e.g. on init), kept for the rest of the frame.
+	 */
+	protected transient MeetingSnapshot idleSnapshot;
 
 
 	public StrategicAI(FactionAPI faction) {
@@ -78,6 +94,16 @@ public class StrategicAI extends BaseIntelPlugin {
 	}
 	
 	public StrategicAI init() {
+		return init(new Random());
+	}
+
+	/**
+	 * @param random Used to pick how far into its first interval the AI starts, so the factions' meetings
+	 *                  don't all fall due at the same time.
+	 * @return
+	 */
+	public StrategicAI init(Random random) {
+		interval.advance(interval.getIntervalDuration() * random.nextFloat());
 		Global.getSector().getIntelManager().addIntel(this, true);
 		Global.getSector().addScript(this);
 		faction.getMemoryWithoutUpdate().set(MEMORY_KEY, this);
@@ -123,7 +149,9 @@ public class StrategicAI extends BaseIntelPlugin {
 	protected void advanceImpl(float amount) {
 		float days = Global.getSector().getClock().convertToDays(amount);
 
-		intervalShort.advance(days);
+		// hold off on advancing concerns while a meeting is in progress, so they don't change under the meeting's own phases;
+		// the rest of the sector keeps going though, see StrategicAIScheduler
+		if (meetingPhase == null) intervalShort.advance(days);
 		if (intervalShort.intervalElapsed()) {
 			float days2 = intervalShort.getElapsed();
 			econModule.advance(days2);
@@ -136,36 +164,113 @@ public class StrategicAI extends BaseIntelPlugin {
 		if (!interval.intervalElapsed()) return;
 		daysSinceLastUpdate = interval.getElapsed();
 
-		update();
+		StrategicAIScheduler.getInstance().requestMeeting(this);
 	}
 
-	protected void update() {
-		// update existing concerns, remove any if needed
-		updateConcerns(econModule);
-		updateConcerns(milModule);
-		updateConcerns(diploModule);
-
-		// find new concerns
-		findConcerns(econModule);
-		findConcerns(milModule);
-		findConcerns(diploModule);
-
-		// tell executive module to take action (if not a commissioned player)
-		if (faction.isPlayerFaction() && Misc.getCommissionFaction() != null) {
-
-		} else {
-			execModule.actOnConcerns();
-			lastAddedActions.addAll(execModule.getRecentActions());
+	/**
+	 * Marks a strategy meeting as pending. Its phases are then run by {@code runMeetingPhase}.
+	 * @return False if a meeting was already pending.
+	 */
+	protected boolean beginMeeting() {
+		if (meetingPhase != null) return false;
+		meetingPhase = MeetingPhase.values()[0];
+		meetingRequestTimestamp = Global.getSector().getClock().getTimestamp();
+		return true;
+	}
+
+	public boolean isMeetingPending() {
+		return meetingPhase != null;
+	}
+
+	/**
+	 * Gets the sector state concerns should work from: the capture taken at the start of the meeting in progress,
+	 * or if there isn't one, a capture taken now (and reused for the rest of the frame).
+	 * @return
+	 */
+	public MeetingSnapshot getMeetingSnapshot() {
+		if (meetingSnapshot != null) return meetingSnapshot;
+		long now = Global.getSector().getClock().getTimestamp();
+		if (idleSnapshot == null || idleSnapshot.getTimestamp() != now) {
+			idleSnapshot = new MeetingSnapshot(this);
 		}
+		return idleSnapshot;
+	}
 
-		if (!lastAddedConcerns.isEmpty() || !lastRemovedConcerns.isEmpty() || !lastAddedActions.isEmpty()) {
-			sendUpdateIfPlayerHasIntel(UPDATE_NEW_CONCERNS, true, false);
-			lastAddedConcerns.clear();
-			lastRemovedConcerns.clear();
-			lastAddedActions.clear();
+	/**
+	 * Runs the next phase of the pending strategy meeting. The meeting moves on to the next phase even if this one throws.
+	 * @return True if the meeting is now finished (or there was no meeting pending).
+	 */
+	public boolean runMeetingPhase() {
+		if (meetingPhase == null) return true;
+		MeetingPhase phase = meetingPhase;
+		try {
+			// capture is transient, so a meeting resumed from a save works from the sector as it is on load
+			if (meetingSnapshot == null && phase != MeetingPhase.CAPTURE) {
+				meetingSnapshot = new MeetingSnapshot(this);
+			}
+			runMeetingPhase(phase);
+		} finally {
+			int next = phase.ordinal() + 1;
+			meetingPhase = next < MeetingPhase.values().length ? MeetingPhase.values()[next] : null;
+			if (meetingPhase == null) meetingSnapshot = null;
+		}
+		return meetingPhase == null;
+	}
+
+	protected void runMeetingPhase(MeetingPhase phase) {
+		switch (phase) {
+			case CAPTURE:
+				meetingSnapshot = new MeetingSnapshot(this);
+				idleSnapshot = null;
+				break;
+			// update existing concerns, remove any if needed
+			case UPDATE_ECON:
+				updateConcerns(econModule);
+				break;
+			case UPDATE_MIL:
+				updateConcerns(milModule);
+				break;
+			case UPDATE_DIPLO:
+				updateConcerns(diploModule);
+				break;
+			// find new concerns
+			case FIND_ECON:
+				findConcerns(econModule);
+				break;
+			case FIND_MIL:
+				findConcerns(milModule);
+				break;
+			case FIND_DIPLO:
+				findConcerns(diploModule);
+				break;
+			case ACT:
+				// tell executive module to take action (if not a commissioned player)
+				if (faction.isPlayerFaction() && Misc.getCommissionFaction() != null) {
+
+				} else {
+					execModule.actOnConcerns();
+					lastAddedActions.addAll(execModule.getRecentActions());
+				}
+				break;
+			case REPORT:
+				if (!lastAddedConcerns.isEmpty() || !lastRemovedConcerns.isEmpty() || !lastAddedActions.isEmpty()) {
+					sendUpdateIfPlayerHasIntel(UPDATE_NEW_CONCERNS, true, false);
+					lastAddedConcerns.clear();
+					lastRemovedConcerns.clear();
+					lastAddedActions.clear();
+				}
+
+				SAIUtils.reportStrategyMeetingHeld(this);
+				break;
 		}
+	}
 
-		SAIUtils.reportStrategyMeetingHeld(this);
+	/**
+	 * Runs the whole strategy meeting immediately, finishing the pending one if there is one.
+	 */
+	protected void update() {
+		beginMeeting();
+		while (!runMeetingPhase()) {}
 	}
 
 	protected void findConcerns(StrategicAIModule module) {
@@ -220,8 +325,10 @@ public class StrategicAI extends BaseIntelPlugin {
 
 	public void forceMeeting() {
 		interval.forceIntervalElapsed();
-		advanceImpl(0);
+		interval.advance(0);
+		daysSinceLastUpdate = interval.getElapsed();
 		interval.advance(0.001f);
+		update();
 	}
 
 	protected static void logError(String err, Exception ex) {
@@ -403,14 +510,22 @@ public class StrategicAI extends BaseIntelPlugin {
 
 	// runcode exerelin.campaign.ai.StrategicAI.addIntel("tritachyon");
 	public static StrategicAI addIntel(String factionId) {
+		return addIntel(factionId, new Random());
+	}
+
+	public static StrategicAI addIntel(String factionId, Random random) {
 		StrategicAI ai = new StrategicAI(Global.getSector().getFaction(factionId));
-		ai.init();
+		ai.init(random);
 		return ai;
 	}
 
 	public static StrategicAI addAIIfNeeded(String factionId) {
+		return addAIIfNeeded(factionId, new Random());
+	}
+
+	public static StrategicAI addAIIfNeeded(String factionId, Random random) {
 		if (getAI(factionId) == null) {
-			return addIntel(factionId);
+			return addIntel(factionId, random);
 		}
 		return null;
 	}
@@ -428,13 +543,8 @@ public class StrategicAI extends BaseIntelPlugin {
 		for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
 			if (factionId.equals(Factions.PLAYER)) continue;
 			if (NexConfig.getFactionConfig(factionId).pirateFaction) continue;
-			StrategicAI ai = addAIIfNeeded(factionId);
-
-			// stagger the intervals so the strategy meetings aren't all taking place at the same time
-			if (ai != null) {
-				float increment = random.nextFloat() * 0.5f;
-				ai.interval.advance(ai.interval.getIntervalDuration() * increment);
-			}
+			// each AI starts a random way into its interval (see init), so the meetings aren't all taking place at the same time
+			addAIIfNeeded(factionId, random);
 		}
 	}
 
@@ -445,6 +555,17 @@ public class StrategicAI extends BaseIntelPlugin {
 		}
 	}
 	
+	/**
+	 * The steps of a strategy meeting, in the order they are run. Phases may be run on different frames;
+	 * all of them after {@code CAPTURE} work from the {@code MeetingSnapshot} it takes.
+	 */
+	public enum MeetingPhase {
+		CAPTURE,
+		UPDATE_ECON, UPDATE_MIL, UPDATE_DIPLO,
+		FIND_ECON, FIND_MIL, FIND_DIPLO,
+		ACT, REPORT
+	}
+
 	// runcode exerelin.campaign.ai.StrategicAI.purgeConcerns();
 	public static void purgeConcerns() {
 		for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
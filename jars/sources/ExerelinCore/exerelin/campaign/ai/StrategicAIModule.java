@@ -23,24 +23,19 @@ public abstract class StrategicAIModule {
         this.module = module;
     }
 
+    /**
+     * @return Precomputed list of concern defs for this module (all concern defs if module type is null). Do not modify.
+     */
     public List<StrategicDefManager.StrategicConcernDef> getRelevantConcernDefs() {
-        List<StrategicDefManager.StrategicConcernDef> list = new ArrayList<>();
-        for (StrategicDefManager.StrategicConcernDef def : StrategicDefManager.CONCERN_DEFS_BY_ID.values()) {
-            if (this.module != null && this.module != def.module) continue;
-            list.add(def);
-        }
-        return list;
+        return StrategicDefManager.getConcernDefsForModule(module);
     }
 
+    /**
+     * @param concern
+     * @return Precomputed list of action defs sharing a tag with the concern's def. Do not modify.
+     */
     public List<StrategicDefManager.StrategicActionDef> getRelevantActionDefs(StrategicConcern concern) {
-        List<StrategicDefManager.StrategicActionDef> list = new ArrayList<>();
-        for (StrategicDefManager.StrategicActionDef def : StrategicDefManager.ACTION_DEFS_BY_ID.values()) {
-            List<String> tagsCopy = new ArrayList<>(def.tags);
-            tagsCopy.retainAll(concern.getDef().tags);
-            if (tagsCopy.isEmpty()) continue;
-            list.add(def);
-        }
-        return list;
+        return StrategicDefManager.getActionDefsForConcern(concern.getDef());
     }
 
     public void init() {}
@@ -72,6 +67,7 @@ public abstract class StrategicAIModule {
         for (StrategicDefManager.StrategicConcernDef def : getRelevantConcernDefs()) {
             if (!def.enabled) continue;
             if (def.noAutoGenerate) continue;
+            if (!StrategicDefManager.passesPrecheck(def, ai, this)) continue;
             StrategicConcern concern = StrategicDefManager.instantiateConcern(def);
             if (concern == null) continue;
 
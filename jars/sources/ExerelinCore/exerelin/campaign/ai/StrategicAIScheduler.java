@@ -0,0 +1,165 @@
+package exerelin.campaign.ai;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import exerelin.plugins.ExerelinModPlugin;
+import exerelin.utilities.NexConfig;
+import lombok.extern.log4j.Log4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs the factions' strategy meetings, a phase at a time, within a per-frame time budget
+ * ({@code NexConfig.strategicAIFrameBudgetMs}), so several meetings falling due together don't stall the campaign.
+ * <p>Meetings are run strictly one after the other, in the order they were requested (ties broken by faction ID),
+ * and each meeting's phases always run in the same order; the budget only decides how many phases fit into a frame.
+ * At least one phase is run each frame, so the queue always drains.</p>
+ * <p>The first phase of each meeting captures the sector state its concerns work from ({@code MeetingSnapshot}),
+ * so a meeting comes to the same results however many frames it is spread over, even if the sector changes in between.
+ * The meeting's own concerns are not advanced until it finishes.</p>
+ * <p>Not saved; the pending meetings are recovered from the strategic AIs themselves on game load.</p>
+ */
+@Log4j
+public class StrategicAIScheduler implements EveryFrameScript {
+
+	public static final Comparator<StrategicAI> MEETING_ORDER = new Comparator<StrategicAI>() {
+		@Override
+		public int compare(StrategicAI one, StrategicAI two) {
+			int result = Long.compare(one.getMeetingRequestTimestamp(), two.getMeetingRequestTimestamp());
+			if (result != 0) return result;
+			return one.getFactionId().compareTo(two.getFactionId());
+		}
+	};
+
+	protected static StrategicAIScheduler currInstance;
+
+	protected final List<StrategicAI> queue = new ArrayList<>();
+	protected long currMeetingNanos;
+	protected int currMeetingFrames;
+	protected boolean countFrame;
+
+	// runcode exerelin.campaign.ai.StrategicAIScheduler.createInstance(true)
+	/**
+	 * Creates and stores an instance of the scheduler, and adds it as a transient script. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the scheduler if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the scheduler being retained between sectors.
+	 * @return
+	 */
+	public static StrategicAIScheduler createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) Global.getSector().removeTransientScript(currInstance);
+			else return currInstance;
+		}
+		currInstance = new StrategicAIScheduler();
+		Global.getSector().addTransientScript(currInstance);
+		currInstance.loadPendingMeetings();
+		return currInstance;
+	}
+
+	public static StrategicAIScheduler getInstance() {
+		return getInstance(true);
+	}
+
+	public static StrategicAIScheduler getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Queues any meetings that were still in progress when the game was saved.
+	 */
+	protected void loadPendingMeetings() {
+		queue.clear();
+		for (Object intel : Global.getSector().getIntelManager().getIntel(StrategicAI.class)) {
+			StrategicAI ai = (StrategicAI)intel;
+			if (ai.isEnding() || ai.isEnded()) continue;
+			if (ai.isMeetingPending()) queue.add(ai);
+		}
+		Collections.sort(queue, MEETING_ORDER);
+	}
+
+	/**
+	 * Queues a strategy meeting for the AI. Does nothing if it already has one pending.
+	 * @param ai
+	 */
+	public void requestMeeting(StrategicAI ai) {
+		if (!ai.beginMeeting()) return;
+		queue.add(ai);
+		Collections.sort(queue, MEETING_ORDER);
+	}
+
+	public int getNumPendingMeetings() {
+		return queue.size();
+	}
+
+	/**
+	 * Runs all pending meetings to completion right now, ignoring the time budget.
+	 */
+	public void runAll() {
+		countFrame = true;
+		while (!queue.isEmpty()) {
+			runNextPhase();
+		}
+	}
+
+	protected void runNextPhase() {
+		StrategicAI ai = queue.get(0);
+		boolean done = true;
+		if (!ai.isEnding() && !ai.isEnded()) {
+			if (countFrame) {
+				currMeetingFrames++;
+				countFrame = false;
+			}
+			StrategicAI.MeetingPhase phase = ai.getMeetingPhase();
+			long start = System.nanoTime();
+			try {
+				ai.runMeetingPhase();
+			} catch (Exception ex) {
+				// the meeting has already moved on to its next phase; don't let the error stop every other faction's meetings
+				log.error("Strategic AI: error in meeting phase " + phase + " for faction " + ai.getFactionId(), ex);
+			}
+			currMeetingNanos += System.nanoTime() - start;
+			done = !ai.isMeetingPending();
+		}
+		if (done) {
+			queue.remove(0);
+			if (ExerelinModPlugin.isNexDev && SAIConstants.DEBUG_LOGGING) {
+				log.info(String.format("Strategic AI: meeting for %s took %.2f ms over %d frames", ai.getFactionId(),
+						currMeetingNanos / 1000000f, currMeetingFrames));
+			}
+			currMeetingNanos = 0;
+			currMeetingFrames = 0;
+			countFrame = true;
+		}
+	}
+
+	@Override
+	public void advance(float amount) {
+		if (queue.isEmpty()) return;
+		if (NexConfig.strategicAIFrameBudgetMs <= 0) {
+			runAll();
+			return;
+		}
+
+		long budget = (long)(NexConfig.strategicAIFrameBudgetMs * 1000000);
+		long start = System.nanoTime();
+		countFrame = true;
+		while (!queue.isEmpty()) {
+			runNextPhase();
+			if (System.nanoTime() - start >= budget) break;
+		}
+	}
+
+	@Override
+	public boolean isDone() {
+		return false;
+	}
+
+	@Override
+	public boolean runWhilePaused() {
+		return false;
+	}
+}
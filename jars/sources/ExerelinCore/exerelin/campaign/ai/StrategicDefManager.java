@@ -9,6 +9,10 @@ import lombok.extern.log4j.Log4j;
 import org.json.JSONException;
 import org.json.JSONObject;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
 
 @Log4j
@@ -18,6 +22,17 @@ public class StrategicDefManager {
 
     public static final Map<String, StrategicConcernDef> CONCERN_DEFS_BY_ID = new HashMap<>();
     public static final Map<String, StrategicActionDef> ACTION_DEFS_BY_ID = new HashMap<>();
+    /**
+     * Name of the optional static pre-check method on concern classes. Signature must be
+     * {@code public static boolean precheck(StrategicAI ai, StrategicAIModule module)};
+     * if it returns false, the concern is not instantiated for that faction this meeting.
+     */
+    public static final String PRECHECK_METHOD_NAME = "precheck";
+
+    protected static final Map<ModuleType, List<StrategicConcernDef>> CONCERN_DEFS_BY_MODULE = new HashMap<>();
+    protected static final List<StrategicConcernDef> CONCERN_DEFS_ALL = new ArrayList<>();
+    // keyed by concern def ID
+    protected static final Map<String, List<StrategicActionDef>> ACTION_DEFS_BY_CONCERN = new HashMap<>();
 
     static {
         loadConfig();
@@ -67,11 +82,124 @@ public class StrategicDefManager {
 
                 ACTION_DEFS_BY_ID.put(id, def);
             }
+            buildDefLists();
         } catch (IOException | JSONException ex) {
             throw new RuntimeException("Failed to load strategic AI config, id " + id, ex);
         }
     }
 
+    /**
+     * Precomputes the concern defs for each module and the action defs relevant to each concern def,
+     * so the AI modules don't need to filter the full def maps on every meeting.
+     */
+    protected static void buildDefLists() {
+        CONCERN_DEFS_BY_MODULE.clear();
+        CONCERN_DEFS_ALL.clear();
+        ACTION_DEFS_BY_CONCERN.clear();
+
+        for (StrategicConcernDef def : CONCERN_DEFS_BY_ID.values()) {
+            CONCERN_DEFS_ALL.add(def);
+            List<StrategicConcernDef> forModule = CONCERN_DEFS_BY_MODULE.get(def.module);
+            if (forModule == null) {
+                forModule = new ArrayList<>();
+                CONCERN_DEFS_BY_MODULE.put(def.module, forModule);
+            }
+            forModule.add(def);
+        }
+    }
+
+    /**
+     * @param module If null, returns concern defs for all modules.
+     * @return
+     */
+    public static List<StrategicConcernDef> getConcernDefsForModule(ModuleType module) {
+        if (module == null) return Collections.unmodifiableList(CONCERN_DEFS_ALL);
+        List<StrategicConcernDef> defs = CONCERN_DEFS_BY_MODULE.get(module);
+        if (defs == null) return Collections.emptyList();
+        return Collections.unmodifiableList(defs);
+    }
+
+    /**
+     * Gets the action defs sharing at least one tag with the concern def. Computed once per concern def.
+     * @param concernDef
+     * @return
+     */
+    public static List<StrategicActionDef> getActionDefsForConcern(StrategicConcernDef concernDef) {
+        List<StrategicActionDef> defs = ACTION_DEFS_BY_CONCERN.get(concernDef.id);
+        if (defs == null) {
+            defs = new ArrayList<>();
+            for (StrategicActionDef def : ACTION_DEFS_BY_ID.values()) {
+                if (Collections.disjoint(def.tags, concernDef.tags)) continue;
+                defs.add(def);
+            }
+            ACTION_DEFS_BY_CONCERN.put(concernDef.id, defs);
+        }
+        return Collections.unmodifiableList(defs);
+    }
+
+    /**
+     * Loads the class and looks up its no-arg constructor, logging the error and returning null on failure.
+     * @param className
+     * @return
+     */
+    protected static Constructor<?> resolveConstructor(String className) {
+        try {
+            Class<?> clazz = Global.getSettings().getScriptClassLoader().loadClass(className);
+            return clazz.getConstructor();
+        } catch (ClassNotFoundException | NoSuchMethodException | NoClassDefFoundError ex) {
+            log.error("Class load-by-name failure: " + className, ex);
+        }
+        return null;
+    }
+
+    protected static Object instantiate(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            log.error("Failed to instantiate " + constructor.getDeclaringClass().getName(), ex);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves and caches the concern class's constructor and pre-check method, if not already done.
+     * @param def
+     */
+    protected static void resolveConcernClass(StrategicConcernDef def) {
+        if (def.resolved) return;
+        def.resolved = true;
+        def.constructor = resolveConstructor(def.classPath);
+        if (def.constructor == null) return;
+        try {
+            Method method = def.constructor.getDeclaringClass().getMethod(PRECHECK_METHOD_NAME,
+                    StrategicAI.class, StrategicAIModule.class);
+            // must be declared on the class itself, a subclass shouldn't inherit its parent's pre-check
+            if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == boolean.class
+                    && method.getDeclaringClass() == def.constructor.getDeclaringClass())
+                def.precheck = method;
+        } catch (NoSuchMethodException ex) {
+            // no pre-check, fine
+        }
+    }
+
+    /**
+     * Runs the concern class's static pre-check, if it has one.
+     * @param def
+     * @param ai
+     * @param module
+     * @return False if the concern definitely can't be generated for this AI right now, true otherwise.
+     */
+    public static boolean passesPrecheck(StrategicConcernDef def, StrategicAI ai, StrategicAIModule module) {
+        resolveConcernClass(def);
+        if (def.precheck == null) return true;
+        try {
+            return (Boolean)def.precheck.invoke(null, ai, module);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            log.error("Pre-check failed for concern " + def.id, ex);
+            return true;
+        }
+    }
+
     public static StrategicConcernDef getConcernDef(String id) {
         return CONCERN_DEFS_BY_ID.get(id);
     }
@@ -85,7 +213,10 @@ public class StrategicDefManager {
      * @return
      */
     public static StrategicConcern instantiateConcern(StrategicConcernDef def) {
-        StrategicConcern concern = (StrategicConcern)NexUtils.instantiateClassByName(def.classPath);
+        resolveConcernClass(def);
+        if (def.constructor == null) return null;
+        StrategicConcern concern = (StrategicConcern)instantiate(def.constructor);
+        if (concern == null) return null;
         concern.setId(def.id);
         return concern;
     }
@@ -96,7 +227,13 @@ public class StrategicDefManager {
      * @return
      */
     public static StrategicAction instantiateAction(StrategicActionDef def) {
-        StrategicAction action = (StrategicAction)NexUtils.instantiateClassByName(def.classPath);
+        if (!def.resolved) {
+            def.resolved = true;
+            def.constructor = resolveConstructor(def.classPath);
+        }
+        if (def.constructor == null) return null;
+        StrategicAction action = (StrategicAction)instantiate(def.constructor);
+        if (action == null) return null;
         action.setId(def.id);
         return action;
     }
@@ -114,6 +251,10 @@ public class StrategicDefManager {
         public float antiRepetitionMult;
         public Set<String> tags = new HashSet<>();
 
+        protected transient boolean resolved;
+        protected transient Constructor<?> constructor;
+        protected transient Method precheck;
+
         public StrategicConcernDef(String id) {
             this.id = id;
         }
@@ -138,6 +279,9 @@ public class StrategicDefManager {
         public boolean enabled;
         public Set<String> tags = new HashSet<>();
 
+        protected transient boolean resolved;
+        protected transient Constructor<?> constructor;
+
         public StrategicActionDef(String id) {
             this.id = id;
         }
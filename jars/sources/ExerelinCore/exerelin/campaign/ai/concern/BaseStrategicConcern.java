@@ -89,7 +89,9 @@ public abstract class BaseStrategicConcern implements StrategicConcern {
                 if (def.hasTag("diplomacy_positive")) wantPositive = true;
                 else if (def.hasTag("diplomacy_negative")) wantPositive = false;
 
-                if (wantPositive != null) SAIUtils.applyPriorityModifierForDisposition(ai.getFactionId(), faction.getId(), wantPositive, priority);
+                Float disposition = getSnapshot().getDisposition(faction.getId());
+                if (wantPositive != null && disposition != null)
+                    SAIUtils.applyPriorityModifierForDisposition(disposition, wantPositive, priority);
             }
         }
 
@@ -217,6 +219,7 @@ public abstract class BaseStrategicConcern implements StrategicConcern {
             }
 
             StrategicAction action = StrategicDefManager.instantiateAction(possibleActionDef);
+            if (action == null) continue;
             action.initForConcern(this);
 
             // check if action is usable
@@ -226,7 +229,7 @@ public abstract class BaseStrategicConcern implements StrategicConcern {
             }
             FactionAPI targetFaction = getFaction();
             if (targetFaction != null) {
-                RepLevel rep = targetFaction.getRelationshipLevel(ai.getFactionId());
+                RepLevel rep = getSnapshot().getRelationshipLevel(targetFaction.getId(), ai.getFactionId());
                 if (!rep.isAtBest(action.getMaxRelToTarget(targetFaction))) continue;
                 if (!rep.isAtWorst(action.getMinRelToTarget(targetFaction))) continue;
             }
@@ -376,6 +379,29 @@ public abstract class BaseStrategicConcern implements StrategicConcern {
         return StrategicDefManager.getConcernDef(getId());
     }
 
+    /**
+     * For use in concern classes' static {@code precheck} methods (see {@code StrategicDefManager.PRECHECK_METHOD_NAME}).
+     * @param module
+     * @param type
+     * @return True if the module already has an ongoing concern of exactly the specified class.
+     */
+    public static boolean hasExistingConcernOfType(StrategicAIModule module, Class<? extends StrategicConcern> type) {
+        for (StrategicConcern concern : module.getCurrentConcerns()) {
+            if (concern.isEnded()) continue;
+            if (concern.getClass() == type) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sector state to generate and update the concern from; see {@code MeetingSnapshot}.
+     * Prefer it over reading the sector directly, so the concern comes to the same result however the meeting is run.
+     * @return
+     */
+    protected MeetingSnapshot getSnapshot() {
+        return ai.getMeetingSnapshot();
+    }
+
     public List<StrategicConcern> getExistingConcernsOfSameType() {
         List<StrategicConcern> results = new ArrayList<>();
         for (StrategicConcern concern : module.getCurrentConcerns()) {
@@ -423,14 +449,19 @@ public abstract class BaseStrategicConcern implements StrategicConcern {
     public static float getSpaceDefenseValue(MarketAPI market) {
         MilitaryInfoHelper helper = MilitaryInfoHelper.getInstance();
         MilitaryInfoHelper.PatrolStrengthEntry patrolStr = helper.getPatrolStrength(market.getContainingLocation());
-        Float space = 0f;
-        if (patrolStr != null && patrolStr.strByFaction.containsKey(market.getFaction().getId())) {
-            space += patrolStr.strByFaction.get(market.getFaction().getId());
+        float space = 0;
+        Float stationStr = null;
+        if (patrolStr != null) {
+            space += patrolStr.getFactionStrength(market.getFactionId());
+            stationStr = patrolStr.getStationStrength(market);
         }
-        CampaignFleetAPI station = Misc.getStationFleet(market);
-        float stationStr = 0;
-        if (station != null) {
-            stationStr = NexUtilsFleet.getFleetStrength(station, true, true, true);
+        // market isn't in the helper's data (e.g. hidden), check the station directly
+        if (stationStr == null) {
+            stationStr = 0f;
+            CampaignFleetAPI station = Misc.getStationFleet(market);
+            if (station != null) {
+                stationStr = NexUtilsFleet.getFleetStrength(station, true, true, true);
+            }
         }
         space += stationStr;
         return space;
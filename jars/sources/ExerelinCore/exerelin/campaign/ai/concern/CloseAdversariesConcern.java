@@ -8,8 +8,9 @@ import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Pair;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
-import exerelin.campaign.AllianceManager;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.utilities.NexUtils;
 import exerelin.utilities.NexUtilsFaction;
 import exerelin.utilities.StringHelper;
@@ -25,6 +26,10 @@ public class CloseAdversariesConcern extends DiplomacyConcern {
 
     @Getter protected FactionAPI faction2;
 
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return !NexUtilsFaction.isPirateFaction(ai.getFactionId());
+    }
+
     @Override
     public boolean generate() {
         if (NexUtilsFaction.isPirateFaction(ai.getFactionId())) return false;
@@ -39,10 +44,11 @@ public class CloseAdversariesConcern extends DiplomacyConcern {
         boolean canPirate = false;  // NexConfig.allowPirateInvasions;
 
         List<Pair<FactionAPI, Float>> adversaries = new ArrayList<>();
-        for (String factionId : getRelevantLiveFactionIds()) {
+        MeetingSnapshot snapshot = getSnapshot();
+        for (String factionId : snapshot.getRelevantLiveFactionIds()) {
             if (!canPirate && NexUtilsFaction.isPirateFaction(factionId)) continue;
-            if (us.isAtWorst(factionId, RepLevel.NEUTRAL)) continue;
             FactionAPI faction = Global.getSector().getFaction(factionId);
+            if (snapshot.isAtWorst(us, faction, RepLevel.NEUTRAL)) continue;
             float theirStrength = getFactionStrength(faction);
             if (theirStrength * 3 < ourStrength) continue;  // too weak to care
 
@@ -59,7 +65,7 @@ public class CloseAdversariesConcern extends DiplomacyConcern {
                 float str2 = adversaries.get(index2).two;
 
                 // perma-allied, why bother
-                if (AllianceManager.areFactionsPermaAllied(faction1.getId(), faction2.getId()))
+                if (snapshot.areFactionsPermaAllied(faction1.getId(), faction2.getId()))
                     continue;
 
                 Set<FactionAPI> set = new HashSet<>();
@@ -67,7 +73,7 @@ public class CloseAdversariesConcern extends DiplomacyConcern {
                 set.add(faction2);
                 if (alreadyConcerned.contains(set)) continue;
 
-                RepLevel rel = faction1.getRelationshipLevel(faction2);
+                RepLevel rel = snapshot.getRelationshipLevel(faction1, faction2);
                 if (rel.isAtBest(RepLevel.FAVORABLE)) continue;
 
                 float weight = str1 + str2;
@@ -112,19 +118,20 @@ public class CloseAdversariesConcern extends DiplomacyConcern {
 
     protected boolean shouldCancel() {
         FactionAPI us = ai.getFaction();
-        if (us.isAtWorst(faction, RepLevel.NEUTRAL)) {
+        MeetingSnapshot snapshot = getSnapshot();
+        if (snapshot.isAtWorst(us, faction, RepLevel.NEUTRAL)) {
             return true;
         }
-        else if (us.isAtWorst(faction2, RepLevel.NEUTRAL)) {
+        else if (snapshot.isAtWorst(us, faction2, RepLevel.NEUTRAL)) {
             return true;
         }
-        else if (faction.isAtBest(faction2, RepLevel.FAVORABLE)) {
+        else if (snapshot.isAtBest(faction, faction2, RepLevel.FAVORABLE)) {
             return true;
         }
-        else if (isFactionCommissionedPlayer(faction)) {
+        else if (snapshot.isFactionCommissionedPlayer(faction)) {
             return true;
         }
-        else if (isFactionCommissionedPlayer(faction2)) {
+        else if (snapshot.isFactionCommissionedPlayer(faction2)) {
             return true;
         }
         return false;
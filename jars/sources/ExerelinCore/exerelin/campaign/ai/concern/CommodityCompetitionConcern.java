@@ -44,7 +44,7 @@ public class CommodityCompetitionConcern extends BaseStrategicConcern implements
         // note: the alreadyConcerned set contains both commodity and faction IDs, so it's actually twice the length of the actual item count
         if (alreadyConcerned.size() >= max * 2) return false;
         String factionId = ai.getFactionId();
-        EconomyInfoHelper helper = EconomyInfoHelper.getInstance();
+        EconomyInfoHelper helper = getSnapshot().getEconomy();
 
         //Map<String, Integer> imports = EconomyInfoHelper.getInstance().getCommoditiesImportedByFaction(ai.getFaction().getId());
         //Map<String, Integer> trueImports = new HashMap<>();
@@ -103,7 +103,7 @@ public class CommodityCompetitionConcern extends BaseStrategicConcern implements
 
     @Override
     public void update() {
-        EconomyInfoHelper helper = EconomyInfoHelper.getInstance();
+        EconomyInfoHelper helper = getSnapshot().getEconomy();
         int ourShare = helper.getMarketShare(ai.getFaction(), commodityId);
         int theirShare = helper.getMarketShare(faction.getId(), getCommodityId());
         if (theirShare < ourShare/2) {
@@ -130,7 +130,7 @@ public class CommodityCompetitionConcern extends BaseStrategicConcern implements
     @Override
     public List<MarketAPI> getMarkets() {
         List<MarketAPI> markets = new ArrayList<>();
-        List<EconomyInfoHelper.ProducerEntry> competitors = EconomyInfoHelper.getInstance().getProducers(
+        List<EconomyInfoHelper.ProducerEntry> competitors = getSnapshot().getEconomy().getProducers(
                 faction.getId(), commodityId, 3, true);
         for (EconomyInfoHelper.ProducerEntry entry : competitors) {
             markets.add(entry.market);
@@ -155,7 +155,7 @@ public class CommodityCompetitionConcern extends BaseStrategicConcern implements
         // First find a market that produces the thing
         MarketAPI tm = null;
         WeightedRandomPicker<MarketAPI> marketPicker = new WeightedRandomPicker<>();
-        List<EconomyInfoHelper.ProducerEntry> competitors = EconomyInfoHelper.getInstance().getProducers(
+        List<EconomyInfoHelper.ProducerEntry> competitors = getSnapshot().getEconomy().getProducers(
                 faction.getId(), commodityId, 3, true);
         for (EconomyInfoHelper.ProducerEntry entry : competitors) {
             marketPicker.add(entry.market, entry.output);
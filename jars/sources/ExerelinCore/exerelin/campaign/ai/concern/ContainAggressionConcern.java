@@ -7,7 +7,6 @@ import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
-import exerelin.campaign.DiplomacyManager;
 import exerelin.campaign.ai.StrategicAI;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
@@ -28,16 +27,16 @@ public class ContainAggressionConcern extends DiplomacyConcern {
 
         WeightedRandomPicker<FactionAPI> picker = new WeightedRandomPicker<>();
 
-        for (String factionId : getRelevantLiveFactionIds()) {
+        for (String factionId : getSnapshot().getRelevantLiveFactionIds()) {
             FactionAPI faction = Global.getSector().getFaction(factionId);
             if (!shouldBeConcernedAbout(faction)) continue;
 
             if (alreadyConcerned.contains(faction)) continue;
-            float infamy = DiplomacyManager.getBadboy(faction);
+            float infamy = getSnapshot().getBadboy(faction);
             if (infamy < MIN_INFAMY_TO_START) continue;
 
             float weight = infamy * 2;
-            weight *= getPriorityMult(us.getRelationshipLevel(faction));
+            weight *= getPriorityMult(getSnapshot().getRelationshipLevel(us, faction));
 
             picker.add(faction, weight);
         }
@@ -49,11 +48,11 @@ public class ContainAggressionConcern extends DiplomacyConcern {
 
     @Override
     public void update() {
-        if (isFactionCommissionedPlayer(faction)) {
+        if (getSnapshot().isFactionCommissionedPlayer(faction)) {
             end();
             return;
         }
-        float infamy = DiplomacyManager.getBadboy(faction);
+        float infamy = getSnapshot().getBadboy(faction);
         if (infamy < MAX_INFAMY_TO_END) {
             end();
             return;
@@ -63,7 +62,7 @@ public class ContainAggressionConcern extends DiplomacyConcern {
             return;
         }
 
-        float weight = infamy * getPriorityMult(ai.getFaction().getRelationshipLevel(faction));
+        float weight = infamy * getPriorityMult(getSnapshot().getRelationshipLevel(ai.getFaction(), faction));
         priority.modifyFlat("infamy", infamy, StrategicAI.getString("statFactionInfamy", true));
         priority.modifyFlat("power", weight, StrategicAI.getString("statFactionPower", true));
         super.update();
@@ -75,20 +74,20 @@ public class ContainAggressionConcern extends DiplomacyConcern {
 
     protected boolean shouldBeConcernedAbout(FactionAPI faction) {
         FactionAPI us = ai.getFaction();
-        if (faction.isHostileTo(us)) return false;  // already at war anyway
+        if (getSnapshot().isHostile(faction, us)) return false;  // already at war anyway
 
         RepLevel disregardAtRep = RepLevel.NEUTRAL;
         if (DiplomacyTraits.hasTrait(us.getId(), DiplomacyTraits.TraitIds.PARANOID)) {
             disregardAtRep = disregardAtRep.getOneBetter();
         }
-        if (faction.isAtWorst(us, disregardAtRep)) return false;    // safe for now
+        if (getSnapshot().isAtWorst(faction, us, disregardAtRep)) return false;    // safe for now
 
         return true;
     }
 
     @Override
     public void modifyActionPriority(StrategicAction action) {
-        float infamy = DiplomacyManager.getBadboy(faction);
+        float infamy = getSnapshot().getBadboy(faction);
         action.getPriority().modifyFlat("infamy", infamy/5,  StrategicAI.getString("statFactionInfamy", true));
     }
 
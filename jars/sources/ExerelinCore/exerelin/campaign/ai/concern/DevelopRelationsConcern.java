@@ -23,7 +23,7 @@ public class DevelopRelationsConcern extends DiplomacyConcern {
 
         float ourStrength = getFactionStrength(us);
 
-        for (String factionId : getRelevantLiveFactionIds()) {
+        for (String factionId : getSnapshot().getRelevantLiveFactionIds()) {
             FactionAPI faction = Global.getSector().getFaction(factionId);
             if (faction == us) continue;
             if (alreadyConcerned.contains(faction)) continue;
@@ -44,7 +44,7 @@ public class DevelopRelationsConcern extends DiplomacyConcern {
 
     @Override
     public void update() {
-        if (isFactionCommissionedPlayer(faction)) {
+        if (getSnapshot().isFactionCommissionedPlayer(faction)) {
             end();
             return;
         }
@@ -66,8 +66,8 @@ public class DevelopRelationsConcern extends DiplomacyConcern {
 
     protected boolean wantToBefriend(FactionAPI faction) {
         FactionAPI us = ai.getFaction();
-        if (faction.isAtBest(us, RepLevel.NEUTRAL)) return false;
-        if (faction.isAtWorst(us, RepLevel.FRIENDLY)) return false;
+        if (getSnapshot().isAtBest(faction, us, RepLevel.NEUTRAL)) return false;
+        if (getSnapshot().isAtWorst(faction, us, RepLevel.FRIENDLY)) return false;
 
         return true;
     }
@@ -4,9 +4,8 @@ import com.fs.starfarer.api.campaign.FactionAPI;
 import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
-import exerelin.campaign.SectorManager;
+import exerelin.campaign.diplomacy.FactionStrengthLedger;
 import exerelin.campaign.econ.FleetPoolManager;
-import exerelin.utilities.NexUtilsFaction;
 import exerelin.utilities.StringHelper;
 import lombok.extern.log4j.Log4j;
 
@@ -58,12 +57,16 @@ public abstract class DiplomacyConcern extends BaseStrategicConcern {
 
     @Override
     public boolean isValid() {
-        return faction != null && SectorManager.isFactionAlive(faction.getId());
+        return faction != null && getSnapshot().isFactionAlive(faction.getId());
     }
 
-    // TODO: should count allies as well
     protected float getFactionStrength(FactionAPI faction) {
-        int size = NexUtilsFaction.getFactionMarketSizeSum(faction.getId());
+        return getSnapshot().getFactionStrength(faction);
+    }
+
+    // TODO: should count allies as well
+    public static float getLiveFactionStrength(FactionAPI faction) {
+        float size = FactionStrengthLedger.getInstance().getOwnStrength(faction.getId());
         float lastFleetPoolIncrement = FleetPoolManager.getManager().getPointsLastTick(faction);
         float strength = size + lastFleetPoolIncrement * 5;
         //log.info(String.format("Faction %s has size %s, last pool increment %.2f", faction.getId(), size, lastFleetPoolIncrement));
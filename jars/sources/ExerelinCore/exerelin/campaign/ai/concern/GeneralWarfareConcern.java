@@ -6,13 +6,13 @@ import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
-import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.campaign.ai.action.StrategicActionDelegate;
 import exerelin.campaign.ai.action.covert.CovertAction;
-import exerelin.campaign.diplomacy.DiplomacyBrain;
 import exerelin.utilities.NexConfig;
 import lombok.Getter;
 
@@ -30,6 +30,13 @@ public class GeneralWarfareConcern extends BaseStrategicConcern {
     @Getter protected Set<String> hostileFactions = new HashSet<>();
     @Getter protected float priorityFromTime = 0;
 
+    /**
+     * Only one general warfare concern at a time.
+     */
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return !hasExistingConcernOfType(module, GeneralWarfareConcern.class);
+    }
+
     @Override
     public boolean generate() {
         if (!getExistingConcernsOfSameType().isEmpty()) return false;
@@ -41,7 +48,8 @@ public class GeneralWarfareConcern extends BaseStrategicConcern {
     @Override
     public void update() {
         hostileFactions.clear();
-        hostileFactions.addAll(DiplomacyManager.getFactionsAtWarWithFaction(ai.getFactionId(), NexConfig.allowPirateInvasions, true, false));
+        MeetingSnapshot snapshot = getSnapshot();
+        hostileFactions.addAll(snapshot.getFactionsAtWarWithFaction(ai.getFactionId(), NexConfig.allowPirateInvasions));
         if (hostileFactions.isEmpty()) return;
 
         priority.modifyFlat("base", BASE_PRIORITY, StrategicAI.getString("statBase", true));
@@ -49,10 +57,9 @@ public class GeneralWarfareConcern extends BaseStrategicConcern {
         if (isAwaitingAction()) {
             float days = ai.getDaysSinceLastUpdate();
             float strengthRatio = 1;
-            DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(ai.getFactionId());
-            if (brain != null) {
-                float them = brain.getEnemyStrength();
-                float us = brain.getOurStrength();
+            if (snapshot.hasDiplomacyBrain()) {
+                float them = snapshot.getEnemyStrength();
+                float us = snapshot.getOurStrength();
                 if (us < 1) us = 1;
                 strengthRatio = them/us;
                 if (strengthRatio > 2) strengthRatio = 2;
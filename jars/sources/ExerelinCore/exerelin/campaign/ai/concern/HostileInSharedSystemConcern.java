@@ -1,15 +1,14 @@
 package exerelin.campaign.ai.concern;
 
-import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.campaign.LocationAPI;
 import com.fs.starfarer.api.campaign.RepLevel;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
-import com.fs.starfarer.api.util.Misc;
 import com.fs.starfarer.api.util.Pair;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
@@ -26,21 +25,22 @@ public class HostileInSharedSystemConcern extends MarketRelatedConcern {
         List<Pair<MarketAPI, Float>> hostiles = new ArrayList<>();
         Set alreadyConcernMarkets = getExistingConcernItems();
 
+        MeetingSnapshot snapshot = getSnapshot();
         Set<LocationAPI> toCheck = new HashSet<>();
-        for (MarketAPI market : Misc.getFactionMarkets(ai.getFaction())) {
+        for (MarketAPI market : snapshot.getFactionMarkets(ai.getFaction())) {
             toCheck.add(market.getContainingLocation());
         }
 
         boolean weArePirate = NexUtilsFaction.isPirateFaction(ai.getFactionId());
         for (LocationAPI loc : toCheck) {
-            for (MarketAPI market : Global.getSector().getEconomy().getMarkets(loc)) {
-                if (market.isHidden()) continue;
+            for (MarketAPI market : snapshot.getMarkets(loc)) {
+                if (snapshot.isMarketHidden(market)) continue;
                 if (alreadyConcernMarkets.contains(market)) continue;
                 if (!repCheck(market)) continue;
-                boolean theyArePirate = NexUtilsFaction.isPirateFaction(market.getFactionId());
+                boolean theyArePirate = NexUtilsFaction.isPirateFaction(snapshot.getMarketFaction(market).getId());
                 if (weArePirate != theyArePirate) continue;
 
-                float value = getMarketValue(market)/1000f + market.getSize() * 100;
+                float value = snapshot.getMarketValue(market)/1000f + snapshot.getMarketSize(market) * 100;
                 value /= SAIConstants.MARKET_VALUE_DIVISOR;
                 value *= 2;
                 if (value < SAIConstants.MIN_MARKET_VALUE_PRIORITY_TO_CARE) continue;
@@ -82,12 +82,14 @@ public class HostileInSharedSystemConcern extends MarketRelatedConcern {
         if (DiplomacyTraits.hasTrait(ai.getFactionId(), DiplomacyTraits.TraitIds.PARANOID)) {
             atBest = RepLevel.INHOSPITABLE;
         }
-        return market.getFaction().isAtBest(ai.getFactionId(), atBest);
+        MeetingSnapshot snapshot = getSnapshot();
+        return snapshot.isAtBest(snapshot.getMarketFaction(market), ai.getFaction(), atBest);
     }
 
     protected boolean havePresenceInSystem() {
-        for (MarketAPI otherMarket : Global.getSector().getEconomy().getMarkets(market.getContainingLocation())) {
-            if (otherMarket.getFaction() == ai.getFaction()) return true;
+        MeetingSnapshot snapshot = getSnapshot();
+        for (MarketAPI otherMarket : snapshot.getMarkets(market.getContainingLocation())) {
+            if (snapshot.getMarketFaction(otherMarket) == ai.getFaction()) return true;
         }
         return false;
     }
@@ -96,7 +98,7 @@ public class HostileInSharedSystemConcern extends MarketRelatedConcern {
     public boolean isValid() {
         if (market == null) return false;
         if (!repCheck(market)) return false;
-        boolean theyArePirate = NexUtilsFaction.isPirateFaction(market.getFactionId());
+        boolean theyArePirate = NexUtilsFaction.isPirateFaction(getSnapshot().getMarketFaction(market).getId());
         if (NexUtilsFaction.isPirateFaction(ai.getFactionId()) != theyArePirate) return false;
 
         return havePresenceInSystem();
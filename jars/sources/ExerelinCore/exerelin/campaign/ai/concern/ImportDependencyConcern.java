@@ -48,9 +48,9 @@ public class ImportDependencyConcern extends BaseStrategicConcern implements Has
         //log.info("Generating import dependency concern for " + ai.getFaction().getDisplayName());
         //log.info("Import dependency existing concerns: " + alreadyConcerned + ", size " + alreadyConcerned.size());
 
-        Map<String, Integer> imports = EconomyInfoHelper.getInstance().getCommoditiesImportedByFaction(ai.getFactionId());
+        Map<String, Integer> imports = getSnapshot().getEconomy().getCommoditiesImportedByFaction(ai.getFactionId());
         Map<String, Integer> trueImports = new HashMap<>();
-        Map<String, Integer> production = EconomyInfoHelper.getInstance().getCommoditiesProducedByFaction(ai.getFactionId());
+        Map<String, Integer> production = getSnapshot().getEconomy().getCommoditiesProducedByFaction(ai.getFactionId());
 
         for (String commodityId : imports.keySet()) {
             if (alreadyConcerned.contains(commodityId)) continue;
@@ -73,7 +73,7 @@ public class ImportDependencyConcern extends BaseStrategicConcern implements Has
         commodityId = picker.pick();
         if (commodityId != null) {
             required = Math.round(picker.getWeight(commodityId));
-            float thisProd = EconomyInfoHelper.getInstance().getFactionCommodityProduction(ai.getFactionId(), commodityId);
+            float thisProd = getSnapshot().getEconomy().getFactionCommodityProduction(ai.getFactionId(), commodityId);
 
             float prio = required * 10;
             float prioMinus = thisProd * 5;
@@ -109,12 +109,12 @@ public class ImportDependencyConcern extends BaseStrategicConcern implements Has
     @Override
     public List<MarketAPI> getMarkets() {
         FactionAPI us = ai.getFaction();
-        int imports = EconomyInfoHelper.getInstance().getFactionCommodityImports(ai.getFactionId(), commodityId);
+        int imports = getSnapshot().getEconomy().getFactionCommodityImports(ai.getFactionId(), commodityId);
         List<MarketAPI> markets = new ArrayList<>();
-        List<EconomyInfoHelper.ProducerEntry> competitors = EconomyInfoHelper.getInstance().getCompetingProducers(
+        List<EconomyInfoHelper.ProducerEntry> competitors = getSnapshot().getEconomy().getCompetingProducers(
                 ai.getFactionId(), commodityId, imports);
         for (EconomyInfoHelper.ProducerEntry entry : competitors) {
-            if (!entry.market.getFaction().isHostileTo(us)) continue;
+            if (!getSnapshot().isHostile(getSnapshot().getMarketFaction(entry.market), us)) continue;
             markets.add(entry.market);
         }
         return markets;
@@ -132,12 +132,12 @@ public class ImportDependencyConcern extends BaseStrategicConcern implements Has
     @Override
     public void update() {
         int threshold = 4 + EconomyInfoHelper.getCommodityOutputModifier(commodityId);
-        int imports = EconomyInfoHelper.getInstance().getFactionCommodityImports(ai.getFactionId(), commodityId);
+        int imports = getSnapshot().getEconomy().getFactionCommodityImports(ai.getFactionId(), commodityId);
         if (imports < threshold) {
             end();
             return;
         }
-        int production = EconomyInfoHelper.getInstance().getFactionCommodityProduction(ai.getFactionId(), commodityId);
+        int production = getSnapshot().getEconomy().getFactionCommodityProduction(ai.getFactionId(), commodityId);
         if (production >= imports) {
             end();
             return;
@@ -3,10 +3,10 @@ package exerelin.campaign.ai.concern;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.util.Pair;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.MilitaryAIModule;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
-import exerelin.utilities.NexUtilsFaction;
 import lombok.extern.log4j.Log4j;
 
 import java.util.ArrayList;
@@ -26,12 +26,13 @@ public class InadequateDefenseConcern extends MarketRelatedConcern {
 
         Set<Object> alreadyConcernMarkets = getExistingConcernItems();
 
-        for (MarketAPI market : NexUtilsFaction.getFactionMarkets(ai.getFactionId(), true)) {
+        MeetingSnapshot snapshot = getSnapshot();
+        for (MarketAPI market : snapshot.getOwnInvadableMarkets()) {
             if (alreadyConcernMarkets.contains(market)) continue;
-            int size = market.getSize();
-            float value = getMarketValue(market);
-            float sd = getSpaceDefenseValue(market);
-            float gd = getGroundDefenseValue(market);
+            int size = snapshot.getMarketSize(market);
+            float value = snapshot.getMarketValue(market);
+            float sd = snapshot.getSpaceDefenseValue(market);
+            float gd = snapshot.getGroundDefenseValue(market);
             if (sd/size >= SAIConstants.SPACE_DEF_THRESHOLD && gd/size >= SAIConstants.GROUND_DEF_THRESHOLD) return false;
 
             float valueMod = value/(sd*2 + gd)/SAIConstants.MARKET_VALUE_DIVISOR * 2;
@@ -61,10 +62,11 @@ public class InadequateDefenseConcern extends MarketRelatedConcern {
 
     @Override
     public void update() {
-        int size = market.getSize();
-        float value = getMarketValue(market);
-        float sd = getSpaceDefenseValue(market);
-        float gd = getGroundDefenseValue(market);
+        MeetingSnapshot snapshot = getSnapshot();
+        int size = snapshot.getMarketSize(market);
+        float value = snapshot.getMarketValue(market);
+        float sd = snapshot.getSpaceDefenseValue(market);
+        float gd = snapshot.getGroundDefenseValue(market);
 
         if (sd/size >= SAIConstants.SPACE_DEF_THRESHOLD && gd/size >= SAIConstants.GROUND_DEF_THRESHOLD) {
             end();
@@ -109,7 +111,7 @@ public class InadequateDefenseConcern extends MarketRelatedConcern {
 
     @Override
     public boolean isValid() {
-        return market != null && market.getFaction() == ai.getFaction();
+        return market != null && getSnapshot().getMarketFaction(market) == ai.getFaction();
     }
 
     @Override
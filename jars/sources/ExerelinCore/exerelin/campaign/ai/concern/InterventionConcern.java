@@ -7,15 +7,10 @@ import com.fs.starfarer.api.impl.campaign.ids.Factions;
 import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
-import com.fs.starfarer.api.util.Misc;
 import com.fs.starfarer.api.util.Pair;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
-import exerelin.campaign.AllianceManager;
-import exerelin.campaign.DiplomacyManager;
-import exerelin.campaign.SectorManager;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.StrategicAI;
-import exerelin.campaign.alliances.Alliance;
-import exerelin.campaign.diplomacy.DiplomacyBrain;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
 import exerelin.utilities.NexConfig;
 import exerelin.utilities.NexFactionConfig;
@@ -39,8 +34,7 @@ public class InterventionConcern extends DiplomacyConcern {
         // check every allied or friendly faction, check all their enemies, check if we aren't already hostile against them but could be
         // later, peacekeeper factions could check all factions in the sector, not just allies
         String aiid = ai.getFactionId();
-        FactionAPI aif = ai.getFaction();
-        DiplomacyBrain brain = DiplomacyManager.getManager().getDiplomacyBrain(aiid);
+        MeetingSnapshot snapshot = getSnapshot();
 
         Set<String> friendsToCheck = new LinkedHashSet<>();
 
@@ -49,19 +43,19 @@ public class InterventionConcern extends DiplomacyConcern {
         Set<String> existingConcerns2 = new HashSet<>();
         for (Object obj : existingConcerns) {
             FactionAPI faction = (FactionAPI)obj;
-            Alliance all = AllianceManager.getFactionAlliance(faction.getId());
-            if (all != null) existingConcerns2.addAll(all.getMembersCopy());
+            Set<String> members = snapshot.getAllianceMembers(faction.getId());
+            if (members != null) existingConcerns2.addAll(members);
             else existingConcerns2.add(faction.getId());
         }
 
-        Alliance all = AllianceManager.getFactionAlliance(aiid);
-        if (all != null) friendsToCheck.addAll(all.getMembersCopy());
+        Set<String> allies = snapshot.getAllianceMembers(aiid);
+        if (allies != null) friendsToCheck.addAll(allies);
 
         // look at Cooperative allies too if Helps Allies
         if (DiplomacyTraits.hasTrait(aiid, DiplomacyTraits.TraitIds.HELPS_ALLIES)) {
-            for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+            for (String factionId : snapshot.getLiveFactionIds()) {
                 if (friendsToCheck.contains(factionId)) continue;
-                if (aif.getRelationshipLevel(factionId) == RepLevel.COOPERATIVE) {
+                if (snapshot.getRelationshipLevel(aiid, factionId) == RepLevel.COOPERATIVE) {
                     friendsToCheck.add(factionId);
                 }
             }
@@ -74,11 +68,11 @@ public class InterventionConcern extends DiplomacyConcern {
             Set<String> nonCommonEnemies = getNonCommonEnemies(friendId);
             for (String potentialEnemy : nonCommonEnemies) {
                 if (existingConcerns2.contains(potentialEnemy)) continue;
-                if (aif.getRelationshipLevel(potentialEnemy).isAtWorst(RepLevel.FRIENDLY)) continue;
+                if (snapshot.getRelationshipLevel(aiid, potentialEnemy).isAtWorst(RepLevel.FRIENDLY)) continue;
                 if (NexFactionConfig.getMinRelationship(aiid, potentialEnemy) > -0.5) continue;
-                if (brain != null && brain.hasCeasefireWith(potentialEnemy)) continue;
+                if (snapshot.hasCeasefireWith(potentialEnemy)) continue;
                 
-                float weight = 100 - aif.getRelationship(potentialEnemy) * 100;
+                float weight = 100 - snapshot.getRelationship(aiid, potentialEnemy) * 100;
 
                 picker.add(new Pair<String, String>(friendId, potentialEnemy), weight);
             }
@@ -95,19 +89,20 @@ public class InterventionConcern extends DiplomacyConcern {
 
     @Override
     public void update() {
-        if (!SectorManager.isFactionAlive(friendFaction.getId()) || !SectorManager.isFactionAlive(faction.getId())) {
+        MeetingSnapshot snapshot = getSnapshot();
+        if (!snapshot.isFactionAlive(friendFaction.getId()) || !snapshot.isFactionAlive(faction.getId())) {
             end();
             return;
         }
-        if (!faction.isHostileTo(friendFaction)) {
+        if (!snapshot.isHostile(faction, friendFaction)) {
             end();
             return;
         }
-        if (ai.getFaction().isHostileTo(faction)) {
+        if (snapshot.isHostile(ai.getFaction(), faction)) {
             end();
             return;
         }
-        if (isFactionCommissionedPlayer(faction)) {
+        if (snapshot.isFactionCommissionedPlayer(faction)) {
             end();
             return;
         }
@@ -128,17 +123,17 @@ public class InterventionConcern extends DiplomacyConcern {
     public void reapplyPriorityModifiers() {
         priority.modifyFlat("base", 100, StrategicAI.getString("statBase", true));
         super.reapplyPriorityModifiers();
-        float relationshipMod = ai.getFaction().getRelationship(friendFaction.getId()) * 100;
+        float relationshipMod = getSnapshot().getRelationship(ai.getFactionId(), friendFaction.getId()) * 100;
         String desc = String.format(StrategicAI.getString("statRelationship", true), friendFaction.getDisplayName());
         priority.modifyFlat("otherFactionRel", relationshipMod, desc);
     }
 
     protected Set<String> getNonCommonEnemies(String friendId) {
-        FactionAPI friend = Global.getSector().getFaction(friendId);
-        Set<String> enemies = new HashSet<>(DiplomacyManager.getFactionsAtWarWithFaction(friend, NexConfig.allowPirateInvasions, true, false));
-        enemies.removeAll(DiplomacyManager.getFactionsAtWarWithFaction(ai.getFaction(), NexConfig.allowPirateInvasions, true, false));
+        MeetingSnapshot snapshot = getSnapshot();
+        Set<String> enemies = new HashSet<>(snapshot.getFactionsAtWarWithFaction(friendId, NexConfig.allowPirateInvasions));
+        enemies.removeAll(snapshot.getFactionsAtWarWithFaction(ai.getFactionId(), NexConfig.allowPirateInvasions));
 
-        if (Misc.getCommissionFaction() != null) enemies.remove(Factions.PLAYER);
+        if (snapshot.isPlayerCommissioned()) enemies.remove(Factions.PLAYER);
 
         return enemies;
     }
@@ -4,10 +4,10 @@ import com.fs.starfarer.api.campaign.econ.Industry;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.impl.campaign.econ.impl.ShipQuality;
 import com.fs.starfarer.api.impl.campaign.ids.Industries;
-import com.fs.starfarer.api.util.Misc;
-import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.world.industry.HeavyIndustry;
 
@@ -19,6 +19,10 @@ public class LowShipQualityConcern extends BaseStrategicConcern implements HasIn
     public static final float BASE_DESIRED_QUALITY = 0.2f;
     public static final float BASE_PRIORITY = 150;
 
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return !hasExistingConcernOfType(module, LowShipQualityConcern.class);
+    }
+
     @Override
     public boolean generate() {
         if (!getExistingConcernsOfSameType().isEmpty()) return false;
@@ -56,8 +60,9 @@ public class LowShipQualityConcern extends BaseStrategicConcern implements HasIn
     }
 
     protected float getQualityFromIndustry() {
-        for (MarketAPI market : Misc.getFactionMarkets(ai.getFactionId())) {
-            if (market.isHidden()) continue;
+        MeetingSnapshot snapshot = getSnapshot();
+        for (MarketAPI market : snapshot.getFactionMarkets(ai.getFaction())) {
+            if (snapshot.isMarketHidden(market)) continue;
             return ShipQuality.getInstance().getQualityData(market).quality.computeEffective(0);
         }
 
@@ -76,7 +81,7 @@ public class LowShipQualityConcern extends BaseStrategicConcern implements HasIn
     public void reapplyPriorityModifiers() {
         super.reapplyPriorityModifiers();
 
-        int numWars = DiplomacyManager.getFactionsAtWarWithFaction(ai.getFactionId(), false, true, false).size();
+        int numWars = getSnapshot().getFactionsAtWarWithFaction(ai.getFactionId(), false).size();
         if (numWars == 0) return;
         float warMult = 1 + (.2f * numWars);
 
@@ -38,7 +38,7 @@ public abstract class MarketRelatedConcern extends BaseStrategicConcern {
     public void update() {
         super.update();
 
-        if (market != null && !market.isInEconomy()) {
+        if (market != null && !getSnapshot().isInEconomy(market)) {
             end();
         }
     }
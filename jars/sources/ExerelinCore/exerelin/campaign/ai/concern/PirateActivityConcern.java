@@ -14,7 +14,9 @@ import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
 import data.scripts.campaign.bases.VayraRaiderActivityCondition;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.campaign.ai.action.StrategicActionDelegate;
 import lombok.Getter;
@@ -29,6 +31,10 @@ public class PirateActivityConcern extends BaseStrategicConcern {
     @Getter protected float rage = 0;
     Set<RageEntry> affectedMarkets = new HashSet<>();
 
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return !hasExistingConcernOfType(module, PirateActivityConcern.class);
+    }
+
     @Override
     public boolean generate() {
         if (!getExistingConcernsOfSameType().isEmpty()) return false;
@@ -44,11 +50,12 @@ public class PirateActivityConcern extends BaseStrategicConcern {
         float rageThisUpdate = 0;
         affectedMarkets.clear();
 
-        for (MarketAPI market : Misc.getFactionMarkets(ai.getFaction())) {
+        MeetingSnapshot snapshot = getSnapshot();
+        for (MarketAPI market : snapshot.getFactionMarkets(ai.getFaction())) {
 
-            String factionId = market.getFactionId();
+            String factionId = snapshot.getMarketFaction(market).getId();
 
-            if (market.hasCondition(Conditions.PIRATE_ACTIVITY) && market.getFaction().isHostileTo(Factions.PIRATES)) {
+            if (market.hasCondition(Conditions.PIRATE_ACTIVITY) && snapshot.isHostile(factionId, Factions.PIRATES)) {
                 MarketConditionAPI cond = market.getCondition(Conditions.PIRATE_ACTIVITY);
                 PirateActivity plugin = (PirateActivity)cond.getPlugin();
 
@@ -59,7 +66,7 @@ public class PirateActivityConcern extends BaseStrategicConcern {
                 }
                 affectedMarkets.add(new RageEntry(market, cond.getIdForPluginModifications(), thisRage));
             }
-            if (market.hasCondition(Conditions.PATHER_CELLS) && market.getFaction().isHostileTo(Factions.LUDDIC_PATH)) {
+            if (market.hasCondition(Conditions.PATHER_CELLS) && snapshot.isHostile(factionId, Factions.LUDDIC_PATH)) {
                 MarketConditionAPI cond = market.getCondition(Conditions.PATHER_CELLS);
                 LuddicPathCells cellCond = (LuddicPathCells)(cond.getPlugin());
                 LuddicPathCellsIntel cellIntel = cellCond.getIntel();
@@ -78,7 +85,7 @@ public class PirateActivityConcern extends BaseStrategicConcern {
             if (market.hasCondition("vayra_raider_activity")) {
                 MarketConditionAPI cond = market.getCondition("vayra_raider_activity");
                 VayraRaiderActivityCondition vrCond = (VayraRaiderActivityCondition)(cond.getPlugin());
-                if (!vrCond.getIntel().getMarket().getFaction().isHostileTo(ai.getFaction()))
+                if (!snapshot.isHostile(snapshot.getMarketFaction(vrCond.getIntel().getMarket()), ai.getFaction()))
                     continue;
 
                 float thisRage = vrCond.getIntel().getStabilityPenalty();
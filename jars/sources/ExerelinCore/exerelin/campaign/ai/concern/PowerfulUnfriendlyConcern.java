@@ -26,7 +26,7 @@ public class PowerfulUnfriendlyConcern extends DiplomacyConcern {
 
         float ourStrength = getFactionStrength(us);
 
-        for (String factionId : getRelevantLiveFactionIds()) {
+        for (String factionId : getSnapshot().getRelevantLiveFactionIds()) {
             FactionAPI faction = Global.getSector().getFaction(factionId);
             if (alreadyConcerned.contains(faction)) continue;
             float theirStrength = getFactionStrength(faction);
@@ -34,7 +34,7 @@ public class PowerfulUnfriendlyConcern extends DiplomacyConcern {
 
             float weight = theirStrength * 2 - ourStrength;
             if (weight <= SAIConstants.MIN_FACTION_PRIORITY_TO_CARE) continue;
-            weight *= getPriorityMult(us.getRelationshipLevel(faction));
+            weight *= getPriorityMult(getSnapshot().getRelationshipLevel(us, faction));
 
             picker.add(faction, weight);
         }
@@ -46,7 +46,7 @@ public class PowerfulUnfriendlyConcern extends DiplomacyConcern {
 
     @Override
     public void update() {
-        if (isFactionCommissionedPlayer(faction)) {
+        if (getSnapshot().isFactionCommissionedPlayer(faction)) {
             end();
             return;
         }
@@ -62,7 +62,7 @@ public class PowerfulUnfriendlyConcern extends DiplomacyConcern {
             end();
             return;
         }
-        weight *= getPriorityMult(ai.getFaction().getRelationshipLevel(faction));
+        weight *= getPriorityMult(getSnapshot().getRelationshipLevel(ai.getFaction(), faction));
         priority.modifyFlat("power", weight, StrategicAI.getString("statFactionPower", true));
         super.update();
     }
@@ -73,14 +73,14 @@ public class PowerfulUnfriendlyConcern extends DiplomacyConcern {
 
     protected boolean shouldBeConcernedAbout(FactionAPI faction, float ourStrength, float theirStrength) {
         FactionAPI us = ai.getFaction();
-        if (faction.isHostileTo(us)) return false;  // already at war anyway
+        if (getSnapshot().isHostile(faction, us)) return false;  // already at war anyway
         if (NexUtilsFaction.isPirateFaction(faction.getId())) return false; // no need to befriend pirates
 
         RepLevel disregardAtRep = RepLevel.NEUTRAL;
         if (DiplomacyTraits.hasTrait(us.getId(), DiplomacyTraits.TraitIds.PARANOID)) {
             disregardAtRep = disregardAtRep.getOneBetter();
         }
-        if (faction.isAtWorst(us, disregardAtRep)) return false;    // safe for now
+        if (getSnapshot().isAtWorst(faction, us, disregardAtRep)) return false;    // safe for now
 
         if (theirStrength * SAIConstants.STRENGTH_MULT_FOR_CONCERN < ourStrength) return false;   // we're bigger than them
 
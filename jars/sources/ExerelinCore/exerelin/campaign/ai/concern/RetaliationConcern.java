@@ -42,7 +42,7 @@ public class RetaliationConcern extends BaseStrategicConcern {
             log.info("Checking raid " + raid.name);
             if (alreadyConcernRaids.contains(raid)) continue;
             if (raid.defender != ai.getFaction()) continue;
-            if (!raid.attacker.isHostileTo(ai.getFaction())) continue;
+            if (!getSnapshot().isHostile(raid.attacker, ai.getFaction())) continue;
 
             recentRaids.add(raid);
             NexUtils.modifyMapEntry(numRaidsByFaction, raid.attacker.getId(), 1);
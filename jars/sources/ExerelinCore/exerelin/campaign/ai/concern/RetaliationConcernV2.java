@@ -6,10 +6,11 @@ import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
 import com.fs.starfarer.api.util.Pair;
-import exerelin.campaign.SectorManager;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.MilitaryAIModule;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.campaign.ai.action.StrategicActionDelegate;
 import exerelin.plugins.ExerelinModPlugin;
@@ -35,6 +36,10 @@ public class RetaliationConcernV2 extends BaseStrategicConcern {
 
     @Getter protected RaidRecord topRaid;
 
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return module instanceof MilitaryAIModule;
+    }
+
     @Override
     public boolean generate() {
         if (!getExistingConcernItems().isEmpty()) return false;
@@ -57,12 +62,13 @@ public class RetaliationConcernV2 extends BaseStrategicConcern {
                 log.info(ai.getFaction().getId() + " update for retaliation concern: " + ((MilitaryAIModule)module).getRecentRaids().size());
         }
 
+        MeetingSnapshot snapshot = getSnapshot();
         float totalImpact = 0;
         for (RaidRecord raid : ((MilitaryAIModule)module).getRecentRaids()) {
             //log.info("Checking raid " + raid.name);
             if (raid.defender != ai.getFaction()) continue;
-            if (!raid.attacker.isHostileTo(ai.getFaction())) continue;
-            if (!SectorManager.isFactionAlive(raid.attacker.getId())) continue;
+            if (!snapshot.isHostile(raid.attacker, ai.getFaction())) continue;
+            if (!snapshot.isFactionAlive(raid.attacker.getId())) continue;
 
             recentRaids.add(raid);
             NexUtils.modifyMapEntry(numRaidsByFaction, raid.attacker.getId(), 1);
@@ -87,7 +93,7 @@ public class RetaliationConcernV2 extends BaseStrategicConcern {
         Collections.sort(raidsSorted, VALUE_COMPARATOR);
 
         topRaid = raidsSorted.get(0).one;
-        if (topRaid.origin != null && topRaid.origin.getFaction().isHostileTo(ai.getFaction())) {
+        if (topRaid.origin != null && snapshot.isHostile(snapshot.getMarketFaction(topRaid.origin), ai.getFaction())) {
             market = topRaid.origin;
         }
         faction = topRaid.attacker;
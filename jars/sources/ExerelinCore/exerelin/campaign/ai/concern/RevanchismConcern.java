@@ -56,7 +56,7 @@ public class RevanchismConcern extends MarketRelatedConcern {
         super.update();
 
         if (market != null) {
-            float value = getMarketValue(market)/1000f * market.getSize();
+            float value = getSnapshot().getMarketValue(market)/1000f * getSnapshot().getMarketSize(market);
             value /= SAIConstants.MARKET_VALUE_DIVISOR;
 
             priority.modifyFlat("value", value, StrategicAI.getString("statValue", true));
@@ -88,7 +88,7 @@ public class RevanchismConcern extends MarketRelatedConcern {
 
     @Override
     public boolean isValid() {
-        return market != null && market.getFaction() != ai.getFaction();
+        return market != null && getSnapshot().getMarketFaction(market) != ai.getFaction();
     }
 
 
@@ -1,15 +1,14 @@
 package exerelin.campaign.ai.concern;
 
 import com.fs.starfarer.api.Global;
-import com.fs.starfarer.api.campaign.econ.CommodityMarketDataAPI;
 import com.fs.starfarer.api.campaign.econ.CommoditySpecAPI;
-import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.ui.CustomPanelAPI;
 import com.fs.starfarer.api.ui.LabelAPI;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.diplomacy.DiplomacyTraits;
 import exerelin.campaign.econ.EconomyInfoHelper;
 import exerelin.campaign.econ.ProductionMap;
@@ -28,6 +27,13 @@ public class UndersuppliedMarketConcern extends BaseStrategicConcern implements
 
     @Getter protected CommodityBundle commodityBundle;
 
+    /**
+     * Only monopolist factions have this concern.
+     */
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return DiplomacyTraits.hasTrait(ai.getFactionId(), DiplomacyTraits.TraitIds.MONOPOLIST);
+    }
+
     @Override
     public boolean generate() {
         // only monopolist factions have this concern
@@ -38,7 +44,6 @@ public class UndersuppliedMarketConcern extends BaseStrategicConcern implements
         if (alreadyConcerned.size() >= MAX_SIMULTANEOUS_CONCERNS) return false;
 
         java.util.List<CommoditySpecAPI> commoditySpecs = Global.getSettings().getAllCommoditySpecs();
-        MarketAPI testMarket = Global.getSector().getEconomy().getMarketsCopy().get(0);
 
         Map<String, Float> commoditiesToCheck = new HashMap<>();
         for (CommoditySpecAPI spec : commoditySpecs) {
@@ -48,11 +53,9 @@ public class UndersuppliedMarketConcern extends BaseStrategicConcern implements
             if (alreadyConcerned.contains(spec.getId())) continue;
 
             // market size
-            CommodityMarketDataAPI data = testMarket.getCommodityData(commodityId).getCommodityMarketData();
-
-            float size = data.getMarketValue();
+            float size = getSnapshot().getCommodityMarketValue(commodityId);
             if (size <= 0) continue;
-            List<EconomyInfoHelper.ProducerEntry> producers = EconomyInfoHelper.getInstance().getProducersByCommodity(commodityId);
+            List<EconomyInfoHelper.ProducerEntry> producers = getSnapshot().getEconomy().getProducersByCommodity(commodityId);
             int numProducers = producers.size();
             // output units
             int totalOutput = 0;
@@ -106,15 +109,12 @@ public class UndersuppliedMarketConcern extends BaseStrategicConcern implements
 
     @Override
     public void update() {
-        MarketAPI testMarket = Global.getSector().getEconomy().getMarketsCopy().get(0);
         commodityBundle.totalPerProducerValue = 0;
         for (String commodityId : commodityBundle.commodities) {
 
             // market size
-            CommodityMarketDataAPI data = testMarket.getCommodityData(commodityId).getCommodityMarketData();
-
-            float size = data.getMarketValue();
-            List<EconomyInfoHelper.ProducerEntry> producers = EconomyInfoHelper.getInstance().getProducersByCommodity(commodityId);
+            float size = getSnapshot().getCommodityMarketValue(commodityId);
+            List<EconomyInfoHelper.ProducerEntry> producers = getSnapshot().getEconomy().getProducersByCommodity(commodityId);
             if (producers.isEmpty()) {
                 this.end();
                 return;
@@ -1,12 +1,11 @@
 package exerelin.campaign.ai.concern;
 
-import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.util.Pair;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
+import exerelin.campaign.ai.MeetingSnapshot;
 import exerelin.campaign.ai.SAIConstants;
 import exerelin.campaign.ai.StrategicAI;
-import exerelin.campaign.fleets.InvasionFleetManager;
 import lombok.extern.log4j.Log4j;
 
 import java.util.*;
@@ -23,14 +22,15 @@ public class VulnerableEnemyTargetConcern extends MarketRelatedConcern {
 
         Set<MarketAPI> alreadyConcernMarkets = getExistingConcernItems();
 
-        for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+        MeetingSnapshot snapshot = getSnapshot();
+        for (MarketAPI market : snapshot.getMarkets()) {
             if (alreadyConcernMarkets.contains(market)) continue;
-            boolean canUse = InvasionFleetManager.getManager().isValidInvasionOrRaidTarget(ai.getFaction(), null, market, null, false);
+            boolean canUse = snapshot.isValidInvasionOrRaidTarget(market);
             if (canUse) {
-                int size = market.getSize();
-                float value = getMarketValue(market);
-                float sd = getSpaceDefenseValue(market);
-                float gd = getGroundDefenseValue(market);
+                int size = snapshot.getMarketSize(market);
+                float value = snapshot.getMarketValue(market);
+                float sd = snapshot.getSpaceDefenseValue(market);
+                float gd = snapshot.getGroundDefenseValue(market);
                 if (sd/size >= SAIConstants.SPACE_DEF_THRESHOLD && gd/size >= SAIConstants.GROUND_DEF_THRESHOLD) return false;
 
                 float valueMod = value/(sd*2 + gd)/SAIConstants.MARKET_VALUE_DIVISOR * VALUE_MULT;
@@ -59,10 +59,11 @@ public class VulnerableEnemyTargetConcern extends MarketRelatedConcern {
 
     @Override
     public void update() {
-        int size = market.getSize();
-        float value = getMarketValue(market);
-        float sd = getSpaceDefenseValue(market);
-        float gd = getGroundDefenseValue(market);
+        MeetingSnapshot snapshot = getSnapshot();
+        int size = snapshot.getMarketSize(market);
+        float value = snapshot.getMarketValue(market);
+        float sd = snapshot.getSpaceDefenseValue(market);
+        float gd = snapshot.getGroundDefenseValue(market);
         if (sd/size >= SAIConstants.SPACE_DEF_THRESHOLD && gd/size >= SAIConstants.GROUND_DEF_THRESHOLD) {
             end();
             return;
@@ -81,7 +82,7 @@ public class VulnerableEnemyTargetConcern extends MarketRelatedConcern {
 
     @Override
     public boolean isValid() {
-        return market != null && market.getFaction().isHostileTo(ai.getFaction());
+        return market != null && getSnapshot().isHostile(getSnapshot().getMarketFaction(market), ai.getFaction());
     }
 
     @Override
@@ -28,7 +28,7 @@ public class VulnerableFactionConcern extends DiplomacyConcern {
 
         float ourStrength = getFactionStrength(us);
 
-        for (String factionId : getRelevantLiveFactionIds()) {
+        for (String factionId : getSnapshot().getRelevantLiveFactionIds()) {
             FactionAPI faction = Global.getSector().getFaction(factionId);
             if (alreadyConcerned.contains(faction)) continue;
             float theirStrength = getFactionStrength(faction);
@@ -36,7 +36,7 @@ public class VulnerableFactionConcern extends DiplomacyConcern {
 
             float weight = (ourStrength/2 - theirStrength) * 2;
             if (weight <= SAIConstants.MIN_FACTION_PRIORITY_TO_CARE) continue;
-            weight *= getPriorityMult(us.getRelationshipLevel(faction));
+            weight *= getPriorityMult(getSnapshot().getRelationshipLevel(us, faction));
 
             picker.add(faction, weight);
         }
@@ -60,7 +60,7 @@ public class VulnerableFactionConcern extends DiplomacyConcern {
             end();
             return;
         }
-        weight *= getPriorityMult(ai.getFaction().getRelationshipLevel(faction));
+        weight *= getPriorityMult(getSnapshot().getRelationshipLevel(ai.getFaction(), faction));
         priority.modifyFlat("power", weight, StrategicAI.getString("statFactionPower", true));
 
         super.update();
@@ -104,13 +104,13 @@ public class VulnerableFactionConcern extends DiplomacyConcern {
 
     protected boolean shouldBeConcernedAbout(FactionAPI faction, float ourStrength, float theirStrength) {
         FactionAPI us = ai.getFaction();
-        if (faction.isHostileTo(us)) return false;  // already at war anyway
+        if (getSnapshot().isHostile(faction, us)) return false;  // already at war anyway
 
         RepLevel disregardAtRep = RepLevel.FAVORABLE;
         if (DiplomacyTraits.hasTrait(us.getId(), DiplomacyTraits.TraitIds.PREDATORY)) {
             disregardAtRep = RepLevel.FRIENDLY;
         }
-        if (faction.isAtWorst(us, disregardAtRep)) return false;    // safe for now
+        if (getSnapshot().isAtWorst(faction, us, disregardAtRep)) return false;    // safe for now
 
         if (theirStrength * SAIConstants.STRENGTH_MULT_FOR_CONCERN > ourStrength/2) return false;   // they're too big to easily overpower
 
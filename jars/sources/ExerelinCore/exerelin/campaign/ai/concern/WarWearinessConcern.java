@@ -1,11 +1,15 @@
 package exerelin.campaign.ai.concern;
 
-import exerelin.campaign.DiplomacyManager;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
 import exerelin.campaign.diplomacy.DiplomacyBrain;
 
 public class WarWearinessConcern extends DiplomacyConcern {
 
+    public static boolean precheck(StrategicAI ai, StrategicAIModule module) {
+        return !hasExistingConcernOfType(module, WarWearinessConcern.class);
+    }
+
     @Override
     public boolean generate() {
         if (!getExistingConcernsOfSameType().isEmpty()) return false;
@@ -15,7 +19,7 @@ public class WarWearinessConcern extends DiplomacyConcern {
 
     @Override
     public void update() {
-        float weariness = DiplomacyManager.getWarWeariness(ai.getFactionId(), true);
+        float weariness = getSnapshot().getWarWeariness();
         if (weariness < DiplomacyBrain.MAX_WEARINESS_FOR_WAR * 0.75f) {
             end();
             return;
@@ -25,7 +29,7 @@ public class WarWearinessConcern extends DiplomacyConcern {
 
     @Override
     public boolean isValid() {
-        float weariness = DiplomacyManager.getWarWeariness(ai.getFactionId(), true);
+        float weariness = getSnapshot().getWarWeariness();
         return weariness >= DiplomacyBrain.MAX_WEARINESS_FOR_WAR * 0.75f;
     }
 
@@ -10,6 +10,8 @@ import com.fs.starfarer.api.util.Misc;
 import com.fs.starfarer.api.util.WeightedRandomPicker;
 import exerelin.campaign.AllianceManager;
 import exerelin.campaign.PlayerFactionStore;
+import exerelin.campaign.diplomacy.FactionStrengthLedger;
+import exerelin.campaign.econ.MarketIndex;
 import exerelin.campaign.intel.AllianceIntel;
 import exerelin.campaign.intel.AllianceIntel.UpdateType;
 import exerelin.utilities.*;
@@ -115,6 +117,7 @@ public class Alliance
 	
 	public void addMember(String factionId) {
 		members.add(factionId);
+		FactionStrengthLedger.invalidate();
 	}
 	
 	/**
@@ -124,6 +127,7 @@ public class Alliance
 	public void removeMember(String factionId) {
 		if (permaMembers.contains(factionId)) return;
 		members.remove(factionId);
+		FactionStrengthLedger.invalidate();
 	}
 	
 	/**
@@ -148,17 +152,12 @@ public class Alliance
 	
 	public void clearMembers() {
 		members.clear();
+		FactionStrengthLedger.invalidate();
 	}
 	
 	public List<MarketAPI> getAllianceMarkets()
 	{
-		List<MarketAPI> markets = new ArrayList<>();
-		for (String memberId : members)
-		{
-			List<MarketAPI> factionMarkets = NexUtilsFaction.getFactionMarkets(memberId);
-			markets.addAll(factionMarkets);
-		}
-		return markets;
+		return MarketIndex.getInstance().getAllianceMarkets(this);
 	}
 	
 	/**
@@ -191,7 +190,7 @@ public class Alliance
 		int numMarkets = 0;
 		for (String memberId : members)
 		{
-			numMarkets += NexUtilsFaction.getFactionMarkets(memberId).size();
+			numMarkets += MarketIndex.getInstance().getFactionMarkets(memberId).size();
 		}
 		return numMarkets;
 	}
@@ -201,7 +200,7 @@ public class Alliance
 		int size = 0;
 		for (String memberId : members)
 		{
-			for (MarketAPI market : NexUtilsFaction.getFactionMarkets(memberId))
+			for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(memberId))
 			{
 				size += market.getSize();
 			}
@@ -0,0 +1,381 @@
+package exerelin.campaign.colony;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.CargoAPI;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.InteractionDialogAPI;
+import com.fs.starfarer.api.campaign.PlanetAPI;
+import com.fs.starfarer.api.campaign.SectorEntityToken;
+import com.fs.starfarer.api.campaign.StarSystemAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.econ.MarketConditionAPI;
+import com.fs.starfarer.api.campaign.listeners.ColonyDecivListener;
+import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
+import com.fs.starfarer.api.campaign.listeners.PlayerColonizationListener;
+import com.fs.starfarer.api.campaign.listeners.SurveyPlanetListener;
+import com.fs.starfarer.api.impl.campaign.ids.Conditions;
+import com.fs.starfarer.api.impl.campaign.ids.Tags;
+import com.fs.starfarer.api.impl.campaign.rulecmd.salvage.Nex_MarketCMD;
+import com.fs.starfarer.api.util.Misc;
+import exerelin.campaign.HyperspaceIndex;
+import exerelin.campaign.InvasionRound;
+import exerelin.campaign.econ.MarketIndex;
+import exerelin.utilities.InvasionListener;
+import exerelin.utilities.NexUtilsAstro;
+import exerelin.utilities.NexUtilsFaction;
+import exerelin.utilities.NexUtilsMarket;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Caches the parts of colony expedition target selection that don't depend on the colonizing faction:
+ * which star systems could ever pass {@code ColonyTargetValuator.prefilterSystem}, and each candidate planet's
+ * conditions, hazard and original owner. Picking a target then only applies the faction's own modifiers to the cached planets;
+ * the live checks (fleets in the system, mission importance and so on) are only made for the planets that could still win.
+ * <p>A planet is reindexed when surveyed, colonized, decivilized or transferred.
+ * Every economy tick, any planet whose conditions, hazard, survey level or owner no longer match its entry is reindexed too,
+ * to pick up changes made without notifying us.</p>
+ */
+public class ColonyTargetIndex implements EconomyTickListener, InvasionListener, ColonyDecivListener,
+		PlayerColonizationListener, SurveyPlanetListener {
+
+	public static Logger log = Global.getLogger(ColonyTargetIndex.class);
+
+	protected static ColonyTargetIndex currInstance;
+
+	protected final Map<StarSystemAPI, SystemEntry> systems = new HashMap<>();
+	protected final Map<PlanetAPI, PlanetEntry> planets = new HashMap<>();
+
+	// runcode exerelin.campaign.colony.ColonyTargetIndex.createInstance(true)
+	/**
+	 * Creates and stores an instance of the index. Should be called on every game load.
+	 * Entries are filled in as they are first needed.
+	 * @param replace Replaces the existing instance of the index if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the index being retained between sectors.
+	 * @return
+	 */
+	public static ColonyTargetIndex createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) Global.getSector().getListenerManager().removeListener(currInstance);
+			else return currInstance;
+		}
+		currInstance = new ColonyTargetIndex();
+		Global.getSector().getListenerManager().addListener(currInstance, true);
+		return currInstance;
+	}
+
+	public static ColonyTargetIndex getInstance() {
+		return getInstance(true);
+	}
+
+	public static ColonyTargetIndex getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	public void invalidateAll() {
+		systems.clear();
+		planets.clear();
+	}
+
+	public void invalidateSystem(StarSystemAPI system) {
+		SystemEntry entry = systems.remove(system);
+		if (entry == null) return;
+		for (PlanetAPI planet : entry.planets) {
+			planets.remove(planet);
+		}
+	}
+
+	public void invalidatePlanet(PlanetAPI planet) {
+		planets.remove(planet);
+	}
+
+	protected void invalidateMarket(MarketAPI market) {
+		if (market == null) return;
+		SectorEntityToken primary = market.getPrimaryEntity();
+		if (primary instanceof PlanetAPI) invalidatePlanet((PlanetAPI)primary);
+	}
+
+	public SystemEntry getSystemEntry(StarSystemAPI system) {
+		SystemEntry entry = systems.get(system);
+		if (entry == null) {
+			entry = new SystemEntry(system);
+			systems.put(system, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * @param planet
+	 * @return The planet's entry, or null if the planet has no market or its market is in the economy.
+	 */
+	public PlanetEntry getPlanetEntry(PlanetAPI planet) {
+		PlanetEntry entry = planets.get(planet);
+		if (entry != null && entry.market != planet.getMarket()) entry = null;
+		if (entry == null) {
+			MarketAPI market = planet.getMarket();
+			if (market == null || market.isInEconomy()) return null;
+			entry = new PlanetEntry(planet);
+			planets.put(planet, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Reindexes any planet whose entry no longer matches it, and drops systems no longer in the sector.
+	 */
+	public void revalidate() {
+		Iterator<PlanetEntry> iter = planets.values().iterator();
+		while (iter.hasNext()) {
+			PlanetEntry entry = iter.next();
+			if (entry.market != entry.planet.getMarket() || entry.fingerprint != getFingerprint(entry.market))
+				iter.remove();
+		}
+		systems.keySet().retainAll(new HashSet<>(Global.getSector().getStarSystems()));
+	}
+
+	/**
+	 * Scores every indexed planet as a colony target for the faction, using its valuator's faction-specific modifiers,
+	 * and applies the parts of {@code prefilterSystem} that don't need the system's fleets.
+	 * Planets already in the economy or scoring below the valuator's minimum are left out.
+	 * @param valuator Must have been initialized for the faction, and must return true for {@code canUseTargetIndex}.
+	 * @param faction
+	 * @param anchor Location to measure distances from.
+	 * @return The candidates, highest score first. Each candidate's {@code order} is its position in a scan of the whole sector
+	 * (systems in {@code SectorAPI.getStarSystems} order, then planets in each system's order).
+	 */
+	public List<Candidate> getCandidates(ColonyTargetValuator valuator, FactionAPI faction, SectorEntityToken anchor) {
+		List<Candidate> results = new ArrayList<>();
+		float maxDist = valuator.getMaxDistanceLY(faction);
+		float minScore = valuator.getMinScore(faction);
+		int order = 0;
+
+		// small margin in case a system's anchor isn't exactly at the system's location; the distance is checked again below
+		List<StarSystemAPI> inRange = HyperspaceIndex.getInstance().getSystemsWithinLY(anchor.getLocationInHyperspace(), maxDist + 1);
+		for (StarSystemAPI system : inRange) {
+			SystemEntry sysEntry = getSystemEntry(system);
+			if (!sysEntry.eligible) continue;
+			if (system.getMemoryWithoutUpdate().getBoolean(ColonyTargetValuator.MEM_KEY_NO_COLONIZE)) continue;
+
+			boolean inhabited = !MarketIndex.getInstance().getMarketsInLocation(system).isEmpty();
+			if (inhabited) {
+				if (NexUtilsFaction.getSystemOwner(system) != faction) continue;
+			} else if (sysEntry.unsafe) {
+				continue;
+			}
+
+			float dist = Misc.getDistanceLY(system.getHyperspaceAnchor(), anchor);
+			if (dist > maxDist) continue;
+
+			FactionAPI claimer = null;
+			boolean claimerChecked = false;
+			for (PlanetAPI planet : sysEntry.planets) {
+				PlanetEntry entry = getPlanetEntry(planet);
+				if (entry == null) continue;
+				if (!claimerChecked) {
+					claimer = NexUtilsFaction.getClaimingFaction(planet);
+					claimerChecked = true;
+				}
+				float score = valuator.evaluatePlanet(entry, dist, faction, claimer);
+				if (score < minScore) continue;
+				results.add(new Candidate(entry, sysEntry, !inhabited, dist, score, order++));
+			}
+		}
+		Collections.sort(results, Candidate.BY_SCORE);
+		return results;
+	}
+
+	/**
+	 * The checks from {@code prefilterSystem} and {@code prefilterMarket} that have to be made on live data.
+	 * @param valuator
+	 * @param candidate
+	 * @param faction
+	 * @param fleetChecks Results of the system fleet check so far in this pick, to avoid repeating it for each planet.
+	 * @return
+	 */
+	public boolean passesLiveChecks(ColonyTargetValuator valuator, Candidate candidate, FactionAPI faction,
+			Map<StarSystemAPI, Boolean> fleetChecks)
+	{
+		PlanetEntry entry = candidate.planet;
+		MarketAPI market = entry.planet.getMarket();
+		if (market != entry.market || market.isInEconomy()) return false;
+		if (!valuator.prefilterMarket(market, faction)) return false;
+
+		if (candidate.checkFleets) {
+			StarSystemAPI system = candidate.system.system;
+			Boolean pass = fleetChecks.get(system);
+			if (pass == null) {
+				pass = passesFleetCheck(system, faction);
+				fleetChecks.put(system, pass);
+			}
+			if (!pass) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Same as the fleet part of {@code ColonyTargetValuator.prefilterSystem}.
+	 * @param system
+	 * @param faction
+	 * @return
+	 */
+	public static boolean passesFleetCheck(StarSystemAPI system, FactionAPI faction) {
+		for (CampaignFleetAPI fleet : system.getFleets()) {
+			if (fleet.isStationMode()) return false;
+			if (fleet.getFaction().isHostileTo(faction) && fleet.getFleetPoints() > 25)
+				return false;
+		}
+		return true;
+	}
+
+	public static int getFingerprint(MarketAPI market) {
+		int hash = market.getFactionId() != null ? market.getFactionId().hashCode() : 0;
+		hash = hash * 31 + (market.isInEconomy() ? 1 : 0);
+		hash = hash * 31 + (market.getSurveyLevel() != null ? market.getSurveyLevel().ordinal() : -1);
+		hash = hash * 31 + Float.floatToIntBits(market.getHazardValue());
+		String origOwner = NexUtilsMarket.getOriginalOwner(market);
+		hash = hash * 31 + (origOwner != null ? origOwner.hashCode() : 0);
+		for (MarketConditionAPI cond : market.getConditions()) {
+			hash = hash * 31 + cond.getId().hashCode();
+		}
+		return hash;
+	}
+
+	@Override
+	public void reportEconomyTick(int iterIndex) {
+		revalidate();
+	}
+
+	@Override
+	public void reportEconomyMonthEnd() {}
+
+	@Override
+	public void reportInvadeLoot(InteractionDialogAPI dialog, MarketAPI market,
+			Nex_MarketCMD.TempDataInvasion actionData, CargoAPI cargo) {}
+
+	@Override
+	public void reportInvasionRound(InvasionRound.InvasionRoundResult result, CampaignFleetAPI fleet,
+			MarketAPI defender, float atkStr, float defStr) {}
+
+	@Override
+	public void reportInvasionFinished(CampaignFleetAPI fleet, FactionAPI attackerFaction,
+			MarketAPI market, float numRounds, boolean success) {}
+
+	@Override
+	public void reportMarketTransfered(MarketAPI market, FactionAPI newOwner, FactionAPI oldOwner,
+			boolean playerInvolved, boolean isCapture, List<String> factionsToNotify, float repChangeStrength) {
+		invalidateMarket(market);
+	}
+
+	@Override
+	public void reportPlayerColonizedPlanet(PlanetAPI planet) {
+		invalidatePlanet(planet);
+	}
+
+	@Override
+	public void reportPlayerAbandonedColony(MarketAPI colony) {
+		invalidateMarket(colony);
+	}
+
+	@Override
+	public void reportColonyAboutToBeDecivilized(MarketAPI market, boolean fullyDestroyed) {}
+
+	@Override
+	public void reportColonyDecivilized(MarketAPI market, boolean fullyDestroyed) {
+		invalidateMarket(market);
+	}
+
+	@Override
+	public void reportPlayerSurveyedPlanet(PlanetAPI planet) {
+		invalidatePlanet(planet);
+	}
+
+	/**
+	 * The parts of {@code ColonyTargetValuator.prefilterSystem} that don't change (short of a system's tags changing).
+	 */
+	public static class SystemEntry {
+		public final StarSystemAPI system;
+		public final boolean eligible;
+		public final boolean unsafe;
+		public final List<PlanetAPI> planets;
+
+		public SystemEntry(StarSystemAPI system) {
+			this.system = system;
+			planets = Collections.unmodifiableList(new ArrayList<>(system.getPlanets()));
+			eligible = !system.hasTag(Tags.SYSTEM_CUT_OFF_FROM_HYPER) && !system.hasPulsar()
+					&& !planets.isEmpty() && NexUtilsAstro.canHaveCommRelay(system);
+			unsafe = system.hasTag(Tags.THEME_UNSAFE);
+		}
+	}
+
+	/**
+	 * The inputs to {@code ColonyTargetValuator.evaluatePlanet} that don't depend on the faction.
+	 */
+	public static class PlanetEntry {
+		public final PlanetAPI planet;
+		public final MarketAPI market;
+		public final List<String> conditions;
+		public final float hazard;
+		public final boolean scarred;
+		public final boolean highGravity;
+		public final boolean lowGravity;
+		public final String originalOwner;
+		public final boolean coreSystem;
+		public final int fingerprint;
+
+		public PlanetEntry(PlanetAPI planet) {
+			this.planet = planet;
+			market = planet.getMarket();
+			List<String> conds = new ArrayList<>();
+			for (MarketConditionAPI cond : market.getConditions()) {
+				conds.add(cond.getId());
+			}
+			conditions = Collections.unmodifiableList(conds);
+			hazard = market.getHazardValue();
+			scarred = market.hasCondition("VIC_VBomb_scar");
+			highGravity = market.hasCondition(Conditions.HIGH_GRAVITY);
+			lowGravity = market.hasCondition(Conditions.LOW_GRAVITY);
+			originalOwner = NexUtilsMarket.getOriginalOwner(market);
+			coreSystem = NexUtilsAstro.isCoreSystem(market.getStarSystem());
+			fingerprint = getFingerprint(market);
+		}
+	}
+
+	public static class Candidate {
+		public static final Comparator<Candidate> BY_SCORE = new Comparator<Candidate>() {
+			@Override
+			public int compare(Candidate one, Candidate two) {
+				int result = Float.compare(two.score, one.score);
+				if (result != 0) return result;
+				return Integer.compare(one.order, two.order);
+			}
+		};
+		public static final Comparator<Candidate> BY_ORDER = new Comparator<Candidate>() {
+			@Override
+			public int compare(Candidate one, Candidate two) {
+				return Integer.compare(one.order, two.order);
+			}
+		};
+
+		public final PlanetEntry planet;
+		public final SystemEntry system;
+		/**
+		 * True if the system is uninhabited, so {@code passesFleetCheck} applies.
+		 */
+		public final boolean checkFleets;
+		public final float dist;
+		public final float score;
+		public final int order;
+
+		public Candidate(PlanetEntry planet, SystemEntry system, boolean checkFleets, float dist, float score, int order) {
+			this.planet = planet;
+			this.system = system;
+			this.checkFleets = checkFleets;
+			this.dist = dist;
+			this.score = score;
+			this.order = order;
+		}
+	}
+}
@@ -54,6 +54,7 @@ public class ColonyTargetValuator {
 	}
 	
 	protected int oreProduction, rareOreProduction, organicsProduction, volatilesProduction, foodProduction;
+	protected final Map<String, Float> conditionValueCache = new HashMap<>();
 	
 	protected static void checkConditionForMap(String conditionId, String columnId,
 			JSONObject row, Map<String, Float> map) 
@@ -101,6 +102,17 @@ public class ColonyTargetValuator {
 		organicsProduction = helper.getFactionCommodityProduction(factionId, Commodities.ORGANICS);
 		volatilesProduction = helper.getFactionCommodityProduction(factionId, Commodities.VOLATILES);
 		foodProduction = helper.getFactionCommodityProduction(factionId, Commodities.FOOD);
+		conditionValueCache.clear();
+	}
+	
+	/**
+	 * Whether {@link ColonyTargetIndex} can be used to pick targets with this valuator. The index reproduces
+	 * {@code evaluatePlanet} and {@code prefilterSystem} from its cached data, so subclasses that override either
+	 * should return false (the default for any subclass that doesn't override this).
+	 * @return
+	 */
+	public boolean canUseTargetIndex() {
+		return getClass() == ColonyTargetValuator.class;
 	}
 	
 	public void setSilent(boolean silent) {
@@ -157,6 +169,56 @@ public class ColonyTargetValuator {
 		return score;
 	}
 	
+	/**
+	 * Same as {@code evaluatePlanet(MarketAPI, float, FactionAPI)}, but working from the planet's {@link ColonyTargetIndex} entry.
+	 * Condition values are only calculated once for each condition; results are not logged.
+	 * @param entry
+	 * @param distanceLY
+	 * @param faction
+	 * @param claimingFaction The faction claiming the planet's system, if any.
+	 * @return
+	 */
+	public float evaluatePlanet(ColonyTargetIndex.PlanetEntry entry, float distanceLY, FactionAPI faction, FactionAPI claimingFaction) {
+		if (entry.scarred) return -1000;
+		
+		boolean originalOwner = faction.getId().equals(entry.originalOwner);
+		if (originalOwner && entry.coreSystem)
+			return 1000;
+		
+		float score = 0;
+		for (String condId : entry.conditions) {
+			Float value = conditionValueCache.get(condId);
+			if (value == null) {
+				value = getConditionValue(condId, faction);
+				conditionValueCache.put(condId, value);
+			}
+			score += value;
+		}
+		
+		if (score <= 0) return 0;
+		
+		if (entry.highGravity)
+			score *= 0.8f;
+		else if (entry.lowGravity)
+			score *= 1.1f;
+		
+		if (originalOwner)
+			score += 10;
+		
+		float hazard = entry.hazard * getHazardDivisorMult(faction);
+		if (hazard < 0.1) hazard = 0.1f;
+		
+		score /= hazard;
+		score *= getDistanceValueMult(distanceLY, faction);
+		
+		if (claimingFaction == faction)
+		{
+			score *= 2;
+		}
+		
+		return score;
+	}
+	
 	public boolean prefilterSystem(StarSystemAPI system, FactionAPI faction) {
 		if (system.getMemoryWithoutUpdate().getBoolean(MEM_KEY_NO_COLONIZE))
 			return false;
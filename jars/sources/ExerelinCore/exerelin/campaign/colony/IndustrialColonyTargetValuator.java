@@ -17,6 +17,11 @@ public class IndustrialColonyTargetValuator extends ColonyTargetValuator {
 		return value;
 	}
 	
+	@Override
+	public boolean canUseTargetIndex() {
+		return true;
+	}
+	
 	@Override
 	public float getHazardDivisorMult(FactionAPI faction) {
 		return 1.5f;
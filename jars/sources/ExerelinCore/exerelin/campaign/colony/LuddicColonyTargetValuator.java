@@ -19,6 +19,11 @@ public class LuddicColonyTargetValuator extends ColonyTargetValuator {
 		return value;
 	}
 	
+	@Override
+	public boolean canUseTargetIndex() {
+		return true;
+	}
+	
 	@Override
 	public float getHazardDivisorMult(FactionAPI faction) {
 		return 3f;
@@ -6,6 +6,7 @@ import com.fs.starfarer.api.campaign.RepLevel;
 import com.fs.starfarer.api.campaign.comm.IntelInfoPlugin;
 import com.fs.starfarer.api.campaign.econ.MarketAPI;
 import com.fs.starfarer.api.combat.MutableStat;
+import com.fs.starfarer.api.combat.MutableStat.StatMod;
 import com.fs.starfarer.api.impl.campaign.ids.Factions;
 import com.fs.starfarer.api.impl.campaign.intel.BaseIntelPlugin;
 import com.fs.starfarer.api.impl.campaign.intel.inspection.HegemonyInspectionIntel;
@@ -25,6 +26,8 @@ import exerelin.campaign.alliances.Alliance;
 import exerelin.campaign.alliances.Alliance.Alignment;
 import exerelin.campaign.diplomacy.DiplomacyTraits.TraitIds;
 import exerelin.campaign.econ.EconomyInfoHelper;
+import exerelin.campaign.econ.MarketIndex;
+import exerelin.campaign.intel.ActiveIntelRegistry;
 import exerelin.campaign.intel.diplomacy.CeasefirePromptIntel;
 import exerelin.campaign.intel.diplomacy.DiplomacyIntel;
 import exerelin.campaign.intel.fleets.OffensiveFleetIntel;
@@ -130,6 +133,11 @@ public class DiplomacyBrain {
 	@Getter protected float enemyStrength = 0;
 	protected float playerCeasefireOfferCooldown = 0;
 	protected Map<String, Float> revanchismCache = new HashMap<>();
+	/**
+	 * Incremented each time all the dispositions are updated, so results computed off-thread from an older snapshot can be discarded.
+	 * Updating a single disposition increments that entry's {@code updateCount} instead.
+	 */
+	protected transient int dispositionUpdateCount;
 	
 	//==========================================================================
 	//==========================================================================
@@ -302,7 +310,15 @@ public class DiplomacyBrain {
 	
 	protected void updateDispositionFromTraits(MutableStat disposition, String otherFactionId) 
 	{
-		Set<String> traits = new HashSet<>(DiplomacyTraits.getFactionTraits(this.factionId));
+		DiplomacySnapshot snapshot = new DiplomacySnapshot(Collections.singletonList(this), Collections.singletonList(otherFactionId));
+		updateDispositionFromTraits(snapshot, disposition, otherFactionId);
+	}
+	
+	protected void updateDispositionFromTraits(DiplomacySnapshot snapshot, MutableStat disposition, String otherFactionId) 
+	{
+		DiplomacySnapshot.BrainInfo brainInfo = snapshot.getBrainInfo(this.factionId);
+		DiplomacySnapshot.FactionInfo otherInfo = snapshot.getFactionInfo(otherFactionId);
+		Set<String> traits = brainInfo.traits;
 		
 		if (traits.contains(TraitIds.IRREDENTIST) && disposition.getFlatMods().containsKey("revanchism")
 				&& disposition.getFlatMods().containsKey("revanchism"))
@@ -324,12 +340,7 @@ public class DiplomacyBrain {
 		boolean likesAI = traits.contains(TraitIds.LIKES_AI);
 		
 		if (dislikesAI || hatesAI || likesAI) {
-			float aiScore = 0;
-			Map<MarketAPI, Float> aiHavers = EconomyInfoHelper.getInstance().getAICoreUsers();
-			for (MarketAPI market : aiHavers.keySet()) {
-				if (market.getFactionId().equals(otherFactionId))
-					aiScore += aiHavers.get(market);
-			}
+			float aiScore = otherInfo.aiCoreUse;
 			aiScore *= AI_PENALTY_MULT;
 			if (dislikesAI)
 				aiScore *= 0.5;
@@ -355,7 +366,7 @@ public class DiplomacyBrain {
 		}
 		
 		if (traits.contains(TraitIds.MONOPOLIST)) {
-			float monopolyScore = EconomyInfoHelper.getInstance().getCompetitionFactor(this.factionId, otherFactionId);
+			float monopolyScore = brainInfo.getPair(otherFactionId).competition;
 			monopolyScore *= COMPETITION_PENALTY_MULT;
 			modifyDispositionFromTraits(disposition, -monopolyScore);
 		}
@@ -363,15 +374,13 @@ public class DiplomacyBrain {
 		if (traits.contains(TraitIds.HELPS_ALLIES)) 
 		{
 			float enemyScore = 0;
-			List<String> enemies = DiplomacyManager.getFactionsAtWarWithFaction(otherFactionId, true, true, false);
-			for (String thirdFactionId : enemies) 
+			for (String thirdFactionId : otherInfo.enemies) 
 			{
 				if (this.factionId.equals(thirdFactionId)) continue;
 				
-				FactionAPI thirdFaction = Global.getSector().getFaction(thirdFactionId);
-				if (AllianceManager.areFactionsAllied(this.factionId, thirdFactionId))
+				if (brainInfo.allies.contains(thirdFactionId))
 					enemyScore += 1;
-				else if (thirdFaction.isAtWorst(this.factionId, RepLevel.FRIENDLY))
+				else if (brainInfo.friendlies.contains(thirdFactionId))
 					enemyScore += 0.5f;
 			}
 			enemyScore *= ENEMY_OF_ALLY_PENALTY_MULT;
@@ -382,11 +391,7 @@ public class DiplomacyBrain {
 		boolean anarchist = traits.contains(TraitIds.ANARCHIST);
 		
 		if (lawAndOrder || anarchist) {
-			float freeportScore = 0;
-			List<MarketAPI> markets = NexUtilsFaction.getFactionMarkets(otherFactionId);
-			for (MarketAPI market : markets) {
-				if (market.isFreePort()) freeportScore += market.getSize();
-			}
+			float freeportScore = otherInfo.freePortSize;
 			
 			if (lawAndOrder) {
 				freeportScore *= -FREE_PORT_PENALTY_MULT;
@@ -399,7 +404,7 @@ public class DiplomacyBrain {
 			modifyDispositionFromTraits(disposition, freeportScore);
 		}
 		
-		if (DiplomacyTraits.hasTrait(otherFactionId, TraitIds.MONSTROUS)) {
+		if (otherInfo.traits.contains(TraitIds.MONSTROUS)) {
 			modifyDispositionFromTraits(disposition, MONSTROUS_PENALTY);
 		}
 	}
@@ -423,9 +428,121 @@ public class DiplomacyBrain {
 	public void updateDisposition(String otherFactionId, MutableStat disposition, float days)
 	{
 		if (disposition == null) {
-			disposition = getDisposition(otherFactionId).disposition;
+			DispositionEntry entry = getDisposition(otherFactionId);
+			disposition = entry.disposition;
+			entry.updateCount++;
 		}
+		// only captures the one brain and target, so doesn't go through the other factions
+		DiplomacySnapshot snapshot = new DiplomacySnapshot(Collections.singletonList(this), Collections.singletonList(otherFactionId));
+		updateDisposition(snapshot, otherFactionId, disposition, days);
+	}
+	
+	/**
+	 * Update our dispositions towards the specified faction, reading only from {@code snapshot} 
+	 * (and the disposition stat itself) rather than the live sector. Safe to call off the game thread.
+	 * @param snapshot Must have been captured for this brain and include {@code otherFactionId}.
+	 * @param otherFactionId
+	 * @param disposition
+	 * @param days Time since last update (for decaying event effects)
+	 */
+	public void updateDisposition(DiplomacySnapshot snapshot, String otherFactionId, MutableStat disposition, float days)
+	{
+		DiplomacySnapshot.BrainInfo brainInfo = snapshot.getBrainInfo(this.factionId);
+		DiplomacySnapshot.PairInfo pair = brainInfo.getPair(otherFactionId);
+		DiplomacySnapshot.FactionInfo otherInfo = snapshot.getFactionInfo(otherFactionId);
+		
+		// clear disposition except for recent events
+		Float recent = disposition.getFlatMods().containsKey("events") ? 
+				disposition.getFlatStatMod("events").getValue() : null;
+		disposition.unmodify();
+		if (recent != null)
+			disposition.modifyFlat("events", recent);
+		
+		boolean isHardMode = pair.hardMode;
+		
+		if (pair.baseDisposition != null)
+			disposition.modifyFlat("base", pair.baseDisposition, "Base disposition");
+		//else
+		//	disposition.unmodify("base");
+		
+		float dispFromRel = pair.relationship * RELATIONS_MULT;
+		disposition.modifyFlat("relationship", dispFromRel, "Relationship");
+		
+		float dispFromAlign = getDispositionFromAlignments(otherInfo.alignments, brainInfo.alignments);
+		disposition.modifyFlat("alignments", dispFromAlign, "Alignments");
+		
+		//float dispFromMoral = getDispositionFromMorality(factionId);
+		//disposition.modifyFlat("morality", dispFromMoral, "Morality");
+		disposition.unmodify("morality");
+		
+		float dispFromEnemies = pair.commonEnemies * COMMON_ENEMY_MULT;
+		disposition.modifyFlat("commonEnemies", dispFromEnemies, "Common enemies");
+		
+		updateDispositionFromEvents(disposition, otherFactionId, days);	
+		
+		float dispFromRevan = 0;
+		if (brainInfo.revanchism.containsKey(otherFactionId))
+			dispFromRevan = -brainInfo.revanchism.get(otherFactionId);
+		disposition.modifyFlat("revanchism", dispFromRevan, "Revanchism");
+		
+		float dispFromDominance = -otherInfo.dominance * DOMINANCE_MULT;
+		disposition.modifyFlat("dominance", dispFromDominance, "Dominance");
+		
+		if (isHardMode)
+			disposition.modifyFlat("hardmode", snapshot.hardModeDispositionMod, "Hard mode");
+		//else
+		//	disposition.unmodify("hardmode");
 		
+		updateDispositionFromTraits(snapshot, disposition, otherFactionId);
+		
+		disposition.getModifiedValue();
+	}
+	
+	/**
+	 * Computes our dispositions towards all the snapshot's target factions, on new stats rather than the ones the brain uses.
+	 * Reads only from the snapshot, so it can be run off the game thread.
+	 * @param snapshot
+	 * @param days
+	 * @return Map of faction ID to the computed disposition.
+	 */
+	public Map<String, MutableStat> evaluateDispositions(DiplomacySnapshot snapshot, float days) {
+		DiplomacySnapshot.BrainInfo brainInfo = snapshot.getBrainInfo(this.factionId);
+		Map<String, MutableStat> results = new LinkedHashMap<>();
+		for (String otherFactionId : brainInfo.targets) {
+			MutableStat disposition = new MutableStat(0);
+			Float recent = brainInfo.getPair(otherFactionId).recentEvents;
+			if (recent != null)
+				disposition.modifyFlat("events", recent);
+			updateDisposition(snapshot, otherFactionId, disposition, days);
+			results.put(otherFactionId, disposition);
+		}
+		return results;
+	}
+	
+	/**
+	 * Computes our dispositions towards all live factions straight from the live sector, the way {@code updateDisposition}
+	 * did before {@code DiplomacySnapshot}, on new stats rather than the ones the brain uses.
+	 * Only kept as a reference for checking the snapshot results against (see {@code DiplomacyDispositionUpdater.verifyParallel}).
+	 * Must be called on the game thread.
+	 * @param days
+	 * @return Map of faction ID to the computed disposition.
+	 */
+	public Map<String, MutableStat> evaluateDispositionsLive(float days) {
+		Map<String, MutableStat> results = new LinkedHashMap<>();
+		for (String otherFactionId : SectorManager.getLiveFactionIdsCopy()) {
+			MutableStat disposition = new MutableStat(0);
+			DispositionEntry entry = dispositions.get(otherFactionId);
+			StatMod recent = entry != null ? entry.disposition.getFlatStatMod("events") : null;
+			if (recent != null)
+				disposition.modifyFlat("events", recent.getValue());
+			updateDispositionLive(otherFactionId, disposition, days);
+			results.put(otherFactionId, disposition);
+		}
+		return results;
+	}
+	
+	protected void updateDispositionLive(String otherFactionId, MutableStat disposition, float days)
+	{
 		// clear disposition except for recent events
 		Float recent = disposition.getFlatMods().containsKey("events") ? 
 				disposition.getFlatStatMod("events").getValue() : null;
@@ -438,16 +555,12 @@ public class DiplomacyBrain {
 		float dispBase = NexConfig.getFactionConfig(this.factionId).getDisposition(otherFactionId);
 		if (!DiplomacyManager.haveRandomRelationships(this.factionId, otherFactionId))
 			disposition.modifyFlat("base", dispBase, "Base disposition");
-		//else
-		//	disposition.unmodify("base");
 		
 		float dispFromRel = faction.getRelationship(otherFactionId) * RELATIONS_MULT;
 		disposition.modifyFlat("relationship", dispFromRel, "Relationship");
 		
 		updateDispositionFromAlignment(disposition, otherFactionId);
 		
-		//float dispFromMoral = getDispositionFromMorality(factionId);
-		//disposition.modifyFlat("morality", dispFromMoral, "Morality");
 		disposition.unmodify("morality");
 		
 		float dispFromEnemies = getDispositionFromEnemies(otherFactionId);
@@ -465,14 +578,172 @@ public class DiplomacyBrain {
 		
 		if (isHardMode)
 			disposition.modifyFlat("hardmode", DiplomacyManager.getHardModeDispositionMod(), "Hard mode");
-		//else
-		//	disposition.unmodify("hardmode");
 		
-		updateDispositionFromTraits(disposition, otherFactionId);
+		updateDispositionFromTraitsLive(disposition, otherFactionId);
 		
 		disposition.getModifiedValue();
 	}
 	
+	protected void updateDispositionFromTraitsLive(MutableStat disposition, String otherFactionId) 
+	{
+		Set<String> traits = new HashSet<>(DiplomacyTraits.getFactionTraits(this.factionId));
+		
+		if (traits.contains(TraitIds.IRREDENTIST) && disposition.getFlatMods().containsKey("revanchism"))
+		{
+			float revanchism = disposition.getFlatStatMod("revanchism").value;
+			disposition.modifyFlat("revanchism", revanchism * 1.5f, "Revanchism");
+		}
+		if (traits.contains(TraitIds.SELFRIGHTEOUS) && disposition.getFlatMods().containsKey("alignments")) 
+		{
+			float align = disposition.getFlatStatMod("alignments").value;
+			disposition.modifyFlat("alignments", align * 2, "Alignments");
+		}
+		if (traits.contains(TraitIds.TEMPERAMENTAL)) {
+			disposition.modifyMult("trait_temperamental", 1.25f, "Trait: Temperamental");
+		}
+		
+		boolean dislikesAI = traits.contains(TraitIds.DISLIKES_AI);
+		boolean hatesAI = traits.contains(TraitIds.HATES_AI);
+		boolean likesAI = traits.contains(TraitIds.LIKES_AI);
+		
+		if (dislikesAI || hatesAI || likesAI) {
+			float aiScore = 0;
+			Map<MarketAPI, Float> aiHavers = EconomyInfoHelper.getInstance().getAICoreUsers();
+			for (MarketAPI market : aiHavers.keySet()) {
+				if (market.getFactionId().equals(otherFactionId))
+					aiScore += aiHavers.get(market);
+			}
+			aiScore *= AI_PENALTY_MULT;
+			if (dislikesAI)
+				aiScore *= 0.5;
+			else if (likesAI)
+				aiScore *= -0.5;
+			
+			modifyDispositionFromTraits(disposition, -aiScore);
+		}
+		
+		if (disposition.getFlatMods().containsKey("dominance"))
+		{
+			if (traits.contains(TraitIds.ENVIOUS)) {
+				float dominance = disposition.getFlatStatMod("dominance").value;
+				disposition.modifyFlat("dominance", dominance * 1.5f, "Dominance");
+			}
+			if (traits.contains(TraitIds.SUBMISSIVE)) {
+				float dominance = disposition.getFlatStatMod("dominance").value;
+				disposition.modifyFlat("dominance", -dominance, "Dominance");
+			}
+			if (traits.contains(TraitIds.NEUTRALIST)) {
+				disposition.unmodifyFlat("dominance");
+			}
+		}
+		
+		if (traits.contains(TraitIds.MONOPOLIST)) {
+			float monopolyScore = EconomyInfoHelper.getInstance().getCompetitionFactor(this.factionId, otherFactionId);
+			monopolyScore *= COMPETITION_PENALTY_MULT;
+			modifyDispositionFromTraits(disposition, -monopolyScore);
+		}
+		
+		if (traits.contains(TraitIds.HELPS_ALLIES)) 
+		{
+			float enemyScore = 0;
+			List<String> enemies = DiplomacyManager.getFactionsAtWarWithFaction(otherFactionId, true, true, false);
+			for (String thirdFactionId : enemies) 
+			{
+				if (this.factionId.equals(thirdFactionId)) continue;
+				
+				FactionAPI thirdFaction = Global.getSector().getFaction(thirdFactionId);
+				if (AllianceManager.areFactionsAllied(this.factionId, thirdFactionId))
+					enemyScore += 1;
+				else if (thirdFaction.isAtWorst(this.factionId, RepLevel.FRIENDLY))
+					enemyScore += 0.5f;
+			}
+			enemyScore *= ENEMY_OF_ALLY_PENALTY_MULT;
+			modifyDispositionFromTraits(disposition, -enemyScore);
+		}
+		
+		boolean lawAndOrder = traits.contains(TraitIds.LAW_AND_ORDER);
+		boolean anarchist = traits.contains(TraitIds.ANARCHIST);
+		
+		if (lawAndOrder || anarchist) {
+			float freeportScore = 0;
+			List<MarketAPI> markets = NexUtilsFaction.getFactionMarkets(otherFactionId);
+			for (MarketAPI market : markets) {
+				if (market.isFreePort()) freeportScore += market.getSize();
+			}
+			
+			if (lawAndOrder) {
+				freeportScore *= -FREE_PORT_PENALTY_MULT;
+			}
+			else if (anarchist) {
+				freeportScore *= FREE_PORT_BONUS_MULT;
+			}
+			modifyDispositionFromTraits(disposition, freeportScore);
+		}
+		
+		if (DiplomacyTraits.hasTrait(otherFactionId, TraitIds.MONSTROUS)) {
+			modifyDispositionFromTraits(disposition, MONSTROUS_PENALTY);
+		}
+	}
+	
+	/**
+	 * Copies dispositions from {@code evaluateDispositions} into the ones the brain uses. Must be called on the game thread.
+	 * Any disposition changes from events reported since the snapshot was taken are kept, and any disposition
+	 * that has been updated by itself since (see {@code updateDisposition}) is left as it is.
+	 * @param snapshot
+	 * @param results
+	 * @return False if the brain has updated all its dispositions since the snapshot was taken, in which case nothing is applied.
+	 */
+	public boolean applyDispositions(DiplomacySnapshot snapshot, Map<String, MutableStat> results) {
+		DiplomacySnapshot.BrainInfo brainInfo = snapshot.getBrainInfo(this.factionId);
+		if (brainInfo.updateCount != dispositionUpdateCount) return false;
+		
+		for (Map.Entry<String, MutableStat> tmp : results.entrySet()) {
+			String otherFactionId = tmp.getKey();
+			DiplomacySnapshot.PairInfo pair = brainInfo.getPair(otherFactionId);
+			DispositionEntry entry = dispositions.get(otherFactionId);
+			if (entry == null) {
+				entry = new DispositionEntry(otherFactionId);
+				dispositions.put(otherFactionId, entry);
+			}
+			else if (entry.updateCount != pair.updateCount) {
+				continue;	// updated by itself since the snapshot, so ours is out of date
+			}
+			
+			Float captured = pair.recentEvents;
+			StatMod liveEvents = entry.disposition.getFlatStatMod("events");
+			float eventsDelta = (liveEvents != null ? liveEvents.getValue() : 0) - (captured != null ? captured : 0);
+			
+			copyMods(tmp.getValue(), entry.disposition);
+			if (eventsDelta != 0) {
+				StatMod events = entry.disposition.getFlatStatMod("events");
+				entry.disposition.modifyFlat("events", (events != null ? events.getValue() : 0) + eventsDelta, "Recent events");
+			}
+			entry.disposition.getModifiedValue();
+		}
+		dispositionUpdateCount++;
+		reportDispositionsUpdated(factionId, this);
+		return true;
+	}
+	
+	/**
+	 * Replaces the modifiers on {@code to} with those on {@code from}, added in {@code from}'s iteration order 
+	 * so the modified values come out the same.
+	 * @param from
+	 * @param to
+	 */
+	public static void copyMods(MutableStat from, MutableStat to) {
+		to.unmodify();
+		for (Map.Entry<String, StatMod> tmp : from.getFlatMods().entrySet()) {
+			to.modifyFlat(tmp.getKey(), tmp.getValue().value, tmp.getValue().desc);
+		}
+		for (Map.Entry<String, StatMod> tmp : from.getPercentMods().entrySet()) {
+			to.modifyPercent(tmp.getKey(), tmp.getValue().value, tmp.getValue().desc);
+		}
+		for (Map.Entry<String, StatMod> tmp : from.getMultMods().entrySet()) {
+			to.modifyMult(tmp.getKey(), tmp.getValue().value, tmp.getValue().desc);
+		}
+	}
+	
 	public float reportDiplomacyEvent(String factionId, float effect)
 	{
 		MutableStat disposition = getDisposition(factionId).disposition;
@@ -488,10 +759,12 @@ public class DiplomacyBrain {
 	
 	public void updateAllDispositions(float days)
 	{
-		for (String factionId : SectorManager.getLiveFactionIdsCopy())
+		DiplomacySnapshot snapshot = new DiplomacySnapshot(Collections.singletonList(this));
+		for (String factionId : snapshot.getBrainInfo(this.factionId).targets)
 		{
-			updateDisposition(factionId, days);
+			updateDisposition(snapshot, factionId, getDisposition(factionId).disposition, days);
 		}
+		dispositionUpdateCount++;
 		reportDispositionsUpdated(factionId, this);
 	}
 	
@@ -670,8 +943,7 @@ public class DiplomacyBrain {
 
 	public Set<BaseIntelPlugin> getOffensivesToCheckWhenCeasefiring() {
 		Set<BaseIntelPlugin> raids = new LinkedHashSet<>();
-		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel(OffensiveFleetIntel.class)) {
-			OffensiveFleetIntel ofi = (OffensiveFleetIntel)intel;
+		for (OffensiveFleetIntel ofi : ActiveIntelRegistry.getInstance().getOngoing(OffensiveFleetIntel.class)) {
 			if (!shouldCheckOffensiveForBlockCeasefire(ofi)) continue;
 			raids.add(ofi);
 		}
@@ -682,8 +954,7 @@ public class DiplomacyBrain {
 			raids.add(hii);
 		}
 
-		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel(GroundBattleIntel.class)) {
-			GroundBattleIntel gbi = (GroundBattleIntel)intel;
+		for (GroundBattleIntel gbi : ActiveIntelRegistry.getInstance().getOngoing(GroundBattleIntel.class)) {
 			if (!shouldCheckOffensiveForBlockCeasefire(gbi)) continue;
 			raids.add(gbi);
 		}
@@ -966,32 +1237,29 @@ public class DiplomacyBrain {
 		Set<String> seenFactions = new HashSet<>();
 		float total = 0;
 		
-		for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy())
+		for (MarketAPI market : MarketIndex.getInstance().getMarketsOriginallyOwnedBy(this.factionId))
 		{
 			String mktFactionId = market.getFactionId();
 			if (mktFactionId.equals(this.factionId))
 				continue;
 			
 			// this market used to belong to us, increment revanchism towards its current owner
-			if (NexUtilsMarket.wasOriginalOwner(market, this.factionId))
+			float curr = 0;
+			if (revanchismTemp.containsKey(mktFactionId)) 
 			{
-				float curr = 0;
-				if (revanchismTemp.containsKey(mktFactionId)) 
-				{
-					curr = revanchismTemp.get(mktFactionId);
-				}
-				float fromMarket = market.getSize() * REVANCHISM_SIZE_MULT;
-				
-				curr += fromMarket;
-				if (curr > REVANCHISM_FACTION_MAX)
-					curr = REVANCHISM_FACTION_MAX;
-				
-				revanchismTemp.put(mktFactionId, curr);
-				
-				total += fromMarket;
-				
-				seenFactions.add(mktFactionId);
+				curr = revanchismTemp.get(mktFactionId);
 			}
+			float fromMarket = market.getSize() * REVANCHISM_SIZE_MULT;
+			
+			curr += fromMarket;
+			if (curr > REVANCHISM_FACTION_MAX)
+				curr = REVANCHISM_FACTION_MAX;
+			
+			revanchismTemp.put(mktFactionId, curr);
+			
+			total += fromMarket;
+			
+			seenFactions.add(mktFactionId);
 		}
 		
 		float mult = 1;
@@ -1154,39 +1422,17 @@ public class DiplomacyBrain {
 	 */
 	public static float getFactionStrength(String factionId)
 	{
-		float str = 0;
-		Collection<String> allies;
-		Alliance alliance = AllianceManager.getFactionAlliance(factionId);
-		if (alliance != null)
-			allies = alliance.getMembersCopy();
-		else allies = new ArrayList<>(0);
-		
-		List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
-		for (MarketAPI market : allMarkets)
-		{
-			String marketFactionId = market.getFaction().getId();
-			if (factionId.equals(marketFactionId))
-				str += market.getSize();
-			else if (allies.contains(marketFactionId))
-				str += market.getSize()/2;
-		}
-		return str;
+		return FactionStrengthLedger.getInstance().getStrengthWithAllies(factionId);
 	}
 	
+	/**
+	 * Gets the sum of the market sizes of all factions at war with the specified faction.
+	 * @param factionId
+	 * @return
+	 */
 	public static float getFactionEnemyStrength(String factionId)
 	{
-		Set<String> enemies = new HashSet<>(DiplomacyManager.getFactionsAtWarWithFaction(factionId, NexConfig.allowPirateInvasions, false, true));
-		
-		float str = 0;
-		
-		List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
-		for (MarketAPI market : allMarkets)
-		{
-			String marketFactionId = market.getFaction().getId();
-			if (enemies.contains(marketFactionId))
-				str += market.getSize();
-		}
-		return str;
+		return FactionStrengthLedger.getInstance().getEnemyStrength(factionId);
 	}
 
 	public static void reportDispositionsUpdated(String factionId, DiplomacyBrain brain) {
@@ -1200,6 +1446,11 @@ public class DiplomacyBrain {
 	{
 		public String factionId;
 		public MutableStat disposition = new MutableStat(0);
+		/**
+		 * Incremented each time this disposition is updated by itself, so batched results from an older snapshot
+		 * can skip just this entry.
+		 */
+		protected transient int updateCount;
 		
 		public DispositionEntry(String factionId)
 		{
@@ -0,0 +1,201 @@
+package exerelin.campaign.diplomacy;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.combat.MutableStat;
+import com.fs.starfarer.api.combat.MutableStat.StatMod;
+import lombok.extern.log4j.Log4j;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Updates the dispositions of many diplomacy brains at once (e.g. after a market changes hands), off the game thread.
+ * <p>The data the brains need is captured in a {@link DiplomacySnapshot} on the game thread when the update is requested;
+ * each brain's dispositions are then computed from it on a worker pool, and copied into the brains at the start of the next frame.
+ * If a brain updates all its dispositions by itself in the meantime, its results are out of date and are discarded;
+ * if it only updates its disposition towards one faction, only the result for that faction is discarded.</p>
+ * <p>Not saved; an update still pending when the game is saved is simply lost, as the brains will update again on their own.</p>
+ */
+@Log4j
+public class DiplomacyDispositionUpdater implements EveryFrameScript {
+
+	/**
+	 * If true, each brain's dispositions are also computed from the live sector when the update is requested
+	 * (as {@code DiplomacyBrain.updateDisposition} did before snapshots), and any difference from the background results
+	 * is logged when they are applied.
+	 */
+	public static boolean verifyParallel = false;
+
+	protected static DiplomacyDispositionUpdater currInstance;
+	protected static ForkJoinPool pool;
+
+	protected DiplomacySnapshot pendingSnapshot;
+	protected float pendingDays;
+	protected final Map<DiplomacyBrain, Future<Map<String, MutableStat>>> pending = new LinkedHashMap<>();
+	protected final Map<DiplomacyBrain, Map<String, MutableStat>> pendingReference = new HashMap<>();
+
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return pool;
+	}
+
+	// runcode exerelin.campaign.diplomacy.DiplomacyDispositionUpdater.createInstance(true)
+	/**
+	 * Creates and stores an instance of the updater, and adds it as a transient script. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the updater if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the updater being retained between sectors.
+	 * @return
+	 */
+	public static DiplomacyDispositionUpdater createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) {
+				currInstance.cancelPending();
+				Global.getSector().removeTransientScript(currInstance);
+			}
+			else return currInstance;
+		}
+		currInstance = new DiplomacyDispositionUpdater();
+		Global.getSector().addTransientScript(currInstance);
+		return currInstance;
+	}
+
+	public static DiplomacyDispositionUpdater getInstance() {
+		return getInstance(true);
+	}
+
+	public static DiplomacyDispositionUpdater getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Captures a snapshot for the brains and starts computing their dispositions towards all live factions in the background.
+	 * Any update already pending is applied first. Must be called on the game thread.
+	 * @param brains
+	 * @param days Time since last update (for decaying event effects)
+	 */
+	public void requestUpdate(Collection<DiplomacyBrain> brains, final float days) {
+		applyPending();
+		if (brains.isEmpty()) return;
+
+		final DiplomacySnapshot snapshot = new DiplomacySnapshot(brains);
+		pendingSnapshot = snapshot;
+		pendingDays = days;
+		ForkJoinPool pool = getPool();
+		for (final DiplomacyBrain brain : brains) {
+			if (verifyParallel) pendingReference.put(brain, brain.evaluateDispositionsLive(days));
+			pending.put(brain, pool.submit(new Callable<Map<String, MutableStat>>() {
+				@Override
+				public Map<String, MutableStat> call() {
+					return brain.evaluateDispositions(snapshot, days);
+				}
+			}));
+		}
+	}
+
+	public boolean hasPending() {
+		return !pending.isEmpty();
+	}
+
+	/**
+	 * Waits for any pending update to finish and copies the results into the brains. Must be called on the game thread.
+	 */
+	public void applyPending() {
+		if (pending.isEmpty()) return;
+
+		DiplomacySnapshot snapshot = pendingSnapshot;
+		Map<DiplomacyBrain, Future<Map<String, MutableStat>>> toApply = new LinkedHashMap<>(pending);
+		Map<DiplomacyBrain, Map<String, MutableStat>> references = new HashMap<>(pendingReference);
+		pending.clear();
+		pendingReference.clear();
+		pendingSnapshot = null;
+
+		for (Map.Entry<DiplomacyBrain, Future<Map<String, MutableStat>>> tmp : toApply.entrySet()) {
+			DiplomacyBrain brain = tmp.getKey();
+			Map<String, MutableStat> results;
+			try {
+				results = tmp.getValue().get();
+			} catch (Exception ex) {
+				// fall back to doing it ourselves
+				log.error("Failed to update dispositions for " + brain.factionId + " in background", ex);
+				brain.updateAllDispositions(pendingDays);
+				continue;
+			}
+			Map<String, MutableStat> reference = references.get(brain);
+			if (reference != null) verify(brain, reference, results);
+			if (!brain.applyDispositions(snapshot, results)) {
+				log.info("Discarding out of date dispositions for " + brain.factionId);
+			}
+		}
+	}
+
+	protected void cancelPending() {
+		for (Future<Map<String, MutableStat>> future : pending.values()) {
+			future.cancel(false);
+		}
+		pending.clear();
+		pendingReference.clear();
+		pendingSnapshot = null;
+	}
+
+	/**
+	 * Logs any difference between the background results and the dispositions computed from the live sector
+	 * when the update was requested.
+	 * @param brain
+	 * @param reference Results of {@code DiplomacyBrain.evaluateDispositionsLive}.
+	 * @param results
+	 * @return True if the results match.
+	 */
+	protected boolean verify(DiplomacyBrain brain, Map<String, MutableStat> reference, Map<String, MutableStat> results) {
+		boolean match = true;
+		if (reference.size() != results.size()) {
+			log.error(String.format("Disposition count mismatch for %s: expected %s, got %s", brain.factionId,
+					reference.size(), results.size()));
+			match = false;
+		}
+		for (Map.Entry<String, MutableStat> tmp : reference.entrySet()) {
+			String otherFactionId = tmp.getKey();
+			MutableStat expected = tmp.getValue();
+			MutableStat actual = results.get(otherFactionId);
+			if (actual == null || expected.getModifiedValue() != actual.getModifiedValue()
+					|| !modsEqual(expected.getFlatMods(), actual.getFlatMods())
+					|| !modsEqual(expected.getPercentMods(), actual.getPercentMods())
+					|| !modsEqual(expected.getMultMods(), actual.getMultMods()))
+			{
+				log.error(String.format("Disposition mismatch for %s towards %s: expected %s, got %s", brain.factionId,
+						otherFactionId, expected.getModifiedValue(), actual != null ? actual.getModifiedValue() : null));
+				match = false;
+			}
+		}
+		return match;
+	}
+
+	protected static boolean modsEqual(Map<String, StatMod> one, Map<String, StatMod> two) {
+		if (one.size() != two.size()) return false;
+		for (Map.Entry<String, StatMod> tmp : one.entrySet()) {
+			StatMod other = two.get(tmp.getKey());
+			if (other == null || other.value != tmp.getValue().value) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void advance(float amount) {
+		applyPending();
+	}
+
+	@Override
+	public boolean isDone() {
+		return false;
+	}
+
+	@Override
+	public boolean runWhilePaused() {
+		return true;
+	}
+}
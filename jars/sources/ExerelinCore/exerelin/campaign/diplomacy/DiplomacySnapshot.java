@@ -0,0 +1,217 @@
+package exerelin.campaign.diplomacy;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.RepLevel;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.combat.MutableStat;
+import exerelin.campaign.AllianceManager;
+import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.SectorManager;
+import exerelin.campaign.alliances.Alliance.Alignment;
+import exerelin.campaign.econ.EconomyInfoHelper;
+import exerelin.utilities.NexConfig;
+import exerelin.utilities.NexUtilsFaction;
+
+import java.util.*;
+
+/**
+ * Read-only copy of everything {@code DiplomacyBrain.updateDisposition} reads from the sector:
+ * relationships, market ownership summaries (dominance, free ports, AI core use), alliance membership,
+ * wars and economic competition, plus the brains' own enemies, revanchism and recent events.
+ * <p>Must be captured on the game thread. Once built it is never modified,
+ * so dispositions can be computed from it on worker threads (see {@code DiplomacyDispositionUpdater}).</p>
+ */
+public class DiplomacySnapshot {
+
+	public final float hardModeDispositionMod;
+	protected final Map<String, FactionInfo> factions = new HashMap<>();
+	protected final Map<String, BrainInfo> brains = new LinkedHashMap<>();
+
+	/**
+	 * Captures the data for each brain to update its dispositions towards all live factions.
+	 * @param brains
+	 */
+	public DiplomacySnapshot(Collection<DiplomacyBrain> brains) {
+		this(brains, null);
+	}
+
+	/**
+	 * @param brains
+	 * @param targets Faction IDs the brains will update their dispositions towards. If null, all live factions.
+	 */
+	public DiplomacySnapshot(Collection<DiplomacyBrain> brains, List<String> targets) {
+		hardModeDispositionMod = DiplomacyManager.getHardModeDispositionMod();
+		if (targets == null) targets = SectorManager.getLiveFactionIdsCopy();
+		targets = Collections.unmodifiableList(new ArrayList<>(targets));
+		Set<String> targetSet = new HashSet<>(targets);
+
+		Map<String, Float> aiCoreUse = new HashMap<>();
+		if (EconomyInfoHelper.getInstance(false) != null) {
+			// same order of addition per faction as iterating the whole map for each faction would give
+			Map<MarketAPI, Float> aiHavers = EconomyInfoHelper.getInstance().getAICoreUsers();
+			for (MarketAPI market : aiHavers.keySet()) {
+				String marketFactionId = market.getFactionId();
+				if (!targetSet.contains(marketFactionId)) continue;
+				Float curr = aiCoreUse.get(marketFactionId);
+				aiCoreUse.put(marketFactionId, (curr != null ? curr : 0) + aiHavers.get(market));
+			}
+		}
+		Set<String> targetEnemies = new HashSet<>();
+		for (String factionId : targets) {
+			Float aiScore = aiCoreUse.get(factionId);
+			FactionInfo info = new FactionInfo(factionId, aiScore != null ? aiScore : 0);
+			factions.put(factionId, info);
+			targetEnemies.addAll(info.enemies);
+		}
+		for (DiplomacyBrain brain : brains) {
+			this.brains.put(brain.factionId, new BrainInfo(brain, targets, targetEnemies));
+		}
+	}
+
+	public FactionInfo getFactionInfo(String factionId) {
+		return factions.get(factionId);
+	}
+
+	public BrainInfo getBrainInfo(String factionId) {
+		return brains.get(factionId);
+	}
+
+	public Collection<BrainInfo> getBrainInfos() {
+		return Collections.unmodifiableCollection(brains.values());
+	}
+
+	/**
+	 * Data about a faction as the target of other factions' dispositions.
+	 */
+	public static class FactionInfo {
+		public final String factionId;
+		public final Set<String> traits;
+		public final Map<Alignment, Float> alignments;
+		public final float dominance;
+		public final float aiCoreUse;
+		public final float freePortSize;
+		/**
+		 * Factions at war with this one, including pirates and Templars, whether or not they can make peace.
+		 */
+		public final List<String> enemies;
+
+		protected FactionInfo(String factionId, float aiCoreUse) {
+			this.factionId = factionId;
+			traits = Collections.unmodifiableSet(new HashSet<>(DiplomacyTraits.getFactionTraits(factionId)));
+			alignments = Collections.unmodifiableMap(NexConfig.getFactionConfig(factionId).getAlignmentValues());
+			dominance = DiplomacyManager.getDominanceFactor(factionId);
+			this.aiCoreUse = aiCoreUse;
+
+			float freePort = 0;
+			for (MarketAPI market : NexUtilsFaction.getFactionMarkets(factionId)) {
+				if (market.isFreePort()) freePort += market.getSize();
+			}
+			freePortSize = freePort;
+			enemies = Collections.unmodifiableList(new ArrayList<>(
+					DiplomacyManager.getFactionsAtWarWithFaction(factionId, true, true, false)));
+		}
+	}
+
+	/**
+	 * Data about a brain's faction and its relations with each of the target factions.
+	 */
+	public static class BrainInfo {
+		public final String factionId;
+		/**
+		 * The brain's {@code dispositionUpdateCount} when captured; if it has changed by the time the results
+		 * are ready, the brain has been updated in the meantime and the results are out of date.
+		 */
+		public final int updateCount;
+		public final Set<String> traits;
+		public final Map<Alignment, Float> alignments;
+		public final List<String> targets;
+		public final Map<String, Float> revanchism;
+		/**
+		 * Factions allied with the brain's faction, and factions at least friendly to it, out of the factions at war with
+		 * any of the targets (the only ones the dispositions look up). So a snapshot for a single pair of factions
+		 * doesn't have to go through every faction in the sector.
+		 */
+		public final Set<String> allies;
+		public final Set<String> friendlies;
+		protected final Map<String, PairInfo> pairs = new HashMap<>();
+
+		protected BrainInfo(DiplomacyBrain brain, List<String> targets, Collection<String> thirdParties) {
+			factionId = brain.factionId;
+			updateCount = brain.dispositionUpdateCount;
+			traits = Collections.unmodifiableSet(new HashSet<>(DiplomacyTraits.getFactionTraits(factionId)));
+			alignments = Collections.unmodifiableMap(NexConfig.getFactionConfig(factionId).getAlignmentValues());
+			this.targets = targets;
+			revanchism = Collections.unmodifiableMap(new HashMap<>(brain.revanchismCache));
+
+			Set<String> allies = new HashSet<>();
+			Set<String> friendlies = new HashSet<>();
+			for (String thirdId : thirdParties) {
+				FactionAPI third = Global.getSector().getFaction(thirdId);
+				if (third == null) continue;
+				if (AllianceManager.areFactionsAllied(factionId, thirdId)) allies.add(thirdId);
+				if (third.isAtWorst(factionId, RepLevel.FRIENDLY)) friendlies.add(thirdId);
+			}
+			this.allies = Collections.unmodifiableSet(allies);
+			this.friendlies = Collections.unmodifiableSet(friendlies);
+
+			for (String otherFactionId : targets) {
+				pairs.put(otherFactionId, new PairInfo(brain, otherFactionId));
+			}
+		}
+
+		public PairInfo getPair(String otherFactionId) {
+			return pairs.get(otherFactionId);
+		}
+	}
+
+	/**
+	 * Data about the relationship between a brain's faction and one other faction.
+	 */
+	public static class PairInfo {
+		public final String otherFactionId;
+		public final float relationship;
+		/**
+		 * Null if the two factions have random relationships, in which case the base disposition doesn't apply.
+		 */
+		public final Float baseDisposition;
+		public final boolean hardMode;
+		public final float commonEnemies;
+		public final int competition;
+		/**
+		 * The "recent events" disposition modifier at the time of capture, or null if there is none.
+		 */
+		public final Float recentEvents;
+		/**
+		 * The disposition entry's {@code updateCount} when captured (0 if there was no entry);
+		 * if it has changed by the time the results are ready, that one disposition has been updated by itself in the meantime.
+		 */
+		public final int updateCount;
+
+		protected PairInfo(DiplomacyBrain brain, String otherFactionId) {
+			this.otherFactionId = otherFactionId;
+			relationship = brain.faction.getRelationship(otherFactionId);
+			if (DiplomacyManager.haveRandomRelationships(brain.factionId, otherFactionId))
+				baseDisposition = null;
+			else
+				baseDisposition = NexConfig.getFactionConfig(brain.factionId).getDisposition(otherFactionId);
+			hardMode = brain.isHardMode(otherFactionId);
+
+			FactionAPI other = Global.getSector().getFaction(otherFactionId);
+			float numCommon = 0;
+			for (String enemy : brain.enemies) {
+				if (other.isHostileTo(enemy))
+					numCommon++;
+			}
+			commonEnemies = numCommon;
+
+			EconomyInfoHelper helper = EconomyInfoHelper.getInstance(false);
+			competition = helper != null ? helper.getCompetitionFactor(brain.factionId, otherFactionId) : 0;
+
+			DiplomacyBrain.DispositionEntry entry = brain.dispositions.get(otherFactionId);
+			MutableStat.StatMod events = entry != null ? entry.disposition.getFlatStatMod("events") : null;
+			recentEvents = events != null ? events.getValue() : null;
+			updateCount = entry != null ? entry.updateCount : 0;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package exerelin.campaign.diplomacy;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
+import exerelin.campaign.AllianceManager;
+import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.SectorManager;
+import exerelin.campaign.alliances.Alliance;
+import exerelin.utilities.NexConfig;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches each faction's market-size strength, the half-strength contributed by its allies,
+ * and the strength of the factions it is at war with.
+ * All factions are computed from a single pass over the economy; the ledger is marked dirty on every economy tick,
+ * on market transfer, on alliance membership changes and on war/peace changes, and recomputed on the next read.
+ */
+public class FactionStrengthLedger implements EconomyTickListener {
+
+	public static Logger log = Global.getLogger(FactionStrengthLedger.class);
+
+	protected static FactionStrengthLedger currInstance;
+
+	protected final Map<String, Integer> sizeByFaction = new HashMap<>();
+	// sum of (size/2) per market, matching the integer halving used for allied markets
+	protected final Map<String, Integer> halfSizeByFaction = new HashMap<>();
+	protected final Map<String, StrengthEntry> entries = new HashMap<>();
+	protected boolean dirty = true;
+
+	protected long hits;
+	protected long misses;
+
+	// runcode exerelin.campaign.diplomacy.FactionStrengthLedger.createInstance(true)
+	/**
+	 * Creates and stores an instance of the strength ledger. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the ledger if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the ledger being retained between sectors.
+	 * @return
+	 */
+	public static FactionStrengthLedger createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) Global.getSector().getListenerManager().removeListener(currInstance);
+			else return currInstance;
+		}
+		currInstance = new FactionStrengthLedger();
+		Global.getSector().getListenerManager().addListener(currInstance, true);
+		return currInstance;
+	}
+
+	public static FactionStrengthLedger getInstance() {
+		return getInstance(true);
+	}
+
+	public static FactionStrengthLedger getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Marks the ledger as stale; it will be recomputed on next read.
+	 * Call when market ownership, alliance membership or war/peace state changes.
+	 */
+	public static void invalidate() {
+		if (currInstance != null) currInstance.dirty = true;
+	}
+
+	protected void recompute() {
+		sizeByFaction.clear();
+		halfSizeByFaction.clear();
+		entries.clear();
+
+		for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+			String factionId = market.getFactionId();
+			int size = market.getSize();
+			increment(sizeByFaction, factionId, size);
+			increment(halfSizeByFaction, factionId, size/2);
+		}
+		dirty = false;
+
+		for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+			entries.put(factionId, computeEntry(factionId));
+		}
+	}
+
+	protected static void increment(Map<String, Integer> map, String key, int amount) {
+		Integer curr = map.get(key);
+		if (curr == null) curr = 0;
+		map.put(key, curr + amount);
+	}
+
+	protected int getSize(Map<String, Integer> map, String factionId) {
+		Integer size = map.get(factionId);
+		return size != null ? size : 0;
+	}
+
+	protected StrengthEntry computeEntry(String factionId) {
+		StrengthEntry entry = new StrengthEntry(factionId);
+		entry.own = getSize(sizeByFaction, factionId);
+
+		Alliance alliance = AllianceManager.getFactionAlliance(factionId);
+		if (alliance != null) {
+			for (String allyId : alliance.getMembersCopy()) {
+				if (allyId.equals(factionId)) continue;
+				entry.allied += getSize(halfSizeByFaction, allyId);
+			}
+		}
+
+		for (String enemyId : DiplomacyManager.getFactionsAtWarWithFaction(factionId,
+				NexConfig.allowPirateInvasions, false, true)) {
+			entry.hostile += getSize(sizeByFaction, enemyId);
+		}
+		return entry;
+	}
+
+	public StrengthEntry getEntry(String factionId) {
+		if (dirty) {
+			recompute();
+			misses++;
+		}
+		StrengthEntry entry = entries.get(factionId);
+		if (entry != null) {
+			hits++;
+			return entry;
+		}
+		// not a live faction, but someone wants to know anyway
+		misses++;
+		entry = computeEntry(factionId);
+		entries.put(factionId, entry);
+		return entry;
+	}
+
+	/**
+	 * Sum of the faction's market sizes.
+	 * @param factionId
+	 * @return
+	 */
+	public float getOwnStrength(String factionId) {
+		return getEntry(factionId).own;
+	}
+
+	/**
+	 * Sum of the faction's market sizes, plus half that sum for the faction's allies.
+	 * @param factionId
+	 * @return
+	 */
+	public float getStrengthWithAllies(String factionId) {
+		StrengthEntry entry = getEntry(factionId);
+		return entry.own + entry.allied;
+	}
+
+	/**
+	 * Sum of market sizes of all factions the specified faction is at war with.
+	 * @param factionId
+	 * @return
+	 */
+	public float getEnemyStrength(String factionId) {
+		return getEntry(factionId).hostile;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	// runcode exerelin.campaign.diplomacy.FactionStrengthLedger.getInstance().logStats()
+	public void logStats() {
+		long total = hits + misses;
+		float hitRate = total > 0 ? (float)hits/total : 0;
+		log.info(String.format("Faction strength ledger: %d hits, %d misses (%.1f%% hit rate)",
+				hits, misses, hitRate * 100));
+	}
+
+	@Override
+	public void reportEconomyTick(int iterIndex) {
+		dirty = true;
+	}
+
+	@Override
+	public void reportEconomyMonthEnd() {}
+
+	public static class StrengthEntry {
+		public final String factionId;
+		public int own;
+		public int allied;
+		public int hostile;
+
+		public StrengthEntry(String factionId) {
+			this.factionId = factionId;
+		}
+	}
+}
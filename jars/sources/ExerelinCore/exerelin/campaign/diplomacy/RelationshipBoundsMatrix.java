@@ -0,0 +1,176 @@
+package exerelin.campaign.diplomacy;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.impl.campaign.ids.Factions;
+import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.ExerelinSetupData.StartRelationsMode;
+import exerelin.utilities.NexConfig;
+import exerelin.utilities.NexFactionConfig;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense faction x faction tables of the config-derived pairwise diplomacy values:
+ * max/min relationship, positive/negative diplomacy event chance and ceasefire eligibility.
+ * Lets the O(F^2) diplomacy loops do array reads instead of two faction config lookups per pair.
+ * <p>Rebuilt automatically if the start relations mode or {@code NexConfig.useRelationshipBounds} changes.
+ * Pairs involving the player are not served for max relationship and ceasefire,
+ * since those depend on the player's current commission.</p>
+ */
+public class RelationshipBoundsMatrix {
+
+	public static Logger log = Global.getLogger(RelationshipBoundsMatrix.class);
+
+	protected static RelationshipBoundsMatrix currInstance;
+
+	protected final Map<String, Integer> indexByFactionId = new HashMap<>();
+	protected int numFactions;
+	protected float[] maxRelationship;
+	protected float[] minRelationship;
+	protected float[] positiveChance;
+	protected float[] negativeChance;
+	protected boolean[] canCeasefire;
+
+	protected StartRelationsMode builtForMode;
+	protected boolean builtForUseBounds;
+
+	// runcode exerelin.campaign.diplomacy.RelationshipBoundsMatrix.createInstance(true)
+	/**
+	 * Creates and stores an instance of the matrix. Should be called on every game load.
+	 * @param replace Replaces the existing instance if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the matrix being retained between sectors.
+	 * @return
+	 */
+	public static RelationshipBoundsMatrix createInstance(boolean replace) {
+		if (currInstance != null && !replace) return currInstance;
+		currInstance = new RelationshipBoundsMatrix();
+		currInstance.rebuild();
+		return currInstance;
+	}
+
+	public static RelationshipBoundsMatrix getInstance() {
+		return getInstance(true);
+	}
+
+	public static RelationshipBoundsMatrix getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Recomputes the ceasefire eligibility for the pair, e.g. after their max relationship modifiers change.
+	 * @param factionId1
+	 * @param factionId2
+	 */
+	public static void updatePair(String factionId1, String factionId2) {
+		if (currInstance == null) return;
+		currInstance.updateCeasefire(factionId1, factionId2);
+		currInstance.updateCeasefire(factionId2, factionId1);
+	}
+
+	public void rebuild() {
+		indexByFactionId.clear();
+		List<FactionAPI> factions = Global.getSector().getAllFactions();
+		numFactions = factions.size();
+		for (int i = 0; i < numFactions; i++) {
+			indexByFactionId.put(factions.get(i).getId(), i);
+		}
+
+		int cells = numFactions * numFactions;
+		maxRelationship = new float[cells];
+		minRelationship = new float[cells];
+		positiveChance = new float[cells];
+		negativeChance = new float[cells];
+		canCeasefire = new boolean[cells];
+
+		builtForMode = DiplomacyManager.getManager().getStartRelationsMode();
+		builtForUseBounds = NexConfig.useRelationshipBounds;
+
+		for (int i = 0; i < numFactions; i++) {
+			String id1 = factions.get(i).getId();
+			for (int j = 0; j < numFactions; j++) {
+				String id2 = factions.get(j).getId();
+				int cell = i * numFactions + j;
+				maxRelationship[cell] = NexFactionConfig.computeMaxRelationship(id1, id2);
+				minRelationship[cell] = NexFactionConfig.computeMinRelationship(id1, id2);
+				positiveChance[cell] = NexFactionConfig.computeDiplomacyPositiveChance(id1, id2);
+				negativeChance[cell] = NexFactionConfig.computeDiplomacyNegativeChance(id1, id2);
+			}
+		}
+		// ceasefire eligibility reads max relationship (via DiplomacyManager), so fill it after the other tables
+		for (int i = 0; i < numFactions; i++) {
+			String id1 = factions.get(i).getId();
+			for (int j = 0; j < numFactions; j++) {
+				String id2 = factions.get(j).getId();
+				canCeasefire[i * numFactions + j] = NexFactionConfig.computeCanCeasefire(id1, id2);
+			}
+		}
+	}
+
+	protected void checkValid() {
+		if (builtForMode != DiplomacyManager.getManager().getStartRelationsMode()
+				|| builtForUseBounds != NexConfig.useRelationshipBounds) {
+			log.info("Diplomacy settings changed, rebuilding relationship bounds matrix");
+			rebuild();
+		}
+	}
+
+	/**
+	 * @param factionId1
+	 * @param factionId2
+	 * @return Index of the pair's cell in the tables, or -1 if either faction isn't in the matrix.
+	 */
+	protected int getCell(String factionId1, String factionId2) {
+		if (factionId1 == null || factionId2 == null) return -1;
+		checkValid();
+		Integer i = indexByFactionId.get(factionId1);
+		if (i == null) return -1;
+		Integer j = indexByFactionId.get(factionId2);
+		if (j == null) return -1;
+		return i * numFactions + j;
+	}
+
+	protected void updateCeasefire(String factionId1, String factionId2) {
+		int cell = getCell(factionId1, factionId2);
+		if (cell < 0) return;
+		canCeasefire[cell] = NexFactionConfig.computeCanCeasefire(factionId1, factionId2);
+	}
+
+	protected static boolean isPlayer(String factionId1, String factionId2) {
+		return Factions.PLAYER.equals(factionId1) || Factions.PLAYER.equals(factionId2);
+	}
+
+	public float getMaxRelationship(String factionId1, String factionId2) {
+		int cell = isPlayer(factionId1, factionId2) ? -1 : getCell(factionId1, factionId2);
+		if (cell < 0) return NexFactionConfig.computeMaxRelationship(factionId1, factionId2);
+		return maxRelationship[cell];
+	}
+
+	public float getMinRelationship(String factionId1, String factionId2) {
+		int cell = getCell(factionId1, factionId2);
+		if (cell < 0) return NexFactionConfig.computeMinRelationship(factionId1, factionId2);
+		return minRelationship[cell];
+	}
+
+	public float getDiplomacyPositiveChance(String factionId1, String factionId2) {
+		int cell = getCell(factionId1, factionId2);
+		if (cell < 0) return NexFactionConfig.computeDiplomacyPositiveChance(factionId1, factionId2);
+		return positiveChance[cell];
+	}
+
+	public float getDiplomacyNegativeChance(String factionId1, String factionId2) {
+		int cell = getCell(factionId1, factionId2);
+		if (cell < 0) return NexFactionConfig.computeDiplomacyNegativeChance(factionId1, factionId2);
+		return negativeChance[cell];
+	}
+
+	public boolean canCeasefire(String factionId1, String factionId2) {
+		int cell = isPlayer(factionId1, factionId2) ? -1 : getCell(factionId1, factionId2);
+		if (cell < 0) return NexFactionConfig.computeCanCeasefire(factionId1, factionId2);
+		return canCeasefire[cell];
+	}
+}
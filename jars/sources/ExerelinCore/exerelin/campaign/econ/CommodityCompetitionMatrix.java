@@ -0,0 +1,128 @@
+package exerelin.campaign.econ;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.econ.CommoditySpecAPI;
+
+import java.util.*;
+
+/**
+ * Competition factor (see {@code EconomyInfoHelper.getCompetitionFactor}) between every pair of factions,
+ * along with each commodity's contribution to it. Built by the economy info helper each time it collects data,
+ * so lookups don't have to go through the market shares again.
+ * <p>Rows are the factions that produce something; columns are the factions that have a market share in anything.
+ * Only columns for factions that also produce something can be non-zero.</p>
+ */
+public class CommodityCompetitionMatrix {
+
+	protected final List<String> factionIds = new ArrayList<>();
+	protected final Map<String, Integer> factionIndexes = new HashMap<>();
+	protected final List<String> commodityIds = new ArrayList<>();
+	protected final Map<String, Integer> commodityIndexes = new HashMap<>();
+
+	protected final int[][] factors;
+	/**
+	 * Indexed by faction 1, faction 2, commodity.
+	 */
+	protected final int[][][] contributions;
+
+	/**
+	 * @param productionByFaction Each faction's best output of each commodity it produces.
+	 * @param sharesByCommodity Each commodity's market share percentage for each faction.
+	 */
+	public CommodityCompetitionMatrix(Map<String, Map<String, Integer>> productionByFaction,
+			Map<String, Map<FactionAPI, Integer>> sharesByCommodity)
+	{
+		Map<String, FactionAPI> factions = new HashMap<>();
+		for (String factionId : productionByFaction.keySet()) {
+			addFaction(factionId);
+		}
+		for (Map.Entry<String, Map<FactionAPI, Integer>> tmp : sharesByCommodity.entrySet()) {
+			if (!commodityIndexes.containsKey(tmp.getKey())) {
+				commodityIndexes.put(tmp.getKey(), commodityIds.size());
+				commodityIds.add(tmp.getKey());
+			}
+			for (FactionAPI faction : tmp.getValue().keySet()) {
+				addFaction(faction.getId());
+				factions.put(faction.getId(), faction);
+			}
+		}
+
+		int numFactions = factionIds.size();
+		factors = new int[numFactions][numFactions];
+		contributions = new int[numFactions][numFactions][commodityIds.size()];
+
+		for (Map.Entry<String, Map<String, Integer>> production : productionByFaction.entrySet()) {
+			String factionId = production.getKey();
+			FactionAPI faction = factions.get(factionId);
+			if (faction == null) continue;	// no market share in anything
+			int row = factionIndexes.get(factionId);
+
+			for (String commodityId : production.getValue().keySet()) {
+				CommoditySpecAPI spec = Global.getSettings().getCommoditySpec(commodityId);
+				if (spec.isPersonnel()) continue;
+
+				Map<FactionAPI, Integer> shares = sharesByCommodity.get(commodityId);
+				if (shares == null) continue;
+
+				Integer amount1 = shares.get(faction);
+				if (amount1 == null || amount1 < 10) continue;
+				int commodityIndex = commodityIndexes.get(commodityId);
+
+				for (Map.Entry<FactionAPI, Integer> share : shares.entrySet()) {
+					// factions that don't produce anything aren't counted as competition, even if they have a market share
+					if (!productionByFaction.containsKey(share.getKey().getId())) continue;
+					Integer amount2 = share.getValue();
+					if (amount2 == null) continue;
+					int amount = amount2 - (amount1/2);
+					if (amount < 0) continue;
+
+					int col = factionIndexes.get(share.getKey().getId());
+					factors[row][col] += amount;
+					contributions[row][col][commodityIndex] += amount;
+				}
+			}
+		}
+	}
+
+	protected void addFaction(String factionId) {
+		if (factionIndexes.containsKey(factionId)) return;
+		factionIndexes.put(factionId, factionIds.size());
+		factionIds.add(factionId);
+	}
+
+	public List<String> getFactionIds() {
+		return Collections.unmodifiableList(factionIds);
+	}
+
+	/**
+	 * @param factionId1
+	 * @param factionId2
+	 * @return Competition factor of faction 2 against faction 1's commodities.
+	 */
+	public int getFactor(String factionId1, String factionId2) {
+		Integer row = factionIndexes.get(factionId1);
+		Integer col = factionIndexes.get(factionId2);
+		if (row == null || col == null) return 0;
+		return factors[row][col];
+	}
+
+	/**
+	 * @param factionId1
+	 * @param factionId2
+	 * @return Map of commodity ID to its contribution to the competition factor, for each commodity that contributes.
+	 */
+	public Map<String, Integer> getContributions(String factionId1, String factionId2) {
+		Map<String, Integer> results = new LinkedHashMap<>();
+		Integer row = factionIndexes.get(factionId1);
+		Integer col = factionIndexes.get(factionId2);
+		if (row == null || col == null) return results;
+
+		int[] contribs = contributions[row][col];
+		for (int i = 0; i < contribs.length; i++) {
+			if (contribs[i] == 0) continue;
+			results.put(commodityIds.get(i), contribs[i]);
+		}
+		return results;
+	}
+}
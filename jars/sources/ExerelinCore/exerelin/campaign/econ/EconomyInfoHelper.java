@@ -3,6 +3,7 @@ package exerelin.campaign.econ;
 import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.campaign.FactionAPI;
 import com.fs.starfarer.api.campaign.econ.*;
+import com.fs.starfarer.api.characters.PersonAPI;
 import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
 import com.fs.starfarer.api.impl.campaign.econ.ResourceDepositsCondition;
 import com.fs.starfarer.api.impl.campaign.ids.Commodities;
@@ -23,6 +24,10 @@ public class EconomyInfoHelper implements EconomyTickListener {
 	
 	public static Logger log = Global.getLogger(EconomyInfoHelper.class);
 	public static boolean loggingMode = false;
+	/**
+	 * If true, every incremental update is checked against a full rebuild, with any differences logged. Slow.
+	 */
+	public static boolean verifyIncremental = false;
 
 	public static final Map<String, Integer> COMMODITY_OUTPUT_MODIFIERS = new HashMap<>();
 
@@ -50,6 +55,12 @@ public class EconomyInfoHelper implements EconomyTickListener {
 	protected Map<MarketAPI, Float> aiCoreUsers = new HashMap<>();
 	protected Map<String, Integer> empireSizeCache = new HashMap<>();
 	protected Map<String, Float> netIncomeByFaction = new HashMap<>();
+	protected CommodityCompetitionMatrix competitionMatrix;
+	
+	/**
+	 * Producer entries and AI core use value of each market, as of when its fingerprint last changed.
+	 */
+	protected Map<MarketAPI, MarketRecord> marketRecords = new LinkedHashMap<>();
 	
 	// runcode exerelin.campaign.econ.EconomyInfoHelper.createInstance()
 	/**
@@ -72,7 +83,7 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		Global.getSector().addScript(new DelayedActionScript(0.01f) {
 			@Override
 			public void doAction() {
-				currInstance.collectEconomicData(false);
+				currInstance.rebuildEconomicData(false);
 			}
 		});		
 		return currInstance;
@@ -116,82 +127,102 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		return 0;
 	}
 	
-	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().collectEconomicData()
+	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().collectEconomicData(false)
+	/**
+	 * Updates the economy data. Producer entries and AI core use values are only regenerated for markets 
+	 * whose fingerprint (see {@code getMarketFingerprint}) has changed since the last update; 
+	 * imports, demand, market shares and income depend on the whole economy, and are recomputed every time.
+	 * @param firstRun If true, all data is rebuilt from scratch.
+	 */
 	public void collectEconomicData(boolean firstRun) 
 	{
-		haveHeavyIndustry.clear();
-		factionProductionByFaction.clear();
-		factionImportsByFaction.clear();
+		if (firstRun) {
+			rebuildEconomicData(true);
+			return;
+		}
+		updateEconomicData(false);
+		if (verifyIncremental) verifyAgainstFullRebuild();
+	}
+	
+	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().rebuildEconomicData(false)
+	/**
+	 * Throws away all stored data, including the per-market records, and regenerates it.
+	 * @param firstRun
+	 */
+	public void rebuildEconomicData(boolean firstRun) {
+		marketRecords.clear();
 		producersByFaction.clear();
 		producersByCommodity.clear();
-		marketSharesByCommodity.clear();
-		totalDemandByCommodity.clear();
+		factionProductionByFaction.clear();
 		totalSupplyByCommodity.clear();
 		aiCoreUsers.clear();
+		updateEconomicData(firstRun);
+	}
+	
+	protected void updateEconomicData(boolean firstRun) 
+	{
+		haveHeavyIndustry.clear();
+		factionImportsByFaction.clear();
+		marketSharesByCommodity.clear();
+		totalDemandByCommodity.clear();
 		empireSizeCache.clear();
 		netIncomeByFaction.clear();
 		
 		List<MarketAPI> markets = Global.getSector().getEconomy().getMarketsCopy();
-		if (markets.isEmpty())
+		if (markets.isEmpty()) {
+			marketRecords.clear();
+			producersByFaction.clear();
+			producersByCommodity.clear();
+			factionProductionByFaction.clear();
+			totalSupplyByCommodity.clear();
+			aiCoreUsers.clear();
+			competitionMatrix = null;
 			return;
+		}
 		
-		// list all producers of all commodities
 		MarketAPI test = markets.get(0);
+		List<String> commodityIds = new ArrayList<>();
 		for (CommodityOnMarketAPI com : test.getAllCommodities()) 
 		{
 			if (com.isNonEcon() || com.isPersonnel())
 				continue;
+			commodityIds.add(com.getId());
+			if (!producersByCommodity.containsKey(com.getId()))
+				producersByCommodity.put(com.getId(), new ArrayList<ProducerEntry>());
+		}
+		
+		// update producers and AI core users, for markets that have changed
+		Set<MarketAPI> present = new HashSet<>();
+		Set<String> changedFactions = new HashSet<>();
+		for (MarketAPI market : markets)
+		{
+			present.add(market);
+			long fingerprint = getMarketFingerprint(market, commodityIds);
+			MarketRecord record = marketRecords.get(market);
+			if (record != null && record.fingerprint == fingerprint)
+				continue;
 			
-			String commodityId = com.getId();
-			producersByCommodity.put(commodityId, new ArrayList<ProducerEntry>());
-
-			
-			CommodityMarketDataAPI data = com.getCommodityMarketData();
+			if (record != null) removeMarketRecord(record, changedFactions);
+			record = new MarketRecord(market, fingerprint, commodityIds);
+			addMarketRecord(record, changedFactions);
+			marketRecords.put(market, record);
+		}
+		Iterator<MarketRecord> iter = marketRecords.values().iterator();
+		while (iter.hasNext()) {
+			MarketRecord record = iter.next();
+			if (present.contains(record.market)) continue;
+			removeMarketRecord(record, changedFactions);
+			iter.remove();
+		}
+		for (String factionId : changedFactions) {
+			updateFactionProduction(factionId);
+		}
+		
+		for (String commodityId : commodityIds) 
+		{
+			CommodityMarketDataAPI data = test.getCommodityData(commodityId).getCommodityMarketData();
 			marketSharesByCommodity.put(commodityId, data.getMarketSharePercentPerFaction());
 
-			// iterate over all producers
-			for (MarketAPI producer : data.getMarkets()) 
-			{
-				if (producer.isHidden()) continue;
-				
-				// don't count illegal production
-				if (!producer.getCommodityData(commodityId).isSupplyLegal())
-					continue;
-
-				// get local supply
-				int supply = producer.getCommodityData(commodityId).getMaxSupply();
-				if (supply <= 0) continue;
-				
-				String factionId = producer.getFactionId();
-				
-				// instantiate faction-keyed maps
-				if (!producersByFaction.containsKey(factionId))
-				{
-					producersByFaction.put(factionId, new ArrayList<ProducerEntry>());
-				}
-				if (!factionProductionByFaction.containsKey(factionId))
-				{
-					factionProductionByFaction.put(factionId, new HashMap<String, Integer>());
-				}
-				
-				int output = producer.getCommodityData(commodityId).getAvailable();
-				
-				// create and store producer entry
-				ProducerEntry entry = new ProducerEntry(commodityId, factionId, producer, output);
-				producersByCommodity.get(commodityId).add(entry);
-				producersByFaction.get(factionId).add(entry);
-				
-				int factionsBest = 0;
-				if (factionProductionByFaction.get(factionId).containsKey(commodityId)) {
-					factionsBest = factionProductionByFaction.get(factionId).get(commodityId);
-				}
-				if (output > factionsBest) {
-					factionProductionByFaction.get(factionId).put(commodityId, output);
-				}
-
-				NexUtils.modifyMapEntry(totalSupplyByCommodity, commodityId, output);
-			}
-
 			// iterate over all importers
 			for (MarketAPI importer : data.getMarkets())
 			{
@@ -269,14 +300,153 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		
 		for (MarketAPI market : markets)
 		{
-			float aiScore = HegemonyInspectionManager.getAICoreUseValue(market);
-			if (aiScore > 0) {
-				aiCoreUsers.put(market, aiScore);
-			}
 			float income = market.getNetIncome();
-
 			NexUtils.modifyMapEntry(netIncomeByFaction, market.getFactionId(), income);
 		}
+		
+		competitionMatrix = new CommodityCompetitionMatrix(factionProductionByFaction, marketSharesByCommodity);
+	}
+	
+	/**
+	 * Hash of everything about the market that its producer entries and AI core use value are generated from: 
+	 * owner, visibility, size, admin, industries (with their AI cores and items), and the supply of each commodity.
+	 * @param market
+	 * @param commodityIds
+	 * @return
+	 */
+	public static long getMarketFingerprint(MarketAPI market, List<String> commodityIds) {
+		long hash = market.getFactionId().hashCode();
+		hash = hash * 31 + (market.isHidden() ? 1 : 0);
+		hash = hash * 31 + market.getSize();
+		PersonAPI admin = market.getAdmin();
+		hash = hash * 31 + (admin != null && admin.getAICoreId() != null ? admin.getAICoreId().hashCode() : 0);
+		for (Industry ind : market.getIndustries()) {
+			hash = hash * 31 + ind.getId().hashCode();
+			hash = hash * 31 + (ind.getAICoreId() != null ? ind.getAICoreId().hashCode() : 0);
+			hash = hash * 31 + (ind.getSpecialItem() != null ? ind.getSpecialItem().getId().hashCode() : 0);
+			hash = hash * 31 + (ind.isImproved() ? 1 : 0);
+		}
+		for (String commodityId : commodityIds) {
+			CommodityOnMarketAPI com = market.getCommodityData(commodityId);
+			hash = hash * 31 + com.getMaxSupply();
+			hash = hash * 31 + com.getAvailable();
+			hash = hash * 31 + (com.isSupplyLegal() ? 1 : 0);
+		}
+		return hash;
+	}
+	
+	protected void addMarketRecord(MarketRecord record, Set<String> changedFactions) {
+		for (ProducerEntry entry : record.producers) {
+			insertProducer(producersByCommodity.get(entry.commodityId), entry);
+			List<ProducerEntry> factionProducers = producersByFaction.get(entry.factionId);
+			if (factionProducers == null) {
+				factionProducers = new ArrayList<>();
+				producersByFaction.put(entry.factionId, factionProducers);
+			}
+			insertProducer(factionProducers, entry);
+			NexUtils.modifyMapEntry(totalSupplyByCommodity, entry.commodityId, entry.output);
+			changedFactions.add(entry.factionId);
+		}
+		if (record.aiScore > 0) {
+			aiCoreUsers.put(record.market, record.aiScore);
+		}
+	}
+	
+	protected void removeMarketRecord(MarketRecord record, Set<String> changedFactions) {
+		for (ProducerEntry entry : record.producers) {
+			List<ProducerEntry> commodityProducers = producersByCommodity.get(entry.commodityId);
+			removeProducer(commodityProducers, entry);
+			List<ProducerEntry> factionProducers = producersByFaction.get(entry.factionId);
+			removeProducer(factionProducers, entry);
+			if (factionProducers.isEmpty()) producersByFaction.remove(entry.factionId);
+			
+			if (commodityProducers.isEmpty()) totalSupplyByCommodity.remove(entry.commodityId);
+			else NexUtils.modifyMapEntry(totalSupplyByCommodity, entry.commodityId, -entry.output);
+			changedFactions.add(entry.factionId);
+		}
+		aiCoreUsers.remove(record.market);
+	}
+	
+	protected static void insertProducer(List<ProducerEntry> list, ProducerEntry entry) {
+		int index = Collections.binarySearch(list, entry, PRODUCER_ORDER);
+		if (index < 0) index = -index - 1;
+		list.add(index, entry);
+	}
+	
+	protected static void removeProducer(List<ProducerEntry> list, ProducerEntry entry) {
+		int index = Collections.binarySearch(list, entry, PRODUCER_ORDER);
+		if (index >= 0 && list.get(index) == entry) list.remove(index);
+		else list.remove(entry);
+	}
+	
+	/**
+	 * Regenerates the faction's best output of each commodity from its producer entries.
+	 * @param factionId
+	 */
+	protected void updateFactionProduction(String factionId) {
+		List<ProducerEntry> producers = producersByFaction.get(factionId);
+		if (producers == null) {
+			factionProductionByFaction.remove(factionId);
+			return;
+		}
+		Map<String, Integer> production = new HashMap<>();
+		for (ProducerEntry entry : producers) {
+			Integer factionsBest = production.get(entry.commodityId);
+			if (entry.output > (factionsBest != null ? factionsBest : 0)) {
+				production.put(entry.commodityId, entry.output);
+			}
+		}
+		factionProductionByFaction.put(factionId, production);
+	}
+	
+	/**
+	 * Compares the current data with that from a full rebuild, and logs any differences.
+	 * @return True if the data is the same.
+	 */
+	public boolean verifyAgainstFullRebuild() {
+		EconomyInfoHelper reference = new EconomyInfoHelper();
+		reference.rebuildEconomicData(false);
+		
+		List<String> mismatches = new ArrayList<>();
+		if (!describeProducers(producersByCommodity).equals(describeProducers(reference.producersByCommodity)))
+			mismatches.add("producersByCommodity");
+		if (!describeProducers(producersByFaction).equals(describeProducers(reference.producersByFaction)))
+			mismatches.add("producersByFaction");
+		if (!factionProductionByFaction.equals(reference.factionProductionByFaction))
+			mismatches.add("factionProductionByFaction");
+		if (!totalSupplyByCommodity.equals(reference.totalSupplyByCommodity))
+			mismatches.add("totalSupplyByCommodity");
+		if (!aiCoreUsers.equals(reference.aiCoreUsers))
+			mismatches.add("aiCoreUsers");
+		if (!haveHeavyIndustry.equals(reference.haveHeavyIndustry))
+			mismatches.add("haveHeavyIndustry");
+		for (String factionId1 : factionProductionByFaction.keySet()) {
+			for (FactionAPI faction2 : Global.getSector().getAllFactions()) {
+				if (getCompetitionFactor(factionId1, faction2.getId()) != calculateCompetitionFactor(factionId1, faction2.getId())) {
+					mismatches.add("competitionMatrix");
+					break;
+				}
+			}
+			if (mismatches.contains("competitionMatrix")) break;
+		}
+		
+		if (!mismatches.isEmpty()) {
+			log.error("Incremental economy data differs from full rebuild in: " + mismatches);
+			return false;
+		}
+		return true;
+	}
+	
+	protected static Map<String, List<String>> describeProducers(Map<String, List<ProducerEntry>> producers) {
+		Map<String, List<String>> results = new HashMap<>();
+		for (Map.Entry<String, List<ProducerEntry>> tmp : producers.entrySet()) {
+			List<String> entries = new ArrayList<>();
+			for (ProducerEntry entry : tmp.getValue()) {
+				entries.add(String.format("%s|%s|%s|%s", entry.commodityId, entry.factionId, entry.market.getId(), entry.output));
+			}
+			results.put(tmp.getKey(), entries);
+		}
+		return results;
 	}
 	
 	protected void incrementEmpireSize(String factionId, MarketAPI market) {
@@ -288,6 +458,36 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		empireSizeCache.put(factionId, size);
 	}
 	
+	/**
+	 * Gets a copy of the current data, which later economy updates won't change (e.g. for a strategy meeting that
+	 * should see the economy as it was when the meeting started). The copy is not registered as a listener.
+	 * @return
+	 */
+	public EconomyInfoHelper copy() {
+		EconomyInfoHelper copy = new EconomyInfoHelper();
+		copy.haveHeavyIndustry.addAll(haveHeavyIndustry);
+		// per-faction maps are replaced rather than modified on update, so they can be shared
+		copy.factionProductionByFaction.putAll(factionProductionByFaction);
+		copy.factionImportsByFaction.putAll(factionImportsByFaction);
+		for (Map.Entry<String, List<ProducerEntry>> tmp : producersByFaction.entrySet()) {
+			copy.producersByFaction.put(tmp.getKey(), new ArrayList<>(tmp.getValue()));
+		}
+		for (Map.Entry<String, List<ProducerEntry>> tmp : producersByCommodity.entrySet()) {
+			copy.producersByCommodity.put(tmp.getKey(), new ArrayList<>(tmp.getValue()));
+		}
+		for (Map.Entry<String, Map<FactionAPI, Integer>> tmp : marketSharesByCommodity.entrySet()) {
+			copy.marketSharesByCommodity.put(tmp.getKey(), new HashMap<>(tmp.getValue()));
+		}
+		copy.totalDemandByCommodity.putAll(totalDemandByCommodity);
+		copy.totalSupplyByCommodity.putAll(totalSupplyByCommodity);
+		copy.aiCoreUsers.putAll(aiCoreUsers);
+		copy.empireSizeCache.putAll(empireSizeCache);
+		copy.netIncomeByFaction.putAll(netIncomeByFaction);
+		copy.competitionMatrix = competitionMatrix;
+		copy.marketRecords.putAll(marketRecords);
+		return copy;
+	}
+	
 	public int getCachedEmpireSize(String factionId) {
 		if (empireSizeCache.containsKey(factionId))
 			return empireSizeCache.get(factionId);
@@ -374,7 +574,7 @@ public class EconomyInfoHelper implements EconomyTickListener {
 	
 	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().getProducers("hegemony", "metals", 0);
 	/**
-	 * Gets a list of all markets of the specified faction producing the specified commodity.
+	 * Gets a list of all markets of the specified faction producing the specified commodity, highest output first.
 	 * @param factionId
 	 * @param commodityId
 	 * @param min Minimum amount of production to be considered.
@@ -385,14 +585,18 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		List<ProducerEntry> results = new ArrayList<>();
 		logInfo(factionId + " producers of " + commodityId + ":");
 		if (!producersByCommodity.containsKey(commodityId)) return results;
-		for (ProducerEntry entry : producersByCommodity.get(commodityId)) {
-			int thisMin = min;
-			if (useModifiers) thisMin += getCommodityOutputModifier(commodityId);
-
-			if (!entry.factionId.equals(factionId)) continue;
-			if (entry.output < thisMin) continue;
+		List<ProducerEntry> factionProducers = producersByFaction.get(factionId);
+		if (factionProducers == null) return results;
+		
+		int thisMin = min;
+		if (useModifiers) thisMin += getCommodityOutputModifier(commodityId);
+		
+		// list is sorted by output, so we can stop at the first one that's too small
+		for (ProducerEntry entry : factionProducers) {
+			if (entry.output < thisMin) break;
+			if (!entry.commodityId.equals(commodityId)) continue;
 			results.add(entry);
-			logInfo(String.format("  %s (%s): %d", entry.market.getName(), entry.factionId, entry.output));
+			if (loggingMode) logInfo(String.format("  %s (%s): %d", entry.market.getName(), entry.factionId, entry.output));
 		}
 		
 		return results;
@@ -401,7 +605,7 @@ public class EconomyInfoHelper implements EconomyTickListener {
 	// runcode exerelin.campaign.econ.EconomyInfoHelper.getInstance().getCompetingProducers("hegemony", "metals", 0);
 
 	/**
-	 * Gets a list of all markets NOT of the specified faction producing the specified commodity.
+	 * Gets a list of all markets NOT of the specified faction producing the specified commodity, highest output first.
 	 * @param factionId
 	 * @param commodityId
 	 * @param min Minimum amount of production to be considered.
@@ -411,11 +615,12 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		List<ProducerEntry> results = new ArrayList<>();
 		logInfo("Competitors with " + factionId + " for " + commodityId + ":");
 		if (!producersByCommodity.containsKey(commodityId)) return results;
+		// list is sorted by output, so we can stop at the first one that's too small
 		for (ProducerEntry entry : producersByCommodity.get(commodityId)) {
+			if (entry.output < min) break;
 			if (entry.factionId.equals(factionId)) continue;
-			if (entry.output < min) continue;
 			results.add(entry);
-			logInfo(String.format("  %s (%s): %d", entry.market.getName(), entry.factionId, entry.output));
+			if (loggingMode) logInfo(String.format("  %s (%s): %d", entry.market.getName(), entry.factionId, entry.output));
 		}
 		
 		return results;
@@ -490,11 +695,30 @@ public class EconomyInfoHelper implements EconomyTickListener {
 	 * Gets an integer representing the degree of competition between the two factions in commodity production.
 	 * The return value is equal to (faction 2 share) - (faction 1 share/2), for each commodity that faction 1 produces.
 	 * Only counts commodities where faction 1's share is at least 10% of total.
+	 * <p>Read from the competition matrix built on the last economy update.</p>
 	 * @param factionId1
 	 * @param factionId2
 	 * @return
 	 */
 	public int getCompetitionFactor(String factionId1, String factionId2) {
+		if (competitionMatrix == null) return calculateCompetitionFactor(factionId1, factionId2);
+		return competitionMatrix.getFactor(factionId1, factionId2);
+	}
+	
+	/**
+	 * @return Competition factors and per-commodity contributions for all faction pairs, as of the last economy update.
+	 */
+	public CommodityCompetitionMatrix getCompetitionMatrix() {
+		return competitionMatrix;
+	}
+	
+	/**
+	 * Calculates {@code getCompetitionFactor} directly from the market shares, without the competition matrix.
+	 * @param factionId1
+	 * @param factionId2
+	 * @return
+	 */
+	public int calculateCompetitionFactor(String factionId1, String factionId2) {
 		float factor = 0;		
 		Map<String, Integer> myCommodities = getCommoditiesProducedByFaction(factionId1);
 		if (myCommodities == null) return 0;
@@ -523,6 +747,10 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		return Math.round(factor);
 	}
 	
+	/**
+	 * @param commodityId
+	 * @return All visible producers of the commodity, highest output first. The list is updated in place, do not modify it.
+	 */
 	public List<ProducerEntry> getProducersByCommodity(String commodityId) {
 		return producersByCommodity.get(commodityId);
 	}	
@@ -552,6 +780,43 @@ public class EconomyInfoHelper implements EconomyTickListener {
 		
 	}
 	
+	/**
+	 * Highest output first, then by commodity and market ID so the order is stable between updates.
+	 */
+	public static final Comparator<ProducerEntry> PRODUCER_ORDER = new Comparator<ProducerEntry>() {
+		@Override
+		public int compare(ProducerEntry one, ProducerEntry two) {
+			int result = Integer.compare(two.output, one.output);
+			if (result != 0) return result;
+			result = one.commodityId.compareTo(two.commodityId);
+			if (result != 0) return result;
+			return one.market.getId().compareTo(two.market.getId());
+		}
+	};
+	
+	protected static class MarketRecord {
+		public final MarketAPI market;
+		public final long fingerprint;
+		public final List<ProducerEntry> producers = new ArrayList<>();
+		public final float aiScore;
+		
+		public MarketRecord(MarketAPI market, long fingerprint, List<String> commodityIds) {
+			this.market = market;
+			this.fingerprint = fingerprint;
+			aiScore = HegemonyInspectionManager.getAICoreUseValue(market);
+			if (market.isHidden()) return;
+			
+			String factionId = market.getFactionId();
+			for (String commodityId : commodityIds) {
+				CommodityOnMarketAPI com = market.getCommodityData(commodityId);
+				// don't count illegal production
+				if (!com.isSupplyLegal()) continue;
+				if (com.getMaxSupply() <= 0) continue;
+				producers.add(new ProducerEntry(commodityId, factionId, market, com.getAvailable()));
+			}
+		}
+	}
+	
 	public static class ProducerEntry implements Comparable<ProducerEntry> {
 		public String commodityId;
 		public String factionId;
@@ -565,7 +830,7 @@ public class EconomyInfoHelper implements EconomyTickListener {
 			this.market = market;
 			this.output = output;
 			
-			logInfo(String.format("%s of %s produces %d of %s", market.getName(), factionId, output, commodityId));
+			if (loggingMode) logInfo(String.format("%s of %s produces %d of %s", market.getName(), factionId, output, commodityId));
 		}
 
 		@Override
@@ -0,0 +1,314 @@
+package exerelin.campaign.econ;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.CampaignFleetAPI;
+import com.fs.starfarer.api.campaign.CargoAPI;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.InteractionDialogAPI;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.PlanetAPI;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.campaign.listeners.ColonyDecivListener;
+import com.fs.starfarer.api.campaign.listeners.EconomyTickListener;
+import com.fs.starfarer.api.campaign.listeners.PlayerColonizationListener;
+import com.fs.starfarer.api.impl.campaign.rulecmd.salvage.Nex_MarketCMD;
+import exerelin.campaign.InvasionRound;
+import exerelin.campaign.alliances.Alliance;
+import exerelin.utilities.InvasionListener;
+import exerelin.utilities.NexUtilsMarket;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Keeps the sector's markets bucketed by owner faction, containing location and original owner,
+ * so that lookups like "all markets of faction X" don't need to copy and filter the whole economy.
+ * <p>Updated incrementally on market transfer, colony founding and decivilization, and rebuilt in full
+ * on every economy tick (or whenever the economy's market count no longer matches) to pick up
+ * any changes made without notifying us.</p>
+ * <p>Hidden markets are indexed too; callers that don't want them should filter them out.</p>
+ */
+public class MarketIndex implements EconomyTickListener, InvasionListener, ColonyDecivListener,
+		PlayerColonizationListener {
+
+	public static Logger log = Global.getLogger(MarketIndex.class);
+
+	protected static MarketIndex currInstance;
+
+	protected final Map<MarketAPI, IndexEntry> entries = new LinkedHashMap<>();
+	protected final Map<String, Set<MarketAPI>> marketsByFaction = new HashMap<>();
+	protected final Map<LocationAPI, Set<MarketAPI>> marketsByLocation = new HashMap<>();
+	protected final Map<String, Set<MarketAPI>> marketsByOriginalOwner = new HashMap<>();
+
+	// runcode exerelin.campaign.econ.MarketIndex.createInstance(true)
+	/**
+	 * Creates and stores an instance of the market index. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the index if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the index being retained between sectors.
+	 * @return
+	 */
+	public static MarketIndex createInstance(boolean replace) {
+		if (currInstance != null) {
+			if (replace) Global.getSector().getListenerManager().removeListener(currInstance);
+			else return currInstance;
+		}
+		currInstance = new MarketIndex();
+		Global.getSector().getListenerManager().addListener(currInstance, true);
+
+		currInstance.rebuild();
+		return currInstance;
+	}
+
+	public static MarketIndex getInstance() {
+		return getInstance(true);
+	}
+
+	public static MarketIndex getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Clears the index and refills it from the economy's market list.
+	 */
+	public void rebuild() {
+		entries.clear();
+		marketsByFaction.clear();
+		marketsByLocation.clear();
+		marketsByOriginalOwner.clear();
+
+		for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+			addMarket(market);
+		}
+	}
+
+	/**
+	 * Rebuilds the index if markets have been added to or removed from the economy without us being told.
+	 */
+	protected void checkMarketCount() {
+		if (Global.getSector().getEconomy().getNumMarkets() != entries.size()) {
+			rebuild();
+		}
+	}
+
+	protected static <K> void addToBucket(Map<K, Set<MarketAPI>> buckets, K key, MarketAPI market) {
+		if (key == null) return;
+		Set<MarketAPI> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new LinkedHashSet<>();
+			buckets.put(key, bucket);
+		}
+		bucket.add(market);
+	}
+
+	protected static <K> void removeFromBucket(Map<K, Set<MarketAPI>> buckets, K key, MarketAPI market) {
+		if (key == null) return;
+		Set<MarketAPI> bucket = buckets.get(key);
+		if (bucket == null) return;
+		bucket.remove(market);
+		if (bucket.isEmpty()) buckets.remove(key);
+	}
+
+	public void addMarket(MarketAPI market) {
+		if (entries.containsKey(market)) {
+			updateMarket(market);
+			return;
+		}
+		IndexEntry entry = new IndexEntry(market);
+		entries.put(market, entry);
+		addToBucket(marketsByFaction, entry.factionId, market);
+		addToBucket(marketsByLocation, entry.loc, market);
+		addToBucket(marketsByOriginalOwner, entry.origOwnerId, market);
+	}
+
+	public void removeMarket(MarketAPI market) {
+		IndexEntry entry = entries.remove(market);
+		if (entry == null) return;
+		removeFromBucket(marketsByFaction, entry.factionId, market);
+		removeFromBucket(marketsByLocation, entry.loc, market);
+		removeFromBucket(marketsByOriginalOwner, entry.origOwnerId, market);
+	}
+
+	/**
+	 * Refiles the market under its current owner and original owner.
+	 * Call after changing a market's faction outside of {@code SectorManager.transferMarket}.
+	 * @param market
+	 */
+	public void updateMarket(MarketAPI market) {
+		IndexEntry entry = entries.get(market);
+		if (entry == null) {
+			if (Global.getSector().getEconomy().getMarket(market.getId()) == market)
+				addMarket(market);
+			return;
+		}
+		String factionId = market.getFactionId();
+		if (!factionId.equals(entry.factionId)) {
+			removeFromBucket(marketsByFaction, entry.factionId, market);
+			entry.factionId = factionId;
+			addToBucket(marketsByFaction, factionId, market);
+		}
+		String origOwnerId = NexUtilsMarket.getOriginalOwner(market);
+		if (origOwnerId == null ? entry.origOwnerId != null : !origOwnerId.equals(entry.origOwnerId)) {
+			removeFromBucket(marketsByOriginalOwner, entry.origOwnerId, market);
+			entry.origOwnerId = origOwnerId;
+			addToBucket(marketsByOriginalOwner, origOwnerId, market);
+		}
+	}
+
+	/**
+	 * Markets whose owner changed without notifying us are moved to their proper bucket as the bucket is read.
+	 * @param factionId
+	 * @return
+	 */
+	protected Set<MarketAPI> getValidatedFactionBucket(String factionId) {
+		checkMarketCount();
+		Set<MarketAPI> bucket = marketsByFaction.get(factionId);
+		if (bucket == null) return Collections.emptySet();
+
+		List<MarketAPI> moved = null;
+		for (MarketAPI market : bucket) {
+			if (market.getFactionId().equals(factionId)) continue;
+			if (moved == null) moved = new ArrayList<>();
+			moved.add(market);
+		}
+		if (moved != null) {
+			for (MarketAPI market : moved) updateMarket(market);
+			bucket = marketsByFaction.get(factionId);
+			if (bucket == null) return Collections.emptySet();
+		}
+		return bucket;
+	}
+
+	/**
+	 * Gets all markets, including hidden ones, belonging to the specified faction.
+	 * @param factionId
+	 * @return An unmodifiable view of the faction's bucket; copy it if the markets may change owner while iterating.
+	 */
+	public Collection<MarketAPI> getFactionMarkets(String factionId) {
+		return Collections.unmodifiableSet(getValidatedFactionBucket(factionId));
+	}
+
+	public boolean hasAnyMarkets(String factionId) {
+		return !getValidatedFactionBucket(factionId).isEmpty();
+	}
+
+	/**
+	 * Gets all markets belonging to members of the specified alliance.
+	 * Computed from the member factions' buckets, so no invalidation is needed when alliance membership changes.
+	 * @param alliance
+	 * @return
+	 */
+	public List<MarketAPI> getAllianceMarkets(Alliance alliance) {
+		List<MarketAPI> results = new ArrayList<>();
+		for (String memberId : alliance.getMembersCopy()) {
+			results.addAll(getValidatedFactionBucket(memberId));
+		}
+		return results;
+	}
+
+	/**
+	 * Gets all markets, including hidden ones, in the specified location.
+	 * @param loc
+	 * @return
+	 */
+	public Collection<MarketAPI> getMarketsInLocation(LocationAPI loc) {
+		checkMarketCount();
+		Set<MarketAPI> bucket = marketsByLocation.get(loc);
+		if (bucket == null) return Collections.emptySet();
+		return Collections.unmodifiableSet(bucket);
+	}
+
+	public Set<LocationAPI> getPopulatedLocations() {
+		checkMarketCount();
+		return Collections.unmodifiableSet(marketsByLocation.keySet());
+	}
+
+	/**
+	 * Gets all markets whose starting faction was the specified faction, regardless of current owner.
+	 * @param factionId
+	 * @return
+	 */
+	public List<MarketAPI> getMarketsOriginallyOwnedBy(String factionId) {
+		checkMarketCount();
+		List<MarketAPI> results = new ArrayList<>();
+		Set<MarketAPI> bucket = marketsByOriginalOwner.get(factionId);
+		if (bucket == null) return results;
+
+		for (MarketAPI market : new ArrayList<>(bucket)) {
+			if (!NexUtilsMarket.wasOriginalOwner(market, factionId)) {
+				updateMarket(market);
+				continue;
+			}
+			results.add(market);
+		}
+		return results;
+	}
+
+	/**
+	 * Gets the IDs of all factions that currently own at least one market (including hidden markets).
+	 * @return
+	 */
+	public Set<String> getFactionsWithMarkets() {
+		checkMarketCount();
+		return Collections.unmodifiableSet(marketsByFaction.keySet());
+	}
+
+	@Override
+	public void reportEconomyTick(int iterIndex) {
+		rebuild();
+	}
+
+	@Override
+	public void reportEconomyMonthEnd() {}
+
+	@Override
+	public void reportInvadeLoot(InteractionDialogAPI dialog, MarketAPI market,
+			Nex_MarketCMD.TempDataInvasion actionData, CargoAPI cargo) {}
+
+	@Override
+	public void reportInvasionRound(InvasionRound.InvasionRoundResult result, CampaignFleetAPI fleet,
+			MarketAPI defender, float atkStr, float defStr) {}
+
+	@Override
+	public void reportInvasionFinished(CampaignFleetAPI fleet, FactionAPI attackerFaction,
+			MarketAPI market, float numRounds, boolean success) {}
+
+	@Override
+	public void reportMarketTransfered(MarketAPI market, FactionAPI newOwner, FactionAPI oldOwner,
+			boolean playerInvolved, boolean isCapture, List<String> factionsToNotify, float repChangeStrength) {
+		updateMarket(market);
+	}
+
+	@Override
+	public void reportPlayerColonizedPlanet(PlanetAPI planet) {
+		if (planet.getMarket() != null) addMarket(planet.getMarket());
+	}
+
+	@Override
+	public void reportPlayerAbandonedColony(MarketAPI colony) {
+		removeMarket(colony);
+	}
+
+	@Override
+	public void reportColonyAboutToBeDecivilized(MarketAPI market, boolean fullyDestroyed) {}
+
+	@Override
+	public void reportColonyDecivilized(MarketAPI market, boolean fullyDestroyed) {
+		removeMarket(market);
+	}
+
+	/**
+	 * Records the keys a market was filed under, so it can be removed from the right buckets later.
+	 */
+	protected static class IndexEntry {
+		public String factionId;
+		public String origOwnerId;
+		public final LocationAPI loc;
+
+		public IndexEntry(MarketAPI market) {
+			factionId = market.getFactionId();
+			origOwnerId = NexUtilsMarket.getOriginalOwner(market);
+			loc = market.getContainingLocation();
+		}
+	}
+}
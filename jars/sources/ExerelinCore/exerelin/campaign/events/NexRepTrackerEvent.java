@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import exerelin.campaign.HyperspaceIndex;
 import exerelin.utilities.StringHelper;
 import org.apache.log4j.Logger;
 
@@ -243,7 +244,7 @@ public class NexRepTrackerEvent extends BaseEventPlugin {
 				}
 				if (faction.isPlayerFaction()) continue; // don't report player to themselves for trading with their own enemies
 				
-				final MarketAPI other = BaseEventPlugin.findNearestMarket(curr.market, new MarketFilter() {
+				final MarketAPI other = HyperspaceIndex.getInstance().getNearestMarket(curr.market, new MarketFilter() {
 					public boolean acceptMarket(MarketAPI market) {
 						if (!market.getFactionId().equals(faction.getId())) {
 							return false;
@@ -110,6 +110,12 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 	public static final int MAX_ONGOING_INTEL = 10;
 	
 	public static Logger log = Global.getLogger(InvasionFleetManager.class);
+	public static boolean PRINT_DEBUG = false;
+	
+	// per-day cache of unrandomized defender strengths, keyed by system + target faction (or attacker whose enemies are counted)
+	protected static final Map<String, float[]> patrolStrengthCache = new HashMap<>();
+	protected static final Map<MarketAPI, Float> stationStrengthCache = new HashMap<>();
+	protected static long strengthCacheTimestamp = -1;
 	
 	protected final List<OffensiveFleetIntel> activeIntel = new LinkedList();
 	@Getter protected HashMap<String, Float> spawnCounter = new HashMap<>();
@@ -204,7 +210,16 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 	 * @return
 	 */
 	public static float estimatePatrolStrength(MarketAPI market, float variability) {
-		Random random = new Random();
+		return applyPatrolStrengthVariability(estimateBasePatrolStrength(market), variability, 
+				variability > 0 ? new Random() : null);
+	}
+	
+	/**
+	 * Patrol strength estimate for the market, before random variability and {@code PATROL_ESTIMATION_MULT} are applied.
+	 * @param market
+	 * @return
+	 */
+	protected static float estimateBasePatrolStrength(MarketAPI market) {
 		float strength = 10 * market.getSize();
 		
 		int maxLight = (int) market.getStats().getDynamic().getMod(Stats.PATROL_NUM_LIGHT_MOD).computeEffective(0);
@@ -223,18 +238,81 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 		
 		strength *= fleetSizeMult;
 		
+		return strength;
+	}
+	
+	protected static float applyPatrolStrengthVariability(float strength, float variability, Random random) {
 		if (variability > 0) {
 			float gauss = NexUtils.getBoundedGaussian(random, -3, 3);
 			
 			strength *= 1 + gauss * variability;
 		}
-			
 		
 		strength *= PATROL_ESTIMATION_MULT;
 		
 		return strength;
 	}
 	
+	/**
+	 * Clears the defender strength caches if they were filled on an earlier day.
+	 */
+	protected static void checkStrengthCacheExpiry() {
+		CampaignClockAPI clock = Global.getSector().getClock();
+		if (strengthCacheTimestamp < 0 || clock.getTimestamp() < strengthCacheTimestamp 
+				|| clock.getElapsedDaysSince(strengthCacheTimestamp) >= 1) 
+		{
+			patrolStrengthCache.clear();
+			stationStrengthCache.clear();
+			strengthCacheTimestamp = clock.getTimestamp();
+		}
+	}
+	
+	/**
+	 * Empties the defender strength caches, so no markets or values from the previous sector are kept after a game load.
+	 * Called from {@code ExerelinModPlugin.onGameLoad}.
+	 */
+	public static void clearStrengthCaches() {
+		patrolStrengthCache.clear();
+		stationStrengthCache.clear();
+		strengthCacheTimestamp = -1;
+	}
+	
+	/**
+	 * Gets the unrandomized patrol strength of each market in the system that counts as a defender, 
+	 * cached for the rest of the day.
+	 * @param attacker
+	 * @param targetFaction
+	 * @param system
+	 * @return
+	 */
+	protected static float[] getBasePatrolStrengths(FactionAPI attacker, FactionAPI targetFaction, StarSystemAPI system) 
+	{
+		checkStrengthCacheExpiry();
+		String key = system.getId() + "|" + (targetFaction != null ? "target:" + targetFaction.getId() 
+				: "hostileTo:" + attacker.getId());
+		float[] strengths = patrolStrengthCache.get(key);
+		if (strengths != null) return strengths;
+		
+		List<Float> temp = new ArrayList<>();
+		for (MarketAPI market : Global.getSector().getEconomy().getMarkets(system))
+		{
+			if (targetFaction != null) {
+				if (market.getFaction() != targetFaction) continue;
+			}
+			else {
+				if (!market.getFaction().isHostileTo(attacker))
+					continue;
+			}
+			temp.add(estimateBasePatrolStrength(market));
+		}
+		strengths = new float[temp.size()];
+		for (int i = 0; i < strengths.length; i++) {
+			strengths[i] = temp.get(i);
+		}
+		patrolStrengthCache.put(key, strengths);
+		return strengths;
+	}
+	
 	/**
 	 * Estimates the patrol strength the specified attacker would face in this star system.
 	 * @param attacker
@@ -250,23 +328,26 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 		
 		if (system == null) return 0;
 		
-		for (MarketAPI market : Global.getSector().getEconomy().getMarkets(system))
+		// variability is applied per market after lookup, so the cache doesn't affect the randomness
+		Random random = variability > 0 ? new Random() : null;
+		for (float base : getBasePatrolStrengths(attacker, targetFaction, system))
 		{
-			if (targetFaction != null) {
-				if (market.getFaction() != targetFaction) continue;
-			}
-			else {
-				if (!market.getFaction().isHostileTo(attacker))
-					continue;
-			}
-			
-			strength += InvasionFleetManager.estimatePatrolStrength(market, variability);
+			strength += applyPatrolStrengthVariability(base, variability, random);
 		}
 		
 		return strength;
 	}
 	
+	/**
+	 * Estimates the strength of the market's station, if any. Cached for the rest of the day.
+	 * @param market
+	 * @return
+	 */
 	public static float estimateStationStrength(MarketAPI market) {
+		checkStrengthCacheExpiry();
+		Float cached = stationStrengthCache.get(market);
+		if (cached != null) return cached;
+		
 		CampaignFleetAPI station = Misc.getStationFleet(market);
 		float stationStr = 0;
 		if (station != null) {
@@ -275,6 +356,7 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 			stationStr += officerStr * STATION_OFFICER_STRENGTH_MULT;
 			stationStr *= 0.5f;
 		}
+		stationStrengthCache.put(market, stationStr);
 		return stationStr;
 	}
 	
@@ -326,7 +408,7 @@ public class InvasionFleetManager extends BaseCampaignEventListener implements I
 		if (defensiveStr > max)
 			defensiveStr = max;
 
-		log.info("\tWanted fleet size vs. " + target.getName() + ": " + defensiveStr);
+		if (PRINT_DEBUG) log.info("\tWanted fleet size vs. " + target.getName() + ": " + defensiveStr);
 		return Math.max(defensiveStr, 30);
 	}
 	
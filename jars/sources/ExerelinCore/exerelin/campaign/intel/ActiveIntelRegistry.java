@@ -0,0 +1,221 @@
+package exerelin.campaign.intel;
+
+import com.fs.starfarer.api.EveryFrameScript;
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.LocationAPI;
+import com.fs.starfarer.api.campaign.comm.IntelInfoPlugin;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.campaign.intel.fleets.OffensiveFleetIntel;
+import exerelin.campaign.intel.groundbattle.GroundBattleIntel;
+import exerelin.campaign.intel.rebellion.RebellionIntel;
+import exerelin.plugins.ExerelinModPlugin;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Tracks ongoing rebellions, ground battles and offensives (invasions, raids, sat bombs, blockades)
+ * by target market, target location and involved faction, so "is there an X at market Y" checks
+ * don't need to scan the whole intel manager.
+ * <p>Intel registers itself when it is started (or first queued/added to the intel manager, for offensives)
+ * and deregisters in {@code notifyEnding}. Queries also skip and prune anything that is ending or ended,
+ * in case it ended without telling us.</p>
+ * <p>Not saved; rebuilt from the intel manager and sector scripts on game load.</p>
+ */
+public class ActiveIntelRegistry {
+
+	public static Logger log = Global.getLogger(ActiveIntelRegistry.class);
+
+	protected static ActiveIntelRegistry currInstance;
+
+	protected final Map<IntelInfoPlugin, Entry> entries = new LinkedHashMap<>();
+	protected final Map<MarketAPI, List<IntelInfoPlugin>> byMarket = new HashMap<>();
+	protected final Map<LocationAPI, List<IntelInfoPlugin>> byLocation = new HashMap<>();
+	protected final Map<String, List<IntelInfoPlugin>> byFaction = new HashMap<>();
+
+	// runcode exerelin.campaign.intel.ActiveIntelRegistry.createInstance(true)
+	/**
+	 * Creates and stores an instance of the registry. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the registry if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the registry being retained between sectors.
+	 * @return
+	 */
+	public static ActiveIntelRegistry createInstance(boolean replace) {
+		if (currInstance != null && !replace) return currInstance;
+		currInstance = new ActiveIntelRegistry();
+		currInstance.rebuild();
+		return currInstance;
+	}
+
+	public static ActiveIntelRegistry getInstance() {
+		return getInstance(true);
+	}
+
+	public static ActiveIntelRegistry getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Clears the registry and refills it from the intel manager, the sector's scripts
+	 * (to catch intel that is queued but not yet added) and the invasion fleet manager's active offensives
+	 * (which is where blockade wrappers, and through them their blockades, are found).
+	 */
+	public void rebuild() {
+		entries.clear();
+		byMarket.clear();
+		byLocation.clear();
+		byFaction.clear();
+
+		Set<Object> candidates = new LinkedHashSet<>();
+		candidates.addAll(Global.getSector().getIntelManager().getIntel(RebellionIntel.class));
+		candidates.addAll(Global.getSector().getIntelManager().getIntel(GroundBattleIntel.class));
+		candidates.addAll(Global.getSector().getIntelManager().getIntel(OffensiveFleetIntel.class));
+		for (EveryFrameScript script : Global.getSector().getScripts()) {
+			candidates.add(script);
+		}
+		InvasionFleetManager ifm = InvasionFleetManager.getManager();
+		if (ifm != null) candidates.addAll(ifm.getActiveIntelCopy());
+
+		for (Object candidate : candidates) {
+			if (candidate instanceof RebellionIntel) {
+				((RebellionIntel)candidate).registerActive();
+			}
+			else if (candidate instanceof GroundBattleIntel) {
+				((GroundBattleIntel)candidate).registerActive();
+			}
+			else if (candidate instanceof OffensiveFleetIntel) {
+				((OffensiveFleetIntel)candidate).registerActive();
+			}
+		}
+	}
+
+	protected static <K> void addToBucket(Map<K, List<IntelInfoPlugin>> buckets, K key, IntelInfoPlugin intel) {
+		if (key == null) return;
+		List<IntelInfoPlugin> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<>(2);
+			buckets.put(key, bucket);
+		}
+		bucket.add(intel);
+	}
+
+	protected static <K> void removeFromBucket(Map<K, List<IntelInfoPlugin>> buckets, K key, IntelInfoPlugin intel) {
+		if (key == null) return;
+		List<IntelInfoPlugin> bucket = buckets.get(key);
+		if (bucket == null) return;
+		bucket.remove(intel);
+		if (bucket.isEmpty()) buckets.remove(key);
+	}
+
+	/**
+	 * Registers an ongoing intel. Does nothing if the intel is already registered, ending or ended.
+	 * @param intel
+	 * @param market Target market, may be null.
+	 * @param loc Target location; if null, the market's containing location is used.
+	 * @param factionIds Factions involved (attacker, defender, rebels etc.), nulls are ignored.
+	 */
+	public void register(IntelInfoPlugin intel, MarketAPI market, LocationAPI loc, String... factionIds) {
+		if (entries.containsKey(intel)) return;
+		if (intel.isEnding() || intel.isEnded()) return;
+		if (loc == null && market != null) loc = market.getContainingLocation();
+
+		Entry entry = new Entry(market, loc);
+		for (String factionId : factionIds) {
+			if (factionId != null) entry.factionIds.add(factionId);
+		}
+		entries.put(intel, entry);
+		addToBucket(byMarket, market, intel);
+		addToBucket(byLocation, loc, intel);
+		for (String factionId : entry.factionIds) {
+			addToBucket(byFaction, factionId, intel);
+		}
+	}
+
+	public void deregister(IntelInfoPlugin intel) {
+		Entry entry = entries.remove(intel);
+		if (entry == null) return;
+		removeFromBucket(byMarket, entry.market, intel);
+		removeFromBucket(byLocation, entry.loc, intel);
+		for (String factionId : entry.factionIds) {
+			removeFromBucket(byFaction, factionId, intel);
+		}
+	}
+
+	/**
+	 * Picks the active intel of the specified type out of {@code bucket}, deregistering any that have ended.
+	 */
+	protected <T> List<T> filterActive(Collection<IntelInfoPlugin> bucket, Class<T> type) {
+		List<T> results = new ArrayList<>();
+		if (bucket == null) return results;
+		List<IntelInfoPlugin> expired = null;
+		for (IntelInfoPlugin intel : bucket) {
+			if (intel.isEnding() || intel.isEnded()) {
+				if (expired == null) expired = new ArrayList<>();
+				expired.add(intel);
+				continue;
+			}
+			if (type.isInstance(intel)) results.add(type.cast(intel));
+		}
+		if (expired != null) {
+			for (IntelInfoPlugin intel : expired) deregister(intel);
+		}
+		return results;
+	}
+
+	/**
+	 * @param type
+	 * @param market
+	 * @return The first ongoing intel of the specified type targeting the market, or null if none.
+	 */
+	public <T> T getOngoing(Class<T> type, MarketAPI market) {
+		List<T> results = filterActive(byMarket.get(market), type);
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	public <T> List<T> getOngoingForMarket(Class<T> type, MarketAPI market) {
+		return filterActive(byMarket.get(market), type);
+	}
+
+	public <T> List<T> getOngoingInLocation(Class<T> type, LocationAPI loc) {
+		return filterActive(byLocation.get(loc), type);
+	}
+
+	public <T> List<T> getOngoingForFaction(Class<T> type, String factionId) {
+		return filterActive(byFaction.get(factionId), type);
+	}
+
+	public <T> List<T> getOngoing(Class<T> type) {
+		return filterActive(new ArrayList<>(entries.keySet()), type);
+	}
+
+	/**
+	 * Compares a registry lookup with the result of the old intel manager scan, and logs an error if the scan
+	 * found something the registry did not. Only runs in Nex dev mode.
+	 * <p>The registry may legitimately know about intel the scan doesn't, since queued intel isn't
+	 * in the intel manager yet.</p>
+	 * @param query Description of the lookup, for the log.
+	 * @param fromRegistry
+	 * @param fromScan
+	 */
+	public static void checkConsistency(String query, Object fromRegistry, Object fromScan) {
+		if (!ExerelinModPlugin.isNexDev) return;
+		if (fromScan == null || fromScan.equals(fromRegistry)) return;
+		if (fromScan instanceof Collection && fromRegistry instanceof Collection
+				&& ((Collection)fromRegistry).containsAll((Collection)fromScan)) return;
+		log.error(String.format("Active intel registry mismatch for %s: registry %s, scan %s",
+				query, fromRegistry, fromScan));
+	}
+
+	protected static class Entry {
+		public final MarketAPI market;
+		public final LocationAPI loc;
+		public final Set<String> factionIds = new LinkedHashSet<>(2);
+
+		public Entry(MarketAPI market, LocationAPI loc) {
+			this.market = market;
+			this.loc = loc;
+		}
+	}
+}
@@ -30,6 +30,7 @@ import exerelin.campaign.ColonyManager;
 import exerelin.campaign.MarketDescChanger;
 import exerelin.campaign.SectorManager;
 import exerelin.campaign.econ.FactionConditionPlugin;
+import exerelin.campaign.econ.MarketIndex;
 import exerelin.campaign.fleets.InvasionFleetManager;
 import exerelin.campaign.intel.fleets.NexTravelStage;
 import exerelin.campaign.intel.fleets.OffensiveFleetIntel;
@@ -431,6 +432,7 @@ public class ColonyExpeditionIntel extends OffensiveFleetIntel implements RaidDe
 		}
 		
 		Global.getSector().getEconomy().addMarket(market, true);
+		MarketIndex.getInstance().addMarket(market);
 		market.getPrimaryEntity().setFaction(factionId);	// http://fractalsoftworks.com/forum/index.php?topic=8581.0
 		
 		if (!fromDeciv) {
@@ -17,6 +17,7 @@ import com.fs.starfarer.api.util.Misc
 import exerelin.campaign.PlayerFactionStore
 import exerelin.campaign.ai.action.StrategicAction
 import exerelin.campaign.ai.action.StrategicActionDelegate.ActionStatus
+import exerelin.campaign.intel.ActiveIntelRegistry
 import exerelin.utilities.NexConfig
 import lombok.Getter
 import lombok.Setter
@@ -66,6 +67,7 @@ class BlockadeWrapperIntel(attacker: FactionAPI?, from: MarketAPI?, target: Mark
             2 -> if (playerSpawned) addIntelIfNeeded() else if (shouldDisplayIntel()) {
                 Global.getSector().intelManager.queueIntel(fgi)
                 intelQueuedOrAdded = true
+                registerActive()
             }
             else -> {
                 addIntelIfNeeded()
@@ -108,6 +110,7 @@ class BlockadeWrapperIntel(attacker: FactionAPI?, from: MarketAPI?, target: Mark
             fgi
         )
         intelQueuedOrAdded = true
+        registerActive()
     }
 
     override fun addIntelIfNeeded() {
@@ -117,6 +120,15 @@ class BlockadeWrapperIntel(attacker: FactionAPI?, from: MarketAPI?, target: Mark
         ) fgi.isImportant = true
         Global.getSector().intelManager.addIntel(fgi)
         intelQueuedOrAdded = true
+        registerActive()
+    }
+
+    /**
+     * Registers the wrapped blockade rather than the wrapper, since the wrapper never goes in the intel manager.
+     */
+    override fun registerActive() {
+        if (!intelQueuedOrAdded || silent || !this::fgi.isInitialized) return
+        ActiveIntelRegistry.getInstance().register(fgi, target, target.starSystem, faction.id, targetFaction?.id)
     }
 
     override fun reportFGIAborted(intel: FleetGroupIntel?) {
@@ -10,6 +10,7 @@ import com.fs.starfarer.api.util.Misc;
 import exerelin.campaign.ai.StrategicAI;
 import exerelin.campaign.ai.action.StrategicAction;
 import exerelin.campaign.ai.action.StrategicActionDelegate;
+import exerelin.campaign.intel.ActiveIntelRegistry;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -29,6 +30,12 @@ public class NexBlockadeFGI extends BlockadeFGI {
         }
     }
 
+    @Override
+    protected void notifyEnding() {
+        super.notifyEnding();
+        ActiveIntelRegistry.getInstance().deregister(this);
+    }
+
     @Override
     public void createSmallDescription(TooltipMakerAPI info, float width, float height) {
         super.createSmallDescription(info, width, height);
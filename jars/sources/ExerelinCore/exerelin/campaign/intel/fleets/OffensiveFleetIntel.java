@@ -31,6 +31,7 @@ import exerelin.campaign.battle.NexWarSimScript;
 import exerelin.campaign.econ.FleetPoolManager;
 import exerelin.campaign.econ.GroundPoolManager;
 import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.campaign.intel.ActiveIntelRegistry;
 import exerelin.campaign.intel.raid.NexRaidActionStage;
 import exerelin.plugins.ExerelinModPlugin;
 import exerelin.utilities.StringHelper;
@@ -65,6 +66,7 @@ public abstract class OffensiveFleetIntel extends RaidIntel implements RaidDeleg
 	@Getter @Setter protected OffensiveOutcome outcome;
 	@Getter protected boolean isRespawn = false;
 	protected boolean intelQueuedOrAdded;
+	protected boolean silent;
 	protected boolean outcomeUpdateSent;
 	@Getter protected boolean playerSpawned;	// was this fleet spawned by player fleet request?
 	@Getter @Setter protected int playerFee;
@@ -134,6 +136,17 @@ public abstract class OffensiveFleetIntel extends RaidIntel implements RaidDeleg
 	
 	public void setSilent() {
 		this.intelQueuedOrAdded = true;
+		silent = true;
+	}
+	
+	/**
+	 * Adds this offensive to the {@code ActiveIntelRegistry}, keyed by its target market and the attacking and target factions.
+	 * Called once the intel is queued or added to the intel manager; silent offensives are not registered.
+	 */
+	public void registerActive() {
+		if (!intelQueuedOrAdded || silent) return;
+		ActiveIntelRegistry.getInstance().register(this, target, null, faction.getId(),
+				targetFaction != null ? targetFaction.getId() : null);
 	}
 	
 	public boolean isUsingMarketSizeMult() {
@@ -234,6 +247,7 @@ public abstract class OffensiveFleetIntel extends RaidIntel implements RaidDeleg
 		else
 			Global.getSector().getIntelManager().queueIntel(this);
 		intelQueuedOrAdded = true;
+		registerActive();
 	}
 	
 	protected void addIntelIfNeeded()
@@ -244,6 +258,7 @@ public abstract class OffensiveFleetIntel extends RaidIntel implements RaidDeleg
 			setImportant(true);
 		Global.getSector().getIntelManager().addIntel(this);
 		intelQueuedOrAdded = true;
+		registerActive();
 	}
 	
 	protected boolean shouldDisplayIntel()
@@ -310,6 +325,7 @@ public abstract class OffensiveFleetIntel extends RaidIntel implements RaidDeleg
 
 	@Override
 	protected void notifyEnding() {
+		ActiveIntelRegistry.getInstance().deregister(this);
 		refundInvasionAndFleetPoints();
 		refundPlayerFeeIfNeeded();
 	}
@@ -62,6 +62,7 @@ public class GBUtils {
 		float fin = temp.getAttackStrength();
 
 		defender.getUnits().remove(temp);
+		intel.invalidateCachedViews();
 		return fin/base;
 	}
 	
@@ -32,12 +32,12 @@ public class GroundBattleAI {
 	protected transient Map<IndustryForBattle, IFBStrengthRecord> strengthRecords = new HashMap<>();
 	protected transient Set<IndustryForBattle> industriesWithEnemy = new HashSet<>();
 	protected transient Set<IFBStrengthRecord> writeoffIndustries = new HashSet<>();
-	protected transient List<IFBStrengthRecord> industriesWithEnemySorted = new LinkedList<>();
+	protected transient List<IFBStrengthRecord> industriesWithEnemySorted = new ArrayList<>();
 
 	/**
 	 * 	Undeployed before deployed units, then strongest to weakest.
 	 */
-	protected transient List<GroundUnit> availableUnitsSorted = new LinkedList<>();
+	protected transient List<GroundUnit> availableUnitsSorted = new ArrayList<>();
 	protected transient float availableStrength;
 	
 	/*
@@ -181,14 +181,64 @@ public class GroundBattleAI {
 			if (!isHere)
 				continue;
 			
-			float thisStr = unit.getAttackStrength();
-			if (unit.getUnitDef().hasTag(GroundUnitDef.TAG_MILITIA))
-				thisStr *= 0.5f;
-			strength += thisStr;
+			strength += getUnitStrengthForAI(unit);
 		}
 		return strength;
 	}
 	
+	protected float getUnitStrengthForAI(GroundUnit unit) {
+		float thisStr = unit.getAttackStrength();
+		if (unit.getUnitDef().hasTag(GroundUnitDef.TAG_MILITIA))
+			thisStr *= 0.5f;
+		return thisStr;
+	}
+	
+	/**
+	 * Does what {@code getStrengthForAI} does for every industry and both sides, in a single pass over the units.<br/>
+	 * Each unit's strength is added to the industries in the same order as {@code getStrengthForAI} would add them,
+	 * so the totals are exactly the same.
+	 * @return Map of industry to a two-element array; first element is our strength, second is the enemy's.
+	 */
+	public Map<IndustryForBattle, float[]> getStrengthsForAI() {
+		Map<IndustryForBattle, float[]> strengths = new HashMap<>();
+		for (IndustryForBattle ifb : intel.getIndustries()) {
+			strengths.put(ifb, new float[2]);
+		}
+		for (GroundUnit unit : intel.getAllUnits()) {
+			boolean ours = unit.isAttacker == this.isAttacker;
+			IndustryForBattle loc = unit.getLocation();
+			// the check is so we can't see where enemy units are going to move
+			IndustryForBattle dest = ours ? unit.getDestination() : null;
+			if (loc == null && dest == null) continue;
+			
+			float thisStr = getUnitStrengthForAI(unit);
+			int index = ours ? 0 : 1;
+			float[] atLoc = loc != null ? strengths.get(loc) : null;
+			if (atLoc != null) atLoc[index] += thisStr;
+			if (dest != null && dest != loc) {
+				float[] atDest = strengths.get(dest);
+				if (atDest != null) atDest[index] += thisStr;
+			}
+		}
+		return strengths;
+	}
+	
+	/**
+	 * Dev mode check that the single-pass strength index agrees with the per-industry lookup.
+	 * @param strengths
+	 */
+	protected void verifyStrengthsForAI(Map<IndustryForBattle, float[]> strengths) {
+		for (IndustryForBattle ifb : intel.getIndustries()) {
+			float[] entry = strengths.get(ifb);
+			float ourStr = getStrengthForAI(ifb, isAttacker);
+			float theirStr = getStrengthForAI(ifb, !isAttacker);
+			if (Float.compare(entry[0], ourStr) != 0 || Float.compare(entry[1], theirStr) != 0) {
+				log.error(String.format("Strength index mismatch for %s: index has %s/%s, lookup has %s/%s", 
+						ifb.getName(), entry[0], entry[1], ourStr, theirStr));
+			}
+		}
+	}
+	
 	public void giveOrders() {
 		try {
 			getInfo();
@@ -264,9 +314,13 @@ public class GroundBattleAI {
 		// Determine conditions on all industries
 		industriesWithEnemy = getEnemyIndustries();
 		
+		Map<IndustryForBattle, float[]> strengths = getStrengthsForAI();
+		if (ExerelinModPlugin.isNexDev) verifyStrengthsForAI(strengths);
+		
 		for (IndustryForBattle ifb : intel.getIndustries()) {
-			float ourStr = getStrengthForAI(ifb, isAttacker);
-			float theirStr = getStrengthForAI(ifb, !isAttacker);
+			float[] entry = strengths.get(ifb);
+			float ourStr = entry[0];
+			float theirStr = entry[1];
 			IFBStrengthRecord record = new IFBStrengthRecord(isAttacker, ifb, ourStr, theirStr);
 			if (industriesWithEnemy.contains(ifb))
 			{
@@ -382,6 +436,7 @@ public class GroundBattleAI {
 		}
 		
 		boolean movedAnything = false;
+		IFBStrengthRecord movedTo = null;
 		// this prevents it from getting stuck if all the target industries are writeoffs
 		boolean ignoreWriteoff = writeoffIndustries.size() == industriesWithEnemySorted.size();
 		boolean canAct = availableStrength > 0 && intel.getSide(isAttacker).getMovementPointsRemaining() > movePointThreshold;
@@ -433,6 +488,7 @@ public class GroundBattleAI {
 				}
 				
 				movedAnything = true;
+				movedTo = toReinforce;
 				break;
 			} 
 			if (movedAnything) break;
@@ -440,8 +496,8 @@ public class GroundBattleAI {
 		
 		if (movedAnything) {
 			recomputeAvailableStrength();
-			// resort industries that need deployment, since priority changed
-			Collections.sort(industriesWithEnemySorted, INDUSTRY_SORT_COMPARATOR);
+			// only the reinforced industry's priority changed, so move it to its new place instead of resorting
+			repositionIndustry(movedTo);
 			writeOffIndustries();
 		}
 		
@@ -449,6 +505,36 @@ public class GroundBattleAI {
 		return canContinue;
 	}
 	
+	/**
+	 * Moves a record whose priority has changed to where {@code Collections.sort} with {@code INDUSTRY_SORT_COMPARATOR}
+	 * would put it, on a list that was sorted before the change. Like the (stable) sort, records with equal priority 
+	 * keep their existing order relative to each other.
+	 * @param record
+	 */
+	protected void repositionIndustry(IFBStrengthRecord record) {
+		List<IFBStrengthRecord> list = industriesWithEnemySorted;
+		int oldIndex = list.indexOf(record);
+		if (oldIndex < 0) return;
+		list.remove(oldIndex);
+		
+		int newIndex = 0;
+		for (int i = 0; i < list.size(); i++) {
+			int compare = INDUSTRY_SORT_COMPARATOR.compare(list.get(i), record);
+			if (compare < 0 || (compare == 0 && i < oldIndex)) newIndex = i + 1;
+			else break;
+		}
+		list.add(newIndex, record);
+		
+		if (ExerelinModPlugin.isNexDev) {
+			List<IFBStrengthRecord> sorted = new ArrayList<>(list);
+			Collections.sort(sorted, INDUSTRY_SORT_COMPARATOR);
+			if (!sorted.equals(list)) {
+				log.error("Industry priority list out of order after repositioning " + record.industry.getName());
+				Collections.sort(list, INDUSTRY_SORT_COMPARATOR);
+			}
+		}
+	}
+	
 	public void orderWithdrawal() {
 		int remainingMovePoints = movePointsAvailable - intel.getSide(isAttacker).getMovementPointsSpent().getModifiedInt();
 		
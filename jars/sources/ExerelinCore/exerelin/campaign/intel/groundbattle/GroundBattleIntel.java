@@ -35,6 +35,7 @@ import exerelin.campaign.InvasionRound;
 import exerelin.campaign.PlayerFactionStore;
 import exerelin.campaign.SectorManager;
 import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.campaign.intel.ActiveIntelRegistry;
 import exerelin.campaign.intel.MarketTransferIntel;
 import exerelin.campaign.intel.groundbattle.GBDataManager.ConditionDef;
 import exerelin.campaign.intel.groundbattle.GroundUnit.ForceType;
@@ -112,6 +113,18 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	protected List<GroundBattlePlugin> marketConditionPlugins = new LinkedList<>();
 	protected List<GroundBattlePlugin> otherPlugins = new LinkedList<>();
 	
+	/**
+	 * Bumped whenever units, industries or plugins are added to or removed from the battle;
+	 * the cached lists from {@code getAllUnits} and {@code getPlugins} are rebuilt when it changes.
+	 */
+	protected transient int structureVersion;
+	protected transient List<GroundUnit> allUnitsCache;
+	protected transient int allUnitsCacheVersion;
+	protected transient List<GroundBattlePlugin> pluginsCache;
+	protected transient int pluginsCacheVersion;
+	protected transient int pluginsCacheSourceCount;
+	protected transient List<GroundUnit> pluginsCacheUnits;
+	
 	protected Map<String, Object> data = new HashMap<>();
 	
 	protected IntervalUtil interval = new IntervalUtil(1, 1);
@@ -131,6 +144,12 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	protected transient boolean resolving;
 	
 	protected transient List<Pair<Boolean, AbilityPlugin>> abilitiesUsedLastTurn = new ArrayList<>();
+
+	/**
+	 * All randomness in the battle's resolution comes from here. Seeded from the market and start date, and saved with the battle.
+	 */
+	protected Random random;
+	@Getter protected long seed;
 	
 	// =========================================================================
 	// setup, getters/setters and other logic
@@ -156,9 +175,15 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		
 		playerData = new GBPlayerData(this);
 		
+		initRandom();
 		updateIntervals();
 	}
 	
+	protected void initRandom() {
+		seed = market.getId().hashCode() * 31L + Global.getSector().getClock().getTimestamp();
+		random = new Random(seed);
+	}
+	
 	protected Object readResolve() {
 		if (marketConditionPlugins == null)
 			marketConditionPlugins = new ArrayList<>();
@@ -166,6 +191,8 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 			abilitiesUsedLastTurn = new ArrayList<>();
 		if (movedFromLastTurn == null)
 			movedFromLastTurn = new HashMap<>();
+		if (random == null)
+			initRandom();
 		
 		return this;
 	}
@@ -198,6 +225,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 			attacker.units.add(unit);
 			playerData.units.add(unit);
 		}
+		invalidateCachedViews();
 	}
 	
 	public void initPlugins() {
@@ -227,6 +255,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		}
 
 		Collections.sort(otherPlugins);
+		invalidateCachedViews();
 	}
 	
 	public List<GroundBattlePlugin> getOtherPlugins() {
@@ -236,6 +265,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	public void addOtherPlugin(GroundBattlePlugin plugin) {
 		otherPlugins.add(plugin);
 		plugin.init(this);
+		invalidateCachedViews();
 	}
 	
 	public void removePlugin(GroundBattlePlugin plugin) {
@@ -243,6 +273,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 			marketConditionPlugins.remove(plugin);
 		if (otherPlugins.contains(plugin))
 			otherPlugins.remove(plugin);
+		invalidateCachedViews();
 	}
 	
 	public void initMarketConditions() {
@@ -259,6 +290,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 				}
 			}
 		}
+		invalidateCachedViews();
 	}
 	
 	public void updateIntervals() {
@@ -325,6 +357,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		
 		addMilitaryResponse();
 		Global.getSector().getIntelManager().addIntel(this);
+		registerActive();
 		Global.getSector().addScript(this);
 		Global.getSector().getListenerManager().addListener(this);
 		
@@ -362,6 +395,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		IndustryForBattle ifb = new IndustryForBattle(this, ind);
 		
 		industries.add(ifb);
+		invalidateCachedViews();
 		return ifb;
 	}
 	
@@ -369,8 +403,21 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		return marketConditionPlugins;
 	}
 	
+	/**
+	 * Gets the battle's general plugins, market condition plugins, industry plugins and unit plugins, in that order.
+	 * The list is cached and read-only; it is replaced rather than modified when plugins or units are added or removed,
+	 * so it's safe to keep iterating it while a plugin removes itself or a unit is destroyed.
+	 * @return
+	 */
 	public List<GroundBattlePlugin> getPlugins() {
-		List<GroundBattlePlugin> list = new ArrayList<>();
+		List<GroundUnit> units = getAllUnits();
+		int sourceCount = otherPlugins.size() + marketConditionPlugins.size() + industries.size();
+		if (pluginsCache != null && pluginsCacheVersion == structureVersion 
+				&& pluginsCacheUnits == units && pluginsCacheSourceCount == sourceCount) {
+			return pluginsCache;
+		}
+		
+		List<GroundBattlePlugin> list = new ArrayList<>(sourceCount + units.size());
 		list.addAll(otherPlugins);
 		list.addAll(marketConditionPlugins);
 		for (IndustryForBattle ifb : industries) {
@@ -380,11 +427,24 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 			}
 			list.add(ifb.getPlugin());
 		}
-		for (GroundUnit unit : getAllUnits()) {
+		for (GroundUnit unit : units) {
 			list.add(unit.getPlugin());
 		}
 		
-		return list;
+		pluginsCache = Collections.unmodifiableList(list);
+		pluginsCacheVersion = structureVersion;
+		pluginsCacheSourceCount = sourceCount;
+		pluginsCacheUnits = units;
+		return pluginsCache;
+	}
+	
+	/**
+	 * Should be called whenever units, industries or plugins are added to or removed from the battle,
+	 * so {@code getAllUnits} and {@code getPlugins} rebuild their cached lists.
+	 * As a fallback, the caches also notice changes in the number of units or plugins by themselves.
+	 */
+	public void invalidateCachedViews() {
+		structureVersion++;
 	}
 	
 	public MarketAPI getMarket() {
@@ -532,6 +592,14 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		return turnNum;
 	}
 	
+	/**
+	 * Plugins and abilities should use this for any randomness affecting the battle's outcome.
+	 * @return
+	 */
+	public Random getRandom() {
+		return random;
+	}
+	
 	public boolean isCramped() {
 		Boolean cramped = (Boolean)data.get("cramped");
 		return Boolean.TRUE.equals(cramped);
@@ -548,10 +616,23 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		else return Misc.getNegativeHighlightColor();
 	}
 	
+	/**
+	 * Gets the units of both sides, attacker's first. The list is cached and read-only;
+	 * it is replaced rather than modified when units are added or removed, so it's safe to keep iterating it
+	 * while units are destroyed.
+	 * @return
+	 */
 	public List<GroundUnit> getAllUnits() {
-		List<GroundUnit> results = new ArrayList<>(attacker.units);
+		int count = attacker.units.size() + defender.units.size();
+		if (allUnitsCache != null && allUnitsCacheVersion == structureVersion && allUnitsCache.size() == count) {
+			return allUnitsCache;
+		}
+		List<GroundUnit> results = new ArrayList<>(count);
+		results.addAll(attacker.units);
 		results.addAll(defender.units);
-		return results;
+		allUnitsCache = Collections.unmodifiableList(results);
+		allUnitsCacheVersion = structureVersion;
+		return allUnitsCache;
 	}
 	
 	public boolean hasStationFleet() {
@@ -761,6 +842,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 		
 		playerData.getUnits().add(unit);
 		getSide(playerIsAttacker).units.add(unit);
+		invalidateCachedViews();
 		return unit;
 	}
 	
@@ -1110,7 +1192,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 				else lootMult = deployedPlayerStr/deployedAttackerStr;
 			}
 			if (lootMult > 0)
-				playerData.setLoot(GroundBattleRoundResolve.lootMarket(market, lootMult));
+				playerData.setLoot(GroundBattleRoundResolve.lootMarket(market, lootMult, random));
 		}
 		boolean startedByPlayer = playerInitiated || (invasionIntel != null && invasionIntel.isPlayerSpawned());
 		if (startedByPlayer && outcome == BattleOutcome.ATTACKER_VICTORY && Misc.getCommissionFaction() != null && !wasPlayerMarket())
@@ -1522,6 +1604,7 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	@Override
 	protected void notifyEnding() {
 		Global.getSector().getListenerManager().removeListener(this);
+		ActiveIntelRegistry.getInstance().deregister(this);
 	}
 
 	@Override
@@ -2694,7 +2777,30 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	// =========================================================================
 	// other stuff
 	
+	/**
+	 * Adds this battle to the {@code ActiveIntelRegistry}, keyed by its market and both sides' factions.
+	 */
+	public void registerActive() {
+		ActiveIntelRegistry.getInstance().register(this, market, null,
+				attacker.getFaction() != null ? attacker.getFaction().getId() : null,
+				defender.getFaction() != null ? defender.getFaction().getId() : null);
+	}
+	
 	public static GroundBattleIntel getOngoing(MarketAPI market) {
+		GroundBattleIntel gbi = ActiveIntelRegistry.getInstance().getOngoing(GroundBattleIntel.class, market);
+		if (ExerelinModPlugin.isNexDev) {
+			ActiveIntelRegistry.checkConsistency("ground battle at " + (market != null ? market.getId() : null),
+					gbi, getOngoingByScan(market));
+		}
+		return gbi;
+	}
+	
+	/**
+	 * Old intel manager scan for {@code getOngoing(MarketAPI)}, kept for the registry consistency check.
+	 * @param market
+	 * @return
+	 */
+	protected static GroundBattleIntel getOngoingByScan(MarketAPI market) {
 		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel(GroundBattleIntel.class))
 		{
 			GroundBattleIntel gbi = (GroundBattleIntel)intel;
@@ -2706,10 +2812,9 @@ public class GroundBattleIntel extends BaseIntelPlugin implements
 	
 	public static List<GroundBattleIntel> getOngoing() {
 		List<GroundBattleIntel> results = new ArrayList<>();
-		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel(GroundBattleIntel.class))
+		for (GroundBattleIntel gbi : ActiveIntelRegistry.getInstance().getOngoing(GroundBattleIntel.class))
 		{
-			GroundBattleIntel gbi = (GroundBattleIntel)intel;
-			if (!gbi.isEnding() && !gbi.isEnded() && gbi.getOutcome() == null)
+			if (gbi.getOutcome() == null)
 				results.add(gbi);
 		}
 		return results;
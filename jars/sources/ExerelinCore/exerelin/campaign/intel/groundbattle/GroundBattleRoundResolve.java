@@ -17,7 +17,6 @@ import exerelin.utilities.NexConfig;
 import exerelin.utilities.NexUtils;
 import exerelin.utilities.NexUtilsMarket;
 import org.apache.log4j.Logger;
-import org.lazywizard.lazylib.MathUtils;
 
 import java.util.*;
 
@@ -27,6 +26,7 @@ public class GroundBattleRoundResolve {
 	public static final boolean PRINT_DEBUG = false;
 		
 	protected GroundBattleIntel intel;
+	protected Random random;
 	protected Map<GroundUnitDef, Integer> atkLosses = new HashMap<>();
 	protected Map<GroundUnitDef, Integer> defLosses = new HashMap<>();
 	protected Map<GroundUnitDef, Integer> playerLosses = new HashMap<>();
@@ -37,9 +37,20 @@ public class GroundBattleRoundResolve {
 	 * These may not be the same as the planetary attacker/defender, although they should remain within a turn.
 	 */
 	protected Map<IndustryForBattle, Pair<Float, Float>> localDamageDealt = new HashMap<>();
+
+	/**
+	 * Scratch buffers for {@code distributeDamage}, reused for every industry and side in the round.
+	 */
+	protected List<GroundUnit> damageRecipients = new ArrayList<>();
+	protected float[] damageContribs = new float[8];
 	
 	public GroundBattleRoundResolve(GroundBattleIntel intel) {
 		this.intel = intel;
+		this.random = intel.getRandom();
+	}
+	
+	protected float getRandomInRange(float min, float max) {
+		return min + random.nextFloat() * (max - min);
 	}
 	
 	public void resolveRound() {
@@ -194,7 +205,7 @@ public class GroundBattleRoundResolve {
 		}
 		
 		printDebug(String.format("  Trying to rout %s due to low morale: %s", unit.name, unit.morale));
-		WeightedRandomPicker<IndustryForBattle> picker = new WeightedRandomPicker<>();
+		WeightedRandomPicker<IndustryForBattle> picker = new WeightedRandomPicker<>(random);
 		for (IndustryForBattle ifb : intel.getIndustries()) {
 			// can only rout to locations that are held by our side and not contested
 			if (ifb.heldByAttacker != unit.isAttacker) continue;
@@ -244,10 +255,10 @@ public class GroundBattleRoundResolve {
 		printDebug("Resolving combat on " + ifb.ind.getCurrentName());
 		hadCombat.add(ifb);
 		
-		float atkStr = getAttackStrengthOnIndustry(ifb, true) * MathUtils.getRandomNumberInRange(0.8f, 1.2f);
-		printDebug(String.format("  Attacker strength: %.2f", atkStr));
-		float defStr = getAttackStrengthOnIndustry(ifb, false) * MathUtils.getRandomNumberInRange(0.8f, 1.2f);		
-		printDebug(String.format("  Defender strength: %.2f", defStr));
+		float atkStr = getAttackStrengthOnIndustry(ifb, true) * getRandomInRange(0.8f, 1.2f);
+		if (PRINT_DEBUG) printDebug(String.format("  Attacker strength: %.2f", atkStr));
+		float defStr = getAttackStrengthOnIndustry(ifb, false) * getRandomInRange(0.8f, 1.2f);		
+		if (PRINT_DEBUG) printDebug(String.format("  Defender strength: %.2f", defStr));
 
 		float localAtkStr = ifb.heldByAttacker ? defStr : atkStr;
 		float localDefStr = ifb.heldByAttacker ? atkStr : defStr;
@@ -256,9 +267,9 @@ public class GroundBattleRoundResolve {
 		ddEntry.one += localAtkStr;
 		ddEntry.two += localDefStr;
 		
-		printDebug(String.format("  Applying damage to defender"));
+		printDebug("  Applying damage to defender");
 		distributeDamage(ifb, false, atkStr);
-		printDebug(String.format("  Applying damage to attacker"));
+		printDebug("  Applying damage to attacker");
 		distributeDamage(ifb, true, defStr);
 		
 		return true;
@@ -272,12 +283,14 @@ public class GroundBattleRoundResolve {
 	 * @param dam
 	 */
 	public void distributeDamage(IndustryForBattle ifb, boolean attacker, float dam) {
-		List<GroundUnit> units = new ArrayList<>();
+		List<GroundUnit> units = damageRecipients;
+		units.clear();
 		for (GroundUnit unit : ifb.units) {
 			if (unit.isAttacker == attacker)
 				units.add(unit);
 		}
 		distributeDamage(units, dam);
+		units.clear();
 	}
 	
 	/**
@@ -287,15 +300,20 @@ public class GroundBattleRoundResolve {
 	 * @param dam
 	 */
 	public void distributeDamage(List<GroundUnit> units, float dam) {
+		int count = units.size();
+		if (damageContribs.length < count) damageContribs = new float[Math.max(count, damageContribs.length * 2)];
+		float[] contribs = damageContribs;
+		
 		float totalStrength = 0;
-		Map<GroundUnit, Float> contribs = new HashMap<>();
+		int i = 0;
 		for (GroundUnit unit : units) {
-			float contrib = unit.getBaseStrength() * MathUtils.getRandomNumberInRange(0.75f, 1.25f);
+			float contrib = unit.getBaseStrength() * getRandomInRange(0.75f, 1.25f);
 			totalStrength += contrib;
-			contribs.put(unit, contrib);
+			contribs[i++] = contrib;
 		}
+		i = 0;
 		for (GroundUnit unit : units) {
-			float mult = contribs.get(unit)/totalStrength;
+			float mult = contribs[i++]/totalStrength;
 			damageUnit(unit, dam * mult);
 		}
 	}
@@ -308,7 +326,7 @@ public class GroundBattleRoundResolve {
 		
 		// if any remaining damage after kills, roll to kill one more unit
 		float surplusDmg = dmg % dmgPerKill;
-		if (Math.random() * dmgPerKill < surplusDmg) {
+		if (random.nextFloat() * dmgPerKill < surplusDmg) {
 			kills++;
 		}
 		damageUnitMorale(unit, kills);
@@ -322,7 +340,7 @@ public class GroundBattleRoundResolve {
 		moraleDmg = unit.getAdjustedMoraleDamageTaken(moraleDmg);
 		float moraleDmgClamped = unit.modifyMorale(-moraleDmg);
 		
-		printDebug(String.format("    Unit %s took %.2f morale damage, now has %.2f", 
+		if (PRINT_DEBUG) printDebug(String.format("    Unit %s took %.2f morale damage, now has %.2f", 
 				unit.toString(), moraleDmg, unit.morale));
 		
 		return moraleDmgClamped;
@@ -385,7 +403,7 @@ public class GroundBattleRoundResolve {
 			float remainder = myDeathsRaw % 1;
 
 			int myDeaths = (int)myDeathsRaw;
-			if (Math.random() < remainder) myDeathsRaw += 1;
+			if (random.nextFloat() < remainder) myDeathsRaw += 1;
 
 			NexUtils.modifyMapEntry(commodities, commodityId, -myDeaths);
 			printDebug(String.format("      Killing %s of commodity type %s for unit %s", myDeaths, commodityId, unit.getName()));
@@ -436,7 +454,7 @@ public class GroundBattleRoundResolve {
 			contrib *= GBConstants.BASE_DAMAGE_MULT;
 			contrib *= intel.unitSize.damMult;
 			contrib *= NexConfig.groundBattleDamageMult;
-			printDebug(String.format("    Unit %s (%s) contributing attack strength: %.2f", 
+			if (PRINT_DEBUG) printDebug(String.format("    Unit %s (%s) contributing attack strength: %.2f", 
 					unit.name, unit.getUnitDef().name, contrib));
 			str += contrib;
 
@@ -504,8 +522,18 @@ public class GroundBattleRoundResolve {
 	 * @return A {@code CargoAPI} containing the loot obtained.
 	 */
 	public static CargoAPI lootMarket(MarketAPI market, float mult) {
+		return lootMarket(market, mult, new Random());
+	}
+
+	/**
+	 * Used to get player loot after winning the ground battle.
+	 * @param market
+	 * @param mult
+	 * @param random
+	 * @return A {@code CargoAPI} containing the loot obtained.
+	 */
+	public static CargoAPI lootMarket(MarketAPI market, float mult, Random random) {
 		Map<CommodityOnMarketAPI, Float> valuables = computeInvasionValuables(market);
-		Random random = new Random();
 		WeightedRandomPicker<CommodityOnMarketAPI> picker = new WeightedRandomPicker<CommodityOnMarketAPI>(random);
 		CargoAPI result = Global.getFactory().createCargo(true);
 		
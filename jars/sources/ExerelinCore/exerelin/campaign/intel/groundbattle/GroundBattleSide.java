@@ -320,6 +320,7 @@ public class GroundBattleSide {
 	public GroundUnit createUnit(String unitDefId, FactionAPI faction, int size, CampaignFleetAPI fleet) {
 		GroundUnit unit = intel.createUnit(unitDefId, faction, isAttacker, size, fleet, units.size());
 		units.add(unit);
+		intel.invalidateCachedViews();
 		return unit;
 	}
 	
@@ -383,6 +384,7 @@ public class GroundBattleSide {
 			intel.getSide(true).getUnits().add(unit);
 			generatedRebels.add(unit);
 		}
+		intel.invalidateCachedViews();
 		
 		List<IndustryForBattle> priority = new LinkedList<>(intel.industries);
 		Collections.sort(priority, PRIORITY_SORT);
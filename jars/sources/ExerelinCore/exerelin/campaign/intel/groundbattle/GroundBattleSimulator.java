@@ -0,0 +1,582 @@
+package exerelin.campaign.intel.groundbattle;
+
+import com.fs.starfarer.api.Global;
+import exerelin.utilities.NexConfig;
+import exerelin.utilities.NexUtilsMath;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo predictor for ground battle outcomes.
+ * <p>{@code Model.fromBattle} copies the state of a {@code GroundBattleIntel} (its deployed units, or the estimated garrison
+ * if the battle hasn't started; industry strength; each unit's attack and damage taken modifiers) into flat arrays.
+ * This must be done on the game thread. The model can then be simulated any number of times on a shared {@code ForkJoinPool}
+ * without touching game state.</p>
+ * <p>The simulated battle follows {@code GroundBattleRoundResolve}'s damage, loss and morale rules, with simplified movement:
+ * defenders hold their positions, and attackers drop on and then move to the weakest defender-held industry.
+ * Each trial uses its own RNG seeded from the base seed and the trial index, so results don't depend on thread scheduling.</p>
+ */
+public class GroundBattleSimulator {
+
+	public static Logger log = Global.getLogger(GroundBattleSimulator.class);
+
+	public static final int MAX_TURNS = 40;
+	public static final int DEFAULT_TRIALS = 200;
+	public static final int TRIALS_PER_TASK = 25;
+
+	protected static ForkJoinPool pool;
+
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return pool;
+	}
+
+	/**
+	 * Blocks until the prediction is done.
+	 * @param model
+	 * @param trials
+	 * @param seed
+	 * @return
+	 */
+	public static Prediction predict(Model model, int trials, long seed) {
+		return getPool().invoke(new TrialTask(model, seed, 0, trials));
+	}
+
+	/**
+	 * Runs the prediction in the background. The model must not be modified until it's done.
+	 * @param model
+	 * @param trials
+	 * @param seed
+	 * @return
+	 */
+	public static Future<Prediction> predictAsync(Model model, int trials, long seed) {
+		return getPool().submit(new TrialTask(model, seed, 0, trials));
+	}
+
+	// runcode exerelin.campaign.intel.groundbattle.GroundBattleSimulator.findCommitment(new exerelin.campaign.intel.groundbattle.GroundBattleIntel(market, Global.getSector().getPlayerFaction(), market.getFaction()), 0.8f, 0.2f, 250)
+	/**
+	 * Searches for the smallest force that wins at least {@code targetChance} of simulated battles,
+	 * doubling then bisecting the number of marines. Stops early if {@code timeBudgetMs} runs out.
+	 * Must be called on the game thread.
+	 * @param intel Battle to simulate; if it hasn't been initialized yet, it will be.
+	 * @param targetChance
+	 * @param heavyShare Fraction of the force's base strength to be made up of heavy units.
+	 * @param timeBudgetMs
+	 * @return The smallest successful force found, or the largest force tried if none succeeded within the time budget.
+	 */
+	public static Search findCommitment(GroundBattleIntel intel, float targetChance, float heavyShare, long timeBudgetMs)
+	{
+		if (intel.getIndustries().isEmpty()) intel.init();
+		long start = System.currentTimeMillis();
+		Model base = Model.fromBattle(intel, 0, 0);
+		float marineStr = GroundUnitDef.getUnitDef(GroundUnitDef.MARINE).strength;
+		float heavyStr = GroundUnitDef.getUnitDef(GroundUnitDef.HEAVY).strength;
+		long seed = intel.getSeed();
+
+		Search search = new Search();
+		float lo = 0;
+		float hi = Math.max(base.getTotalStrength(false), 100);
+		boolean found = false;
+		while (System.currentTimeMillis() - start < timeBudgetMs) {
+			float str = found ? (lo + hi)/2 : hi;
+			int heavies = Math.round(str * heavyShare / heavyStr);
+			int marines = Math.round(str * (1 - heavyShare) / marineStr);
+			Prediction pred = predict(base.withAttackers(marines, heavies), DEFAULT_TRIALS, seed);
+			search.evaluations++;
+
+			boolean success = pred.winChance >= targetChance;
+			if (success || !found) {
+				search.marines = marines;
+				search.heavies = heavies;
+				search.prediction = pred;
+			}
+			if (success) {
+				found = true;
+				search.success = true;
+				hi = str;
+			}
+			else if (found) lo = str;
+			else {
+				lo = str;
+				hi = str * 2;
+			}
+			if (found && hi - lo < marineStr * intel.getUnitSize().avgSize) break;
+		}
+		return search;
+	}
+
+	public static class Search {
+		public int marines;
+		public int heavies;
+		public boolean success;
+		public int evaluations;
+		public Prediction prediction;
+
+		@Override
+		public String toString() {
+			return String.format("%s marines, %s heavies (%s after %s evaluations): %s", marines, heavies,
+					success ? "success" : "not reached", evaluations, prediction);
+		}
+	}
+
+	public static class Prediction {
+		public int trials;
+		public float winChance;
+		/**
+		 * Counted in unit elements (individual marines, or individual mechs for heavy units).
+		 */
+		public float attackerLosses;
+		public float defenderLosses;
+		public float turns;
+
+		@Override
+		public String toString() {
+			return String.format("%.1f%% win chance, %.0f attacker losses, %.0f defender losses, %.1f turns (%s trials)",
+					winChance * 100, attackerLosses, defenderLosses, turns, trials);
+		}
+	}
+
+	/**
+	 * Immutable snapshot of a battle. Index {@code i} in the unit arrays is one unit; index {@code j} in the industry arrays is one industry.
+	 */
+	public static class Model {
+		protected int numUnits;
+		protected boolean[] attacker;
+		protected float[] size;
+		protected float[] strengthPerElement;
+		protected float[] morale;
+		// attack strength multiplier, excluding morale
+		protected float[] attackMult;
+		// damage taken multiplier, excluding industry defense
+		protected float[] damageTakenMult;
+		protected float[] moraleDamageMult;
+		protected float[] minSize;
+		// -1 for not yet deployed (attackers only)
+		protected int[] location;
+
+		protected int numIndustries;
+		protected boolean[] heldByAttacker;
+		protected float[] industryStrengthMult;
+
+		protected float damageMult;
+		protected float unitAvgSize;
+		// templates for adding attacker units
+		protected float[] marineTemplate;
+		protected float[] heavyTemplate;
+
+		protected Model() {}
+
+		/**
+		 * Copies the battle's state. If the battle has no deployed defenders yet, the garrison is estimated.
+		 * @param intel
+		 * @param marines Attacking marines to add.
+		 * @param heavies Attacking heavy units (mechs) to add.
+		 * @return
+		 */
+		public static Model fromBattle(GroundBattleIntel intel, int marines, int heavies) {
+			Model model = new Model();
+			List<IndustryForBattle> industries = intel.getIndustries();
+			model.numIndustries = industries.size();
+			model.heldByAttacker = new boolean[model.numIndustries];
+			model.industryStrengthMult = new float[model.numIndustries];
+			for (int j = 0; j < model.numIndustries; j++) {
+				IndustryForBattle ifb = industries.get(j);
+				model.heldByAttacker[j] = ifb.heldByAttacker;
+				model.industryStrengthMult[j] = ifb.getPlugin().getStrengthMult();
+			}
+			model.damageMult = GBConstants.BASE_DAMAGE_MULT * intel.getUnitSize().damMult * NexConfig.groundBattleDamageMult;
+			model.unitAvgSize = intel.getUnitSize().avgSize;
+
+			List<float[]> rows = new ArrayList<>();
+			boolean anyDefenders = false;
+			for (GroundUnit unit : intel.getAllUnits()) {
+				if (!unit.isDeployed() || unit.getSize() <= 0) continue;
+				rows.add(copyUnit(unit, industries.indexOf(unit.getLocation())));
+				if (!unit.isAttacker()) anyDefenders = true;
+			}
+			if (!anyDefenders) {
+				addEstimatedGarrison(intel, rows);
+			}
+
+			model.marineTemplate = makeTemplate(intel, GroundUnitDef.MARINE);
+			model.heavyTemplate = makeTemplate(intel, GroundUnitDef.HEAVY);
+			model.fill(rows);
+			return model.withAttackers(marines, heavies);
+		}
+
+		/**
+		 * Row format: attacker (1/0), size, strength per element, morale, attack mult, damage taken mult,
+		 * morale damage mult, min size, location.
+		 */
+		protected static float[] copyUnit(GroundUnit unit, int location) {
+			float moraleMult = getMoraleMult(unit.getMorale());
+			float base = unit.getBaseStrength();
+			float attackMult = base > 0 ? unit.getAttackStrength() / (base * moraleMult) : 0;
+			float damageTakenMult = unit.getAdjustedDamageTaken(1);
+			IndustryForBattle loc = unit.getLocation();
+			if (loc != null && loc.heldByAttacker == unit.isAttacker()) {
+				damageTakenMult *= loc.getPlugin().getStrengthMult();
+			}
+			return new float[] {unit.isAttacker() ? 1 : 0, unit.getSize(), unit.getUnitDef().strength, unit.getMorale(),
+					attackMult, damageTakenMult, unit.getAdjustedMoraleDamageTaken(1),
+					unit.getIntel().getUnitSize().getMinSizeForType(unit.getUnitDefId()), location};
+		}
+
+		/**
+		 * Measures an undeployed attacker unit of the specified type, without adding it to the battle.
+		 */
+		protected static float[] makeTemplate(GroundBattleIntel intel, String unitDefId) {
+			GroundUnit temp = intel.createUnit(unitDefId, intel.getSide(true).getFaction(), true,
+					intel.getUnitSize().avgSize, null, 0, false);
+			return copyUnit(temp, -1);
+		}
+
+		protected static void addEstimatedGarrison(GroundBattleIntel intel, List<float[]> rows) {
+			if (intel.getIndustries().isEmpty()) return;
+			float[] counts = GBUtils.estimateDefenderCounts(intel, true);
+			String[] defIds = {GroundUnitDef.MILITIA, GroundUnitDef.MARINE, GroundUnitDef.HEAVY};
+			int avgSize = intel.getUnitSize().avgSize;
+			int nextIndustry = 0;
+			for (int type = 0; type < defIds.length; type++) {
+				if (counts[type] <= 0) continue;
+				GroundUnit temp = intel.createUnit(defIds[type], intel.getSide(false).getFaction(), false,
+						avgSize, null, 0, false);
+				float[] template = copyUnit(temp, -1);
+				float remaining = counts[type];
+				while (remaining > 0) {
+					float[] row = template.clone();
+					row[1] = Math.min(remaining, avgSize);
+					row[8] = nextIndustry;
+					rows.add(row);
+					remaining -= row[1];
+					nextIndustry = (nextIndustry + 1) % intel.getIndustries().size();
+				}
+			}
+		}
+
+		protected void fill(List<float[]> rows) {
+			numUnits = rows.size();
+			attacker = new boolean[numUnits];
+			size = new float[numUnits];
+			strengthPerElement = new float[numUnits];
+			morale = new float[numUnits];
+			attackMult = new float[numUnits];
+			damageTakenMult = new float[numUnits];
+			moraleDamageMult = new float[numUnits];
+			minSize = new float[numUnits];
+			location = new int[numUnits];
+			for (int i = 0; i < numUnits; i++) {
+				float[] row = rows.get(i);
+				attacker[i] = row[0] > 0;
+				size[i] = row[1];
+				strengthPerElement[i] = row[2];
+				morale[i] = row[3];
+				attackMult[i] = row[4];
+				damageTakenMult[i] = row[5];
+				moraleDamageMult[i] = row[6];
+				minSize[i] = row[7];
+				location[i] = (int)row[8];
+			}
+		}
+
+		protected List<float[]> toRows() {
+			List<float[]> rows = new ArrayList<>(numUnits);
+			for (int i = 0; i < numUnits; i++) {
+				rows.add(new float[] {attacker[i] ? 1 : 0, size[i], strengthPerElement[i], morale[i], attackMult[i],
+						damageTakenMult[i], moraleDamageMult[i], minSize[i], location[i]});
+			}
+			return rows;
+		}
+
+		/**
+		 * @param marines
+		 * @param heavies
+		 * @return Copy of this model with additional undeployed attacker units.
+		 */
+		public Model withAttackers(int marines, int heavies) {
+			Model copy = new Model();
+			copy.numIndustries = numIndustries;
+			copy.heldByAttacker = heldByAttacker;
+			copy.industryStrengthMult = industryStrengthMult;
+			copy.damageMult = damageMult;
+			copy.unitAvgSize = unitAvgSize;
+			copy.marineTemplate = marineTemplate;
+			copy.heavyTemplate = heavyTemplate;
+
+			List<float[]> rows = toRows();
+			addUnits(rows, marineTemplate, marines);
+			addUnits(rows, heavyTemplate, heavies);
+			copy.fill(rows);
+			return copy;
+		}
+
+		protected void addUnits(List<float[]> rows, float[] template, int count) {
+			// split into units of the battle's average size
+			float remaining = count;
+			while (remaining > 0) {
+				float[] row = template.clone();
+				row[1] = Math.min(remaining, unitAvgSize);
+				row[8] = -1;
+				rows.add(row);
+				remaining -= row[1];
+			}
+		}
+
+		public float getTotalStrength(boolean attackerSide) {
+			float str = 0;
+			for (int i = 0; i < numUnits; i++) {
+				if (attacker[i] != attackerSide) continue;
+				str += size[i] * strengthPerElement[i];
+			}
+			return str;
+		}
+	}
+
+	public static float getMoraleMult(float morale) {
+		return NexUtilsMath.lerp(1 - GBConstants.MORALE_ATTACK_MOD, 1 + GBConstants.MORALE_ATTACK_MOD, morale);
+	}
+
+	protected static class TrialTask extends RecursiveTask<Prediction> {
+		protected final Model model;
+		protected final long seed;
+		protected final int from;
+		protected final int to;
+
+		public TrialTask(Model model, long seed, int from, int to) {
+			this.model = model;
+			this.seed = seed;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Prediction compute() {
+			if (to - from <= TRIALS_PER_TASK) {
+				Trial trial = new Trial(model);
+				Prediction pred = new Prediction();
+				for (int t = from; t < to; t++) {
+					trial.run(new Random(seed * 31 + t));
+					pred.trials++;
+					if (trial.attackerWon) pred.winChance++;
+					pred.attackerLosses += trial.attackerLosses;
+					pred.defenderLosses += trial.defenderLosses;
+					pred.turns += trial.turns;
+				}
+				return finish(pred);
+			}
+			int mid = (from + to) >>> 1;
+			TrialTask left = new TrialTask(model, seed, from, mid);
+			TrialTask right = new TrialTask(model, seed, mid, to);
+			left.fork();
+			Prediction rightResult = right.compute();
+			Prediction leftResult = left.join();
+			return merge(leftResult, rightResult);
+		}
+
+		protected static Prediction finish(Prediction sums) {
+			if (sums.trials == 0) return sums;
+			sums.winChance /= sums.trials;
+			sums.attackerLosses /= sums.trials;
+			sums.defenderLosses /= sums.trials;
+			sums.turns /= sums.trials;
+			return sums;
+		}
+
+		protected static Prediction merge(Prediction one, Prediction two) {
+			Prediction result = new Prediction();
+			result.trials = one.trials + two.trials;
+			if (result.trials == 0) return result;
+			float w1 = (float)one.trials / result.trials;
+			float w2 = (float)two.trials / result.trials;
+			result.winChance = one.winChance * w1 + two.winChance * w2;
+			result.attackerLosses = one.attackerLosses * w1 + two.attackerLosses * w2;
+			result.defenderLosses = one.defenderLosses * w1 + two.defenderLosses * w2;
+			result.turns = one.turns * w1 + two.turns * w2;
+			return result;
+		}
+	}
+
+	/**
+	 * One simulated battle. Working arrays are reused between trials run by the same task.
+	 */
+	protected static class Trial {
+		protected final Model model;
+		protected final float[] size;
+		protected final float[] morale;
+		protected final int[] location;
+		protected final float[] lossesThisTurn;
+		protected final boolean[] held;
+		protected final float[] contrib;
+		protected final float[] defenderStr;
+
+		protected boolean attackerWon;
+		protected float attackerLosses;
+		protected float defenderLosses;
+		protected int turns;
+
+		public Trial(Model model) {
+			this.model = model;
+			size = new float[model.numUnits];
+			morale = new float[model.numUnits];
+			location = new int[model.numUnits];
+			lossesThisTurn = new float[model.numUnits];
+			held = new boolean[model.numIndustries];
+			contrib = new float[model.numUnits];
+			defenderStr = new float[model.numIndustries];
+		}
+
+		protected boolean isAlive(int i) {
+			return size[i] > 0;
+		}
+
+		public void run(Random random) {
+			System.arraycopy(model.size, 0, size, 0, size.length);
+			System.arraycopy(model.morale, 0, morale, 0, morale.length);
+			System.arraycopy(model.location, 0, location, 0, location.length);
+			System.arraycopy(model.heldByAttacker, 0, held, 0, held.length);
+			attackerWon = false;
+			attackerLosses = 0;
+			defenderLosses = 0;
+			turns = 0;
+
+			moveAttackers();
+			while (turns < MAX_TURNS) {
+				turns++;
+				for (int i = 0; i < size.length; i++) lossesThisTurn[i] = 0;
+				for (int j = 0; j < held.length; j++) {
+					resolveCombat(j, random);
+				}
+				afterRound();
+				if (!anyAlive(false)) {
+					attackerWon = true;
+					return;
+				}
+				if (!anyAlive(true)) return;
+				moveAttackers();
+			}
+		}
+
+		protected boolean anyAlive(boolean attackerSide) {
+			for (int i = 0; i < size.length; i++) {
+				if (model.attacker[i] != attackerSide || !isAlive(i)) continue;
+				// attackers still waiting to drop count, defenders must be deployed
+				if (attackerSide || location[i] >= 0) return true;
+			}
+			return false;
+		}
+
+		protected float getAttackStrength(int j, boolean attackerSide, Random random) {
+			float str = 0;
+			for (int i = 0; i < size.length; i++) {
+				if (location[i] != j || model.attacker[i] != attackerSide || !isAlive(i)) continue;
+				str += size[i] * model.strengthPerElement[i] * model.attackMult[i] * getMoraleMult(morale[i]);
+			}
+			return str * model.damageMult * (0.8f + 0.4f * random.nextFloat());
+		}
+
+		protected void resolveCombat(int j, Random random) {
+			boolean anyAtk = false, anyDef = false;
+			for (int i = 0; i < size.length; i++) {
+				if (location[i] != j || !isAlive(i)) continue;
+				if (model.attacker[i]) anyAtk = true;
+				else anyDef = true;
+			}
+			if (!anyAtk || !anyDef) return;
+
+			float atkStr = getAttackStrength(j, true, random);
+			float defStr = getAttackStrength(j, false, random);
+			distributeDamage(j, false, atkStr, random);
+			distributeDamage(j, true, defStr, random);
+		}
+
+		protected void distributeDamage(int j, boolean attackerSide, float dam, Random random) {
+			float total = 0;
+			for (int i = 0; i < size.length; i++) {
+				contrib[i] = 0;
+				if (location[i] != j || model.attacker[i] != attackerSide || !isAlive(i)) continue;
+				contrib[i] = size[i] * model.strengthPerElement[i] * (0.75f + 0.5f * random.nextFloat());
+				total += contrib[i];
+			}
+			if (total <= 0) return;
+			for (int i = 0; i < size.length; i++) {
+				if (contrib[i] <= 0) continue;
+				float dmg = dam * contrib[i]/total * model.damageTakenMult[i];
+				if (held[j] == attackerSide) dmg /= model.industryStrengthMult[j];
+				float perKill = model.strengthPerElement[i];
+				int kills = (int)(dmg/perKill);
+				if (random.nextFloat() * perKill < dmg % perKill) kills++;
+				kills = (int)Math.min(kills, Math.ceil(size[i]));
+				if (kills <= 0) continue;
+
+				float moraleDmg = (kills/size[i]) / GBConstants.MORALE_DAMAGE_FACTOR * model.moraleDamageMult[i];
+				morale[i] = Math.max(morale[i] - moraleDmg, 0);
+				size[i] -= kills;
+				lossesThisTurn[i] += kills;
+				if (attackerSide) attackerLosses += kills;
+				else defenderLosses += kills;
+			}
+		}
+
+		protected void afterRound() {
+			for (int i = 0; i < size.length; i++) {
+				if (!isAlive(i)) continue;
+				// too small to fight on, or broken with nowhere to rout to: out of the battle
+				boolean broken = lossesThisTurn[i] > 0 && morale[i] < GBConstants.BREAK_AT_MORALE;
+				if (size[i] < model.minSize[i] && lossesThisTurn[i] > 0 || broken) {
+					size[i] = 0;
+				}
+			}
+			for (int j = 0; j < held.length; j++) {
+				boolean anyAtk = false, anyDef = false;
+				for (int i = 0; i < size.length; i++) {
+					if (location[i] != j || !isAlive(i)) continue;
+					if (model.attacker[i]) anyAtk = true;
+					else anyDef = true;
+				}
+				if (anyAtk && anyDef) {
+					for (int i = 0; i < size.length; i++) {
+						if (location[i] == j && isAlive(i))
+							morale[i] = Math.max(morale[i] - GBConstants.MORALE_LOSS_FROM_COMBAT, 0);
+					}
+				} else {
+					if (anyAtk) held[j] = true;
+					else if (anyDef) held[j] = false;
+					for (int i = 0; i < size.length; i++) {
+						if (location[i] == j && isAlive(i) && morale[i] < 0.65f)
+							morale[i] = Math.min(morale[i] + GBConstants.MORALE_RECOVERY_OUT_OF_COMBAT, 0.65f);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Attackers not engaged with any defenders go to the defender-held industry with the least defending strength.
+		 */
+		protected void moveAttackers() {
+			for (int j = 0; j < defenderStr.length; j++) defenderStr[j] = 0;
+			for (int i = 0; i < size.length; i++) {
+				if (model.attacker[i] || !isAlive(i) || location[i] < 0) continue;
+				defenderStr[location[i]] += size[i] * model.strengthPerElement[i];
+			}
+			int target = -1;
+			for (int j = 0; j < defenderStr.length; j++) {
+				if (held[j] && defenderStr[j] <= 0) continue;
+				if (target == -1 || defenderStr[j] < defenderStr[target]) target = j;
+			}
+			if (target == -1) return;
+			for (int i = 0; i < size.length; i++) {
+				if (!model.attacker[i] || !isAlive(i)) continue;
+				if (location[i] >= 0 && defenderStr[location[i]] > 0) continue;
+				location[i] = target;
+			}
+		}
+	}
+}
@@ -499,6 +499,7 @@ public class GroundUnit {
 		intel.getSide(isAttacker).units.remove(this);
 		if (isPlayer)
 			intel.playerData.getUnits().remove(this);
+		intel.invalidateCachedViews();
 		
 		log.info(String.format("Removed unit %s (%s)", name, type));
 	}
@@ -63,7 +63,7 @@ public class IgnisPluviaAbilityPlugin extends AbilityPlugin {
 		Set<IndustryForBattle> skippedOnce = new HashSet<>();	// ground defenses will get to skip one hit they would otherwise take
 		Set<IndustryForBattle> disrupted = new LinkedHashSet<>();
 		
-		WeightedRandomPicker<IndustryForBattle> targetPicker = new WeightedRandomPicker<>();
+		WeightedRandomPicker<IndustryForBattle> targetPicker = new WeightedRandomPicker<>(getIntel().getRandom());
 		
 		for (int i=0; i < NUM_HITS; i++) {
 			if (targetPicker.isEmpty()) targetPicker.addAll(targets);
@@ -26,6 +26,7 @@ import exerelin.campaign.*;
 import exerelin.campaign.alliances.Alliance;
 import exerelin.campaign.econ.FleetPoolManager;
 import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.campaign.intel.ActiveIntelRegistry;
 import exerelin.campaign.intel.agents.AgentIntel;
 import exerelin.plugins.ExerelinModPlugin;
 import exerelin.utilities.*;
@@ -202,6 +203,7 @@ public class RebellionIntel extends BaseIntelPlugin implements InvasionListener,
 						"defaulted. This is not supposed to happen. If your nexIntelQueued setting within ExerelinConfig " +
 						"is below 0 or above 2, that is the likely cause. Otherwise, please contact the mod author!");
 		}
+		registerActive();
 		conditionToken = market.addCondition("nex_rebellion_condition");
 		
 		if (instant) {
@@ -714,6 +716,7 @@ public class RebellionIntel extends BaseIntelPlugin implements InvasionListener,
 	@Override
 	protected void notifyEnding() {
 		Global.getSector().getListenerManager().removeListener(this);
+		ActiveIntelRegistry.getInstance().deregister(this);
 		if (rebelRep != null) {
 			Global.getSector().getImportantPeople().removePerson(rebelRep);
 			market.removePerson(rebelRep);
@@ -1764,7 +1767,30 @@ public class RebellionIntel extends BaseIntelPlugin implements InvasionListener,
 		}
 	}
 	
+	/**
+	 * Adds this rebellion to the {@code ActiveIntelRegistry}, keyed by its market and both sides' factions.
+	 */
+	public void registerActive() {
+		ActiveIntelRegistry.getInstance().register(this, market, null,
+				govtFaction != null ? govtFaction.getId() : null, rebelFaction != null ? rebelFaction.getId() : null);
+	}
+	
 	public static RebellionIntel getOngoingEvent(MarketAPI market)
+	{
+		RebellionIntel reb = ActiveIntelRegistry.getInstance().getOngoing(RebellionIntel.class, market);
+		if (ExerelinModPlugin.isNexDev) {
+			ActiveIntelRegistry.checkConsistency("rebellion at " + (market != null ? market.getId() : null),
+					reb, getOngoingEventByScan(market));
+		}
+		return reb;
+	}
+	
+	/**
+	 * Old intel manager scan for {@code getOngoingEvent}, kept for the registry consistency check.
+	 * @param market
+	 * @return
+	 */
+	protected static RebellionIntel getOngoingEventByScan(MarketAPI market)
 	{
 		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel(RebellionIntel.class))
 		{
@@ -0,0 +1,223 @@
+package exerelin.campaign.intel.specialforces;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import com.fs.starfarer.api.campaign.StarSystemAPI;
+import com.fs.starfarer.api.campaign.comm.IntelInfoPlugin;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.impl.campaign.intel.group.FleetGroupIntel;
+import com.fs.starfarer.api.impl.campaign.intel.raid.RaidIntel;
+import exerelin.campaign.AllianceManager;
+import exerelin.campaign.intel.groundbattle.GroundBattleIntel;
+import exerelin.utilities.NexUtilsFaction;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Sector-level data shared by all special forces fleets' task picking.
+ * Instead of every {@code SpecialForcesRouteAI} walking the intel manager on each recheck,
+ * one snapshot of active raid-type events, ongoing ground battles and allied markets is built
+ * and reused until it is {@code SNAPSHOT_MAX_AGE} days old.
+ * <p>Per-faction filtered event lists (hostile raids against the faction, friendly offensives it can assist)
+ * are computed on first request and shared by all task forces of that faction.</p>
+ */
+public class SpecialForcesPlanner {
+
+	public static Logger log = Global.getLogger(SpecialForcesPlanner.class);
+
+	// should be well below the task forces' recheck interval, so they never act on data from before their last check
+	public static final float SNAPSHOT_MAX_AGE = 1;
+
+	protected static SpecialForcesPlanner currInstance;
+
+	protected Snapshot snapshot;
+
+	// runcode exerelin.campaign.intel.specialforces.SpecialForcesPlanner.createInstance(true)
+	/**
+	 * Creates and stores an instance of the planner. Should be called on every game load.
+	 * @param replace Replaces the existing instance of the planner if true. Should only be false if called from {@code getInstance},
+	 *                   to avoid the planner being retained between sectors.
+	 * @return
+	 */
+	public static SpecialForcesPlanner createInstance(boolean replace) {
+		if (currInstance != null && !replace) return currInstance;
+		currInstance = new SpecialForcesPlanner();
+		return currInstance;
+	}
+
+	public static SpecialForcesPlanner getInstance() {
+		return getInstance(true);
+	}
+
+	public static SpecialForcesPlanner getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	/**
+	 * Gets the current snapshot, building a new one if none exists or the existing one is too old.
+	 * @return
+	 */
+	public Snapshot getSnapshot() {
+		if (snapshot == null || Global.getSector().getClock().getElapsedDaysSince(snapshot.timestamp) >= SNAPSHOT_MAX_AGE)
+		{
+			snapshot = new Snapshot();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Forces a new snapshot to be built on next request, e.g. before showing the player a list of events.
+	 */
+	public void invalidate() {
+		snapshot = null;
+	}
+
+	public static class EventInfo {
+		public final IntelInfoPlugin intel;
+		public final FactionAPI faction;
+		public final StarSystemAPI system;
+		public final float eta;
+
+		public EventInfo(IntelInfoPlugin intel, FactionAPI faction, StarSystemAPI system, float eta) {
+			this.intel = intel;
+			this.faction = faction;
+			this.system = system;
+			this.eta = eta;
+		}
+	}
+
+	public static class Snapshot {
+		public final long timestamp;
+		protected final List<IntelInfoPlugin> events = new ArrayList<>();
+		protected final List<EventInfo> eventInfoList = new ArrayList<>();
+		protected final Map<IntelInfoPlugin, EventInfo> eventInfo = new HashMap<>();
+		protected final List<GroundBattleIntel> groundBattles;
+
+		protected final Map<String, List<IntelInfoPlugin>> hostileRaidsByFaction = new HashMap<>();
+		protected final Map<String, List<IntelInfoPlugin>> friendlyEventsByFaction = new HashMap<>();
+		protected final Map<String, List<MarketAPI>> alliedMarketsByFaction = new HashMap<>();
+
+		protected Snapshot() {
+			timestamp = Global.getSector().getClock().getTimestamp();
+
+			for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel())
+			{
+				if (intel.isEnding() || intel.isEnded()) continue;
+
+				FactionAPI faction;
+				if (intel instanceof RaidIntel) {
+					faction = ((RaidIntel)intel).getFaction();
+				}
+				else if (intel instanceof FleetGroupIntel) {
+					faction = ((FleetGroupIntel)intel).getFaction();
+				}
+				else {
+					continue;
+				}
+
+				EventInfo info = new EventInfo(intel, faction, SpecialForcesRouteAI.getSystemForEvent(intel),
+						SpecialForcesRouteAI.getETA(intel));
+				events.add(intel);
+				eventInfoList.add(info);
+				eventInfo.put(intel, info);
+			}
+
+			groundBattles = GroundBattleIntel.getOngoing();
+		}
+
+		/**
+		 * @return Active raid-type events ({@code RaidIntel} and {@code FleetGroupIntel}) in the sector.
+		 */
+		public List<IntelInfoPlugin> getEvents() {
+			return Collections.unmodifiableList(events);
+		}
+
+		/**
+		 * @param event
+		 * @return The event's ETA as of when the snapshot was taken, or the live value if the event isn't in the snapshot.
+		 */
+		public float getETA(IntelInfoPlugin event) {
+			EventInfo info = eventInfo.get(event);
+			if (info == null) return SpecialForcesRouteAI.getETA(event);
+			return info.eta;
+		}
+
+		public List<GroundBattleIntel> getGroundBattles() {
+			return Collections.unmodifiableList(groundBattles);
+		}
+
+		/**
+		 * Copies the list, leaving out any events that have ended since the snapshot was taken.
+		 * @param events
+		 * @return
+		 */
+		protected static List<IntelInfoPlugin> getNotEnded(List<IntelInfoPlugin> events) {
+			List<IntelInfoPlugin> results = new ArrayList<>(events.size());
+			for (IntelInfoPlugin event : events) {
+				if (event.isEnding() || event.isEnded()) continue;
+				results.add(event);
+			}
+			return results;
+		}
+
+		/**
+		 * Gets the events by factions hostile to the route AI's faction, that it can defend against.
+		 * Computed for the first route AI of each faction to ask, and shared with the rest.
+		 * @param routeAI
+		 * @return
+		 */
+		public List<IntelInfoPlugin> getHostileRaids(SpecialForcesRouteAI routeAI) {
+			String factionId = routeAI.sf.faction.getId();
+			List<IntelInfoPlugin> raids = hostileRaidsByFaction.get(factionId);
+			if (raids == null) {
+				raids = new ArrayList<>();
+				for (EventInfo info : eventInfoList) {
+					if (!info.faction.isHostileTo(routeAI.sf.faction)) continue;
+					if (routeAI.isDefendableEnemyEvent(info.intel)) raids.add(info.intel);
+				}
+				hostileRaidsByFaction.put(factionId, raids);
+			}
+			return getNotEnded(raids);
+		}
+
+		/**
+		 * Gets the events by the route AI's faction or its allies, that it can assist.
+		 * Computed for the first route AI of each faction to ask, and shared with the rest.
+		 * @param routeAI
+		 * @return
+		 */
+		public List<IntelInfoPlugin> getFriendlyEvents(SpecialForcesRouteAI routeAI) {
+			String factionId = routeAI.sf.faction.getId();
+			List<IntelInfoPlugin> friendly = friendlyEventsByFaction.get(factionId);
+			if (friendly == null) {
+				friendly = new ArrayList<>();
+				for (EventInfo info : eventInfoList) {
+					if (!AllianceManager.areFactionsAllied(info.faction.getId(), factionId)) continue;
+					if (routeAI.isAssistableFriendlyEvent(info.intel)) friendly.add(info.intel);
+				}
+				friendlyEventsByFaction.put(factionId, friendly);
+			}
+			return getNotEnded(friendly);
+		}
+
+		/**
+		 * Gets the markets of the faction, or of its whole alliance if it has one.
+		 * @param factionId
+		 * @return
+		 */
+		public List<MarketAPI> getAlliedMarkets(String factionId) {
+			List<MarketAPI> markets = alliedMarketsByFaction.get(factionId);
+			if (markets == null) {
+				if (AllianceManager.getFactionAlliance(factionId) != null) {
+					markets = AllianceManager.getFactionAlliance(factionId).getAllianceMarkets();
+				}
+				else
+					markets = NexUtilsFaction.getFactionMarkets(factionId);
+				alliedMarketsByFaction.put(factionId, markets);
+			}
+			return Collections.unmodifiableList(markets);
+		}
+	}
+}
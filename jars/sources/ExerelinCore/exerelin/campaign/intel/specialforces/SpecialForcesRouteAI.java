@@ -69,6 +69,8 @@ public class SpecialForcesRouteAI {
 	
 	public SpecialForcesRouteAI(SpecialForcesIntel sf) {
 		this.sf = sf;
+		// stagger the first recheck so task forces spawned together don't all pick tasks on the same frame
+		recheckTaskInterval.advance(MathUtils.getRandomNumberInRange(0, 2.5f));
 	}
 	
 	public TaskType getCurrentTaskType() {
@@ -76,26 +78,12 @@ public class SpecialForcesRouteAI {
 		return null;
 	}
 	
+	/**
+	 * Gets active raid-type events in the sector, from the shared {@code SpecialForcesPlanner} snapshot.
+	 * @return
+	 */
 	protected List<IntelInfoPlugin> getActiveEvents() {
-		List<IntelInfoPlugin> raids = new ArrayList<>();
-		for (IntelInfoPlugin intel : Global.getSector().getIntelManager().getIntel()) 
-		{
-			if (intel.isEnding() || intel.isEnded()) continue;
-
-			if (intel instanceof RaidIntel) {
-
-			}
-			else if (intel instanceof FleetGroupIntel) {
-
-			}
-			else {
-				continue;
-			}
-
-			
-			raids.add(intel);
-		}
-		return raids;
+		return new ArrayList<>(SpecialForcesPlanner.getInstance().getSnapshot().getEvents());
 	}
 	
 	// runcode exerelin.campaign.intel.specialforces.SpecialForcesRouteAI.debugMercy();
@@ -186,15 +174,7 @@ public class SpecialForcesRouteAI {
 	 * @return
 	 */
 	public List<IntelInfoPlugin> getActiveEventsFriendly() {
-		List<IntelInfoPlugin> events = getActiveEvents();
-		List<IntelInfoPlugin> eventsFiltered = new ArrayList<>();
-		for (IntelInfoPlugin event : events) {
-			if (!isAssistableFriendlyEvent(event))
-				continue;			
-			
-			eventsFiltered.add(event);
-		}
-		return eventsFiltered;
+		return SpecialForcesPlanner.getInstance().getSnapshot().getFriendlyEvents(this);
 	}
 	
 	protected boolean hasMarketInSystem(StarSystemAPI system, FactionAPI faction) 
@@ -259,15 +239,7 @@ public class SpecialForcesRouteAI {
 	 * @return
 	 */
 	public List<IntelInfoPlugin> getActiveRaidsHostile() {
-		List<IntelInfoPlugin> raids = getActiveEvents();
-		List<IntelInfoPlugin> raidsFiltered = new ArrayList<>();
-		for (IntelInfoPlugin raid : raids) {
-			if (!isDefendableEnemyEvent(raid))
-				continue;		
-			
-			raidsFiltered.add(raid);
-		}
-		return raidsFiltered;
+		return SpecialForcesPlanner.getInstance().getSnapshot().getHostileRaids(this);
 	}
 	
 	public void resetRoute(RouteManager.RouteData route) {
@@ -503,12 +475,14 @@ public class SpecialForcesRouteAI {
 	public SpecialForcesTask pickTask(boolean priorityDefenseOnly, boolean isManualOrder)
 	{
 		sf.debugMsg("Picking task for " + sf.getFleetName(), false);
+		SpecialForcesPlanner.Snapshot snapshot = SpecialForcesPlanner.getInstance().getSnapshot();
 		
 		boolean isBusy = currentTask != null && currentTask.type.isBusyTask();
 		
 		// check for priority counter-ground-battle tasks
 		if (getCurrentTaskType() != TaskType.COUNTER_GROUND_BATTLE) {
-			for (GroundBattleIntel gbi : GroundBattleIntel.getOngoing()) {
+			for (GroundBattleIntel gbi : snapshot.getGroundBattles()) {
+				if (gbi.isEnding() || gbi.isEnded()) continue;
 				
 				MarketAPI market = gbi.getMarket();
 				if (!AllianceManager.areFactionsAllied(market.getFaction().getId(), sf.getFaction().getId()))
@@ -545,7 +519,7 @@ public class SpecialForcesRouteAI {
 		// check for priority raid defense missions
 		List<Pair<IntelInfoPlugin, Float>> hostileRaids = new ArrayList<>();
 		for (IntelInfoPlugin event : getActiveRaidsHostile()) {
-			if (getETA(event) > MAX_RAID_ETA_TO_CARE) continue;
+			if (snapshot.getETA(event) > MAX_RAID_ETA_TO_CARE) continue;
 			hostileRaids.add(new Pair<>(event, getEventDefendPriority(event)));
 		}
 		//sf.debugMsg("Hostile raid count: " + hostileRaids.size(), false);
@@ -569,7 +543,7 @@ public class SpecialForcesRouteAI {
 		
 		// Assist raid
 		for (IntelInfoPlugin raid : getActiveEventsFriendly()) {
-			if (getETA(raid) > MAX_RAID_ETA_TO_CARE) continue;
+			if (snapshot.getETA(raid) > MAX_RAID_ETA_TO_CARE) continue;
 			float priority = getEventAttackPriority(raid);
 			picker.add(generateRaidAssistTask(raid, priority), priority);
 		}
@@ -594,18 +568,10 @@ public class SpecialForcesRouteAI {
 	}
 	
 	public List<MarketAPI> getAlliedMarkets() {
-		String factionId = sf.faction.getId();
-		List<MarketAPI> alliedMarkets;
-		if (AllianceManager.getFactionAlliance(factionId) != null) {
-			alliedMarkets = AllianceManager.getFactionAlliance(factionId).getAllianceMarkets();
-		}
-		else
-			alliedMarkets = NexUtilsFaction.getFactionMarkets(factionId);
-		
-		return alliedMarkets;
+		return SpecialForcesPlanner.getInstance().getSnapshot().getAlliedMarkets(sf.faction.getId());
 	}
 
-	protected float getETA(IntelInfoPlugin event) {
+	protected static float getETA(IntelInfoPlugin event) {
 		if (event instanceof RaidIntel) {
 			return ((RaidIntel)event).getETA();
 		}
@@ -616,7 +582,7 @@ public class SpecialForcesRouteAI {
 		return 0;
 	}
 
-	protected StarSystemAPI getSystemForEvent(IntelInfoPlugin event) {
+	protected static StarSystemAPI getSystemForEvent(IntelInfoPlugin event) {
 		if (event instanceof RaidIntel) {
 			return ((RaidIntel)event).getSystem();
 		}
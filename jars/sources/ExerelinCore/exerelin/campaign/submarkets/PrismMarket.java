@@ -30,7 +30,9 @@ import data.scripts.campaign.intel.VayraUniqueBountyManager;
 import org.magiclib.util.MagicSettings;
 import exerelin.ExerelinConstants;
 import exerelin.plugins.ExerelinModPlugin;
+import exerelin.utilities.AliasTable;
 import exerelin.utilities.NexConfig;
+import exerelin.utilities.SpecCatalogue;
 import exerelin.utilities.StringHelper;
 import org.apache.log4j.Logger;
 import org.json.JSONArray;
@@ -68,6 +70,9 @@ public class PrismMarket extends BaseSubmarketPlugin {
     protected static Map<String, Float> blueprintValues;
     
     protected static Set<SubmarketAPI> cachedSubmarkets = null;
+    // the allowed wings and weapons only depend on the specs and blacklists, so work them out once
+    protected static AliasTable<FighterWingSpecAPI> allowedWings;
+    protected static List<WeaponSpecAPI> allowedWeapons;
     
     protected Set<String> alreadyBoughtShips = new HashSet<>();
     
@@ -191,24 +196,48 @@ public class PrismMarket extends BaseSubmarketPlugin {
         return true;
     }
     
+    protected List<WeaponSpecAPI> getAllowedWeapons()
+    {
+        if (allowedWeapons == null) {
+            SpecCatalogue catalogue = SpecCatalogue.getInstance();
+            List<WeaponSpecAPI> weapons = new ArrayList<>();
+            for (WeaponSpecAPI spec : catalogue.weapons.getSpecs(catalogue.getWeaponsOfTier(2, 4))) {
+                if (isWeaponAllowed(spec)) weapons.add(spec);
+            }
+            allowedWeapons = weapons;
+        }
+        return allowedWeapons;
+    }
+    
+    protected AliasTable<FighterWingSpecAPI> getAllowedWings()
+    {
+        if (allowedWings == null) {
+            SpecCatalogue catalogue = SpecCatalogue.getInstance();
+            List<FighterWingSpecAPI> wings = new ArrayList<>();
+            for (FighterWingSpecAPI spec : catalogue.wings.getSpecs(catalogue.getWingsOfTier(2, 4))) {
+                if (isWingAllowed(spec)) wings.add(spec);
+            }
+            float[] weights = new float[wings.size()];
+            Arrays.fill(weights, 1);
+            allowedWings = new AliasTable<>(wings, weights);
+        }
+        return allowedWings;
+    }
+    
     // similar to old vanilla one except without inflated weights for some weapons like HMG and Light Needler
     protected void addRandomWeapons(int max) {
         CargoAPI cargo = getCargo();
-        List<String> weaponIds = Global.getSector().getAllWeaponIds();
         
         WeightedRandomPicker<String> picker = new WeightedRandomPicker<>(itemGenRandom);
         
-        for (String id : weaponIds) {
-            WeaponSpecAPI spec = Global.getSettings().getWeaponSpec(id);
-            if (isWeaponAllowed(spec)) {
-                float weight = 10 - spec.getTier();    // so 6-8
-                
-                weight *= spec.getRarity();
-                
-                // chance to be picked twice
-                picker.add(spec.getWeaponId(), weight);
-                picker.add(spec.getWeaponId(), weight);
-            }
+        for (WeaponSpecAPI spec : getAllowedWeapons()) {
+            float weight = 10 - spec.getTier();    // so 6-8
+            
+            weight *= spec.getRarity();
+            
+            // chance to be picked twice
+            picker.add(spec.getWeaponId(), weight);
+            picker.add(spec.getWeaponId(), weight);
         }
         for (int i = 0; i < max; i++) {
             if (picker.isEmpty()) break;
@@ -233,11 +262,7 @@ public class PrismMarket extends BaseSubmarketPlugin {
     protected void addWings()
     {
         CargoAPI cargo = getCargo();
-        WeightedRandomPicker<String> fighterPicker = new WeightedRandomPicker<>(itemGenRandom);
-        for (FighterWingSpecAPI spec : Global.getSettings().getAllFighterWingSpecs()) {
-            if (isWingAllowed(spec))
-                fighterPicker.add(spec.getId());
-        }
+        AliasTable<FighterWingSpecAPI> fighterPicker = getAllowedWings();
         
         int picks = 0;
         for (CargoItemQuantity<String> quantity : cargo.getFighters())
@@ -245,7 +270,7 @@ public class PrismMarket extends BaseSubmarketPlugin {
             picks += quantity.getCount();
         }
         while (!fighterPicker.isEmpty() && picks < NexConfig.prismNumWings) {
-            String id = fighterPicker.pick();        
+            String id = fighterPicker.pick(itemGenRandom).getId();
             cargo.addItems(CargoAPI.CargoItemType.FIGHTER_CHIP, id, 1);
             picks++;
             //log.info("Adding fighter " + id + ": " + picks);
@@ -0,0 +1,155 @@
+package exerelin.combat;
+
+import com.fs.starfarer.api.combat.BaseEveryFrameCombatPlugin;
+import com.fs.starfarer.api.combat.CombatEngineAPI;
+import com.fs.starfarer.api.combat.CombatEntityAPI;
+import com.fs.starfarer.api.combat.DamagingProjectileAPI;
+import com.fs.starfarer.api.combat.MissileAPI;
+import com.fs.starfarer.api.combat.ShipAPI;
+import com.fs.starfarer.api.input.InputEventAPI;
+import exerelin.utilities.UniformGrid;
+import org.lazywizard.lazylib.MathUtils;
+import org.lwjgl.util.vector.Vector2f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grid of the ships and projectiles (including missiles) in combat, so ship system AIs and weapon effects can find
+ * the ones near a point without going through every entity on the map.
+ * <p>Built at most once per frame. While something is using the grid, its plugin rebuilds it each frame;
+ * if nothing has asked for it in the last {@value #IDLE_TIME} seconds, it isn't built until the next query.
+ * Get it with {@link #getGrid(CombatEngineAPI)}, which adds the plugin to the engine on first use.</p>
+ * <p>Positions are as of when the grid was built, so entities that move later in the same frame may be a frame behind,
+ * and entities spawned later in the frame are missing until the next one.</p>
+ */
+public class CombatSpatialGrid extends BaseEveryFrameCombatPlugin {
+
+	public static final String DATA_KEY = "nex_combatSpatialGrid";
+	public static final float CELL_SIZE = 500;
+	public static final float IDLE_TIME = 1;
+
+	protected final CombatEngineAPI engine;
+	protected final UniformGrid<ShipAPI> ships = new UniformGrid<>(CELL_SIZE);
+	protected final UniformGrid<DamagingProjectileAPI> projectiles = new UniformGrid<>(CELL_SIZE);
+	protected float maxShipRadius;
+	protected float maxProjectileRadius;
+	protected float builtAt = -1;
+	protected float lastQueried = -IDLE_TIME - 1;
+
+	protected CombatSpatialGrid(CombatEngineAPI engine) {
+		this.engine = engine;
+	}
+
+	public static CombatSpatialGrid getGrid(CombatEngineAPI engine) {
+		CombatSpatialGrid grid = (CombatSpatialGrid)engine.getCustomData().get(DATA_KEY);
+		if (grid == null) {
+			grid = new CombatSpatialGrid(engine);
+			engine.getCustomData().put(DATA_KEY, grid);
+			engine.addPlugin(grid);
+		}
+		return grid;
+	}
+
+	@Override
+	public void advance(float amount, List<InputEventAPI> events) {
+		if (engine.isPaused()) return;
+		if (engine.getTotalElapsedTime(false) - lastQueried > IDLE_TIME) return;
+		update();
+	}
+
+	/**
+	 * Rebuilds the grid if it hasn't been built yet this frame.
+	 */
+	public void update() {
+		float time = engine.getTotalElapsedTime(false);
+		if (time == builtAt) return;
+		rebuild(engine.getShips(), engine.getProjectiles());
+		builtAt = time;
+	}
+
+	protected void onQuery() {
+		lastQueried = engine.getTotalElapsedTime(false);
+		update();
+	}
+
+	/**
+	 * Refills the grid from the specified entities, in order.
+	 * @param shipList
+	 * @param projList
+	 */
+	public void rebuild(List<ShipAPI> shipList, List<DamagingProjectileAPI> projList) {
+		ships.clear();
+		projectiles.clear();
+		maxShipRadius = 0;
+		maxProjectileRadius = 0;
+		for (ShipAPI ship : shipList) {
+			Vector2f loc = ship.getLocation();
+			ships.add(ship, loc.x, loc.y);
+			maxShipRadius = Math.max(maxShipRadius, ship.getCollisionRadius());
+		}
+		for (DamagingProjectileAPI proj : projList) {
+			Vector2f loc = proj.getLocation();
+			projectiles.add(proj, loc.x, loc.y);
+			maxProjectileRadius = Math.max(maxProjectileRadius, proj.getCollisionRadius());
+		}
+	}
+
+	/**
+	 * Same as LazyLib's {@code CombatUtils.getShipsWithinRange}: ships (other than shuttle pods)
+	 * whose collision circle is within {@code range} of the location.
+	 * @param loc
+	 * @param range
+	 * @return Ships in {@code CombatEngineAPI.getShips} order.
+	 */
+	public List<ShipAPI> getShipsWithinRange(Vector2f loc, float range) {
+		onQuery();
+		List<ShipAPI> results = new ArrayList<>();
+		for (UniformGrid.Entry<ShipAPI> entry : ships.getWithinRadius(loc.x, loc.y, range + maxShipRadius, null)) {
+			ShipAPI ship = entry.item;
+			if (ship.isShuttlePod()) continue;
+			if (!MathUtils.isWithinRange(ship, loc, range)) continue;
+			results.add(ship);
+		}
+		return results;
+	}
+
+	/**
+	 * @param loc
+	 * @param range
+	 * @param filter May be null.
+	 * @return Projectiles (including missiles) whose centre is within {@code range} of the location,
+	 * in {@code CombatEngineAPI.getProjectiles} order.
+	 */
+	public List<DamagingProjectileAPI> getProjectilesWithinRange(Vector2f loc, float range,
+			UniformGrid.Filter<DamagingProjectileAPI> filter) {
+		onQuery();
+		List<DamagingProjectileAPI> results = new ArrayList<>();
+		for (UniformGrid.Entry<DamagingProjectileAPI> entry : projectiles.getWithinRadius(loc.x, loc.y, range, filter)) {
+			results.add(entry.item);
+		}
+		return results;
+	}
+
+	/**
+	 * Same as LazyLib's {@code AIUtils.getNearbyEnemyMissiles}: missiles not belonging to the entity's owner
+	 * whose collision circle is within {@code range} of the entity's.
+	 * @param entity
+	 * @param range
+	 * @return
+	 */
+	public List<MissileAPI> getNearbyEnemyMissiles(CombatEntityAPI entity, float range) {
+		onQuery();
+		List<MissileAPI> results = new ArrayList<>();
+		Vector2f loc = entity.getLocation();
+		float searchRange = range + entity.getCollisionRadius() + maxProjectileRadius;
+		for (UniformGrid.Entry<DamagingProjectileAPI> entry : projectiles.getWithinRadius(loc.x, loc.y, searchRange, null)) {
+			if (!(entry.item instanceof MissileAPI)) continue;
+			MissileAPI missile = (MissileAPI)entry.item;
+			if (missile.getOwner() == entity.getOwner()) continue;
+			if (!MathUtils.isWithinRange(entity, missile, range)) continue;
+			results.add(missile);
+		}
+		return results;
+	}
+}
@@ -4,6 +4,7 @@ import com.fs.starfarer.api.combat.*;
 import com.fs.starfarer.api.combat.CombatFleetManagerAPI.AssignmentInfo;
 import com.fs.starfarer.api.combat.ShipwideAIFlags.AIFlags;
 import com.fs.starfarer.api.util.IntervalUtil;
+import exerelin.combat.CombatSpatialGrid;
 import org.lazywizard.lazylib.CollectionUtils;
 import org.lazywizard.lazylib.CollisionUtils;
 import org.lazywizard.lazylib.MathUtils;
@@ -11,7 +12,6 @@ import org.lazywizard.lazylib.VectorUtils;
 import org.lazywizard.lazylib.combat.AIUtils;
 import org.lwjgl.util.vector.Vector2f;
 
-import java.util.ArrayList;
 import java.util.List;
 
 
@@ -72,14 +72,11 @@ public class SilverlightDashAI implements ShipSystemAIScript {
                 return;
             }
 
-            List<DamagingProjectileAPI> nearbyThreats = new ArrayList<>(500);
-            for (DamagingProjectileAPI tmp : engine.getProjectiles()) {
-                if (MathUtils.isWithinRange(tmp.getLocation(), ship.getLocation(), ship.getCollisionRadius() * 3f)) {
-                    nearbyThreats.add(tmp);
-                }
-            }
+            CombatSpatialGrid grid = CombatSpatialGrid.getGrid(engine);
+            List<DamagingProjectileAPI> nearbyThreats = grid.getProjectilesWithinRange(ship.getLocation(),
+                    ship.getCollisionRadius() * 3f, null);
             nearbyThreats = CollectionUtils.filter(nearbyThreats, filterMisses);
-            List<MissileAPI> nearbyMissiles = AIUtils.getNearbyEnemyMissiles(ship, ship.getCollisionRadius() * 2f);
+            List<MissileAPI> nearbyMissiles = grid.getNearbyEnemyMissiles(ship, ship.getCollisionRadius() * 2f);
             for (MissileAPI missile : nearbyMissiles) {
                 if (!missile.getEngineController().isTurningLeft() && !missile.getEngineController().isTurningRight()) {
                     continue;
@@ -3,11 +3,11 @@ package exerelin.combat.weapons;
 import com.fs.starfarer.api.Global;
 import com.fs.starfarer.api.combat.*;
 import com.fs.starfarer.api.combat.listeners.ApplyDamageResultAPI;
+import exerelin.combat.CombatSpatialGrid;
 import lombok.extern.log4j.Log4j;
 import org.lazywizard.lazylib.CollisionUtils;
 import org.lazywizard.lazylib.MathUtils;
 import org.lazywizard.lazylib.VectorUtils;
-import org.lazywizard.lazylib.combat.CombatUtils;
 import org.lwjgl.util.vector.Vector2f;
 
 import java.awt.*;
@@ -152,7 +152,7 @@ public class AlicornEffect implements OnFireEffectPlugin, OnHitEffectPlugin, Eve
 
         // get all ships in a circle of radius == range/2, centered on the 75% travel point of the projectile
         Vector2f pointToCheck = new Vector2f(projStart).translate(vel.x * travelTime * 0.75f, vel.y * travelTime * 0.75f);
-        List<ShipAPI> ships = CombatUtils.getShipsWithinRange(pointToCheck, range/2);
+        List<ShipAPI> ships = CombatSpatialGrid.getGrid(engine).getShipsWithinRange(pointToCheck, range/2);
 
         Vector2f closest = null;
         float closestDistSq = 99999999;
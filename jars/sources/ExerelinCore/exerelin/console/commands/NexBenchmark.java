@@ -0,0 +1,543 @@
+package exerelin.console.commands;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.SectorEntityToken;
+import com.fs.starfarer.api.campaign.econ.MarketAPI;
+import com.fs.starfarer.api.combat.MutableStat;
+import com.fs.starfarer.api.util.Misc;
+import exerelin.campaign.ColonyManager;
+import exerelin.campaign.DiplomacyManager;
+import exerelin.campaign.HyperspaceIndex;
+import exerelin.campaign.SectorManager;
+import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIModule;
+import exerelin.campaign.ai.StrategicDefManager;
+import exerelin.campaign.ai.concern.StrategicConcern;
+import exerelin.campaign.colony.ColonyTargetIndex;
+import exerelin.campaign.colony.ColonyTargetValuator;
+import exerelin.campaign.diplomacy.DiplomacyBrain;
+import exerelin.campaign.diplomacy.DiplomacyDispositionUpdater;
+import exerelin.campaign.diplomacy.DiplomacySnapshot;
+import exerelin.campaign.econ.EconomyInfoHelper;
+import exerelin.campaign.fleets.InvasionFleetManager;
+import exerelin.campaign.intel.groundbattle.GBUtils;
+import exerelin.campaign.intel.groundbattle.GroundBattleIntel;
+import exerelin.campaign.intel.groundbattle.GroundBattleSimulator;
+import exerelin.campaign.intel.groundbattle.GroundUnitDef;
+import exerelin.combat.CombatSpatialGrid;
+import exerelin.utilities.NexUtils;
+import exerelin.utilities.NexUtilsFaction;
+import exerelin.utilities.ReflectionUtils;
+import exerelin.utilities.UniformGrid;
+import org.apache.log4j.Logger;
+import org.lazywizard.console.BaseCommand;
+import org.lazywizard.console.CommonStrings;
+import org.lazywizard.console.Console;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Times the campaign AI's heavy periodic calculations against the current sector, and reports time and allocation per run.
+ * Only side-effect-free (or idempotent) parts of each path are run, so it's safe to use on a real save:
+ * <ul>
+ *     <li>diplomacy: every live faction's disposition evaluation from a fresh snapshot; the results are not applied
+ *     to the brain, and no listeners are notified</li>
+ *     <li>diplomacyparallel: the same disposition evaluation, for all live factions at once on
+ *     {@code DiplomacyDispositionUpdater}'s worker pool, including the snapshot capture; the results are thrown away</li>
+ *     <li>strategicai: concern search for every strategic AI module, with the generated concerns thrown away</li>
+ *     <li>invasion: invasion point calculation for every market (points are not added)</li>
+ *     <li>economy: economy info helper update, as on an economy tick (only changed markets are regenerated)</li>
+ *     <li>economyfull: full rebuild of the economy info helper's data</li>
+ *     <li>colonytargets: colony expedition target scoring from the {@code ColonyTargetIndex} for every live faction,
+ *     from its largest market (no live checks or random pick)</li>
+ *     <li>groundsim: {@code GroundBattleSimulator} prediction of an invasion of the largest non-player market</li>
+ *     <li>groundviews: the unit and plugin list lookups a ground battle round makes, on a temporary battle
+ *     for the largest non-player market</li>
+ *     <li>spatial, spatiallinear: radius and nearest-5 queries on a synthetic sector of {@value #SPATIAL_SYSTEMS} systems,
+ *     using the {@code HyperspaceIndex} grid and a linear scan respectively</li>
+ *     <li>combatgrid, combatlinear: one frame's worth of Silverlight-style threat queries (each of {@value #COMBAT_SHIPS} ships
+ *     looking for projectiles near it) in a synthetic cloud of {@value #COMBAT_PROJECTILES} projectiles, using a
+ *     {@code CombatSpatialGrid}-sized grid (including building it) and a linear scan respectively. Needs no battle.</li>
+ *     <li>runcodecold, runcodewarm: the kind of script snippets new game setup runs through {@code NexUtils.runCodeFrom}
+ *     (side-effect-free ones here), with the compiled script cache emptied before each run and kept respectively</li>
+ *     <li>reflection, reflectiondirect: {@value #REFLECTION_READS} reads of a superclass's private field, as
+ *     {@code BattleForceJoinHelper} does every frame, through {@code ReflectionUtils.getIncludingSuperclasses}
+ *     and directly respectively</li>
+ * </ul>
+ */
+public class NexBenchmark implements BaseCommand {
+
+	public static Logger log = Global.getLogger(NexBenchmark.class);
+
+	public static final int DEFAULT_ITERATIONS = 20;
+	public static final int SPATIAL_SYSTEMS = 2000;
+	public static final int SPATIAL_QUERIES = 200;
+	public static final int COMBAT_SHIPS = 60;
+	public static final int COMBAT_PROJECTILES = 4000;
+	public static final int REFLECTION_READS = 10000;
+
+	@Override
+	public CommandResult runCommand(String args, CommandContext context) {
+		if (!context.isInCampaign()) {
+			Console.showMessage(CommonStrings.ERROR_CAMPAIGN_ONLY);
+			return CommandResult.WRONG_CONTEXT;
+		}
+
+		String[] tmp = args.isEmpty() ? new String[0] : args.split(" ");
+		String target = tmp.length > 0 ? tmp[0].toLowerCase() : "all";
+		int iterations = DEFAULT_ITERATIONS;
+		if (tmp.length > 1) {
+			try {
+				iterations = Integer.parseInt(tmp[1]);
+			} catch (NumberFormatException ex) {
+				return CommandResult.BAD_SYNTAX;
+			}
+			if (iterations <= 0) return CommandResult.BAD_SYNTAX;
+		}
+
+		Map<String, Runnable> benchmarks = getBenchmarks();
+		List<String> toRun = new ArrayList<>();
+		if (target.equals("all")) toRun.addAll(benchmarks.keySet());
+		else if (benchmarks.containsKey(target)) toRun.add(target);
+		else {
+			Console.showMessage("Error: no such benchmark '" + target + "'! Valid benchmarks: all, " + benchmarks.keySet());
+			return CommandResult.BAD_SYNTAX;
+		}
+
+		Console.showMessage(String.format("Sector: %d markets, %d live factions; %d iterations each",
+				Global.getSector().getEconomy().getMarketsCopy().size(),
+				SectorManager.getLiveFactionIdsCopy().size(), iterations));
+		for (String id : toRun) {
+			try {
+				Result result = run(benchmarks.get(id), iterations);
+				String str = String.format("%s: %s", id, result);
+				log.info("Benchmark " + str);
+				Console.showMessage(str);
+			} catch (Exception ex) {
+				log.error("Benchmark " + id + " failed", ex);
+				Console.showMessage("Benchmark " + id + " failed: " + ex);
+			}
+		}
+
+		return CommandResult.SUCCESS;
+	}
+
+	public static Map<String, Runnable> getBenchmarks() {
+		Map<String, Runnable> benchmarks = new LinkedHashMap<>();
+		benchmarks.put("diplomacy", new Runnable() {
+			@Override
+			public void run() {
+				DiplomacyManager manager = DiplomacyManager.getManager();
+				for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+					DiplomacyBrain brain = manager.getDiplomacyBrain(factionId);
+					if (brain == null) continue;
+					DiplomacySnapshot snapshot = new DiplomacySnapshot(Collections.singletonList(brain));
+					brain.evaluateDispositions(snapshot, 0);
+				}
+			}
+		});
+		benchmarks.put("diplomacyparallel", new Runnable() {
+			@Override
+			public void run() {
+				DiplomacyManager manager = DiplomacyManager.getManager();
+				List<DiplomacyBrain> brains = new ArrayList<>();
+				for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+					DiplomacyBrain brain = manager.getDiplomacyBrain(factionId);
+					if (brain == null) continue;
+					brains.add(brain);
+				}
+				final DiplomacySnapshot snapshot = new DiplomacySnapshot(brains);
+				ForkJoinPool pool = DiplomacyDispositionUpdater.getPool();
+				List<Future<Map<String, MutableStat>>> futures = new ArrayList<>();
+				for (final DiplomacyBrain brain : brains) {
+					futures.add(pool.submit(new Callable<Map<String, MutableStat>>() {
+						@Override
+						public Map<String, MutableStat> call() {
+							return brain.evaluateDispositions(snapshot, 0);
+						}
+					}));
+				}
+				try {
+					for (Future<Map<String, MutableStat>> future : futures) {
+						future.get();
+					}
+				} catch (InterruptedException | ExecutionException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		});
+		benchmarks.put("strategicai", new Runnable() {
+			@Override
+			public void run() {
+				for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+					StrategicAI ai = StrategicAI.getAI(factionId);
+					if (ai == null) continue;
+					generateConcerns(ai, ai.getEconModule());
+					generateConcerns(ai, ai.getMilModule());
+					generateConcerns(ai, ai.getDiploModule());
+				}
+			}
+		});
+		benchmarks.put("invasion", new Runnable() {
+			@Override
+			public void run() {
+				float total = 0;
+				for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+					if (market.isHidden()) continue;
+					total += InvasionFleetManager.getPointsPerMarketPerTick(market);
+				}
+				if (total < 0) log.warn("Negative invasion points " + total);
+			}
+		});
+		benchmarks.put("economy", new Runnable() {
+			@Override
+			public void run() {
+				EconomyInfoHelper.getInstance().collectEconomicData(false);
+			}
+		});
+		benchmarks.put("economyfull", new Runnable() {
+			@Override
+			public void run() {
+				EconomyInfoHelper.getInstance().rebuildEconomicData(false);
+			}
+		});
+		benchmarks.put("colonytargets", new Runnable() {
+			@Override
+			public void run() {
+				int total = 0;
+				for (String factionId : SectorManager.getLiveFactionIdsCopy()) {
+					MarketAPI source = null;
+					for (MarketAPI market : NexUtilsFaction.getFactionMarkets(factionId)) {
+						if (source == null || market.getSize() > source.getSize()) source = market;
+					}
+					if (source == null) continue;
+					ColonyTargetValuator valuator = ColonyManager.loadColonyTargetValuator(factionId);
+					if (valuator == null || !valuator.canUseTargetIndex()) continue;
+					SectorEntityToken anchor = source.getContainingLocation().isHyperspace() ? source.getPrimaryEntity()
+							: source.getStarSystem().getHyperspaceAnchor();
+					total += ColonyTargetIndex.getInstance().getCandidates(valuator, source.getFaction(), anchor).size();
+				}
+				if (total < 0) log.warn("Negative candidate count " + total);
+			}
+		});
+		benchmarks.put("groundsim", new Runnable() {
+			GroundBattleSimulator.Model model;
+
+			@Override
+			public void run() {
+				if (model == null) model = createGroundBattleModel();
+				if (model == null) return;
+				GroundBattleSimulator.predict(model, GroundBattleSimulator.DEFAULT_TRIALS, 0);
+			}
+		});
+		benchmarks.put("groundviews", new Runnable() {
+			GroundBattleIntel battle;
+
+			@Override
+			public void run() {
+				if (battle == null) {
+					battle = createTempGroundBattle();
+					if (battle == null) return;
+					battle.getSide(false).generateDefenders();
+				}
+				// a round looks up the units five times and the plugins five times
+				int total = 0;
+				for (int i = 0; i < 5; i++) {
+					total += battle.getAllUnits().size();
+					total += battle.getPlugins().size();
+				}
+				if (total < 0) log.warn("Negative unit count " + total);
+			}
+		});
+		benchmarks.put("spatial", new SpatialBenchmark(false));
+		benchmarks.put("spatiallinear", new SpatialBenchmark(true));
+		benchmarks.put("combatgrid", new CombatGridBenchmark(false));
+		benchmarks.put("combatlinear", new CombatGridBenchmark(true));
+		benchmarks.put("runcodecold", new RunCodeBenchmark(true));
+		benchmarks.put("runcodewarm", new RunCodeBenchmark(false));
+		benchmarks.put("reflection", new ReflectionBenchmark(false));
+		benchmarks.put("reflectiondirect", new ReflectionBenchmark(true));
+		return benchmarks;
+	}
+
+	/**
+	 * Creates a ground battle for the largest non-player market, without starting it.
+	 * @return
+	 */
+	protected static GroundBattleIntel createTempGroundBattle() {
+		MarketAPI target = null;
+		for (MarketAPI market : Global.getSector().getEconomy().getMarketsCopy()) {
+			if (market.isHidden() || market.isPlayerOwned()) continue;
+			if (target == null || market.getSize() > target.getSize()) target = market;
+		}
+		if (target == null) return null;
+		GroundBattleIntel temp = new GroundBattleIntel(target, Global.getSector().getPlayerFaction(), target.getFaction());
+		temp.init();
+		return temp;
+	}
+
+	protected static GroundBattleSimulator.Model createGroundBattleModel() {
+		GroundBattleIntel temp = createTempGroundBattle();
+		if (temp == null) return null;
+		float garrison = GBUtils.estimateTotalDefenderStrength(temp, true);
+		int marines = (int)(garrison * 1.5f / GroundUnitDef.getUnitDef(GroundUnitDef.MARINE).strength);
+		return GroundBattleSimulator.Model.fromBattle(temp, marines, 0);
+	}
+
+	/**
+	 * Does what {@code StrategicAIModule.findConcerns} does, without keeping the concerns.
+	 */
+	protected static void generateConcerns(StrategicAI ai, StrategicAIModule module) {
+		for (StrategicDefManager.StrategicConcernDef def : module.getRelevantConcernDefs()) {
+			if (!def.enabled || def.noAutoGenerate) continue;
+			if (!StrategicDefManager.passesPrecheck(def, ai, module)) continue;
+			StrategicConcern concern = StrategicDefManager.instantiateConcern(def);
+			if (concern == null) continue;
+			concern.setAI(ai, module);
+			concern.generate();
+		}
+	}
+
+	/**
+	 * Runs the benchmark {@code iterations} times after a warmup of a fifth as many runs.
+	 * @param benchmark
+	 * @param iterations
+	 * @return
+	 */
+	public static Result run(Runnable benchmark, int iterations) {
+		int warmup = Math.max(iterations/5, 1);
+		for (int i = 0; i < warmup; i++) {
+			benchmark.run();
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean allocTracker = null;
+		if (threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported()) {
+			allocTracker = (com.sun.management.ThreadMXBean)threads;
+		}
+		long threadId = Thread.currentThread().getId();
+
+		long[] times = new long[iterations];
+		long allocStart = allocTracker != null ? allocTracker.getThreadAllocatedBytes(threadId) : 0;
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			benchmark.run();
+			times[i] = System.nanoTime() - start;
+		}
+		long allocated = allocTracker != null ? allocTracker.getThreadAllocatedBytes(threadId) - allocStart : -1;
+
+		Arrays.sort(times);
+		long total = 0;
+		for (long time : times) total += time;
+
+		Result result = new Result();
+		result.meanMs = total / 1000000f / iterations;
+		result.medianMs = times[iterations/2] / 1000000f;
+		result.minMs = times[0] / 1000000f;
+		result.maxMs = times[iterations - 1] / 1000000f;
+		result.bytesPerRun = allocated >= 0 ? allocated / iterations : -1;
+		return result;
+	}
+
+	/**
+	 * Alternates 10 LY radius queries and nearest-5 queries from random points, on randomly placed systems
+	 * spread over a sector about as dense as a large procgen one.
+	 */
+	public static class SpatialBenchmark implements Runnable {
+		protected final boolean linear;
+		protected UniformGrid<Integer> grid;
+		protected float[][] points;
+		protected float[][] queries;
+
+		public SpatialBenchmark(boolean linear) {
+			this.linear = linear;
+		}
+
+		protected void init() {
+			Random random = new Random(SPATIAL_SYSTEMS);
+			float halfWidth = (float)Math.sqrt(SPATIAL_SYSTEMS) * 4 * Misc.getUnitsPerLightYear();
+			grid = new UniformGrid<>(HyperspaceIndex.CELL_SIZE_LY * Misc.getUnitsPerLightYear());
+			points = new float[SPATIAL_SYSTEMS][];
+			for (int i = 0; i < SPATIAL_SYSTEMS; i++) {
+				points[i] = new float[] {(random.nextFloat() * 2 - 1) * halfWidth, (random.nextFloat() * 2 - 1) * halfWidth};
+				grid.add(i, points[i][0], points[i][1]);
+			}
+			queries = new float[SPATIAL_QUERIES][];
+			for (int i = 0; i < SPATIAL_QUERIES; i++) {
+				queries[i] = new float[] {(random.nextFloat() * 2 - 1) * halfWidth, (random.nextFloat() * 2 - 1) * halfWidth};
+			}
+		}
+
+		@Override
+		public void run() {
+			if (grid == null) init();
+			float radius = 10 * Misc.getUnitsPerLightYear();
+			int total = 0;
+			for (int i = 0; i < SPATIAL_QUERIES; i++) {
+				float x = queries[i][0], y = queries[i][1];
+				if (i % 2 == 0) {
+					if (linear) total += grid.getWithinRadiusLinear(x, y, radius, null).size();
+					else total += grid.getWithinRadius(x, y, radius, null).size();
+				} else {
+					if (linear) total += getNearestLinear(x, y, 5);
+					else total += grid.getNearest(x, y, 5, null).size();
+				}
+			}
+			if (total < 0) log.warn("Negative result count " + total);
+		}
+
+		protected int getNearestLinear(float x, float y, int count) {
+			float[] best = new float[count];
+			Arrays.fill(best, Float.MAX_VALUE);
+			for (float[] point : points) {
+				float dx = point[0] - x, dy = point[1] - y;
+				float distSq = dx * dx + dy * dy;
+				if (distSq >= best[count - 1]) continue;
+				int i = count - 1;
+				while (i > 0 && best[i - 1] > distSq) {
+					best[i] = best[i - 1];
+					i--;
+				}
+				best[i] = distSq;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Ships spread over a combat map, with projectiles clustered around them as in a missile-heavy fight.
+	 */
+	public static class CombatGridBenchmark implements Runnable {
+		protected final boolean linear;
+		protected final UniformGrid<Integer> grid = new UniformGrid<>(CombatSpatialGrid.CELL_SIZE);
+		protected float[][] ships;
+		protected float[][] projectiles;
+
+		public CombatGridBenchmark(boolean linear) {
+			this.linear = linear;
+		}
+
+		protected void init() {
+			Random random = new Random(COMBAT_PROJECTILES);
+			ships = new float[COMBAT_SHIPS][];
+			for (int i = 0; i < COMBAT_SHIPS; i++) {
+				ships[i] = new float[] {(random.nextFloat() * 2 - 1) * 8000, (random.nextFloat() * 2 - 1) * 8000,
+						50 + random.nextFloat() * 250};
+			}
+			projectiles = new float[COMBAT_PROJECTILES][];
+			for (int i = 0; i < COMBAT_PROJECTILES; i++) {
+				float[] ship = ships[random.nextInt(COMBAT_SHIPS)];
+				projectiles[i] = new float[] {ship[0] + (float)random.nextGaussian() * 1000,
+						ship[1] + (float)random.nextGaussian() * 1000};
+			}
+		}
+
+		@Override
+		public void run() {
+			if (ships == null) init();
+			int total = 0;
+			if (!linear) {
+				grid.clear();
+				for (int i = 0; i < COMBAT_PROJECTILES; i++) {
+					grid.add(i, projectiles[i][0], projectiles[i][1]);
+				}
+			}
+			for (float[] ship : ships) {
+				float range = ship[2] * 3;
+				if (linear) {
+					float rangeSq = range * range;
+					for (float[] proj : projectiles) {
+						float dx = proj[0] - ship[0], dy = proj[1] - ship[1];
+						if (dx * dx + dy * dy <= rangeSq) total++;
+					}
+				} else {
+					total += grid.getWithinRadius(ship[0], ship[1], range, null).size();
+				}
+			}
+			if (total < 0) log.warn("Negative result count " + total);
+		}
+	}
+
+	public static class RunCodeBenchmark implements Runnable {
+		public static final String[] SNIPPETS = {
+			"com.fs.starfarer.api.Global.getSector().getEconomy().getMarketsCopy()",
+			"sector.getStarSystems()",
+			"import com.fs.starfarer.api.campaign.SectorAPI;\r\nSectorAPI other = sector;\r\nother.getAllFactions();",
+			"sector.getEntityById(\"corvus\")",
+		};
+
+		protected final boolean cold;
+
+		public RunCodeBenchmark(boolean cold) {
+			this.cold = cold;
+		}
+
+		@Override
+		public void run() {
+			if (cold) NexUtils.clearCompiledScripts();
+			String[] paramNames = {"sector"};
+			for (String snippet : SNIPPETS) {
+				try {
+					NexUtils.runCodeFrom(NexBenchmark.class.getName(), snippet, paramNames, null, Global.getSector());
+				} catch (Exception ex) {
+					log.error("Benchmark script failed", ex);
+				}
+			}
+		}
+	}
+
+	protected static class ReflectionTarget {
+		private final List<Object> pulledIn = new ArrayList<>();
+	}
+
+	protected static class ReflectionTargetSub extends ReflectionTarget {}
+
+	public static class ReflectionBenchmark implements Runnable {
+		protected final boolean direct;
+		protected final ReflectionTarget target = new ReflectionTargetSub();
+
+		public ReflectionBenchmark(boolean direct) {
+			this.direct = direct;
+		}
+
+		@Override
+		public void run() {
+			int total = 0;
+			for (int i = 0; i < REFLECTION_READS; i++) {
+				List<Object> list;
+				if (direct) list = target.pulledIn;
+				else list = (List<Object>)ReflectionUtils.getIncludingSuperclasses("pulledIn", target, target.getClass());
+				total += list.size();
+			}
+			if (total < 0) log.warn("Negative list size " + total);
+		}
+	}
+
+	public static class Result {
+		public float meanMs;
+		public float medianMs;
+		public float minMs;
+		public float maxMs;
+		public long bytesPerRun;
+
+		@Override
+		public String toString() {
+			String alloc = bytesPerRun >= 0 ? String.format("%.1f KB/run", bytesPerRun / 1024f) : "allocation n/a";
+			return String.format("mean %.3f ms, median %.3f ms, min %.3f ms, max %.3f ms, %s",
+					meanMs, medianMs, minMs, maxMs, alloc);
+		}
+	}
+}
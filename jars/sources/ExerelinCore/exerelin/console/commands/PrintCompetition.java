@@ -0,0 +1,76 @@
+package exerelin.console.commands;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.campaign.FactionAPI;
+import exerelin.campaign.econ.CommodityCompetitionMatrix;
+import exerelin.campaign.econ.EconomyInfoHelper;
+import org.apache.log4j.Logger;
+import org.lazywizard.console.BaseCommand;
+import org.lazywizard.console.CommandUtils;
+import org.lazywizard.console.CommonStrings;
+import org.lazywizard.console.Console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the commodity competition matrix: for each faction, how much each other faction competes with the commodities it produces.
+ * With a faction argument, only that faction's row is printed, broken down by commodity.
+ */
+public class PrintCompetition implements BaseCommand {
+
+	public static Logger log = Global.getLogger(PrintCompetition.class);
+
+	@Override
+	public CommandResult runCommand(String args, CommandContext context) {
+		if (!context.isInCampaign()) {
+			Console.showMessage(CommonStrings.ERROR_CAMPAIGN_ONLY);
+			return CommandResult.WRONG_CONTEXT;
+		}
+
+		CommodityCompetitionMatrix matrix = EconomyInfoHelper.getInstance().getCompetitionMatrix();
+		if (matrix == null) {
+			Console.showMessage("No competition data available yet");
+			return CommandResult.ERROR;
+		}
+
+		List<String> rows = new ArrayList<>();
+		boolean breakdown = false;
+		if (!args.isEmpty()) {
+			FactionAPI faction = CommandUtils.findBestFactionMatch(args);
+			if (faction == null) {
+				Console.showMessage("Error: no such faction '" + args + "'!");
+				return CommandResult.ERROR;
+			}
+			rows.add(faction.getId());
+			breakdown = true;
+		} else {
+			rows.addAll(matrix.getFactionIds());
+		}
+
+		for (String factionId1 : rows) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(factionId1).append(":");
+			boolean any = false;
+			for (String factionId2 : matrix.getFactionIds()) {
+				if (factionId1.equals(factionId2)) continue;
+				int factor = matrix.getFactor(factionId1, factionId2);
+				if (factor <= 0) continue;
+				any = true;
+				sb.append(String.format("\n  %s: %s", factionId2, factor));
+				if (breakdown) {
+					for (Map.Entry<String, Integer> tmp : matrix.getContributions(factionId1, factionId2).entrySet()) {
+						sb.append(String.format("\n    %s: %s", tmp.getKey(), tmp.getValue()));
+					}
+				}
+			}
+			if (!any) sb.append(" no competitors");
+			String str = sb.toString();
+			log.info(str);
+			Console.showMessage(str);
+		}
+
+		return CommandResult.SUCCESS;
+	}
+}
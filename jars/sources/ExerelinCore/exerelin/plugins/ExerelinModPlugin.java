@@ -41,13 +41,18 @@ import exerelin.campaign.*;
 import exerelin.campaign.ExerelinSetupData.HomeworldPickMode;
 import exerelin.campaign.ai.MilitaryInfoHelper;
 import exerelin.campaign.ai.StrategicAI;
+import exerelin.campaign.ai.StrategicAIScheduler;
 import exerelin.campaign.backgrounds.BaseCharacterBackground;
 import exerelin.campaign.backgrounds.CharacterBackgroundIntel;
 import exerelin.campaign.backgrounds.CharacterBackgroundLoader;
 import exerelin.campaign.backgrounds.CharacterBackgroundUtils;
 import exerelin.campaign.battle.EncounterLootHandler;
 import exerelin.campaign.battle.NexAutoresolveListener;
+import exerelin.campaign.colony.ColonyTargetIndex;
 import exerelin.campaign.colony.ColonyTargetValuator;
+import exerelin.campaign.diplomacy.DiplomacyDispositionUpdater;
+import exerelin.campaign.diplomacy.FactionStrengthLedger;
+import exerelin.campaign.diplomacy.RelationshipBoundsMatrix;
 import exerelin.campaign.econ.*;
 import exerelin.campaign.fleets.*;
 import exerelin.campaign.graphics.MiningCooldownDrawerV2;
@@ -63,6 +68,7 @@ import exerelin.campaign.intel.missions.remnant.RemnantLostScientist;
 import exerelin.campaign.intel.missions.remnant.RemnantQuestUtils;
 import exerelin.campaign.intel.rebellion.RebellionCreator;
 import exerelin.campaign.intel.specialforces.SpecialForcesManager;
+import exerelin.campaign.intel.specialforces.SpecialForcesPlanner;
 import exerelin.campaign.questskip.QuestChainSkipEntry;
 import exerelin.campaign.submarkets.PrismMarket;
 import exerelin.campaign.ui.FieldOptionsScreenScript;
@@ -444,6 +450,8 @@ public class ExerelinModPlugin extends BaseModPlugin
         PlayerInSystemTracker.create();
         MiscEventsManager.create();
         TransponderCheckBlockScript.create();
+        StrategicAIScheduler.createInstance(true);
+        DiplomacyDispositionUpdater.createInstance(true);
 
         if (!Misc.isPlayerFactionSetUp())
             sector.addTransientScript(new PlayerFactionSetupNag());
@@ -453,8 +461,16 @@ public class ExerelinModPlugin extends BaseModPlugin
         }
 
         if (!newGame) {
+            MarketIndex.createInstance(true);
+            HyperspaceIndex.createInstance(true);
+            ColonyTargetIndex.createInstance(true);
+            CovertTargetTable.createInstance(true);
+            FactionStrengthLedger.createInstance(true);
+            RelationshipBoundsMatrix.createInstance(true);
             EconomyInfoHelper.createInstance(true);
             MilitaryInfoHelper.createInstance(true);
+            ActiveIntelRegistry.createInstance(true);
+            SpecialForcesPlanner.createInstance(true);
         }
 
         GenericPluginManagerAPI plugins = sector.getGenericPlugins();
@@ -478,6 +494,8 @@ public class ExerelinModPlugin extends BaseModPlugin
         isNewGame = newGame;
         
         ScenarioManager.clearScenario();
+        InvasionFleetManager.clearStrengthCaches();
+        BattleCasualtyLedger.clear();
         
         addScriptsAndEventsIfNeeded();
         
@@ -585,6 +603,7 @@ public class ExerelinModPlugin extends BaseModPlugin
         MilitaryCustomBounty.CREATORS.add(new Nex_CBHegInspector());
 
         CharacterBackgroundLoader.load();
+        SpecCatalogue.createInstance(true);
 
         // fix Academy transport fleets in random sector
         for (MiscFleetCreatorPlugin creator : MiscFleetRouteManager.CREATORS) {
@@ -611,6 +630,7 @@ public class ExerelinModPlugin extends BaseModPlugin
         log.info("New game");
 
         isNewGame = true;
+        BattleCasualtyLedger.clear();
         //ExerelinSetupData.resetInstance();
         //ExerelinCheck.checkModCompatability();
         addScriptsAndEventsIfNeeded();
@@ -728,8 +748,16 @@ public class ExerelinModPlugin extends BaseModPlugin
         
         addBarEvents();
         // add an instance before onGameLoad is called, in case anything needs us during pregame
+        MarketIndex.createInstance(true);
+        HyperspaceIndex.createInstance(true);
+        ColonyTargetIndex.createInstance(true);
+        CovertTargetTable.createInstance(true);
+        FactionStrengthLedger.createInstance(true);
+        RelationshipBoundsMatrix.createInstance(true);
         EconomyInfoHelper.createInstance(true);
         MilitaryInfoHelper.createInstance(true);
+        ActiveIntelRegistry.createInstance(true);
+        SpecialForcesPlanner.createInstance(true);
 
         for (ModPluginEventListener x : Global.getSector().getListenerManager().getListeners(ModPluginEventListener.class))
         {
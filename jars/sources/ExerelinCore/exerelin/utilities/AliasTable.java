@@ -0,0 +1,81 @@
+package exerelin.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted random picker for a fixed set of items, using Vose's alias method: building it takes linear time,
+ * after which each pick takes constant time no matter how many items there are.
+ * <p>Unlike {@code WeightedRandomPicker}, items can't be added or removed after construction; it's meant for sets that are
+ * picked from (with replacement) many times, such as those built from the spec lists when the game loads.</p>
+ * @param <T>
+ */
+public class AliasTable<T> {
+
+	protected final List<T> items = new ArrayList<>();
+	protected final float[] prob;
+	protected final int[] alias;
+
+	/**
+	 * @param items
+	 * @param weights Same length as {@code items}. Items with weight of zero or less are left out.
+	 */
+	public AliasTable(List<T> items, float[] weights) {
+		List<Float> kept = new ArrayList<>();
+		double total = 0;
+		for (int i = 0; i < items.size(); i++) {
+			if (weights[i] <= 0) continue;
+			this.items.add(items.get(i));
+			kept.add(weights[i]);
+			total += weights[i];
+		}
+		int n = this.items.size();
+		prob = new float[n];
+		alias = new int[n];
+		if (n == 0) return;
+
+		double[] scaled = new double[n];
+		int[] small = new int[n], large = new int[n];
+		int numSmall = 0, numLarge = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = kept.get(i) * n / total;
+			if (scaled[i] < 1) small[numSmall++] = i;
+			else large[numLarge++] = i;
+		}
+		while (numSmall > 0 && numLarge > 0) {
+			int less = small[--numSmall], more = large[--numLarge];
+			prob[less] = (float)scaled[less];
+			alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1) small[numSmall++] = more;
+			else large[numLarge++] = more;
+		}
+		// whatever is left over is (within rounding error) exactly 1
+		while (numLarge > 0) prob[large[--numLarge]] = 1;
+		while (numSmall > 0) prob[small[--numSmall]] = 1;
+	}
+
+	public int size() {
+		return items.size();
+	}
+
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	public List<T> getItems() {
+		return new ArrayList<>(items);
+	}
+
+	/**
+	 * @param random
+	 * @return A random item, with chance proportional to its weight, or null if the table is empty.
+	 */
+	public T pick(Random random) {
+		if (items.isEmpty()) return null;
+		int i = random.nextInt(items.size());
+		if (random.nextFloat() < prob[i]) return items.get(i);
+		return items.get(alias[i]);
+	}
+}
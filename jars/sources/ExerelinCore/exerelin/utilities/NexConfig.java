@@ -10,7 +10,10 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import static exerelin.utilities.NexUtils.JSONArrayToStringArray;
 
@@ -21,6 +24,8 @@ public class NexConfig
     
     public static Logger log = Global.getLogger(NexConfig.class);
     public static List<NexFactionConfig> exerelinFactionConfigs;
+    // faction ID (lowercased) -> config, for getFactionConfig
+    protected static final Map<String, NexFactionConfig> factionConfigsById = new HashMap<>();
     public static NexFactionConfig defaultConfig;
    
     // System Generation settings
@@ -156,6 +161,7 @@ public class NexConfig
     public static boolean queuedNexMissions = false;
     public static boolean enableStrategicAI = true;
     public static boolean showStrategicAI = true;
+    public static float strategicAIFrameBudgetMs = 2;
 	public static boolean enableVictory = true;
     
     public static float baseTariffMult = 0.6f;
@@ -327,6 +333,7 @@ public class NexConfig
             queuedNexMissions = settings.optBoolean("queuedNexMissions", queuedNexMissions);
             enableStrategicAI = settings.optBoolean("enableStrategicAI", enableStrategicAI);
             showStrategicAI = settings.optBoolean("showStrategicAI", showStrategicAI);
+            strategicAIFrameBudgetMs = (float) settings.optDouble("strategicAIFrameBudgetMs", strategicAIFrameBudgetMs);
             enableVictory = settings.optBoolean("enableVictory", enableVictory);
             buyShipBasePriceMult = (float) settings.optDouble("buyShipBasePriceMult", buyShipBasePriceMult);
             
@@ -343,6 +350,7 @@ public class NexConfig
         if(NexConfig.exerelinFactionConfigs != null)
             NexConfig.exerelinFactionConfigs.clear();
         NexConfig.exerelinFactionConfigs = new ArrayList<>();
+        factionConfigsById.clear();
 
         for(String factionId : builtInFactions) {
             NexFactionConfig conf = new NexFactionConfig(factionId);
@@ -357,6 +365,12 @@ public class NexConfig
             if (NexUtilsFaction.doesFactionExist(factionId))
                 NexConfig.exerelinFactionConfigs.add(new NexFactionConfig(factionId));
         }
+        
+        for (NexFactionConfig conf : exerelinFactionConfigs) {
+            String key = conf.factionId.toLowerCase(Locale.ROOT);
+            if (!factionConfigsById.containsKey(key))    // first one wins, same as the old linear search
+                factionConfigsById.put(key, conf);
+        }
     }
 	
 	static {
@@ -387,10 +401,11 @@ public class NexConfig
 	
 	public static NexFactionConfig getFactionConfig(String factionId, boolean useDefault)
     {
-        for(NexFactionConfig exerelinFactionConfig : exerelinFactionConfigs)
-        {
-            if (exerelinFactionConfig.factionId.equalsIgnoreCase(factionId))
-                return exerelinFactionConfig;
+        if (factionId != null) {
+            // IDs are nearly always lowercase already, so try that before allocating a lowercased copy
+            NexFactionConfig conf = factionConfigsById.get(factionId);
+            if (conf == null) conf = factionConfigsById.get(factionId.toLowerCase(Locale.ROOT));
+            if (conf != null) return conf;
         }
 		if (useDefault)
 		{
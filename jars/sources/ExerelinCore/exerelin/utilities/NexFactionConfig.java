@@ -23,6 +23,7 @@ import exerelin.ExerelinConstants;
 import exerelin.campaign.DiplomacyManager;
 import exerelin.campaign.alliances.Alliance;
 import exerelin.campaign.alliances.Alliance.Alignment;
+import exerelin.campaign.diplomacy.RelationshipBoundsMatrix;
 import org.apache.log4j.Logger;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -558,6 +559,18 @@ public class NexFactionConfig
     
     //runcode exerelin.utilities.NexFactionConfig.getMaxRelationship("hegemony", "al_ars")
     public static float getMaxRelationship(String factionId1, String factionId2)
+    {
+        if (factionId1 == null || factionId2 == null) return 1;
+        return RelationshipBoundsMatrix.getInstance().getMaxRelationship(factionId1, factionId2);
+    }
+    
+    /**
+     * Computes the max relationship from the faction configs, bypassing {@code RelationshipBoundsMatrix}.
+     * @param factionId1
+     * @param factionId2
+     * @return
+     */
+    public static float computeMaxRelationship(String factionId1, String factionId2)
     {
         if (!DiplomacyManager.getManager().getStartRelationsMode().isDefault())
             return 1;
@@ -580,6 +593,11 @@ public class NexFactionConfig
     }
     
     public static float getMinRelationship(String factionId1, String factionId2)
+    {
+        return RelationshipBoundsMatrix.getInstance().getMinRelationship(factionId1, factionId2);
+    }
+    
+    public static float computeMinRelationship(String factionId1, String factionId2)
     {
         if (!NexConfig.useRelationshipBounds) return -1;
         float min1 = NexConfig.getFactionConfig(factionId1).getMinRelationship(factionId2);
@@ -634,6 +652,11 @@ public class NexFactionConfig
     }
     
     public static float getDiplomacyPositiveChance(String factionId1, String factionId2)
+    {
+        return RelationshipBoundsMatrix.getInstance().getDiplomacyPositiveChance(factionId1, factionId2);
+    }
+    
+    public static float computeDiplomacyPositiveChance(String factionId1, String factionId2)
     {
         float chance1mod = NexConfig.getFactionConfig(factionId1).getDiplomacyPositiveChance(factionId2) - 1;
         float chance2mod = NexConfig.getFactionConfig(factionId2).getDiplomacyPositiveChance(factionId1) - 1;
@@ -644,6 +667,11 @@ public class NexFactionConfig
     }
     
     public static float getDiplomacyNegativeChance(String factionId1, String factionId2)
+    {
+        return RelationshipBoundsMatrix.getInstance().getDiplomacyNegativeChance(factionId1, factionId2);
+    }
+    
+    public static float computeDiplomacyNegativeChance(String factionId1, String factionId2)
     {
         float chance1mod = NexConfig.getFactionConfig(factionId1).getDiplomacyNegativeChance(factionId2) - 1;
         float chance2mod = NexConfig.getFactionConfig(factionId2).getDiplomacyNegativeChance(factionId1) - 1;
@@ -665,13 +693,18 @@ public class NexFactionConfig
     
     // runcode $print(exerelin.utilities.NexFactionConfig.canCeasefire("hegemony", "al_ars"))
     public static boolean canCeasefire(String factionId1, String factionId2)
+    {
+        return RelationshipBoundsMatrix.getInstance().canCeasefire(factionId1, factionId2);
+    }
+    
+    public static boolean computeCanCeasefire(String factionId1, String factionId2)
     {
         // remove relationship bound clamp if both sides have random relations
         // moved the check to DiplomacyManager's getMaxRelationship
         //if (DiplomacyManager.haveRandomRelationships(factionId1, factionId2)) return true;
         
         if (DiplomacyManager.getManager().getMaxRelationship(factionId1, factionId2) <= -0.5) return false;
-        if (getDiplomacyPositiveChance(factionId1, factionId2) <= 0) return false;
+        if (computeDiplomacyPositiveChance(factionId1, factionId2) <= 0) return false;
         return true;
     }
     
@@ -33,6 +33,9 @@ import java.util.*;
 @SuppressWarnings("unchecked")
 public class NexUtils
 {	
+	protected static final Map<List<Object>, ScriptEvaluator> compiledScripts = new HashMap<>();
+	protected static final Map<List<Object>, Exception> failedScripts = new HashMap<>();
+	
 	public static long getStartingSeed()
 	{
 		String seedStr = Global.getSector().getSeedString().replaceAll("[^0-9]", "");
@@ -481,17 +484,30 @@ public class NexUtils
 	}
 
 	public static Object runCode(String input, @Nullable String[] paramNames, @Nullable Class<?> returnType, Object... params) throws Exception {
-		ScriptEvaluator eval = new ScriptEvaluator();
-		if (returnType == null) eval.setReturnType(void.class);
-		else eval.setReturnType(returnType);
+		return runCodeFrom(null, input, paramNames, returnType, params);
+	}
 
-		eval.setParentClassLoader(Global.getSettings().getScriptClassLoader());
+	/**
+	 * Compiles (or gets from the cache) and runs a Janino script.
+	 * <p>Compiled scripts are cached for the rest of the session, keyed by the source text, return type and parameter names and types,
+	 * so e.g. starting several new games doesn't compile the same snippets again. Scripts that fail to compile are cached too;
+	 * the error is logged the first time only, and the same exception is thrown on every call.</p>
+	 * @param origin Where the script came from (e.g. a class or file name), for the compile error log. May be null.
+	 * @param input
+	 * @param paramNames
+	 * @param returnType
+	 * @param params
+	 * @return
+	 * @throws Exception
+	 */
+	public static Object runCodeFrom(@Nullable String origin, String input, @Nullable String[] paramNames,
+									 @Nullable Class<?> returnType, Object... params) throws Exception {
+		Class<?>[] paramTypes = null;
 		if (paramNames != null) {
-			Class<?>[] paramTypes = new Class<?>[params.length];
+			paramTypes = new Class<?>[params.length];
 			for (int i=0; i<params.length; i++) {
 				paramTypes[i] = params[i].getClass();
 			}
-			eval.setParameters(paramNames, paramTypes);
 		}
 
 		if (!input.endsWith(";"))
@@ -499,10 +515,41 @@ public class NexUtils
 			input += ";";
 		}
 
-		eval.cook(input);
+		List<Object> key = Arrays.asList(input, returnType, paramNames != null ? Arrays.asList(paramNames) : null,
+				paramTypes != null ? Arrays.asList(paramTypes) : null);
+		ScriptEvaluator eval = compiledScripts.get(key);
+		if (eval == null) {
+			Exception failure = failedScripts.get(key);
+			if (failure != null) throw failure;
+
+			eval = new ScriptEvaluator();
+			if (returnType == null) eval.setReturnType(void.class);
+			else eval.setReturnType(returnType);
+
+			eval.setParentClassLoader(Global.getSettings().getScriptClassLoader());
+			if (paramNames != null) {
+				eval.setParameters(paramNames, paramTypes);
+			}
+			try {
+				eval.cook(input);
+			} catch (Exception ex) {
+				Global.getLogger(NexUtils.class).error("Failed to compile script from " + origin + ": " + input, ex);
+				failedScripts.put(key, ex);
+				throw ex;
+			}
+			compiledScripts.put(key, eval);
+		}
 		return eval.evaluate(params);
 	}
 
+	/**
+	 * Empties the compiled script cache used by {@link #runCodeFrom}.
+	 */
+	public static void clearCompiledScripts() {
+		compiledScripts.clear();
+		failedScripts.clear();
+	}
+
 	public static class PairWithIntegerComparator implements Comparator<Pair<?, Integer>> {
 
 		public boolean descending;
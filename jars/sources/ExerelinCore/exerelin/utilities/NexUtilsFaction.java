@@ -12,6 +12,7 @@ import com.fs.starfarer.api.impl.campaign.intel.FactionCommissionIntel;
 import com.fs.starfarer.api.ui.TooltipMakerAPI;
 import com.fs.starfarer.api.util.Misc;
 import exerelin.campaign.SectorManager;
+import exerelin.campaign.econ.MarketIndex;
 import exerelin.campaign.intel.Nex_FactionCommissionIntel;
 
 import java.awt.*;
@@ -81,28 +82,24 @@ public class NexUtilsFaction {
     
     public static List<MarketAPI> getFactionMarkets(String factionId, boolean onlyInvadable)
     {
-        List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
         List<MarketAPI> ret = new ArrayList<>();
-        for (MarketAPI market : allMarkets)
+        for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(factionId))
         {
             if (onlyInvadable && !NexUtilsMarket.canBeInvaded(market, false))
                 continue;
-            if (market.getFactionId().equals(factionId))
-                ret.add(market);
+            ret.add(market);
         }
         return ret;
     }
 
     public static List<MarketAPI> getPlayerMarkets(boolean includeAutonomous, boolean includeHidden)
     {
-        List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
         List<MarketAPI> ret = new ArrayList<>();
-        for (MarketAPI market : allMarkets)
+        for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(Factions.PLAYER))
         {
             if (!includeHidden && market.isHidden()) continue;
             if (!includeAutonomous && !market.isPlayerOwned()) continue;
-            if (market.getFactionId().equals(Factions.PLAYER))
-                ret.add(market);
+            ret.add(market);
         }
         return ret;
     }
@@ -110,7 +107,7 @@ public class NexUtilsFaction {
     
     public static Set<LocationAPI> getLocationsWithFactionPresence(String factionId) {
         Set<LocationAPI> results = new HashSet<>();
-        for (MarketAPI market : getFactionMarkets(factionId)) {
+        for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(factionId)) {
             results.add(market.getContainingLocation());
         }
         return results;
@@ -123,11 +120,10 @@ public class NexUtilsFaction {
 
     public static boolean hasAnyMarkets(String factionId, boolean noHidden)
     {
-        List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
-        for (MarketAPI market : allMarkets)
+        if (!noHidden) return MarketIndex.getInstance().hasAnyMarkets(factionId);
+        for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(factionId))
         {
-            if (noHidden && market.isHidden()) continue;
-            if (market.getFactionId().equals(factionId))
+            if (!market.isHidden())
                 return true;
         }
         return false;
@@ -146,16 +142,12 @@ public class NexUtilsFaction {
      */
     public static int getFactionMarketSizeSum(String factionId, boolean onlyInvadable)
     {
-        List<MarketAPI> allMarkets = Global.getSector().getEconomy().getMarketsCopy();
         int pop = 0;
-        for (MarketAPI market : allMarkets)
+        for (MarketAPI market : MarketIndex.getInstance().getFactionMarkets(factionId))
         {
-            if (market.getFactionId().equals(factionId))
-            {
-                if (onlyInvadable && !NexUtilsMarket.canBeInvaded(market, false))
-                    continue;
-                pop += market.getSize();
-            }
+            if (onlyInvadable && !NexUtilsMarket.canBeInvaded(market, false))
+                continue;
+            pop += market.getSize();
         }
         return pop;
     }
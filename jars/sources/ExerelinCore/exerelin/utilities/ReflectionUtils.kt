@@ -6,6 +6,7 @@ import java.lang.invoke.MethodHandles
 import java.lang.invoke.MethodType
 import java.net.URL
 import java.net.URLClassLoader
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.reflect.jvm.internal.impl.load.java.structure.JavaClass
 
 // by Lukas22041 from Random Assortment of Things (RAT)
@@ -22,25 +23,93 @@ object ReflectionUtils {
     private val getMethodNameHandle = MethodHandles.lookup().findVirtual(methodClass, "getName", MethodType.methodType(String::class.java))
     private val invokeMethodHandle = MethodHandles.lookup().findVirtual(methodClass, "invoke", MethodType.methodType(Any::class.java, Any::class.java, Array<Any>::class.java))
 
-    @JvmStatic fun set(fieldName: String, instanceToModify: Any, newValue: Any?)
-    {
-        var field: Any? = null
-        try {  field = instanceToModify.javaClass.getField(fieldName) } catch (e: Throwable) {
-            try {  field = instanceToModify.javaClass.getDeclaredField(fieldName) } catch (e: Throwable) { }
+    private val unreflectGetterHandle = MethodHandles.lookup().findVirtual(MethodHandles.Lookup::class.java, "unreflectGetter", MethodType.methodType(MethodHandle::class.java, fieldClass))
+    private val unreflectSetterHandle = MethodHandles.lookup().findVirtual(MethodHandles.Lookup::class.java, "unreflectSetter", MethodType.methodType(MethodHandle::class.java, fieldClass))
+    private val genericGetterType = MethodType.methodType(Any::class.java, Any::class.java)
+    private val genericSetterType = MethodType.methodType(Void.TYPE, Any::class.java, Any::class.java)
+
+    // Field and method lookups are cached per class, since some callers (e.g. BattleForceJoinHelper) run every frame.
+    // Lookups that found nothing are cached as MISSING.
+    private val MISSING = Any()
+    private const val PUBLIC_ONLY = 0
+    private const val DECLARED_ONLY = 1
+    private const val PUBLIC_OR_DECLARED = 2
+
+    private class MemberCache : ClassValue<ConcurrentHashMap<String, Any>>() {
+        override fun computeValue(type: Class<*>): ConcurrentHashMap<String, Any> = ConcurrentHashMap()
+    }
+    private val fieldCache = MemberCache()
+    private val hierarchyFieldCache = MemberCache()
+    private val methodCache = MemberCache()
+
+    private class FieldAccessor(val getter: MethodHandle, val setter: MethodHandle)
+
+    private fun findField(clazz: Class<*>, fieldName: String) : Any? {
+        try { return clazz.getField(fieldName) } catch (e: Throwable) { }
+        try { return clazz.getDeclaredField(fieldName) } catch (e: Throwable) { }
+        return null
+    }
+
+    /**
+     * Gets (and caches) handles for reading and writing the field, which are about as fast as accessing it directly.
+     * Falls back to going through the reflected field where no such handle can be made (e.g. static or final fields).
+     */
+    private fun getAccessor(clazz: Class<*>, fieldName: String, includeSuperclasses: Boolean) : FieldAccessor? {
+        val cache = (if (includeSuperclasses) hierarchyFieldCache else fieldCache).get(clazz)
+        var accessor = cache[fieldName]
+        if (accessor == null) {
+            var field: Any? = null
+            var current: Class<*>? = clazz
+            while (field == null && current != null) {
+                field = findField(current, fieldName)
+                current = if (includeSuperclasses) current.superclass else null
+            }
+            if (field == null) accessor = MISSING
+            else {
+                setFieldAccessibleHandle.invoke(field, true)
+                val lookup = MethodHandles.lookup()
+                val getter = try { (unreflectGetterHandle.invoke(lookup, field) as MethodHandle).asType(genericGetterType) }
+                    catch (e: Throwable) { getFieldHandle.bindTo(field) }
+                val setter = try { (unreflectSetterHandle.invoke(lookup, field) as MethodHandle).asType(genericSetterType) }
+                    catch (e: Throwable) { setFieldHandle.bindTo(field) }
+                accessor = FieldAccessor(getter, setter)
+            }
+            cache[fieldName] = accessor
         }
+        return accessor as? FieldAccessor
+    }
 
-        setFieldAccessibleHandle.invoke(field, true)
-        setFieldHandle.invoke(field, instanceToModify, newValue)
+    private fun getParamTypes(arguments: Array<out Any?>) : Array<Class<*>> {
+        return arguments.map<Any?, Class<*>> { it!!::class.javaPrimitiveType ?: it::class.java }.toTypedArray()
     }
 
-    @JvmStatic fun get(fieldName: String, instanceToGetFrom: Any): Any? {
-        var field: Any? = null
-        try {  field = instanceToGetFrom.javaClass.getField(fieldName) } catch (e: Throwable) {
-            try {  field = instanceToGetFrom.javaClass.getDeclaredField(fieldName) } catch (e: Throwable) { }
+    private fun findMethod(clazz: Class<*>, methodName: String, paramTypes: Array<Class<*>>, mode: Int, includeSuperclasses: Boolean) : Any? {
+        val cache = methodCache.get(clazz)
+        val key = "$mode $includeSuperclasses $methodName(${paramTypes.joinToString(",") { it.name }})"
+        var method = cache[key]
+        if (method == null) {
+            var found: Any? = null
+            var current: Class<*>? = clazz
+            while (found == null && current != null) {
+                if (mode != DECLARED_ONLY) try { found = current.getMethod(methodName, *paramTypes) } catch (e: Throwable) { }
+                if (found == null && mode != PUBLIC_ONLY) try { found = current.getDeclaredMethod(methodName, *paramTypes) } catch (e: Throwable) { }
+                current = if (includeSuperclasses) current.superclass else null
+            }
+            method = found ?: MISSING
+            cache[key] = method
         }
+        return if (method === MISSING) null else method
+    }
 
-        setFieldAccessibleHandle.invoke(field, true)
-        return getFieldHandle.invoke(field, instanceToGetFrom)
+    @JvmStatic fun set(fieldName: String, instanceToModify: Any, newValue: Any?)
+    {
+        val accessor = getAccessor(instanceToModify.javaClass, fieldName, false) ?: throw NoSuchFieldException(fieldName)
+        accessor.setter.invoke(instanceToModify, newValue)
+    }
+
+    @JvmStatic fun get(fieldName: String, instanceToGetFrom: Any): Any? {
+        val accessor = getAccessor(instanceToGetFrom.javaClass, fieldName, false) ?: throw NoSuchFieldException(fieldName)
+        return accessor.getter.invoke(instanceToGetFrom)
     }
 
 
@@ -48,17 +117,8 @@ object ReflectionUtils {
                                             instanceToGetFrom: Any,
                                             clazz: Class<T>): Any?
     {
-        var field: Any? = null
-        try {  field = clazz!!.getField(fieldName) } catch (e: Throwable) {
-            try {  field = clazz!!.getDeclaredField(fieldName) } catch (e: Throwable) {}
-        }
-        if (field == null) {
-            if (clazz!!.superclass == null) return null;
-            return getIncludingSuperclasses(fieldName, instanceToGetFrom, clazz!!.superclass)
-        }
-
-        setFieldAccessibleHandle.invoke(field, true)
-        return getFieldHandle.invoke(field, instanceToGetFrom)
+        val accessor = getAccessor(clazz, fieldName, true) ?: return null
+        return accessor.getter.invoke(instanceToGetFrom)
     }
 
     @JvmStatic fun hasMethodOfName(name: String, instance: Any, contains: Boolean = false) : Boolean {
@@ -91,69 +151,28 @@ object ReflectionUtils {
 
     @JvmStatic fun invoke(methodName: String, instance: Any, vararg arguments: Any?, declared: Boolean = false) : Any?
     {
-        var method: Any? = null
-
-        val clazz = instance.javaClass
-        val args = arguments.map { it!!::class.javaPrimitiveType ?: it::class.java }
-        val methodType = MethodType.methodType(Void.TYPE, args)
-
-        if (!declared) {
-            method = clazz.getMethod(methodName, *methodType.parameterArray())
-        }
-        else  {
-            method = clazz.getDeclaredMethod(methodName, *methodType.parameterArray())
-        }
+        val method = findMethod(instance.javaClass, methodName, getParamTypes(arguments),
+                if (declared) DECLARED_ONLY else PUBLIC_ONLY, false) ?: throw NoSuchMethodException(methodName)
 
         return invokeMethodHandle.invoke(method, instance, arguments)
     }
 
     @JvmStatic fun <T> invokeIncludingSuperclasses(methodName: String, instance: Any, clazz: Class<T>, vararg arguments: Any?, declared: Boolean = false) : Any?
     {
-        var method: Any? = null
-
-        val args = arguments.map { it!!::class.javaPrimitiveType ?: it::class.java }
-        val methodType = MethodType.methodType(Void.TYPE, args)
-
-        try {
-            if (!declared) {
-                method = clazz.getMethod(methodName, *methodType.parameterArray())
-            } else {
-                method = clazz.getDeclaredMethod(methodName, *methodType.parameterArray())
-            }
-        } catch (ex: NoSuchMethodException) {}
-
-        if (method == null) {
-            if (clazz!!.superclass == null) return null;
-            return invokeIncludingSuperclasses(methodName, instance, clazz!!.superclass, arguments, declared)
-        }
+        val method = findMethod(clazz, methodName, getParamTypes(arguments),
+                if (declared) DECLARED_ONLY else PUBLIC_ONLY, true) ?: return null
 
         return invokeMethodHandle.invoke(method, instance, arguments)
     }
 
     @JvmStatic fun getField(fieldName: String, instanceToGetFrom: Any) : ReflectedField? {
-        var field: Any? = null
-        try {  field = instanceToGetFrom.javaClass.getField(fieldName) } catch (e: Throwable) {
-            try {  field = instanceToGetFrom.javaClass.getDeclaredField(fieldName) } catch (e: Throwable) { }
-        }
-
-        if (field == null) return null
+        val field = findField(instanceToGetFrom.javaClass, fieldName) ?: return null
 
         return ReflectedField(field)
     }
 
     @JvmStatic fun getMethod(methodName: String, instance: Any, vararg arguments: Any?) : ReflectedMethod? {
-        var method: Any? = null
-
-        val clazz = instance.javaClass
-        val args = arguments.map { it!!::class.javaPrimitiveType ?: it::class.java }
-        val methodType = MethodType.methodType(Void.TYPE, args)
-
-        try { method = clazz.getMethod(methodName, *methodType.parameterArray())  }
-        catch (e: Throwable) {
-            try {  method = clazz.getDeclaredMethod(methodName, *methodType.parameterArray()) } catch (e: Throwable) { }
-        }
-
-        if (method == null) return null
+        val method = findMethod(instance.javaClass, methodName, getParamTypes(arguments), PUBLIC_OR_DECLARED, false) ?: return null
         return ReflectedMethod(method)
     }
 
@@ -0,0 +1,280 @@
+package exerelin.utilities;
+
+import com.fs.starfarer.api.Global;
+import com.fs.starfarer.api.combat.ShipAPI.HullSize;
+import com.fs.starfarer.api.combat.ShipHullSpecAPI;
+import com.fs.starfarer.api.combat.WeaponAPI.WeaponSize;
+import com.fs.starfarer.api.loading.FighterWingSpecAPI;
+import com.fs.starfarer.api.loading.WeaponSpecAPI;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Index of all hull, fighter wing and weapon specs by tag, hull/weapon size and tier, so code that wants e.g.
+ * "every rare blueprint not known to the player" doesn't have to go through every spec in the game.
+ * <p>Built once when the application loads. Queries return {@link BitSet}s over each spec list, which callers can combine
+ * with each other and with the sets from {@link SpecIndex#getIndices} (e.g. for known or restricted blueprints);
+ * iterating the resulting set gives specs in the same order as the {@code SettingsAPI.getAll...Specs} lists.</p>
+ */
+public class SpecCatalogue {
+
+	public static Logger log = Global.getLogger(SpecCatalogue.class);
+
+	protected static SpecCatalogue currInstance;
+
+	public final SpecIndex<ShipHullSpecAPI> hulls;
+	public final SpecIndex<FighterWingSpecAPI> wings;
+	public final SpecIndex<WeaponSpecAPI> weapons;
+
+	protected final Map<HullSize, BitSet> hullsBySize = new HashMap<>();
+	protected final Map<Integer, BitSet> wingsByTier = new HashMap<>();
+	protected final Map<Integer, BitSet> weaponsByTier = new HashMap<>();
+	protected final Map<WeaponSize, BitSet> weaponsBySize = new HashMap<>();
+
+	// runcode exerelin.utilities.SpecCatalogue.createInstance(true)
+	/**
+	 * Creates and stores an instance of the catalogue. Should be called in {@code onApplicationLoad}.
+	 * @param replace Replaces the existing instance of the catalogue if true (e.g. if specs have been retagged since).
+	 * @return
+	 */
+	public static SpecCatalogue createInstance(boolean replace) {
+		if (currInstance != null && !replace) return currInstance;
+		currInstance = new SpecCatalogue();
+		return currInstance;
+	}
+
+	public static SpecCatalogue getInstance() {
+		return getInstance(true);
+	}
+
+	public static SpecCatalogue getInstance(boolean createIfNeeded) {
+		if (currInstance == null && createIfNeeded) return createInstance(false);
+		return currInstance;
+	}
+
+	protected SpecCatalogue() {
+		hulls = new SpecIndex<ShipHullSpecAPI>(Global.getSettings().getAllShipHullSpecs()) {
+			@Override
+			public String getId(ShipHullSpecAPI spec) {
+				return spec.getHullId();
+			}
+
+			@Override
+			public Collection<String> getTags(ShipHullSpecAPI spec) {
+				return spec.getTags();
+			}
+
+			@Override
+			public float getRarity(ShipHullSpecAPI spec) {
+				return spec.getRarity();
+			}
+		};
+		wings = new SpecIndex<FighterWingSpecAPI>(Global.getSettings().getAllFighterWingSpecs()) {
+			@Override
+			public String getId(FighterWingSpecAPI spec) {
+				return spec.getId();
+			}
+
+			@Override
+			public Collection<String> getTags(FighterWingSpecAPI spec) {
+				return spec.getTags();
+			}
+
+			@Override
+			public float getRarity(FighterWingSpecAPI spec) {
+				return spec.getRarity();
+			}
+		};
+		weapons = new SpecIndex<WeaponSpecAPI>(Global.getSettings().getAllWeaponSpecs()) {
+			@Override
+			public String getId(WeaponSpecAPI spec) {
+				return spec.getWeaponId();
+			}
+
+			@Override
+			public Collection<String> getTags(WeaponSpecAPI spec) {
+				return spec.getTags();
+			}
+
+			@Override
+			public float getRarity(WeaponSpecAPI spec) {
+				return spec.getRarity();
+			}
+		};
+
+		for (int i = 0; i < hulls.size(); i++) {
+			addToIndex(hullsBySize, hulls.get(i).getHullSize(), i);
+		}
+		for (int i = 0; i < wings.size(); i++) {
+			addToIndex(wingsByTier, wings.get(i).getTier(), i);
+		}
+		for (int i = 0; i < weapons.size(); i++) {
+			WeaponSpecAPI spec = weapons.get(i);
+			addToIndex(weaponsByTier, spec.getTier(), i);
+			addToIndex(weaponsBySize, spec.getSize(), i);
+		}
+		log.info(String.format("Cataloged %s hulls, %s wings, %s weapons", hulls.size(), wings.size(), weapons.size()));
+	}
+
+	protected static <K> void addToIndex(Map<K, BitSet> index, K key, int i) {
+		BitSet set = index.get(key);
+		if (set == null) {
+			set = new BitSet();
+			index.put(key, set);
+		}
+		set.set(i);
+	}
+
+	protected static <K> BitSet getFromIndex(Map<K, BitSet> index, K key) {
+		BitSet set = index.get(key);
+		return set != null ? (BitSet)set.clone() : new BitSet();
+	}
+
+	protected static BitSet getTierRange(Map<Integer, BitSet> index, int minTier, int maxTier) {
+		BitSet result = new BitSet();
+		for (Map.Entry<Integer, BitSet> tmp : index.entrySet()) {
+			int tier = tmp.getKey();
+			if (tier >= minTier && tier <= maxTier) result.or(tmp.getValue());
+		}
+		return result;
+	}
+
+	public BitSet getHullsOfSize(HullSize size) {
+		return getFromIndex(hullsBySize, size);
+	}
+
+	/**
+	 * @param minTier
+	 * @param maxTier
+	 * @return Wings of tier {@code minTier} to {@code maxTier} inclusive.
+	 */
+	public BitSet getWingsOfTier(int minTier, int maxTier) {
+		return getTierRange(wingsByTier, minTier, maxTier);
+	}
+
+	/**
+	 * @param minTier
+	 * @param maxTier
+	 * @return Weapons of tier {@code minTier} to {@code maxTier} inclusive.
+	 */
+	public BitSet getWeaponsOfTier(int minTier, int maxTier) {
+		return getTierRange(weaponsByTier, minTier, maxTier);
+	}
+
+	public BitSet getWeaponsOfSize(WeaponSize size) {
+		return getFromIndex(weaponsBySize, size);
+	}
+
+	/**
+	 * One spec type's list of specs, with lookups by ID and tag.
+	 * @param <T>
+	 */
+	public abstract static class SpecIndex<T> {
+		protected final List<T> specs;
+		protected final float[] rarity;
+		protected final Map<String, Integer> indexById = new HashMap<>();
+		protected final Map<String, BitSet> byTag = new HashMap<>();
+
+		public SpecIndex(List<T> specs) {
+			this.specs = new ArrayList<>(specs);
+			rarity = new float[this.specs.size()];
+			for (int i = 0; i < this.specs.size(); i++) {
+				T spec = this.specs.get(i);
+				indexById.put(getId(spec), i);
+				rarity[i] = getRarity(spec);
+				for (String tag : getTags(spec)) {
+					addToIndex(byTag, tag, i);
+				}
+			}
+		}
+
+		public abstract String getId(T spec);
+		public abstract Collection<String> getTags(T spec);
+		public abstract float getRarity(T spec);
+
+		public int size() {
+			return specs.size();
+		}
+
+		public T get(int index) {
+			return specs.get(index);
+		}
+
+		public float getRarity(int index) {
+			return rarity[index];
+		}
+
+		/**
+		 * @param id
+		 * @return The spec's position in the list, or -1 if there's no spec with that ID.
+		 */
+		public int indexOf(String id) {
+			Integer index = indexById.get(id);
+			return index != null ? index : -1;
+		}
+
+		/**
+		 * @param tag
+		 * @return A new set of the specs with the tag; the caller can modify it.
+		 */
+		public BitSet getWithTag(String tag) {
+			return getFromIndex(byTag, tag);
+		}
+
+		/**
+		 * @param tags
+		 * @return A new set of the specs with any of the tags.
+		 */
+		public BitSet getWithAnyTag(String... tags) {
+			BitSet result = new BitSet();
+			for (String tag : tags) {
+				BitSet set = byTag.get(tag);
+				if (set != null) result.or(set);
+			}
+			return result;
+		}
+
+		/**
+		 * For turning ID collections (such as a faction's known ships or a blacklist) into sets that can be
+		 * {@code andNot}'d from query results. IDs with no matching spec are ignored.
+		 * @param ids
+		 * @return
+		 */
+		public BitSet getIndices(Collection<String> ids) {
+			BitSet result = new BitSet();
+			for (String id : ids) {
+				Integer index = indexById.get(id);
+				if (index != null) result.set(index);
+			}
+			return result;
+		}
+
+		/**
+		 * @param set
+		 * @return The specs in the set, in list order.
+		 */
+		public List<T> getSpecs(BitSet set) {
+			List<T> results = new ArrayList<>(set.cardinality());
+			for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+				results.add(specs.get(i));
+			}
+			return results;
+		}
+
+		/**
+		 * @param set
+		 * @param rarityMult Multiplier for each spec's rarity to get its weight.
+		 * @return An alias table for picking specs from the set, weighted by rarity.
+		 */
+		public AliasTable<T> getAliasTable(BitSet set, float rarityMult) {
+			List<T> members = new ArrayList<>(set.cardinality());
+			float[] weights = new float[set.cardinality()];
+			for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+				weights[members.size()] = rarity[i] * rarityMult;
+				members.add(specs.get(i));
+			}
+			return new AliasTable<>(members, weights);
+		}
+	}
+}
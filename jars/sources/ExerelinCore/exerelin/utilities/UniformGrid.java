@@ -0,0 +1,196 @@
+package exerelin.utilities;
+
+import java.util.*;
+
+/**
+ * Buckets items by position into square cells of a fixed size, for radius and nearest-neighbour queries
+ * that don't have to check every item.
+ * <p>Items don't move; if they do, {@code clear} the grid and add them again.
+ * Every entry remembers the order it was added in, so callers can get results in a stable order.</p>
+ * @param <T>
+ */
+public class UniformGrid<T> {
+
+	protected final float cellSize;
+	protected final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+	protected int size;
+	protected int minCellX = Integer.MAX_VALUE, minCellY = Integer.MAX_VALUE;
+	protected int maxCellX = Integer.MIN_VALUE, maxCellY = Integer.MIN_VALUE;
+
+	public UniformGrid(float cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	protected int getCell(float coord) {
+		return (int)Math.floor(coord / cellSize);
+	}
+
+	protected static long getKey(int cellX, int cellY) {
+		return ((long)cellX << 32) | (cellY & 0xffffffffL);
+	}
+
+	public void add(T item, float x, float y) {
+		int cellX = getCell(x), cellY = getCell(y);
+		long key = getKey(cellX, cellY);
+		List<Entry<T>> cell = cells.get(key);
+		if (cell == null) {
+			cell = new ArrayList<>();
+			cells.put(key, cell);
+		}
+		cell.add(new Entry<>(item, x, y, size++));
+		minCellX = Math.min(minCellX, cellX);
+		minCellY = Math.min(minCellY, cellY);
+		maxCellX = Math.max(maxCellX, cellX);
+		maxCellY = Math.max(maxCellY, cellY);
+	}
+
+	public void clear() {
+		cells.clear();
+		size = 0;
+		minCellX = minCellY = Integer.MAX_VALUE;
+		maxCellX = maxCellY = Integer.MIN_VALUE;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Gets all items no further than {@code radius} from the point.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param filter Only items it accepts are returned. May be null.
+	 * @return The matching entries, in the order they were added.
+	 */
+	public List<Entry<T>> getWithinRadius(float x, float y, float radius, Filter<T> filter) {
+		List<Entry<T>> results = new ArrayList<>();
+		if (size == 0 || radius < 0) return results;
+		float radiusSq = radius * radius;
+		int fromX = Math.max(getCell(x - radius), minCellX), toX = Math.min(getCell(x + radius), maxCellX);
+		int fromY = Math.max(getCell(y - radius), minCellY), toY = Math.min(getCell(y + radius), maxCellY);
+
+		for (int cellX = fromX; cellX <= toX; cellX++) {
+			for (int cellY = fromY; cellY <= toY; cellY++) {
+				List<Entry<T>> cell = cells.get(getKey(cellX, cellY));
+				if (cell == null) continue;
+				for (Entry<T> entry : cell) {
+					if (entry.getDistanceSq(x, y) > radiusSq) continue;
+					if (filter != null && !filter.accept(entry.item)) continue;
+					results.add(entry);
+				}
+			}
+		}
+		Collections.sort(results, BY_INDEX);
+		return results;
+	}
+
+	/**
+	 * Gets the {@code k} items closest to the point, searching outwards a ring of cells at a time.
+	 * @param x
+	 * @param y
+	 * @param k
+	 * @param filter Only items it accepts are returned. May be null.
+	 * @return The matching entries, nearest first. Entries at the same distance are in the order they were added.
+	 */
+	public List<Entry<T>> getNearest(float x, float y, int k, Filter<T> filter) {
+		List<Entry<T>> found = new ArrayList<>();
+		if (size == 0 || k <= 0) return found;
+		final float px = x, py = y;
+		Comparator<Entry<T>> byDist = new Comparator<Entry<T>>() {
+			@Override
+			public int compare(Entry<T> one, Entry<T> two) {
+				int result = Float.compare(one.getDistanceSq(px, py), two.getDistanceSq(px, py));
+				if (result != 0) return result;
+				return Integer.compare(one.index, two.index);
+			}
+		};
+
+		int centerX = getCell(x), centerY = getCell(y);
+		int maxRing = Math.max(Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+				Math.max(Math.abs(centerY - minCellY), Math.abs(maxCellY - centerY)));
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			for (int cellX = centerX - ring; cellX <= centerX + ring; cellX++) {
+				boolean edgeX = cellX == centerX - ring || cellX == centerX + ring;
+				// on the left and right edges, every cell is in the ring; elsewhere only the top and bottom ones
+				int step = edgeX ? 1 : Math.max(2 * ring, 1);
+				for (int cellY = centerY - ring; cellY <= centerY + ring; cellY += step) {
+					List<Entry<T>> cell = cells.get(getKey(cellX, cellY));
+					if (cell == null) continue;
+					for (Entry<T> entry : cell) {
+						if (filter != null && !filter.accept(entry.item)) continue;
+						found.add(entry);
+					}
+				}
+			}
+			// anything in the next ring is at least this far away
+			if (found.size() >= k) {
+				Collections.sort(found, byDist);
+				float safeDist = ring * cellSize;
+				if (found.get(k - 1).getDistanceSq(x, y) <= safeDist * safeDist) break;
+			}
+		}
+		Collections.sort(found, byDist);
+		if (found.size() > k) return new ArrayList<>(found.subList(0, k));
+		return found;
+	}
+
+	/**
+	 * Checks every item; for comparing against the grid queries.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param filter
+	 * @return Same as {@code getWithinRadius}.
+	 */
+	public List<Entry<T>> getWithinRadiusLinear(float x, float y, float radius, Filter<T> filter) {
+		List<Entry<T>> results = new ArrayList<>();
+		float radiusSq = radius * radius;
+		for (List<Entry<T>> cell : cells.values()) {
+			for (Entry<T> entry : cell) {
+				if (entry.getDistanceSq(x, y) > radiusSq) continue;
+				if (filter != null && !filter.accept(entry.item)) continue;
+				results.add(entry);
+			}
+		}
+		Collections.sort(results, BY_INDEX);
+		return results;
+	}
+
+	public static final Comparator<Entry<?>> BY_INDEX = new Comparator<Entry<?>>() {
+		@Override
+		public int compare(Entry<?> one, Entry<?> two) {
+			return Integer.compare(one.index, two.index);
+		}
+	};
+
+	public interface Filter<T> {
+		boolean accept(T item);
+	}
+
+	public static class Entry<T> {
+		public final T item;
+		public final float x, y;
+		/**
+		 * Order in which the entry was added to the grid.
+		 */
+		public final int index;
+
+		public Entry(T item, float x, float y, int index) {
+			this.item = item;
+			this.x = x;
+			this.y = y;
+			this.index = index;
+		}
+
+		public float getDistanceSq(float fromX, float fromY) {
+			float dx = x - fromX, dy = y - fromY;
+			return dx * dx + dy * dy;
+		}
+	}
+}
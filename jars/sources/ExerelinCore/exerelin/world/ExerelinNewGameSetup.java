@@ -263,7 +263,7 @@ public class ExerelinNewGameSetup implements SectorGeneratorPlugin
 		String toExecute = className + ".generatePt1(sector)";
 		String[] paramNames = {"sector"};
 		try {
-			NexUtils.runCode(toExecute, paramNames, null, sector);
+			NexUtils.runCodeFrom(ExerelinNewGameSetup.class.getName(), toExecute, paramNames, null, sector);
 		} catch (Exception ex) {
 			log.error("Failed to add Antioch to random sector", ex);
 		}
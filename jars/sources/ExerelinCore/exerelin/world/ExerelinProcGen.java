@@ -1469,7 +1469,7 @@ public class ExerelinProcGen {
 		String toExecute = "chaosCrack.addScript(new originem.al.scripts.campaign.AL_ChaosCrackFleetManager(chaosCrack));";
 		String[] paramNames = {"chaosCrack"};
 		try {
-			NexUtils.runCode(toExecute, paramNames, null, chaosCrack);
+			NexUtils.runCodeFrom(ExerelinProcGen.class.getName(), toExecute, paramNames, null, chaosCrack);
 		} catch (Exception ex) {
 			log.error("Failed to add fleet manager to Chaos rift", ex);
 		}
@@ -1540,7 +1540,7 @@ public class ExerelinProcGen {
 		String toExecute = "data.scripts.world.templars.TEM_Antioch.generatePt2(sector)";
 		String[] paramNames = {"sector"};
 		try {
-			NexUtils.runCode(toExecute, paramNames, null, sector);
+			NexUtils.runCodeFrom(ExerelinProcGen.class.getName(), toExecute, paramNames, null, sector);
 		} catch (Exception ex) {
 			log.error("Failed to add Antioch to random sector", ex);
 		}
@@ -196,7 +196,7 @@ public class NexMarketBuilder
 			Boolean enabled = false;
 			try {
 				String execute = "return data.scripts.UnderworldModPlugin.isStarlightCabalEnabled();";
-				enabled = (Boolean)NexUtils.runCode(execute, null, Boolean.class);
+				enabled = (Boolean)NexUtils.runCodeFrom(NexMarketBuilder.class.getName(), execute, null, Boolean.class);
 			} catch (Exception ex) {
 				log.error("Failed to read Starlight Cabal enabled state", ex);
 			}
@@ -40,7 +40,7 @@ public class VanillaSystemsGenerator {
 		//Global.getLogger(VanillaSystemsGenerator.class).info("Output: " + sb.toString());
 		try
 		{
-			NexUtils.runCode(sb.toString(), null, null, null);
+			NexUtils.runCodeFrom(VanillaSystemsGenerator.class.getName(), sb.toString(), null, null, null);
 		}
 		catch (Exception ex)
 		{
@@ -147,7 +147,7 @@ public class VanillaSystemsGenerator {
 		String str = "import data.scripts.world.SectorGen;\r\nSectorGen.initFactionRelationships(sector);";
 		String[] paramNames = {"sector"};
 		try {
-			NexUtils.runCode(str, paramNames, null, sector);
+			NexUtils.runCodeFrom(VanillaSystemsGenerator.class.getName(), str, paramNames, null, sector);
 		} catch (Exception ex) {
 			Global.getLogger(VanillaSystemsGenerator.class).error("Failed to run vanilla faction relationships", ex);
 		}